@@ -99,6 +99,8 @@ public class HColumnDescriptor implements ColumnFamilyDescriptor, Comparable<HCo
   public static final boolean DEFAULT_PREFETCH_BLOCKS_ON_OPEN = ColumnFamilyDescriptorBuilder.DEFAULT_PREFETCH_BLOCKS_ON_OPEN;
   public static final String NEW_VERSION_BEHAVIOR = ColumnFamilyDescriptorBuilder.NEW_VERSION_BEHAVIOR;
   public static final boolean DEFAULT_NEW_VERSION_BEHAVIOR = ColumnFamilyDescriptorBuilder.DEFAULT_NEW_VERSION_BEHAVIOR;
+  public static final String ROW_CACHE = ColumnFamilyDescriptorBuilder.ROW_CACHE;
+  public static final boolean DEFAULT_ROW_CACHE = ColumnFamilyDescriptorBuilder.DEFAULT_ROW_CACHE;
   protected final ModifyableColumnFamilyDescriptor delegatee;
 
   /**
@@ -441,6 +443,16 @@ public class HColumnDescriptor implements ColumnFamilyDescriptor, Comparable<HCo
     return this;
   }
 
+  @Override
+  public boolean isRowCacheEnabled() {
+    return delegatee.isRowCacheEnabled();
+  }
+
+  public HColumnDescriptor setRowCacheEnabled(boolean rowCacheEnabled) {
+    getDelegateeForModification().setRowCacheEnabled(rowCacheEnabled);
+    return this;
+  }
+
 
   @Override
   public int getTimeToLive() {
@@ -679,6 +679,18 @@ public class MetaTableAccessor {
     scanMeta(connection, tableName, QueryType.REGION, Integer.MAX_VALUE, visitor);
   }
 
+  /**
+   * Performs a scan of META for the regions of the given table, or of all tables if null, only
+   * visiting the rows accepted by <code>filter</code>.
+   * @param minTimestamp only the cells written at or after this timestamp are scanned
+   */
+  public static void scanMetaForTableRegions(Connection connection, Visitor visitor,
+      @Nullable TableName tableName, Filter filter, long minTimestamp) throws IOException {
+    scanMeta(connection, getTableStartRowForMeta(tableName, QueryType.REGION),
+      getTableStopRowForMeta(tableName, QueryType.REGION), QueryType.REGION, filter,
+      minTimestamp, Integer.MAX_VALUE, visitor);
+  }
+
   public static void scanMeta(Connection connection, TableName table, QueryType type, int maxRows,
       final Visitor visitor) throws IOException {
     scanMeta(connection, getTableStartRowForMeta(table, type), getTableStopRowForMeta(table, type),
@@ -731,12 +743,12 @@ public class MetaTableAccessor {
   public static void scanMeta(Connection connection, @Nullable final byte[] startRow,
       @Nullable final byte[] stopRow, QueryType type, int maxRows, final Visitor visitor)
       throws IOException {
-    scanMeta(connection, startRow, stopRow, type, null, maxRows, visitor);
+    scanMeta(connection, startRow, stopRow, type, null, 0, maxRows, visitor);
   }
 
   private static void scanMeta(Connection connection, @Nullable final byte[] startRow,
-      @Nullable final byte[] stopRow, QueryType type, @Nullable Filter filter, int maxRows,
-      final Visitor visitor) throws IOException {
+      @Nullable final byte[] stopRow, QueryType type, @Nullable Filter filter,
+      long minTimestamp, int maxRows, final Visitor visitor) throws IOException {
     int rowUpperLimit = maxRows > 0 ? maxRows : Integer.MAX_VALUE;
     Scan scan = getMetaScan(connection, rowUpperLimit);
 
@@ -752,6 +764,9 @@ public class MetaTableAccessor {
     if (filter != null) {
       scan.setFilter(filter);
     }
+    if (minTimestamp > 0) {
+      scan.setTimeRange(minTimestamp, HConstants.LATEST_TIMESTAMP);
+    }
 
     if (LOG.isTraceEnabled()) {
       LOG.trace("Scanning META" + " starting at row=" + Bytes.toStringBinary(startRow) +
@@ -2143,7 +2158,7 @@ public class MetaTableAccessor {
     List<String> list = new ArrayList<>();
     scanMeta(conn, getTableStartRowForMeta(tableName, QueryType.REPLICATION),
       getTableStopRowForMeta(tableName, QueryType.REPLICATION), QueryType.REPLICATION,
-      new FirstKeyOnlyFilter(), Integer.MAX_VALUE, r -> {
+      new FirstKeyOnlyFilter(), 0, Integer.MAX_VALUE, r -> {
         list.add(RegionInfo.encodeRegionName(r.getRow()));
         return true;
       });
@@ -87,6 +87,32 @@ public final class ServerMetricsBuilder {
       .setVersion(version).build();
   }
 
+  /**
+   * Like {@link #toServerMetrics(ServerName, int, String, ClusterStatusProtos.ServerLoad)}, but
+   * when the report only carries the region loads that changed, the loads of the other regions
+   * are taken from the previous metrics of the server rather than dropped.
+   * @param previous the metrics of the previous report of this server, may be null
+   */
+  public static ServerMetrics toServerMetrics(ServerName serverName, int versionNumber,
+      String version, ClusterStatusProtos.ServerLoad serverLoadPB,
+      @Nullable ServerMetrics previous) {
+    ServerMetrics metrics = toServerMetrics(serverName, versionNumber, version, serverLoadPB);
+    if (!serverLoadPB.getRegionLoadsDelta() || previous == null) {
+      return metrics;
+    }
+    Map<byte[], RegionMetrics> regionMetrics = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    regionMetrics.putAll(previous.getRegionMetrics());
+    serverLoadPB.getRemovedRegionNamesList()
+      .forEach(name -> regionMetrics.remove(name.toByteArray()));
+    regionMetrics.putAll(metrics.getRegionMetrics());
+    return new ServerMetricsImpl(metrics.getServerName(), metrics.getVersionNumber(),
+      metrics.getVersion(), metrics.getRequestCountPerSecond(), metrics.getRequestCount(),
+      metrics.getUsedHeapSize(), metrics.getMaxHeapSize(), metrics.getInfoServerPort(),
+      metrics.getReplicationLoadSourceList(), metrics.getReplicationLoadSink(), regionMetrics,
+      metrics.getCoprocessorNames(), metrics.getReportTimestamp(),
+      metrics.getLastReportTimestamp());
+  }
+
   public static List<HBaseProtos.Coprocessor> toCoprocessor(Collection<String> names) {
     return names.stream()
         .map(n -> HBaseProtos.Coprocessor.newBuilder().setName(n).build())
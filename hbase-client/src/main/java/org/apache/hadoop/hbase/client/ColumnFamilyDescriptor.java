@@ -246,4 +246,11 @@ public interface ColumnFamilyDescriptor {
    * We will also consider mvcc in versions. See HBASE-15968 for details.
    */
   boolean isNewVersionBehavior();
+
+  /**
+   * @return true if the region server should cache the results of the gets reading this family,
+   *         until a mutation of their row. Only gets reading families which all have it set and
+   *         which keep their cells forever are cached.
+   */
+  boolean isRowCacheEnabled();
 }
@@ -178,6 +178,10 @@ public class ColumnFamilyDescriptorBuilder {
   public static final String NEW_VERSION_BEHAVIOR = "NEW_VERSION_BEHAVIOR";
   private static final Bytes NEW_VERSION_BEHAVIOR_BYTES = new Bytes(Bytes.toBytes(NEW_VERSION_BEHAVIOR));
   public static final boolean DEFAULT_NEW_VERSION_BEHAVIOR = false;
+
+  public static final String ROW_CACHE = "ROW_CACHE";
+  private static final Bytes ROW_CACHE_BYTES = new Bytes(Bytes.toBytes(ROW_CACHE));
+  public static final boolean DEFAULT_ROW_CACHE = false;
   /**
    * Default compression type.
    */
@@ -300,6 +304,7 @@ public class ColumnFamilyDescriptorBuilder {
     DEFAULT_VALUES.put(EVICT_BLOCKS_ON_CLOSE, String.valueOf(DEFAULT_EVICT_BLOCKS_ON_CLOSE));
     DEFAULT_VALUES.put(PREFETCH_BLOCKS_ON_OPEN, String.valueOf(DEFAULT_PREFETCH_BLOCKS_ON_OPEN));
     DEFAULT_VALUES.put(NEW_VERSION_BEHAVIOR, String.valueOf(DEFAULT_NEW_VERSION_BEHAVIOR));
+    DEFAULT_VALUES.put(ROW_CACHE, String.valueOf(DEFAULT_ROW_CACHE));
     DEFAULT_VALUES.keySet().forEach(s -> RESERVED_KEYWORDS.add(new Bytes(Bytes.toBytes(s))));
     RESERVED_KEYWORDS.add(new Bytes(Bytes.toBytes(ENCRYPTION)));
     RESERVED_KEYWORDS.add(new Bytes(Bytes.toBytes(ENCRYPTION_KEY)));
@@ -557,6 +562,11 @@ public class ColumnFamilyDescriptorBuilder {
     return this;
   }
 
+  public ColumnFamilyDescriptorBuilder setRowCacheEnabled(final boolean value) {
+    desc.setRowCacheEnabled(value);
+    return this;
+  }
+
   public ColumnFamilyDescriptorBuilder setValue(final Bytes key, final Bytes value) {
     desc.setValue(key, value);
     return this;
@@ -908,6 +918,19 @@ public class ColumnFamilyDescriptorBuilder {
       return setValue(NEW_VERSION_BEHAVIOR_BYTES, Boolean.toString(newVersionBehavior));
     }
 
+    @Override
+    public boolean isRowCacheEnabled() {
+      return getStringOrDefault(ROW_CACHE_BYTES, Boolean::parseBoolean, DEFAULT_ROW_CACHE);
+    }
+
+    /**
+     * @param rowCacheEnabled true to cache the results of the gets reading this family
+     * @return this (for chained invocation)
+     */
+    public ModifyableColumnFamilyDescriptor setRowCacheEnabled(boolean rowCacheEnabled) {
+      return setValue(ROW_CACHE_BYTES, Boolean.toString(rowCacheEnabled));
+    }
+
     @Override
     public int getTimeToLive() {
       return getStringOrDefault(TTL_BYTES, Integer::parseInt, DEFAULT_TTL);
@@ -21,6 +21,7 @@ package org.apache.hadoop.hbase.filter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.NavigableSet;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.yetus.audience.InterfaceAudience;
@@ -233,6 +234,25 @@ public abstract class Filter {
    */
   abstract public boolean isFamilyEssential(byte[] name) throws IOException;
 
+  /**
+   * Check which qualifiers of an essential column family the filter needs to decide on a row, a
+   * row with none of them being filtered out. The other qualifiers of the family are then only read
+   * for the rows the filter lets through, like the families which are not essential. See
+   * {@link #isFamilyEssential(byte[])}.
+   *
+   * Concrete implementers can signal a failure condition in their code by throwing an
+   * {@link IOException}.
+   *
+   * @param name the name of an essential column family
+   * @return the qualifiers the filter needs, sorted by {@link
+   *         org.apache.hadoop.hbase.util.Bytes#BYTES_COMPARATOR}, or null if it may need any
+   *         qualifier of the family
+   * @throws IOException in case an I/O or an filter specific failure needs to be signaled.
+   */
+  public NavigableSet<byte[]> getEssentialQualifiers(byte[] name) throws IOException {
+    return null;
+  }
+
   /**
    * TODO: JAVADOC
    * 
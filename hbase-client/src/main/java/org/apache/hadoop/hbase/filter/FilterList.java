@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.Objects;
 
 import org.apache.hadoop.hbase.Cell;
@@ -250,6 +251,11 @@ final public class FilterList extends FilterBase {
     return this.filterListBase.isFamilyEssential(name);
   }
 
+  @Override
+  public NavigableSet<byte[]> getEssentialQualifiers(byte[] name) throws IOException {
+    return this.filterListBase.getEssentialQualifiers(name);
+  }
+
   @Override
   public void setReversed(boolean reversed) {
     this.reversed = reversed;
@@ -22,9 +22,12 @@ package org.apache.hadoop.hbase.filter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.yetus.audience.InterfaceAudience;
 
 /**
@@ -146,6 +149,26 @@ public abstract class FilterListBase extends FilterBase {
     return false;
   }
 
+  @Override
+  public NavigableSet<byte[]> getEssentialQualifiers(byte[] name) throws IOException {
+    if (this.filters.isEmpty()) {
+      return super.getEssentialQualifiers(name);
+    }
+    NavigableSet<byte[]> qualifiers = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    for (int i = 0, n = filters.size(); i < n; i++) {
+      Filter filter = filters.get(i);
+      if (!filter.isFamilyEssential(name)) {
+        continue;
+      }
+      NavigableSet<byte[]> filterQualifiers = filter.getEssentialQualifiers(name);
+      if (filterQualifiers == null) {
+        return null;
+      }
+      qualifiers.addAll(filterQualifiers);
+    }
+    return qualifiers;
+  }
+
   @Override
   public void setReversed(boolean reversed) {
     for (int i = 0, n = filters.size(); i < n; i++) {
@@ -20,7 +20,9 @@ package org.apache.hadoop.hbase.filter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.TreeSet;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellUtil;
@@ -379,6 +381,20 @@ public class SingleColumnValueFilter extends FilterBase {
     return !this.filterIfMissing || Bytes.equals(name, this.columnFamily);
   }
 
+  /**
+   * When rows without the column are filtered, the other qualifiers of the family need not be read
+   * before the filter decided on the row.
+   */
+  @Override
+  public NavigableSet<byte[]> getEssentialQualifiers(byte[] name) {
+    if (!this.filterIfMissing || !Bytes.equals(name, this.columnFamily)) {
+      return null;
+    }
+    NavigableSet<byte[]> qualifiers = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    qualifiers.add(this.columnQualifier);
+    return qualifiers;
+  }
+
   @Override
   public String toString() {
     return String.format("%s (%s, %s, %s, %s)",
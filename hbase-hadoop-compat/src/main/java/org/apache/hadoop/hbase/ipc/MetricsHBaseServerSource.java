@@ -97,6 +97,18 @@ public interface MetricsHBaseServerSource extends ExceptionTrackingSource {
   String NUM_LIFO_MODE_SWITCHES_NAME = "numLifoModeSwitches";
   String NUM_LIFO_MODE_SWITCHES_DESC = "Total number of calls in general queue which " +
     "were served from the tail of the queue";
+  String DIRECT_GET_HITS_NAME = "directGetHits";
+  String DIRECT_GET_HITS_DESC = "Number of gets predicted to be served from the cache and run " +
+    "on the thread which read them, without a handler";
+  String DIRECT_GET_MISSES_NAME = "directGetMisses";
+  String DIRECT_GET_MISSES_DESC = "Number of gets which might not be served from the cache and " +
+    "were queued for a handler";
+  String CALL_COST_NAME = "callCost";
+  String CALL_COST_DESC = "Measured cost of the calls run from cost based queues, in " +
+    "microseconds of handler time and bytes read and returned";
+  String ESTIMATED_CALL_COST_NAME = "estimatedCallCost";
+  String ESTIMATED_CALL_COST_DESC = "Cost estimated for the calls queued in cost based queues, " +
+    "from the calls before them with the same table, method and user";
   // Direct Memory Usage metrics
   String NETTY_DM_USAGE_NAME = "nettyDirectMemoryUsage";
 
@@ -126,4 +138,12 @@ public interface MetricsHBaseServerSource extends ExceptionTrackingSource {
   void processedCall(int processingTime);
 
   void queuedAndProcessedCall(int totalTime);
+
+  void directGetHit();
+
+  void directGetMiss();
+
+  void callCost(long cost);
+
+  void estimatedCallCost(long cost);
 }
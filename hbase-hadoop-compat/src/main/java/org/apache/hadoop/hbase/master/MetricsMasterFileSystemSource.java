@@ -54,6 +54,13 @@ public interface MetricsMasterFileSystemSource extends BaseSource {
   String SPLIT_TIME_DESC = "Time it takes to finish WAL.splitLog()";
   String SPLIT_SIZE_DESC = "Size of WAL files being split";
 
+  // Suffixes of the metrics of each cleaner chore, prefixed by the name of the chore
+  String CLEANER_DELETED_FILES = "_deletedFiles";
+  String CLEANER_DELETED_BYTES = "_deletedBytes";
+  String CLEANER_REMAINING_FILES = "_remainingFiles";
+  String CLEANER_FILES_PER_SECOND = "_deletedFilesPerSecond";
+  String CLEANER_BYTES_PER_SECOND = "_deletedBytesPerSecond";
+  String CLEANER_RUN_TIME = "_runTime";
 
   void updateMetaWALSplitTime(long time);
 
@@ -63,4 +70,15 @@ public interface MetricsMasterFileSystemSource extends BaseSource {
 
   void updateSplitSize(long size);
 
+  /**
+   * Update the metrics of a cleaner chore once it went through its directory.
+   * @param cleaner name of the cleaner chore
+   * @param deletedFiles number of files deleted by the run
+   * @param deletedBytes total length of the files deleted by the run
+   * @param remainingFiles number of files the run left in place, i.e. the backlog
+   * @param runTime time the run took, in milliseconds
+   */
+  void updateCleanerRun(String cleaner, long deletedFiles, long deletedBytes, long remainingFiles,
+      long runTime);
+
 }
@@ -185,6 +185,24 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
    */
   void updateFlushOutputSize(long bytes);
 
+  /**
+   * Update the region open time histogram
+   * @param t time it took to open the region, in milliseconds
+   */
+  void updateRegionOpenTime(long t);
+
+  /**
+   * Update the histogram of time spent opening the stores of a region
+   * @param t time it took to instantiate all stores and open their files, in milliseconds
+   */
+  void updateRegionOpenStoresTime(long t);
+
+  /**
+   * Update the histogram of time spent replaying recovered edits while opening a region
+   * @param t time it took to replay recovered edits, in milliseconds
+   */
+  void updateRegionOpenReplayTime(long t);
+
   /**
    * Update the compaction time histogram, both major and minor
    * @param isMajor whether compaction is a major compaction
@@ -500,6 +518,15 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
   String FLUSHED_MEMSTORE_BYTES = "flushedMemstoreBytes";
   String FLUSHED_MEMSTORE_BYTES_DESC = "Total number of bytes of cells in memstore from flush";
 
+  String REGION_OPEN_TIME = "regionOpenTime";
+  String REGION_OPEN_TIME_DESC = "Histogram for the time in millis to open a region";
+  String REGION_OPEN_STORES_TIME = "regionOpenStoresTime";
+  String REGION_OPEN_STORES_TIME_DESC =
+      "Histogram for the time in millis spent opening stores and store files of a region";
+  String REGION_OPEN_REPLAY_TIME = "regionOpenReplayTime";
+  String REGION_OPEN_REPLAY_TIME_DESC =
+      "Histogram for the time in millis spent replaying recovered edits when opening a region";
+
   String COMPACTION_TIME = "compactionTime";
   String COMPACTION_TIME_DESC
     = "Histogram for the time in millis for compaction, both major and minor";
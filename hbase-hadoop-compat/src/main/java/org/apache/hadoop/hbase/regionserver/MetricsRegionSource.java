@@ -53,6 +53,17 @@ public interface MetricsRegionSource extends Comparable<MetricsRegionSource> {
   String COPROCESSOR_EXECUTION_STATISTICS_DESC = "Statistics for coprocessor execution times";
   String REPLICA_ID = "replicaid";
   String REPLICA_ID_DESC = "The replica ID of a region. 0 is primary, otherwise is secondary";
+  String STORAGE_POLICY_PREFIX = "storagePolicy_";
+  String STORAGE_POLICY_STOREFILE_COUNT_DESC =
+      "Number of store files of this region with the storage policy";
+  String STORAGE_POLICY_STOREFILE_SIZE_DESC =
+      "Size of the store files of this region with the storage policy";
+  String ROW_LOCK_WAIT_COUNT = "rowLockWaitCount";
+  String ROW_LOCK_WAIT_COUNT_DESC =
+      "Number of row lock acquisitions in this region which had to wait for the lock";
+  String ROW_LOCK_WAIT_TIME = "rowLockWaitTime";
+  String ROW_LOCK_WAIT_TIME_DESC =
+      "Total time in milliseconds spent waiting for the row locks of this region";
 
   /**
    * Close the region's metrics as this region is closing.
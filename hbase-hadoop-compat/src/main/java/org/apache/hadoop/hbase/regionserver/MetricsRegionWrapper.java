@@ -18,6 +18,7 @@
 
 package org.apache.hadoop.hbase.regionserver;
 
+import java.util.Map;
 import org.apache.yetus.audience.InterfaceAudience;
 
 /**
@@ -67,6 +68,16 @@ public interface MetricsRegionWrapper {
    */
   long getStoreFileSize();
 
+  /**
+   * @return the number of store files of the region by the storage policy they are written with
+   */
+  Map<String, Long> getNumStoreFilesByStoragePolicy();
+
+  /**
+   * @return the size of the store files of the region by the storage policy they are written with
+   */
+  Map<String, Long> getStoreFileSizeByStoragePolicy();
+
   /**
    * Get the total number of read requests that have been issued against this region
    */
@@ -153,6 +164,16 @@ public interface MetricsRegionWrapper {
    */
   long getMaxFlushQueueSize();
 
+  /**
+   * @return the number of row lock acquisitions which had to wait for the lock
+   */
+  long getRowLockWaitCount();
+
+  /**
+   * @return the total time in milliseconds spent waiting for row locks
+   */
+  long getRowLockWaitTime();
+
   int getRegionHashCode();
 
   /**
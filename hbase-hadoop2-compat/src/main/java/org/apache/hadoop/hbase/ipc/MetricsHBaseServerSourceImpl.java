@@ -38,6 +38,8 @@ public class MetricsHBaseServerSourceImpl extends ExceptionTrackingSourceImpl
   private final MutableFastCounter authenticationFallbacks;
   private final MutableFastCounter sentBytes;
   private final MutableFastCounter receivedBytes;
+  private final MutableFastCounter directGetHits;
+  private final MutableFastCounter directGetMisses;
 
 
   private MetricHistogram queueCallTime;
@@ -45,6 +47,8 @@ public class MetricsHBaseServerSourceImpl extends ExceptionTrackingSourceImpl
   private MetricHistogram totalCallTime;
   private MetricHistogram requestSize;
   private MetricHistogram responseSize;
+  private MetricHistogram callCost;
+  private MetricHistogram estimatedCallCost;
 
   public MetricsHBaseServerSourceImpl(String metricsName,
                                       String metricsDescription,
@@ -68,6 +72,10 @@ public class MetricsHBaseServerSourceImpl extends ExceptionTrackingSourceImpl
         SENT_BYTES_DESC, 0L);
     this.receivedBytes = this.getMetricsRegistry().newCounter(RECEIVED_BYTES_NAME,
         RECEIVED_BYTES_DESC, 0L);
+    this.directGetHits = this.getMetricsRegistry().newCounter(DIRECT_GET_HITS_NAME,
+        DIRECT_GET_HITS_DESC, 0L);
+    this.directGetMisses = this.getMetricsRegistry().newCounter(DIRECT_GET_MISSES_NAME,
+        DIRECT_GET_MISSES_DESC, 0L);
     this.queueCallTime = this.getMetricsRegistry().newTimeHistogram(QUEUE_CALL_TIME_NAME,
         QUEUE_CALL_TIME_DESC);
     this.processCallTime = this.getMetricsRegistry().newTimeHistogram(PROCESS_CALL_TIME_NAME,
@@ -78,6 +86,9 @@ public class MetricsHBaseServerSourceImpl extends ExceptionTrackingSourceImpl
         REQUEST_SIZE_DESC);
     this.responseSize = this.getMetricsRegistry().newSizeHistogram(RESPONSE_SIZE_NAME,
               RESPONSE_SIZE_DESC);
+    this.callCost = this.getMetricsRegistry().newHistogram(CALL_COST_NAME, CALL_COST_DESC);
+    this.estimatedCallCost = this.getMetricsRegistry().newHistogram(ESTIMATED_CALL_COST_NAME,
+        ESTIMATED_CALL_COST_DESC);
   }
 
   @Override
@@ -115,6 +126,26 @@ public class MetricsHBaseServerSourceImpl extends ExceptionTrackingSourceImpl
     this.receivedBytes.incr(count);
   }
 
+  @Override
+  public void directGetHit() {
+    directGetHits.incr();
+  }
+
+  @Override
+  public void directGetMiss() {
+    directGetMisses.incr();
+  }
+
+  @Override
+  public void callCost(long cost) {
+    callCost.add(cost);
+  }
+
+  @Override
+  public void estimatedCallCost(long cost) {
+    estimatedCallCost.add(cost);
+  }
+
   @Override
   public void sentResponse(long count) {
     this.responseSize.add(count);
@@ -72,4 +72,18 @@ public class MetricsMasterFilesystemSourceImpl
   public void updateMetaWALSplitSize(long size) {
     metaSplitSizeHisto.add(size);
   }
+
+  @Override
+  public void updateCleanerRun(String cleaner, long deletedFiles, long deletedBytes,
+      long remainingFiles, long runTime) {
+    metricsRegistry.getCounter(cleaner + CLEANER_DELETED_FILES, 0L).incr(deletedFiles);
+    metricsRegistry.getCounter(cleaner + CLEANER_DELETED_BYTES, 0L).incr(deletedBytes);
+    metricsRegistry.getGauge(cleaner + CLEANER_REMAINING_FILES, 0L).set(remainingFiles);
+    double runTimeSeconds = Math.max(1L, runTime) / 1000.0;
+    metricsRegistry.getGauge(cleaner + CLEANER_FILES_PER_SECOND, 0L)
+        .set((long) (deletedFiles / runTimeSeconds));
+    metricsRegistry.getGauge(cleaner + CLEANER_BYTES_PER_SECOND, 0L)
+        .set((long) (deletedBytes / runTimeSeconds));
+    metricsRegistry.getGauge(cleaner + CLEANER_RUN_TIME, 0L).set(runTime);
+  }
 }
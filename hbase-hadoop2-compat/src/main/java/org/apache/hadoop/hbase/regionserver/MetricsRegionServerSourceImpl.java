@@ -67,6 +67,11 @@ public class MetricsRegionServerSourceImpl
   private final MutableFastCounter flushedMemstoreBytes;
   private final MutableFastCounter flushedOutputBytes;
 
+  // region open related metrics
+  private final MetricHistogram regionOpenTimeHisto;
+  private final MetricHistogram regionOpenStoresTimeHisto;
+  private final MetricHistogram regionOpenReplayTimeHisto;
+
   // compaction related metrics
   private final MetricHistogram compactionTimeHisto;
   private final MetricHistogram compactionInputFileCountHisto;
@@ -136,6 +141,13 @@ public class MetricsRegionServerSourceImpl
     flushedMemstoreBytes = getMetricsRegistry().newCounter(FLUSHED_MEMSTORE_BYTES,
       FLUSHED_MEMSTORE_BYTES_DESC, 0L);
 
+    regionOpenTimeHisto = getMetricsRegistry()
+        .newTimeHistogram(REGION_OPEN_TIME, REGION_OPEN_TIME_DESC);
+    regionOpenStoresTimeHisto = getMetricsRegistry()
+        .newTimeHistogram(REGION_OPEN_STORES_TIME, REGION_OPEN_STORES_TIME_DESC);
+    regionOpenReplayTimeHisto = getMetricsRegistry()
+        .newTimeHistogram(REGION_OPEN_REPLAY_TIME, REGION_OPEN_REPLAY_TIME_DESC);
+
     compactionTimeHisto = getMetricsRegistry()
         .newTimeHistogram(COMPACTION_TIME, COMPACTION_TIME_DESC);
     compactionInputFileCountHisto = getMetricsRegistry()
@@ -276,6 +288,21 @@ public class MetricsRegionServerSourceImpl
     flushedOutputBytes.incr(bytes);
   }
 
+  @Override
+  public void updateRegionOpenTime(long t) {
+    regionOpenTimeHisto.add(t);
+  }
+
+  @Override
+  public void updateRegionOpenStoresTime(long t) {
+    regionOpenStoresTimeHisto.add(t);
+  }
+
+  @Override
+  public void updateRegionOpenReplayTime(long t) {
+    regionOpenReplayTimeHisto.add(t);
+  }
+
   @Override
   public void updateCompactionTime(boolean isMajor, long t) {
     compactionTimeHisto.add(t);
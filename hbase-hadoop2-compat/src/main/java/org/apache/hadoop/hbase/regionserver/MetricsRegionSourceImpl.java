@@ -18,6 +18,7 @@
 
 package org.apache.hadoop.hbase.regionserver;
 
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.hadoop.hbase.metrics.Interns;
@@ -241,6 +242,18 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
               regionNamePrefix + MetricsRegionServerSource.STOREFILE_SIZE,
               MetricsRegionServerSource.STOREFILE_SIZE_DESC),
           this.regionWrapper.getStoreFileSize());
+      for (Map.Entry<String, Long> entry :
+          this.regionWrapper.getNumStoreFilesByStoragePolicy().entrySet()) {
+        mrb.addGauge(Interns.info(regionNamePrefix + MetricsRegionSource.STORAGE_POLICY_PREFIX
+            + entry.getKey() + "_" + MetricsRegionServerSource.STOREFILE_COUNT,
+          MetricsRegionSource.STORAGE_POLICY_STOREFILE_COUNT_DESC), entry.getValue());
+      }
+      for (Map.Entry<String, Long> entry :
+          this.regionWrapper.getStoreFileSizeByStoragePolicy().entrySet()) {
+        mrb.addGauge(Interns.info(regionNamePrefix + MetricsRegionSource.STORAGE_POLICY_PREFIX
+            + entry.getKey() + "_" + MetricsRegionServerSource.STOREFILE_SIZE,
+          MetricsRegionSource.STORAGE_POLICY_STOREFILE_SIZE_DESC), entry.getValue());
+      }
       mrb.addCounter(Interns.info(
               regionNamePrefix + MetricsRegionSource.COMPACTIONS_COMPLETED_COUNT,
               MetricsRegionSource.COMPACTIONS_COMPLETED_DESC),
@@ -297,6 +310,14 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
               regionNamePrefix + MetricsRegionSource.MAX_FLUSH_QUEUE_SIZE,
               MetricsRegionSource.MAX_FLUSH_QUEUE_DESC),
           this.regionWrapper.getMaxFlushQueueSize());
+      mrb.addCounter(Interns.info(
+              regionNamePrefix + MetricsRegionSource.ROW_LOCK_WAIT_COUNT,
+              MetricsRegionSource.ROW_LOCK_WAIT_COUNT_DESC),
+          this.regionWrapper.getRowLockWaitCount());
+      mrb.addCounter(Interns.info(
+              regionNamePrefix + MetricsRegionSource.ROW_LOCK_WAIT_TIME,
+              MetricsRegionSource.ROW_LOCK_WAIT_TIME_DESC),
+          this.regionWrapper.getRowLockWaitTime());
     }
   }
 
@@ -20,6 +20,8 @@ package org.apache.hadoop.hbase.regionserver;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
+import java.util.Collections;
+import java.util.Map;
 import org.apache.hadoop.hbase.CompatibilitySingletonFactory;
 import org.apache.hadoop.hbase.HBaseClassTestRule;
 import org.apache.hadoop.hbase.testclassification.MetricsTests;
@@ -94,6 +96,16 @@ public class TestMetricsRegionSourceImpl {
       return 0;
     }
 
+    @Override
+    public Map<String, Long> getNumStoreFilesByStoragePolicy() {
+      return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Long> getStoreFileSizeByStoragePolicy() {
+      return Collections.emptyMap();
+    }
+
     @Override
     public long getStoreRefCount() {
       return 0;
@@ -207,6 +219,16 @@ public class TestMetricsRegionSourceImpl {
       return 0;
     }
 
+    @Override
+    public long getRowLockWaitCount() {
+      return 0;
+    }
+
+    @Override
+    public long getRowLockWaitTime() {
+      return 0;
+    }
+
     @Override
     public long getTotalRequestCount() {
       return 0;
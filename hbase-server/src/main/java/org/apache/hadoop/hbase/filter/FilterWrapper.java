@@ -21,6 +21,7 @@ package org.apache.hadoop.hbase.filter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.NavigableSet;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.yetus.audience.InterfaceAudience;
@@ -154,6 +155,11 @@ final public class FilterWrapper extends Filter {
     return filter.isFamilyEssential(name);
   }
 
+  @Override
+  public NavigableSet<byte[]> getEssentialQualifiers(byte[] name) throws IOException {
+    return filter.getEssentialQualifiers(name);
+  }
+
   /**
    * @param o the other filter to compare with
    * @return true if and only if the fields of the filter that are serialized
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.filter;
+
+import java.io.IOException;
+import java.util.NavigableSet;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.yetus.audience.InterfaceAudience;
+
+/**
+ * Server side filter of the scanner reading the qualifiers of an essential family which the
+ * filter of the scan does not need to decide on a row, see
+ * {@link Filter#getEssentialQualifiers(byte[])}. It skips the essential qualifiers, which the
+ * scanner of the essential family already read, and passes the other cells to the filter of the
+ * scan like the cells of a family which is not essential. Never serialized.
+ */
+@InterfaceAudience.Private
+public class NonEssentialColumnsFilter extends FilterBase {
+  private final Filter filter;
+  private final NavigableSet<byte[]> essentialQualifiers;
+
+  public NonEssentialColumnsFilter(Filter filter, NavigableSet<byte[]> essentialQualifiers) {
+    this.filter = filter;
+    this.essentialQualifiers = essentialQualifiers;
+  }
+
+  @Override
+  public boolean filterAllRemaining() throws IOException {
+    return filter.filterAllRemaining();
+  }
+
+  @Override
+  public ReturnCode filterCell(Cell c) throws IOException {
+    for (byte[] qualifier : essentialQualifiers) {
+      if (CellUtil.matchingQualifier(c, qualifier)) {
+        return ReturnCode.NEXT_COL;
+      }
+    }
+    return filter.filterCell(c);
+  }
+
+  @Override
+  public Cell transformCell(Cell v) throws IOException {
+    return filter.transformCell(v);
+  }
+
+  @Override
+  public Cell getNextCellHint(Cell currentCell) throws IOException {
+    return filter.getNextCellHint(currentCell);
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + " " + this.filter.toString();
+  }
+}
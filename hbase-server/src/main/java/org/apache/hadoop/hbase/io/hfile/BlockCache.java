@@ -18,7 +18,9 @@
  */
 package org.apache.hadoop.hbase.io.hfile;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.yetus.audience.InterfaceAudience;
 import org.apache.hadoop.hbase.io.hfile.Cacheable.MemoryType;
@@ -56,6 +58,15 @@ public interface BlockCache extends Iterable<CachedBlock> {
   Cacheable getBlock(BlockCacheKey cacheKey, boolean caching, boolean repeat,
     boolean updateCacheMetrics);
 
+  /**
+   * Whether the cache holds the block, without fetching it nor counting a hit or a miss.
+   * @param cacheKey Block to look for.
+   * @return true if the block is cached, false if it is not or if the cache can not tell cheaply.
+   */
+  default boolean containsBlock(BlockCacheKey cacheKey) {
+    return false;
+  }
+
   /**
    * Evict block from cache.
    * @param cacheKey Block to evict
@@ -70,6 +81,22 @@ public interface BlockCache extends Iterable<CachedBlock> {
    */
   int evictBlocksByHfileName(String hfileName);
 
+  /**
+   * Gets the data blocks of the given HFile held by the cache. Caches which do not index their
+   * blocks by file go over all their blocks.
+   * @return the cached data blocks of the file, and the blocks of the file of unknown type
+   */
+  default List<CachedBlock> getDataBlocksByHfileName(String hfileName) {
+    List<CachedBlock> blocks = new ArrayList<>();
+    for (CachedBlock block : this) {
+      if (block.getFilename().equals(hfileName)
+          && (block.getBlockType() == null || block.getBlockType().isData())) {
+        blocks.add(block);
+      }
+    }
+    return blocks;
+  }
+
   /**
    * Get the statistics for this block cache.
    * @return Stats
@@ -69,6 +69,21 @@ public final class BlockCacheFactory {
    */
   public static final String BUCKET_CACHE_BUCKETS_KEY = "hbase.bucketcache.bucket.sizes";
 
+  /**
+   * IOEngine of an optional second bucket cache tier, e.g. <code>file:/mnt/nvme/bucketcache</code>.
+   * The blocks the first tier evicts for lack of space are demoted to it, and promoted back when
+   * read again.
+   */
+  public static final String BUCKET_CACHE_TIER2_IOENGINE_KEY = "hbase.bucketcache.tier2.ioengine";
+
+  /**
+   * Capacity of the second bucket cache tier, in megabytes.
+   */
+  public static final String BUCKET_CACHE_TIER2_SIZE_KEY = "hbase.bucketcache.tier2.size";
+
+  public static final String BUCKET_CACHE_TIER2_PERSISTENT_PATH_KEY =
+      "hbase.bucketcache.tier2.persistent.path";
+
   /**
    * Defaults for Bucket cache
    */
@@ -189,7 +204,6 @@ public final class BlockCacheFactory {
       return null;
     }
 
-    int blockSize = c.getInt(BLOCKCACHE_BLOCKSIZE_KEY, HConstants.DEFAULT_BLOCKSIZE);
     final long bucketCacheSize = MemorySizeUtil.getBucketCacheSize(c);
     if (bucketCacheSize <= 0) {
       throw new IllegalStateException("bucketCacheSize <= 0; Check " +
@@ -199,11 +213,29 @@ public final class BlockCacheFactory {
       LOG.warn("Configuration 'hbase.bucketcache.percentage.in.combinedcache' is no longer "
           + "respected. See comments in http://hbase.apache.org/book.html#_changes_of_note");
     }
+    BucketCache bucketCache = createBucketCache(c, bucketCacheIOEngineName, bucketCacheSize,
+      c.get(BUCKET_CACHE_PERSISTENT_PATH_KEY));
+
+    String tier2IOEngineName = c.get(BUCKET_CACHE_TIER2_IOENGINE_KEY, null);
+    if (tier2IOEngineName != null && tier2IOEngineName.length() > 0) {
+      long tier2Size = c.getLong(BUCKET_CACHE_TIER2_SIZE_KEY, 0) * 1024 * 1024;
+      if (tier2Size <= 0) {
+        throw new IllegalStateException("Second bucket cache tier size <= 0; Check " +
+            BUCKET_CACHE_TIER2_SIZE_KEY + " setting");
+      }
+      bucketCache.setVictimCache(createBucketCache(c, tier2IOEngineName, tier2Size,
+        c.get(BUCKET_CACHE_TIER2_PERSISTENT_PATH_KEY)));
+    }
+    return bucketCache;
+  }
+
+  private static BucketCache createBucketCache(Configuration c, String bucketCacheIOEngineName,
+      long bucketCacheSize, String persistentPath) {
+    int blockSize = c.getInt(BLOCKCACHE_BLOCKSIZE_KEY, HConstants.DEFAULT_BLOCKSIZE);
     int writerThreads = c.getInt(BUCKET_CACHE_WRITER_THREADS_KEY,
         DEFAULT_BUCKET_CACHE_WRITER_THREADS);
     int writerQueueLen = c.getInt(BUCKET_CACHE_WRITER_QUEUE_KEY,
         DEFAULT_BUCKET_CACHE_WRITER_QUEUE);
-    String persistentPath = c.get(BUCKET_CACHE_PERSISTENT_PATH_KEY);
     String[] configuredBucketSizes = c.getStrings(BUCKET_CACHE_BUCKETS_KEY);
     int [] bucketSizes = null;
     if (configuredBucketSizes != null) {
@@ -20,6 +20,7 @@ package org.apache.hadoop.hbase.io.hfile;
 import java.util.Optional;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.client.ColumnFamilyDescriptor;
 import org.apache.hadoop.hbase.io.hfile.BlockType.BlockCategory;
 import org.apache.yetus.audience.InterfaceAudience;
@@ -80,6 +81,13 @@ public class CacheConfig {
    */
   public static final String PREFETCH_BLOCKS_ON_OPEN_KEY = "hbase.rs.prefetchblocksonopen";
 
+  /**
+   * Configuration key to cache on write only the data blocks of compacted files which cover the
+   * key ranges hot in the block cache before the compaction, see {@link HotKeyRanges}.
+   */
+  public static final String CACHE_HOT_BLOCKS_ON_COMPACTION_KEY =
+      "hbase.rs.cachehotblocksoncompaction";
+
   public static final String DROP_BEHIND_CACHE_COMPACTION_KEY =
       "hbase.hfile.drop.behind.compaction";
 
@@ -93,6 +101,7 @@ public class CacheConfig {
   public static final boolean DEFAULT_CACHE_DATA_COMPRESSED = false;
   public static final boolean DEFAULT_PREFETCH_ON_OPEN = false;
   public static final boolean DROP_BEHIND_CACHE_COMPACTION_DEFAULT = true;
+  public static final boolean DEFAULT_CACHE_HOT_BLOCKS_ON_COMPACTION = false;
 
   /**
    * Whether blocks should be cached on read (default is on if there is a
@@ -125,6 +134,12 @@ public class CacheConfig {
 
   private final boolean dropBehindCompaction;
 
+  /** Whether compactions cache the output blocks covering the hot key ranges of their inputs */
+  private final boolean cacheHotBlocksOnCompaction;
+
+  /** Key ranges of the data blocks to cache on write, on top of {@link #cacheDataOnWrite} */
+  private HotKeyRanges cacheOnWriteKeyRanges;
+
   // Local reference to the block cache
   private final BlockCache blockCache;
 
@@ -155,6 +170,8 @@ public class CacheConfig {
         conf.getBoolean(CACHE_DATA_BLOCKS_COMPRESSED_KEY, DEFAULT_CACHE_DATA_COMPRESSED);
     this.dropBehindCompaction =
         conf.getBoolean(DROP_BEHIND_CACHE_COMPACTION_KEY, DROP_BEHIND_CACHE_COMPACTION_DEFAULT);
+    this.cacheHotBlocksOnCompaction = conf.getBoolean(CACHE_HOT_BLOCKS_ON_COMPACTION_KEY,
+      DEFAULT_CACHE_HOT_BLOCKS_ON_COMPACTION);
     // For the following flags we enable them regardless of per-schema settings
     // if they are enabled in the global configuration.
     this.cacheDataOnWrite =
@@ -189,6 +206,7 @@ public class CacheConfig {
     this.cacheDataCompressed = cacheConf.cacheDataCompressed;
     this.prefetchOnOpen = cacheConf.prefetchOnOpen;
     this.dropBehindCompaction = cacheConf.dropBehindCompaction;
+    this.cacheHotBlocksOnCompaction = cacheConf.cacheHotBlocksOnCompaction;
     this.blockCache = cacheConf.blockCache;
   }
 
@@ -202,6 +220,7 @@ public class CacheConfig {
     this.cacheDataCompressed = false;
     this.prefetchOnOpen = false;
     this.dropBehindCompaction = false;
+    this.cacheHotBlocksOnCompaction = false;
     this.blockCache = null;
   }
 
@@ -252,6 +271,32 @@ public class CacheConfig {
     this.cacheDataOnWrite = cacheDataOnWrite;
   }
 
+  /**
+   * @param firstCell first cell of the data block
+   * @param lastCell last cell of the data block
+   * @return true if the data block should be written to the cache, either because all data
+   *         blocks are or because it overlaps the key ranges to cache
+   */
+  public boolean shouldCacheDataBlockOnWrite(Cell firstCell, Cell lastCell) {
+    return this.cacheDataOnWrite || (this.cacheOnWriteKeyRanges != null
+        && this.cacheOnWriteKeyRanges.overlaps(firstCell, lastCell));
+  }
+
+  /**
+   * @param cacheOnWriteKeyRanges key ranges of the data blocks to cache when an HFile is written
+   */
+  public void setCacheOnWriteKeyRanges(HotKeyRanges cacheOnWriteKeyRanges) {
+    this.cacheOnWriteKeyRanges = cacheOnWriteKeyRanges;
+  }
+
+  /**
+   * @return true if compactions should cache on write the output blocks covering the key ranges
+   *         which were hot in their input files
+   */
+  public boolean shouldCacheHotBlocksOnCompaction() {
+    return this.cacheHotBlocksOnCompaction && this.blockCache != null;
+  }
+
   /**
    * @return true if index blocks should be written to the cache when an HFile
    *         is written, false if not
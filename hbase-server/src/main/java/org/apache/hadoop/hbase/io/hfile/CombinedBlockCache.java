@@ -19,6 +19,7 @@
 package org.apache.hadoop.hbase.io.hfile;
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.yetus.audience.InterfaceAudience;
 import org.apache.hadoop.hbase.io.HeapSize;
@@ -86,6 +87,11 @@ public class CombinedBlockCache implements ResizableBlockCache, HeapSize {
         l2Cache.getBlock(cacheKey, caching, repeat, updateCacheMetrics);
   }
 
+  @Override
+  public boolean containsBlock(BlockCacheKey cacheKey) {
+    return l1Cache.containsBlock(cacheKey) || l2Cache.containsBlock(cacheKey);
+  }
+
   @Override
   public boolean evictBlock(BlockCacheKey cacheKey) {
     return l1Cache.evictBlock(cacheKey) || l2Cache.evictBlock(cacheKey);
@@ -97,6 +103,12 @@ public class CombinedBlockCache implements ResizableBlockCache, HeapSize {
         + l2Cache.evictBlocksByHfileName(hfileName);
   }
 
+  @Override
+  public List<CachedBlock> getDataBlocksByHfileName(String hfileName) {
+    // the data blocks are all cached in L2
+    return l2Cache.getDataBlocksByHfileName(hfileName);
+  }
+
   @Override
   public CacheStats getStats() {
     return this.combinedCacheStats;
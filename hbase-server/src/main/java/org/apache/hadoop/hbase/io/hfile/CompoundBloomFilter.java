@@ -156,6 +156,25 @@ public class CompoundBloomFilter extends CompoundBloomFilterBase
     return result;
   }
 
+  /**
+   * Whether looking the key up reads no chunk, or only one in the block cache.
+   */
+  public boolean isChunkCached(byte[] key, int keyOffset, int keyLength) {
+    return isChunkCached(index.rootBlockContainingKey(key, keyOffset, keyLength));
+  }
+
+  /**
+   * Whether looking the key up reads no chunk, or only one in the block cache.
+   */
+  public boolean isChunkCached(Cell keyCell) {
+    return isChunkCached(index.rootBlockContainingKey(keyCell));
+  }
+
+  private boolean isChunkCached(int block) {
+    // A key not in the file reads no chunk
+    return block < 0 || reader.isBlockCached(index.getRootBlockOffset(block));
+  }
+
   @Override
   public boolean supportsAutoLoading() {
     return true;
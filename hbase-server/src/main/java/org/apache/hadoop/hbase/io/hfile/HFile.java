@@ -452,6 +452,18 @@ public class HFile {
 
     HFileBlockIndex.BlockIndexReader getDataBlockIndexReader();
 
+    /**
+     * Predicts, from the data block index and without reading the file, whether seeking to the
+     * key reads its data block from the block cache.
+     * @return false if the data block, or an index block on the way to it, might not be cached
+     */
+    boolean isDataBlockCached(Cell key);
+
+    /**
+     * @return whether the block at the offset of the file is in the block cache
+     */
+    boolean isBlockCached(long offset);
+
     HFileScanner getScanner(boolean cacheBlocks, boolean pread);
 
     Compression.Algorithm getCompressionAlgorithm();
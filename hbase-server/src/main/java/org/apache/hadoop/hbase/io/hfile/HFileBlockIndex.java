@@ -287,6 +287,39 @@ public class HFileBlockIndex {
       return blockKeys[i];
     }
 
+    /**
+     * Walks down the intermediate and leaf index blocks to the data block holding the key, as
+     * long as they all are in the block cache. The file is never read.
+     */
+    @Override
+    boolean isDataBlockCached(Cell key, String hfileName, BlockCache blockCache) {
+      if (isEmpty()) {
+        return false;
+      }
+      // a key before the first one of the file is looked for in the first block
+      long offset = blockOffsets[Math.max(rootBlockContainingKey(key), 0)];
+      for (int level = 1; level < searchTreeLevel; level++) {
+        BlockCacheKey cacheKey = new BlockCacheKey(hfileName, offset);
+        Cacheable cached = blockCache.getBlock(cacheKey, false, false, false);
+        if (cached == null) {
+          return false;
+        }
+        try {
+          if (!(cached instanceof HFileBlock) || !((HFileBlock) cached).isUnpacked()) {
+            return false;
+          }
+          ByteBuff buffer = ((HFileBlock) cached).getBufferWithoutHeader();
+          if (locateNonRootIndexEntry(buffer, key, comparator) == -1) {
+            return false;
+          }
+          offset = buffer.getLong();
+        } finally {
+          blockCache.returnBlock(cacheKey, cached);
+        }
+      }
+      return blockCache.containsBlock(new BlockCacheKey(hfileName, offset));
+    }
+
     @Override
     public BlockWithScanInfo loadDataBlockWithScanInfo(Cell key, HFileBlock currentBlock,
         boolean cacheBlocks, boolean pread, boolean isCompaction,
@@ -612,6 +645,21 @@ public class HFileBlockIndex {
      */
     public abstract Cell midkey() throws IOException;
 
+    /**
+     * Whether the data block holding the key is in the block cache. Here only single level
+     * indexes, whose root points at the data blocks, can tell; cell based indexes also walk down
+     * the cached index blocks.
+     * @param hfileName the name the blocks of the file are cached with
+     */
+    boolean isDataBlockCached(Cell key, String hfileName, BlockCache blockCache) {
+      if (searchTreeLevel != 1 || isEmpty()) {
+        return false;
+      }
+      // a key before the first one of the file is looked for in the first block
+      int i = Math.max(rootBlockContainingKey(key), 0);
+      return blockCache.containsBlock(new BlockCacheKey(hfileName, blockOffsets[i]));
+    }
+
     /**
      * @param i from 0 to {@link #getRootBlockCount() - 1}
      */
@@ -1688,4 +1736,22 @@ public class HFileBlockIndex {
   public static int getMinIndexNumEntries(Configuration conf) {
     return conf.getInt(MIN_INDEX_NUM_ENTRIES_KEY, DEFAULT_MIN_INDEX_NUM_ENTRIES);
   }
+
+  /**
+   * @param reader an HFile reader
+   * @return the keys of the root level of the data block index of the file, each one starting
+   *         about the same share of the file, or an empty list if the index is not cell based
+   */
+  public static List<Cell> getRootBlockKeys(HFile.Reader reader) {
+    BlockIndexReader indexReader = reader.getDataBlockIndexReader();
+    if (!(indexReader instanceof CellBasedKeyBlockIndexReader)) {
+      return Collections.emptyList();
+    }
+    CellBasedKeyBlockIndexReader cellIndexReader = (CellBasedKeyBlockIndexReader) indexReader;
+    List<Cell> keys = new ArrayList<>(cellIndexReader.getRootBlockCount());
+    for (int i = 0; i < cellIndexReader.getRootBlockCount(); i++) {
+      keys.add(cellIndexReader.getRootBlockKey(i));
+    }
+    return keys;
+  }
 }
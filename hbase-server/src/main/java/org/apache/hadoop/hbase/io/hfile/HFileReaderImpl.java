@@ -458,6 +458,19 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     return dataBlockIndexReader;
   }
 
+  @Override
+  public boolean isDataBlockCached(Cell key) {
+    BlockCache blockCache = cacheConf.getBlockCache().orElse(null);
+    return blockCache != null && dataBlockIndexReader != null
+        && dataBlockIndexReader.isDataBlockCached(key, name, blockCache);
+  }
+
+  @Override
+  public boolean isBlockCached(long offset) {
+    BlockCache blockCache = cacheConf.getBlockCache().orElse(null);
+    return blockCache != null && blockCache.containsBlock(new BlockCacheKey(name, offset));
+  }
+
   @Override
   public FixedFileTrailer getTrailer() {
     return trailer;
@@ -344,7 +344,7 @@ public class HFileWriterImpl implements HFile.Writer {
     dataBlockIndexWriter.addEntry(PrivateCellUtil.getCellKeySerializedAsKeyValueKey(indexEntry),
       lastDataBlockOffset, onDiskSize);
     totalUncompressedBytes += blockWriter.getUncompressedSizeWithHeader();
-    if (cacheConf.shouldCacheDataOnWrite()) {
+    if (cacheConf.shouldCacheDataBlockOnWrite(firstCellInBlock, lastCell)) {
       doCacheOnWrite(lastDataBlockOffset);
     }
   }
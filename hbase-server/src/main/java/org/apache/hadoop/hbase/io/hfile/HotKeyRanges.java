@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.regionserver.KeyValueScanner;
+import org.apache.yetus.audience.InterfaceAudience;
+
+/**
+ * The key ranges covered by the data blocks of a set of HFiles which are hot in the block cache,
+ * that is which were accessed again since they were cached. A compaction caches on write only the
+ * output blocks overlapping these ranges, so the new file is warm where the old ones were without
+ * flooding the cache with the whole file.
+ * <p/>
+ * A range goes from the first key of a hot block to the first key of the next indexed block,
+ * exclusive, or to the end of the file for the last block.
+ */
+@InterfaceAudience.Private
+public final class HotKeyRanges {
+
+  private final CellComparator comparator;
+  // sorted, non overlapping ranges, a null end is the end of the key space
+  private final List<Cell> starts;
+  private final List<Cell> ends;
+
+  private HotKeyRanges(CellComparator comparator, List<Cell> starts, List<Cell> ends) {
+    this.comparator = comparator;
+    this.starts = starts;
+    this.ends = ends;
+  }
+
+  /**
+   * @return number of disjoint key ranges
+   */
+  public int size() {
+    return starts.size();
+  }
+
+  /**
+   * @return whether the block holding the cells from {@code first} to {@code last}, both
+   *         inclusive, overlaps a hot range
+   */
+  public boolean overlaps(Cell first, Cell last) {
+    // the last range starting at or before last
+    int low = 0;
+    int high = starts.size() - 1;
+    int found = -1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (comparator.compare(starts.get(mid), last) <= 0) {
+        found = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return found >= 0 && (ends.get(found) == null
+        || comparator.compare(ends.get(found), first) > 0);
+  }
+
+  /**
+   * Find the hot ranges of the given files from the data blocks cached with
+   * {@link BlockPriority#MULTI} priority. The hot blocks are read back from the cache to get their
+   * first key, and the next indexed key from the block index.
+   * @param cache the block cache the files were read through
+   * @param readers readers of the files, sharing the same comparator
+   */
+  public static HotKeyRanges fromBlockCache(BlockCache cache, Collection<HFile.Reader> readers)
+      throws IOException {
+    if (readers.isEmpty()) {
+      return new HotKeyRanges(CellComparator.getInstance(), new ArrayList<>(), new ArrayList<>());
+    }
+    CellComparator comparator = readers.iterator().next().getComparator();
+    List<Cell[]> ranges = new ArrayList<>();
+    for (HFile.Reader reader : readers) {
+      TreeSet<Long> hotOffsets = new TreeSet<>();
+      for (CachedBlock cachedBlock : cache.getDataBlocksByHfileName(reader.getName())) {
+        if (cachedBlock.getBlockPriority() == BlockPriority.MULTI) {
+          hotOffsets.add(cachedBlock.getOffset());
+        }
+      }
+      // the blocks of unknown type which are not data blocks are skipped when read back
+      for (long offset : hotOffsets) {
+        Cell[] range = getBlockRange(reader, offset);
+        if (range != null) {
+          ranges.add(range);
+        }
+      }
+    }
+    // merge the overlapping ranges of all the files
+    ranges.sort((a, b) -> comparator.compare(a[0], b[0]));
+    List<Cell> starts = new ArrayList<>();
+    List<Cell> ends = new ArrayList<>();
+    for (Cell[] range : ranges) {
+      int last = starts.size() - 1;
+      if (last >= 0 && (ends.get(last) == null
+          || comparator.compare(range[0], ends.get(last)) <= 0)) {
+        if (ends.get(last) != null
+            && (range[1] == null || comparator.compare(range[1], ends.get(last)) > 0)) {
+          ends.set(last, range[1]);
+        }
+      } else {
+        starts.add(range[0]);
+        ends.add(range[1]);
+      }
+    }
+    return new HotKeyRanges(comparator, starts, ends);
+  }
+
+  /**
+   * @return the first key of the data block at the given offset and the next indexed key, or null
+   *         if the file has no index
+   */
+  private static Cell[] getBlockRange(HFile.Reader reader, long offset) throws IOException {
+    HFileBlock block = reader.readBlock(offset, -1, false, true, false, false, null,
+      reader.getEffectiveEncodingInCache(false));
+    try {
+      HFileScanner scanner = reader.getScanner(false, true);
+      try {
+        if (!block.getBlockType().isData()
+            || !(scanner instanceof HFileReaderImpl.HFileScannerImpl)) {
+          return null;
+        }
+        Cell firstKey = KeyValueUtil.toNewKeyCell(
+          ((HFileReaderImpl.HFileScannerImpl) scanner).getFirstKeyCellInBlock(block));
+        BlockWithScanInfo scanInfo = reader.getDataBlockIndexReader()
+            .loadDataBlockWithScanInfo(firstKey, block, false, true, false,
+              reader.getEffectiveEncodingInCache(false));
+        if (scanInfo == null) {
+          return null;
+        }
+        if (scanInfo.getHFileBlock() != block) {
+          reader.returnBlock(scanInfo.getHFileBlock());
+        }
+        Cell nextKey = scanInfo.getNextIndexedKey();
+        return new Cell[] { firstKey,
+            nextKey == null || nextKey == KeyValueScanner.NO_NEXT_INDEXED_KEY ? null
+                : KeyValueUtil.toNewKeyCell(nextKey) };
+      } finally {
+        scanner.close();
+      }
+    } finally {
+      reader.returnBlock(block);
+    }
+  }
+}
@@ -18,10 +18,12 @@
 
 package org.apache.hadoop.hbase.io.hfile.bucket;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
@@ -44,6 +46,9 @@ import org.apache.hbase.thirdparty.org.apache.commons.collections4.map.LinkedMap
  * manages an array of buckets, each bucket is associated with a size and caches elements up to this
  * size. For a completely empty bucket, this size could be re-specified dynamically.
  * <p/>
+ * Free slots in buckets which still hold blocks can not be given to other sizes, see
+ * {@link #getBucketsToCompact(float, int)} for emptying the sparse ones.
+ * <p/>
  * This class is not thread safe.
  */
 @InterfaceAudience.Private
@@ -250,13 +255,45 @@ public final class BucketAllocator {
     }
 
     public synchronized IndexStatistics statistics() {
-      long free = 0, used = 0;
+      long free = 0, used = 0, completelyFree = 0;
       for (Object obj : bucketList.keySet()) {
         Bucket b = (Bucket) obj;
         free += b.freeCount();
         used += b.usedCount();
+        if (b.isCompletelyFree()) {
+          completelyFree += b.freeCount();
+        }
       }
-      return new IndexStatistics(free, used, bucketSizes[sizeIndex]);
+      return new IndexStatistics(free, used, bucketSizes[sizeIndex], free - completelyFree);
+    }
+
+    /**
+     * Find a bucket of this size already holding blocks with room for one more
+     * @param excludedBuckets indices of the buckets not to use
+     * @return the bucket or null if none
+     */
+    private synchronized Bucket findPartiallyFreeBucket(Set<Integer> excludedBuckets) {
+      for (Object obj : freeBuckets.keySet()) {
+        Bucket b = (Bucket) obj;
+        if (!b.isCompletelyFree() && !excludedBuckets.contains(getBucketIndex(b.getBaseOffset()))) {
+          return b;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * @return the buckets of this size which hold blocks and still have free slots
+     */
+    private synchronized List<Bucket> getPartiallyFreeBuckets() {
+      List<Bucket> partiallyFree = new ArrayList<>();
+      for (Object obj : freeBuckets.keySet()) {
+        Bucket b = (Bucket) obj;
+        if (!b.isCompletelyFree()) {
+          partiallyFree.add(b);
+        }
+      }
+      return partiallyFree;
     }
 
     @Override
@@ -456,6 +493,63 @@ public final class BucketAllocator {
     return offset;
   }
 
+  /**
+   * Allocate a slot for moving the block at the given offset to another bucket of the same size.
+   * Only the buckets which already hold blocks are considered, the completely free ones are left
+   * for the other sizes.
+   * @param offset the current offset of the block
+   * @param excludedBuckets indices of the buckets not to move the block to
+   * @return the offset in the IOEngine, or -1 if there is no room
+   */
+  public synchronized long allocateBlockForRelocation(long offset,
+      Set<Integer> excludedBuckets) {
+    Bucket source = buckets[getBucketIndex(offset)];
+    BucketSizeInfo bsi = bucketSizeInfos[source.sizeIndex()];
+    Bucket b = bsi.findPartiallyFreeBucket(excludedBuckets);
+    if (b == null || b == source) {
+      return -1;
+    }
+    long result = b.allocate();
+    bsi.blockAllocated(b);
+    usedSize += b.getItemAllocationSize();
+    return result;
+  }
+
+  /**
+   * Picks the least filled buckets whose blocks fit in the free slots of the other buckets of the
+   * same size which hold blocks, so they can be emptied and handed over to the sizes in need.
+   * @param minFragmentation only the sizes with at least this
+   *          {@link IndexStatistics#fragmentation()} are looked at
+   * @param maxBuckets max number of buckets to return
+   * @return set of bucket indices to move the blocks out of
+   */
+  public synchronized Set<Integer> getBucketsToCompact(float minFragmentation, int maxBuckets) {
+    Set<Integer> result = new HashSet<>();
+    for (BucketSizeInfo bsi : bucketSizeInfos) {
+      if (result.size() >= maxBuckets) {
+        break;
+      }
+      if (bsi.statistics().fragmentation() < minFragmentation) {
+        continue;
+      }
+      List<Bucket> candidates = bsi.getPartiallyFreeBuckets();
+      long freeSlots = 0;
+      for (Bucket b : candidates) {
+        freeSlots += b.freeCount();
+      }
+      candidates.sort(Comparator.comparingInt(Bucket::usedCount));
+      for (Bucket b : candidates) {
+        // the blocks of b have to fit in the free slots of the other buckets
+        if (result.size() >= maxBuckets || b.usedCount() > freeSlots - b.freeCount()) {
+          break;
+        }
+        freeSlots -= b.freeCount() + b.usedCount();
+        result.add(getBucketIndex(b.getBaseOffset()));
+      }
+    }
+    return result;
+  }
+
   private Bucket grabGlobalCompletelyFreeBucket() {
     for (BucketSizeInfo bsi : bucketSizeInfos) {
       Bucket b = bsi.findAndRemoveCompletelyFreeBucket();
@@ -493,7 +587,7 @@ public final class BucketAllocator {
   }
 
   static class IndexStatistics {
-    private long freeCount, usedCount, itemSize, totalCount;
+    private long freeCount, usedCount, itemSize, totalCount, fragmentedFreeCount;
 
     public long freeCount() {
       return freeCount;
@@ -523,19 +617,47 @@ public final class BucketAllocator {
       return itemSize;
     }
 
+    /**
+     * @return number of free slots in buckets which also hold blocks. Unlike the slots of the
+     *         completely free buckets, these can not be given to other sizes.
+     */
+    public long fragmentedFreeCount() {
+      return fragmentedFreeCount;
+    }
+
+    public long fragmentedFreeBytes() {
+      return fragmentedFreeCount * itemSize;
+    }
+
+    /**
+     * @return the part of all the slots which is free but stuck in buckets holding blocks
+     */
+    public float fragmentation() {
+      return totalCount <= 0 ? 0 : (float) fragmentedFreeCount / totalCount;
+    }
+
     public IndexStatistics(long free, long used, long itemSize) {
       setTo(free, used, itemSize);
     }
 
+    public IndexStatistics(long free, long used, long itemSize, long fragmentedFree) {
+      setTo(free, used, itemSize, fragmentedFree);
+    }
+
     public IndexStatistics() {
       setTo(-1, -1, 0);
     }
 
     public void setTo(long free, long used, long itemSize) {
+      setTo(free, used, itemSize, 0);
+    }
+
+    public void setTo(long free, long used, long itemSize, long fragmentedFree) {
       this.itemSize = itemSize;
       this.freeCount = free;
       this.usedCount = used;
       this.totalCount = free + used;
+      this.fragmentedFreeCount = fragmentedFree;
     }
   }
 
@@ -548,21 +670,24 @@ public final class BucketAllocator {
     IndexStatistics[] stats = getIndexStatistics(total);
     LOG.info("Bucket allocator statistics follow:\n");
     LOG.info("  Free bytes=" + total.freeBytes() + "+; used bytes="
-        + total.usedBytes() + "; total bytes=" + total.totalBytes());
+        + total.usedBytes() + "; total bytes=" + total.totalBytes()
+        + "; fragmented free bytes=" + total.fragmentedFreeBytes());
     for (IndexStatistics s : stats) {
       LOG.info("  Object size " + s.itemSize() + " used=" + s.usedCount()
-          + "; free=" + s.freeCount() + "; total=" + s.totalCount());
+          + "; free=" + s.freeCount() + "; total=" + s.totalCount()
+          + "; fragmented free=" + s.fragmentedFreeCount());
     }
   }
 
   IndexStatistics[] getIndexStatistics(IndexStatistics grandTotal) {
     IndexStatistics[] stats = getIndexStatistics();
-    long totalfree = 0, totalused = 0;
+    long totalfree = 0, totalused = 0, totalfragmented = 0;
     for (IndexStatistics stat : stats) {
       totalfree += stat.freeBytes();
       totalused += stat.usedBytes();
+      totalfragmented += stat.fragmentedFreeBytes();
     }
-    grandTotal.setTo(totalfree, totalused, 1);
+    grandTotal.setTo(totalfree, totalused, 1, totalfragmented);
     return stats;
   }
 
@@ -98,6 +98,10 @@ import org.apache.hadoop.hbase.shaded.protobuf.generated.BucketCacheProtos;
  *
  * <p>It also can be used as a secondary cache (e.g. using a file on ssd/fusionio to store
  * blocks) to enlarge cache space via a victim cache.
+ *
+ * <p>A BucketCache can itself have a victim cache, see {@link #setVictimCache(BlockCache)}, so an
+ * off-heap tier demotes the blocks it evicts to a file tier on local SSD and promotes them back
+ * when they are read again.
  */
 @InterfaceAudience.Private
 public class BucketCache implements BlockCache, HeapSize {
@@ -111,6 +115,19 @@ public class BucketCache implements BlockCache, HeapSize {
   static final String ACCEPT_FACTOR_CONFIG_NAME = "hbase.bucketcache.acceptfactor";
   static final String MIN_FACTOR_CONFIG_NAME = "hbase.bucketcache.minfactor";
 
+  /** Defragmenter config, a zero or negative interval disables it */
+  static final String DEFRAGMENT_INTERVAL_CONFIG_NAME = "hbase.bucketcache.defragment.interval";
+  static final String DEFRAGMENT_THRESHOLD_CONFIG_NAME = "hbase.bucketcache.defragment.threshold";
+  static final String DEFRAGMENT_MAX_BUCKETS_CONFIG_NAME =
+      "hbase.bucketcache.defragment.max.buckets";
+
+  /**
+   * Whether to only admit the blocks estimated to be accessed more often than the blocks evicted
+   * last time the cache filled up
+   */
+  static final String ADMISSION_FILTER_ENABLED_CONFIG_NAME =
+      "hbase.bucketcache.admission.filter.enabled";
+
   /** Priority buckets */
   @VisibleForTesting
   static final float DEFAULT_SINGLE_FACTOR = 0.25f;
@@ -124,6 +141,11 @@ public class BucketCache implements BlockCache, HeapSize {
   // Number of blocks to clear for each of the bucket size that is full
   private static final int DEFAULT_FREE_ENTIRE_BLOCK_FACTOR = 2;
 
+  static final long DEFAULT_DEFRAGMENT_INTERVAL = 60 * 1000L;
+  static final float DEFAULT_DEFRAGMENT_THRESHOLD = 0.2f;
+  static final int DEFAULT_DEFRAGMENT_MAX_BUCKETS = 8;
+  static final boolean DEFAULT_ADMISSION_FILTER_ENABLED = false;
+
   /** Statistics thread */
   private static final int statThreadPeriod = 5 * 60;
 
@@ -167,6 +189,13 @@ public class BucketCache implements BlockCache, HeapSize {
   private final LongAdder heapSize = new LongAdder();
   /** Current number of cached elements */
   private final LongAdder blockNumber = new LongAdder();
+  /** Number of blocks moved to another bucket by the defragmenter */
+  private final LongAdder relocatedBlocks = new LongAdder();
+  /** Number of blocks not cached because the admission filter found them too cold */
+  private final LongAdder rejectedBlocks = new LongAdder();
+  /** Number of evicted blocks handed to the victim cache, and read back from it */
+  private final LongAdder demotedBlocks = new LongAdder();
+  private final LongAdder promotedBlocks = new LongAdder();
 
   /** Cache access count (sequential ID) */
   private final AtomicLong accessCount = new AtomicLong();
@@ -246,6 +275,24 @@ public class BucketCache implements BlockCache, HeapSize {
   /** In-memory bucket size */
   private float memoryFactor;
 
+  /** Only the sizes with at least this part of their slots stuck in sparse buckets are compacted */
+  private float defragmentThreshold;
+
+  /** Max number of buckets emptied by one defragmenter run */
+  private int defragmentMaxBuckets;
+
+  /** Access frequency of the blocks, null if the admission filter is disabled */
+  private final FrequencySketch admissionSketch;
+
+  /** Average access frequency of the blocks evicted by the last free space run */
+  private volatile int victimFrequency;
+
+  /** Reset count of the admission sketch when the victim frequency was computed */
+  private volatile int victimResetCount;
+
+  /** Lower cache tier, where the evicted blocks go to, null if none */
+  private transient BlockCache victimHandler = null;
+
   public BucketCache(String ioEngineName, long capacity, int blockSize, int[] bucketSizes,
       int writerThreadNum, int writerQLen, String persistencePath) throws FileNotFoundException,
       IOException {
@@ -271,6 +318,13 @@ public class BucketCache implements BlockCache, HeapSize {
     this.singleFactor = conf.getFloat(SINGLE_FACTOR_CONFIG_NAME, DEFAULT_SINGLE_FACTOR);
     this.multiFactor = conf.getFloat(MULTI_FACTOR_CONFIG_NAME, DEFAULT_MULTI_FACTOR);
     this.memoryFactor = conf.getFloat(MEMORY_FACTOR_CONFIG_NAME, DEFAULT_MEMORY_FACTOR);
+    this.defragmentThreshold =
+        conf.getFloat(DEFRAGMENT_THRESHOLD_CONFIG_NAME, DEFAULT_DEFRAGMENT_THRESHOLD);
+    this.defragmentMaxBuckets =
+        conf.getInt(DEFRAGMENT_MAX_BUCKETS_CONFIG_NAME, DEFAULT_DEFRAGMENT_MAX_BUCKETS);
+    this.admissionSketch =
+        conf.getBoolean(ADMISSION_FILTER_ENABLED_CONFIG_NAME, DEFAULT_ADMISSION_FILTER_ENABLED)
+            ? new FrequencySketch(blockNumCapacity) : null;
 
     sanityCheckConfigs();
 
@@ -314,6 +368,12 @@ public class BucketCache implements BlockCache, HeapSize {
     // every five minutes.
     this.scheduleThreadPool.scheduleAtFixedRate(new StatisticsThread(this),
         statThreadPeriod, statThreadPeriod, TimeUnit.SECONDS);
+    long defragmentInterval =
+        conf.getLong(DEFRAGMENT_INTERVAL_CONFIG_NAME, DEFAULT_DEFRAGMENT_INTERVAL);
+    if (defragmentInterval > 0) {
+      this.scheduleThreadPool.scheduleWithFixedDelay(this::defragmentIfNeeded,
+        defragmentInterval, defragmentInterval, TimeUnit.MILLISECONDS);
+    }
     LOG.info("Started bucket cache; ioengine=" + ioEngineName +
         ", capacity=" + StringUtils.byteDesc(capacity) +
       ", blockSize=" + StringUtils.byteDesc(blockSize) + ", writerThreadNum=" +
@@ -428,12 +488,37 @@ public class BucketCache implements BlockCache, HeapSize {
         if (BlockCacheUtil.shouldReplaceExistingCacheBlock(this, cacheKey, cachedItem)) {
           cacheBlockWithWaitInternal(cacheKey, cachedItem, inMemory, wait);
         }
-      } else {
+      } else if (admit(cacheKey)) {
         cacheBlockWithWaitInternal(cacheKey, cachedItem, inMemory, wait);
       }
     }
   }
 
+  /**
+   * TinyLFU admission: once the cache is full enough to evict, a new block is only cached if it
+   * was accessed more often than the blocks recently evicted to make room. This keeps the blocks
+   * read once by scans and compactions from pushing the hot blocks out.
+   * @return true if the block should be cached
+   */
+  private boolean admit(BlockCacheKey cacheKey) {
+    if (admissionSketch == null
+        || bucketAllocator.getUsedSize() < getPartitionSize(1.0f)
+        || admissionSketch.frequency(cacheKey) > getAdmissionThreshold()) {
+      return true;
+    }
+    rejectedBlocks.increment();
+    return false;
+  }
+
+  /**
+   * @return the victim frequency, halved as many times as the sketch was since it was computed,
+   *         so that it keeps up with the frequencies it is compared to even when no space is freed
+   */
+  private int getAdmissionThreshold() {
+    int ages = admissionSketch.getResetCount() - victimResetCount;
+    return victimFrequency >> Math.min(Math.max(ages, 0), Integer.SIZE - 1);
+  }
+
   private void cacheBlockWithWaitInternal(BlockCacheKey cacheKey, Cacheable cachedItem,
       boolean inMemory, boolean wait) {
     if (!cacheEnabled) {
@@ -483,12 +568,20 @@ public class BucketCache implements BlockCache, HeapSize {
    * @param updateCacheMetrics Whether we should update cache metrics or not
    * @return buffer of specified cache key, or null if not in cache
    */
+  @Override
+  public boolean containsBlock(BlockCacheKey key) {
+    return cacheEnabled && (ramCache.containsKey(key) || backingMap.containsKey(key));
+  }
+
   @Override
   public Cacheable getBlock(BlockCacheKey key, boolean caching, boolean repeat,
       boolean updateCacheMetrics) {
     if (!cacheEnabled) {
       return null;
     }
+    if (admissionSketch != null && !repeat) {
+      admissionSketch.increment(key);
+    }
     RAMQueueEntry re = ramCache.get(key);
     if (re != null) {
       if (updateCacheMetrics) {
@@ -539,9 +632,84 @@ public class BucketCache implements BlockCache, HeapSize {
     if (!repeat && updateCacheMetrics) {
       cacheStats.miss(caching, key.isPrimary(), key.getBlockType());
     }
+    if (victimHandler != null && !repeat) {
+      return getBlockFromVictimCache(key, caching, updateCacheMetrics);
+    }
     return null;
   }
 
+  /**
+   * Read a block from the lower tier, and promote it back to this one if the caller caches.
+   */
+  private Cacheable getBlockFromVictimCache(BlockCacheKey key, boolean caching,
+      boolean updateCacheMetrics) {
+    Cacheable result = victimHandler.getBlock(key, caching, false, updateCacheMetrics);
+    if (result instanceof HFileBlock && result.getMemoryType() == MemoryType.SHARED) {
+      // callers return the block to this cache, not to the lower tier
+      Cacheable shared = result;
+      result = ((HFileBlock) shared).deepClone();
+      victimHandler.returnBlock(key, shared);
+    }
+    if (result != null && caching) {
+      cacheBlock(key, result);
+      promotedBlocks.increment();
+    }
+    return result;
+  }
+
+  /**
+   * Set a lower cache tier to demote the blocks evicted for lack of space to. Blocks found there
+   * are cached here again when read.
+   */
+  public void setVictimCache(BlockCache victimCache) {
+    if (victimHandler != null) {
+      throw new IllegalArgumentException("The victim cache has already been set");
+    }
+    victimHandler = Preconditions.checkNotNull(victimCache);
+  }
+
+  /**
+   * Evict a block to make room, handing it over to the victim cache if there is one.
+   * @return true if the block was evicted
+   */
+  private boolean evictBlockToVictimCache(BlockCacheKey cacheKey, BucketEntry bucketEntry) {
+    Cacheable demoted = victimHandler == null ? null : readForDemotion(cacheKey, bucketEntry);
+    if (!evictBlock(cacheKey, false)) {
+      return false;
+    }
+    if (demoted != null) {
+      victimHandler.cacheBlock(cacheKey, demoted);
+      demotedBlocks.increment();
+    }
+    return true;
+  }
+
+  /**
+   * @return a copy of the block which stays valid once its space is freed, or null if the block
+   *         went away or could not be read
+   */
+  private Cacheable readForDemotion(BlockCacheKey cacheKey, BucketEntry bucketEntry) {
+    ReentrantReadWriteLock lock = offsetLock.getLock(bucketEntry.offset());
+    try {
+      lock.readLock().lock();
+      if (!bucketEntry.equals(backingMap.get(cacheKey))) {
+        return null;
+      }
+      Cacheable block = ioEngine.read(bucketEntry.offset(), bucketEntry.getLength(),
+        bucketEntry.deserializerReference());
+      if (block instanceof HFileBlock && block.getMemoryType() == MemoryType.SHARED) {
+        block = ((HFileBlock) block).deepClone();
+      }
+      return block;
+    } catch (IOException ioex) {
+      LOG.warn("Failed reading block " + cacheKey + " to demote it", ioex);
+      checkIOErrorIsTolerated();
+      return null;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
   @VisibleForTesting
   void blockEvicted(BlockCacheKey cacheKey, BucketEntry bucketEntry, boolean decrementBlockNumber) {
     bucketAllocator.freeBlock(bucketEntry.offset());
@@ -554,7 +722,12 @@ public class BucketCache implements BlockCache, HeapSize {
 
   @Override
   public boolean evictBlock(BlockCacheKey cacheKey) {
-    return evictBlock(cacheKey, true);
+    boolean evicted = evictBlock(cacheKey, true);
+    // an explicitly evicted block must not be served from the lower tier either
+    if (victimHandler != null && victimHandler.evictBlock(cacheKey)) {
+      evicted = true;
+    }
+    return evicted;
   }
 
   private RAMQueueEntry checkRamCache(BlockCacheKey cacheKey) {
@@ -580,34 +753,43 @@ public class BucketCache implements BlockCache, HeapSize {
         return false;
       }
     }
-    ReentrantReadWriteLock lock = offsetLock.getLock(bucketEntry.offset());
-    try {
-      lock.writeLock().lock();
-      int refCount = bucketEntry.getRefCount();
-      if (refCount == 0) {
-        if (backingMap.remove(cacheKey, bucketEntry)) {
-          blockEvicted(cacheKey, bucketEntry, removedBlock == null);
-        } else {
-          return false;
-        }
-      } else {
-        if(!deletedBlock) {
-          if (LOG.isDebugEnabled()) {
-            LOG.debug("This block " + cacheKey + " is still referred by " + refCount
-                + " readers. Can not be freed now");
+    while (true) {
+      ReentrantReadWriteLock lock = offsetLock.getLock(bucketEntry.offset());
+      try {
+        lock.writeLock().lock();
+        int refCount = bucketEntry.getRefCount();
+        if (refCount == 0) {
+          if (backingMap.remove(cacheKey, bucketEntry)) {
+            blockEvicted(cacheKey, bucketEntry, removedBlock == null);
+          } else {
+            BucketEntry current = backingMap.get(cacheKey);
+            if (current == null || !bucketEntry.isRelocated()) {
+              return false;
+            }
+            // moved by a defragmentation meanwhile, evict it from where it is now
+            bucketEntry = current;
+            continue;
           }
-          return false;
         } else {
-          if (LOG.isDebugEnabled()) {
-            LOG.debug("This block " + cacheKey + " is still referred by " + refCount
-                + " readers. Can not be freed now. Hence will mark this"
-                + " for evicting at a later point");
+          if(!deletedBlock) {
+            if (LOG.isDebugEnabled()) {
+              LOG.debug("This block " + cacheKey + " is still referred by " + refCount
+                  + " readers. Can not be freed now");
+            }
+            return false;
+          } else {
+            if (LOG.isDebugEnabled()) {
+              LOG.debug("This block " + cacheKey + " is still referred by " + refCount
+                  + " readers. Can not be freed now. Hence will mark this"
+                  + " for evicting at a later point");
+            }
+            bucketEntry.markForEvict();
           }
-          bucketEntry.markForEvict();
         }
+      } finally {
+        lock.writeLock().unlock();
       }
-    } finally {
-      lock.writeLock().unlock();
+      break;
     }
     cacheStats.evicted(bucketEntry.getCachedTime(), cacheKey.isPrimary());
     return true;
@@ -653,7 +835,11 @@ public class BucketCache implements BlockCache, HeapSize {
           (StringUtils.formatPercent(cacheStats.getHitCachingRatio(), 2)+ ", ")) +
         "evictions=" + cacheStats.getEvictionCount() + ", " +
         "evicted=" + cacheStats.getEvictedCount() + ", " +
-        "evictedPerRun=" + cacheStats.evictedPerEviction());
+        "evictedPerRun=" + cacheStats.evictedPerEviction() + ", " +
+        "relocated=" + relocatedBlocks.sum() + ", " +
+        "rejected=" + rejectedBlocks.sum() + ", " +
+        "demoted=" + demotedBlocks.sum() + ", " +
+        "promoted=" + promotedBlocks.sum());
     cacheStats.reset();
   }
 
@@ -711,12 +897,98 @@ public class BucketCache implements BlockCache, HeapSize {
       for (Map.Entry<BlockCacheKey, BucketEntry> entry : backingMap.entrySet()) {
         if (candidateBuckets.contains(bucketAllocator
             .getBucketIndex(entry.getValue().offset()))) {
-          evictBlock(entry.getKey(), false);
+          evictBlockToVictimCache(entry.getKey(), entry.getValue());
         }
       }
     }
   }
 
+  /**
+   * Run {@link #defragment()} once some bucket size is running out of free slots.
+   */
+  private void defragmentIfNeeded() {
+    try {
+      if (cacheEnabled && bucketSizesAboveThresholdCount(minFactor) > 0) {
+        defragment();
+      }
+    } catch (Throwable t) {
+      LOG.warn("Failed defragmenting bucket cache", t);
+    }
+  }
+
+  /**
+   * Moves the blocks of the least filled buckets into the free slots of the other buckets of the
+   * same size. The emptied buckets can then be reassigned to the sizes which ran out of room,
+   * without evicting anything. Blocks being read are left in place.
+   * @return number of blocks moved
+   */
+  @VisibleForTesting
+  int defragment() throws IOException {
+    Set<Integer> sourceBuckets =
+        bucketAllocator.getBucketsToCompact(defragmentThreshold, defragmentMaxBuckets);
+    if (sourceBuckets.isEmpty()) {
+      return 0;
+    }
+    int relocated = 0;
+    for (Map.Entry<BlockCacheKey, BucketEntry> entry : backingMap.entrySet()) {
+      if (!cacheEnabled) {
+        break;
+      }
+      if (sourceBuckets.contains(bucketAllocator.getBucketIndex(entry.getValue().offset()))
+          && relocateBlock(entry.getKey(), entry.getValue(), sourceBuckets)) {
+        relocated++;
+      }
+    }
+    ioEngine.sync();
+    relocatedBlocks.add(relocated);
+    LOG.debug("Relocated {} blocks out of {} sparse buckets", relocated, sourceBuckets.size());
+    return relocated;
+  }
+
+  /**
+   * Copy a block to another bucket of the same size and point its entry in the backingMap to the
+   * copy.
+   * @param excludedBuckets buckets not to copy the block to
+   * @return true if the block was moved
+   */
+  @VisibleForTesting
+  boolean relocateBlock(BlockCacheKey key, BucketEntry bucketEntry,
+      Set<Integer> excludedBuckets) {
+    long newOffset = bucketAllocator.allocateBlockForRelocation(bucketEntry.offset(),
+      excludedBuckets);
+    if (newOffset < 0) {
+      return false;
+    }
+    boolean relocated = false;
+    ReentrantReadWriteLock lock = offsetLock.getLock(bucketEntry.offset());
+    try {
+      lock.writeLock().lock();
+      if (bucketEntry.getRefCount() == 0 && !bucketEntry.isMarkedForEvict()
+          && bucketEntry.equals(backingMap.get(key))) {
+        int len = bucketEntry.getLength();
+        Cacheable block =
+            ioEngine.read(bucketEntry.offset(), len, bucketEntry.deserializerReference());
+        ByteBuffer bb = ByteBuffer.allocate(len);
+        block.serialize(bb, true);
+        ioEngine.write(bb, newOffset);
+        if (backingMap.replace(key, bucketEntry, bucketEntry.copyTo(newOffset))) {
+          bucketEntry.markRelocated();
+          bucketAllocator.freeBlock(bucketEntry.offset());
+          relocated = true;
+        }
+      }
+    } catch (IOException ioex) {
+      LOG.error("Failed relocating block " + key + " in bucket cache", ioex);
+      checkIOErrorIsTolerated();
+    } finally {
+      lock.writeLock().unlock();
+      if (!relocated) {
+        bucketAllocator.freeBlock(newOffset);
+      }
+    }
+    return relocated;
+  }
+
   /**
    * Free the space if the used size reaches acceptableSize() or one size block
    * couldn't be allocated. When freeing the space, we use the LRU algorithm and
@@ -838,6 +1110,16 @@ public class BucketCache implements BlockCache, HeapSize {
       freeEntireBuckets(DEFAULT_FREE_ENTIRE_BLOCK_FACTOR *
           bucketSizesAboveThresholdCount(1.0f));
 
+      if (admissionSketch != null) {
+        long evictedCount = bucketSingle.evictedCount + bucketMulti.evictedCount
+            + bucketMemory.evictedCount;
+        if (evictedCount > 0) {
+          victimResetCount = admissionSketch.getResetCount();
+          victimFrequency = (int) ((bucketSingle.evictedFrequency + bucketMulti.evictedFrequency
+              + bucketMemory.evictedFrequency) / evictedCount);
+        }
+      }
+
       if (LOG.isDebugEnabled()) {
         long single = bucketSingle.totalSize();
         long multi = bucketMulti.totalSize();
@@ -1197,6 +1479,9 @@ public class BucketCache implements BlockCache, HeapSize {
 
   @Override
   public void shutdown() {
+    if (victimHandler != null) {
+      victimHandler.shutdown();
+    }
     disableCache();
     LOG.info("Shutdown bucket cache: IO persistent=" + ioEngine.isPersistent()
         + "; path to write=" + persistencePath);
@@ -1271,10 +1556,13 @@ public class BucketCache implements BlockCache, HeapSize {
 
     int numEvicted = 0;
     for (BlockCacheKey key : keySet) {
-      if (evictBlock(key)) {
+      if (evictBlock(key, true)) {
           ++numEvicted;
       }
     }
+    if (victimHandler != null) {
+      numEvicted += victimHandler.evictBlocksByHfileName(hfileName);
+    }
 
     return numEvicted;
   }
@@ -1312,6 +1600,9 @@ public class BucketCache implements BlockCache, HeapSize {
      */
     private final long cachedTime = System.nanoTime();
 
+    // set once the block was copied to another offset, under the write lock of this offset
+    private boolean relocated = false;
+
     BucketEntry(long offset, int length, long accessCounter, boolean inMemory) {
       setOffset(offset);
       this.length = length;
@@ -1389,6 +1680,28 @@ public class BucketCache implements BlockCache, HeapSize {
     protected void markForEvict() {
       // noop;
     }
+
+    boolean isRelocated() {
+      return relocated;
+    }
+
+    void markRelocated() {
+      relocated = true;
+    }
+
+    /**
+     * @return an entry of the same kind for this block stored at another offset
+     */
+    BucketEntry copyTo(long offset) {
+      BucketEntry copy = newEntry(offset);
+      copy.deserialiserIndex = deserialiserIndex;
+      copy.priority = priority;
+      return copy;
+    }
+
+    protected BucketEntry newEntry(long offset) {
+      return new BucketEntry(offset, length, accessCounter, false);
+    }
   }
 
   static class SharedMemoryBucketEntry extends BucketEntry {
@@ -1426,6 +1739,11 @@ public class BucketCache implements BlockCache, HeapSize {
     protected void markForEvict() {
       this.markedForEvict = true;
     }
+
+    @Override
+    protected BucketEntry newEntry(long offset) {
+      return new SharedMemoryBucketEntry(offset, getLength(), getAccessCounter(), false);
+    }
   }
 
   /**
@@ -1439,6 +1757,9 @@ public class BucketCache implements BlockCache, HeapSize {
     private CachedEntryQueue queue;
     private long totalSize = 0;
     private long bucketSize;
+    // sum of the estimated access frequencies of the evicted blocks, for the admission filter
+    private long evictedFrequency = 0;
+    private long evictedCount = 0;
 
     public BucketEntryGroup(long bytesToFree, long blockSize, long bucketSize) {
       this.bucketSize = bucketSize;
@@ -1457,8 +1778,12 @@ public class BucketCache implements BlockCache, HeapSize {
       // TODO avoid a cycling siutation. We find no block which is not in use and so no way to free
       // What to do then? Caching attempt fail? Need some changes in cacheBlock API?
       while ((entry = queue.pollLast()) != null) {
-        if (evictBlock(entry.getKey(), false)) {
+        if (evictBlockToVictimCache(entry.getKey(), entry.getValue())) {
           freedBytes += entry.getValue().getLength();
+          if (admissionSketch != null) {
+            evictedFrequency += admissionSketch.frequency(entry.getKey());
+            evictedCount++;
+          }
         }
         if (freedBytes >= toFree) {
           return freedBytes;
@@ -1582,83 +1907,104 @@ public class BucketCache implements BlockCache, HeapSize {
       @Override
       public CachedBlock next() {
         final Map.Entry<BlockCacheKey, BucketEntry> e = i.next();
-        return new CachedBlock() {
-          @Override
-          public String toString() {
-            return BlockCacheUtil.toString(this, now);
-          }
+        return toCachedBlock(e.getKey(), e.getValue(), now);
+      }
 
-          @Override
-          public BlockPriority getBlockPriority() {
-            return e.getValue().getPriority();
-          }
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
 
-          @Override
-          public BlockType getBlockType() {
-            // Not held by BucketEntry.  Could add it if wanted on BucketEntry creation.
-            return null;
-          }
+  @Override
+  public List<CachedBlock> getDataBlocksByHfileName(String hfileName) {
+    long now = System.nanoTime();
+    List<CachedBlock> blocks = new ArrayList<>();
+    for (BlockCacheKey key : blocksByHFile.subSet(new BlockCacheKey(hfileName, Long.MIN_VALUE),
+      true, new BlockCacheKey(hfileName, Long.MAX_VALUE), true)) {
+      BucketEntry entry = backingMap.get(key);
+      if (entry != null && (key.getBlockType() == null || key.getBlockType().isData())) {
+        blocks.add(toCachedBlock(key, entry, now));
+      }
+    }
+    return blocks;
+  }
 
-          @Override
-          public long getOffset() {
-            return e.getKey().getOffset();
-          }
+  private static CachedBlock toCachedBlock(BlockCacheKey key, BucketEntry entry, long now) {
+    return new CachedBlock() {
+      @Override
+      public String toString() {
+        return BlockCacheUtil.toString(this, now);
+      }
 
-          @Override
-          public long getSize() {
-            return e.getValue().getLength();
-          }
+      @Override
+      public BlockPriority getBlockPriority() {
+        return entry.getPriority();
+      }
 
-          @Override
-          public long getCachedTime() {
-            return e.getValue().getCachedTime();
-          }
+      @Override
+      public BlockType getBlockType() {
+        // Not held by BucketEntry, the key may have it.
+        return key.getBlockType();
+      }
 
-          @Override
-          public String getFilename() {
-            return e.getKey().getHfileName();
-          }
+      @Override
+      public long getOffset() {
+        return key.getOffset();
+      }
 
-          @Override
-          public int compareTo(CachedBlock other) {
-            int diff = this.getFilename().compareTo(other.getFilename());
-            if (diff != 0) return diff;
+      @Override
+      public long getSize() {
+        return entry.getLength();
+      }
 
-            diff = Long.compare(this.getOffset(), other.getOffset());
-            if (diff != 0) return diff;
-            if (other.getCachedTime() < 0 || this.getCachedTime() < 0) {
-              throw new IllegalStateException("" + this.getCachedTime() + ", " +
-                other.getCachedTime());
-            }
-            return Long.compare(other.getCachedTime(), this.getCachedTime());
-          }
+      @Override
+      public long getCachedTime() {
+        return entry.getCachedTime();
+      }
 
-          @Override
-          public int hashCode() {
-            return e.getKey().hashCode();
-          }
+      @Override
+      public String getFilename() {
+        return key.getHfileName();
+      }
 
-          @Override
-          public boolean equals(Object obj) {
-            if (obj instanceof CachedBlock) {
-              CachedBlock cb = (CachedBlock)obj;
-              return compareTo(cb) == 0;
-            } else {
-              return false;
-            }
-          }
-        };
+      @Override
+      public int compareTo(CachedBlock other) {
+        int diff = this.getFilename().compareTo(other.getFilename());
+        if (diff != 0) return diff;
+
+        diff = Long.compare(this.getOffset(), other.getOffset());
+        if (diff != 0) return diff;
+        if (other.getCachedTime() < 0 || this.getCachedTime() < 0) {
+          throw new IllegalStateException("" + this.getCachedTime() + ", " +
+            other.getCachedTime());
+        }
+        return Long.compare(other.getCachedTime(), this.getCachedTime());
       }
 
       @Override
-      public void remove() {
-        throw new UnsupportedOperationException();
+      public int hashCode() {
+        return key.hashCode();
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+        if (obj instanceof CachedBlock) {
+          CachedBlock cb = (CachedBlock)obj;
+          return compareTo(cb) == 0;
+        } else {
+          return false;
+        }
       }
     };
   }
 
   @Override
   public BlockCache[] getBlockCaches() {
+    if (victimHandler != null) {
+      return new BlockCache[] { this, this.victimHandler };
+    }
     return null;
   }
 
@@ -1669,7 +2015,7 @@ public class BucketCache implements BlockCache, HeapSize {
       if (bucketEntry != null) {
         int refCount = bucketEntry.decrementRefCountAndGet();
         if (refCount == 0 && bucketEntry.isMarkedForEvict()) {
-          evictBlock(cacheKey);
+          evictBlock(cacheKey, true);
         }
       }
     }
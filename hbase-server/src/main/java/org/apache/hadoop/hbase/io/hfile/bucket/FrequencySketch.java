@@ -0,0 +1,138 @@
+/**
+ * Copyright The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile.bucket;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.apache.yetus.audience.InterfaceAudience;
+
+/**
+ * A count-min sketch estimating how often a block was accessed, the popularity estimate the
+ * TinyLFU admission policy is built on. Each of the four rows holds 4-bit counters, sixteen to a
+ * long, so the estimate saturates at 15. Once the number of recorded accesses reaches ten times
+ * the expected number of blocks all the counters are halved, so that blocks which used to be hot
+ * fade away.
+ * <p>
+ * Updates are lock free, concurrent increments of the same counter may be lost and the reset may
+ * race with increments, both only make the estimate a little less accurate.
+ */
+@InterfaceAudience.Private
+public class FrequencySketch {
+
+  // from Caffeine's FrequencySketch, odd numbers with good bit dispersion
+  private static final long[] SEED = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+      0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAX_COUNT = 15;
+
+  private final AtomicLongArray table;
+  private final int tableMask;
+  private final long sampleSize;
+  private final AtomicLong size = new AtomicLong();
+  private final AtomicInteger resetCount = new AtomicInteger();
+
+  /**
+   * @param expectedEntries the expected number of distinct blocks in the cache
+   */
+  public FrequencySketch(long expectedEntries) {
+    long entries = Math.min(Math.max(expectedEntries, 16), 1 << 30);
+    int length = (int) Long.highestOneBit(entries - 1) << 1;
+    this.table = new AtomicLongArray(length);
+    this.tableMask = length - 1;
+    this.sampleSize = 10L * length;
+  }
+
+  /**
+   * @return the estimated number of times the item was recorded, at most 15
+   */
+  public int frequency(Object item) {
+    int hash = spread(item.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = MAX_COUNT;
+    for (int i = 0; i < SEED.length; i++) {
+      int offset = (start + i) << 2;
+      int count = (int) ((table.get(indexOf(hash, i)) >>> offset) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an access to the item, aging the whole sketch every {@code sampleSize} accesses.
+   */
+  public void increment(Object item) {
+    int hash = spread(item.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < SEED.length; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && size.incrementAndGet() == sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    while (true) {
+      long value = table.get(index);
+      if ((value & mask) == mask) {
+        return false;
+      }
+      if (table.compareAndSet(index, value, value + (1L << offset))) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Halves all the counters.
+   */
+  private void reset() {
+    for (int i = 0; i < table.length(); i++) {
+      long value;
+      do {
+        value = table.get(i);
+      } while (!table.compareAndSet(i, value, (value >>> 1) & RESET_MASK));
+    }
+    size.addAndGet(-sampleSize / 2);
+    resetCount.incrementAndGet();
+  }
+
+  /**
+   * @return the number of times the counters were halved
+   */
+  public int getResetCount() {
+    return resetCount.get();
+  }
+
+  private int indexOf(int item, int i) {
+    long hash = (item + SEED[i]) * SEED[i];
+    hash += hash >>> 32;
+    return ((int) hash) & tableMask;
+  }
+
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+}
@@ -78,4 +78,9 @@ public class UnsafeSharedMemoryBucketEntry extends BucketEntry {
   protected void markForEvict() {
     this.markedForEvict = true;
   }
-}
\ No newline at end of file
+
+  @Override
+  protected BucketEntry newEntry(long offset) {
+    return new UnsafeSharedMemoryBucketEntry(offset, getLength(), getAccessCounter(), false);
+  }
+}
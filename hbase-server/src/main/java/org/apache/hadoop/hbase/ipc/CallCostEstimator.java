@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.Message;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.GetRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.MultiRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.MutateRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClientProtos.ScanRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.RegionSpecifier;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.RegionSpecifier.RegionSpecifierType;
+
+/**
+ * Estimates the cost of a call from the calls run before it with the same table, method and
+ * user.
+ * <p/>
+ * The cost of a call is the time its handler took in microseconds, plus a microsecond for each
+ * {@value #BYTES_PER_MICROSECOND_KEY} bytes of blocks it read and of cells it returned. The
+ * estimate is a moving average of the costs measured for the same key. Calls without history
+ * are estimated from the other calls of their method, then from all the calls.
+ */
+@InterfaceAudience.Private
+public class CallCostEstimator {
+
+  public static final String BYTES_PER_MICROSECOND_KEY =
+      "hbase.ipc.server.callqueue.cost.bytes.per.microsecond";
+  public static final long DEFAULT_BYTES_PER_MICROSECOND = 1000;
+
+  public static final String MAX_KEYS_KEY = "hbase.ipc.server.callqueue.cost.max.keys";
+  public static final int DEFAULT_MAX_KEYS = 10000;
+
+  // a new cost weighs 1 / 2^AVERAGE_SHIFT in the moving averages
+  private static final int AVERAGE_SHIFT = 3;
+
+  private final long bytesPerMicrosecond;
+  private final int maxKeys;
+
+  private final ConcurrentMap<CostKey, AtomicLong> costs = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicLong> methodCosts = new ConcurrentHashMap<>();
+  private final AtomicLong cost = new AtomicLong(-1);
+
+  private volatile MetricsHBaseServer metrics;
+
+  public CallCostEstimator(Configuration conf) {
+    this.bytesPerMicrosecond =
+        Math.max(1, conf.getLong(BYTES_PER_MICROSECOND_KEY, DEFAULT_BYTES_PER_MICROSECOND));
+    this.maxKeys = conf.getInt(MAX_KEYS_KEY, DEFAULT_MAX_KEYS);
+  }
+
+  public void setMetrics(MetricsHBaseServer metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * @return the estimated cost of the call, in microseconds
+   */
+  public long estimate(CostKey key) {
+    long estimate = get(costs.get(key));
+    if (estimate < 0) {
+      estimate = get(methodCosts.get(key.method));
+    }
+    if (estimate < 0) {
+      estimate = Math.max(cost.get(), 0);
+    }
+    MetricsHBaseServer metrics = this.metrics;
+    if (metrics != null) {
+      metrics.estimatedCallCost(estimate);
+    }
+    return estimate;
+  }
+
+  /**
+   * Records the cost of a call which has run.
+   * @param key the key of the call, taken before it ran
+   * @param call the call
+   * @param handlerTime the time the handler took to run the call, in nanoseconds
+   */
+  public void record(CostKey key, RpcCall call, long handlerTime) {
+    long bytes = call.getResponseBlockSize() + call.getResponseCellSize();
+    long callCost = handlerTime / 1000 + bytes / bytesPerMicrosecond;
+    if (costs.size() >= maxKeys) {
+      // keys of tables and users gone idle are only dropped here, the method and overall
+      // averages keep the estimates of the calls that follow
+      costs.clear();
+    }
+    update(costs.computeIfAbsent(key, k -> new AtomicLong(-1)), callCost);
+    update(methodCosts.computeIfAbsent(key.method, k -> new AtomicLong(-1)), callCost);
+    update(cost, callCost);
+    MetricsHBaseServer metrics = this.metrics;
+    if (metrics != null) {
+      metrics.callCost(callCost);
+    }
+  }
+
+  private static long get(AtomicLong average) {
+    return average != null ? average.get() : -1;
+  }
+
+  private static void update(AtomicLong average, long cost) {
+    long current;
+    long updated;
+    do {
+      current = average.get();
+      updated = current < 0 ? cost : current + ((cost - current) >> AVERAGE_SHIFT);
+    } while (!average.compareAndSet(current, updated));
+  }
+
+  /**
+   * @return the key the cost of the call is estimated and recorded under
+   */
+  public static CostKey getKey(RpcCall call) {
+    String method = call.getMethod() != null ? call.getMethod().getName() : "";
+    return new CostKey(getTable(call.getParam()), method, call.getRequestUserName().orElse(""));
+  }
+
+  static TableName getTable(Message param) {
+    RegionSpecifier region = null;
+    if (param instanceof GetRequest) {
+      region = ((GetRequest) param).getRegion();
+    } else if (param instanceof MutateRequest) {
+      region = ((MutateRequest) param).getRegion();
+    } else if (param instanceof ScanRequest && ((ScanRequest) param).hasRegion()) {
+      region = ((ScanRequest) param).getRegion();
+    } else if (param instanceof MultiRequest && ((MultiRequest) param).getRegionActionCount() > 0) {
+      region = ((MultiRequest) param).getRegionAction(0).getRegion();
+    }
+    // the calls of an open scanner only carry the scanner id, their table is not known here
+    if (region == null || region.getType() != RegionSpecifierType.REGION_NAME) {
+      return null;
+    }
+    try {
+      return RegionInfo.getTable(region.getValue().toByteArray());
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * The table, method and user of a call.
+   */
+  public static final class CostKey {
+    private final TableName table;
+    private final String method;
+    private final String user;
+
+    CostKey(TableName table, String method, String user) {
+      this.table = table;
+      this.method = method;
+      this.user = user;
+    }
+
+    public TableName getTable() {
+      return table;
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    public String getUser() {
+      return user;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof CostKey)) {
+        return false;
+      }
+      CostKey other = (CostKey) obj;
+      return Objects.equals(table, other.table) && method.equals(other.method)
+          && user.equals(other.user);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(table, method, user);
+    }
+
+    @Override
+    public String toString() {
+      return "table=" + table + ", method=" + method + ", user=" + user;
+    }
+  }
+}
@@ -0,0 +1,278 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hadoop.hbase.ipc.CallCostEstimator.CostKey;
+import org.apache.yetus.audience.InterfaceAudience;
+
+/**
+ * Bounded blocking call queue sharing its handlers fairly, by cost, between the users and tables
+ * calling.
+ * <p/>
+ * The calls of a user on a table form a flow, and the queue does self-clocked fair queuing
+ * between the flows. Each call is tagged with the time its flow would finish running it: the
+ * later of the tag of the previous call of the flow and the virtual time, plus the cost the
+ * {@link CallCostEstimator} expects of the call. Calls are taken in the order of their tags, and
+ * the virtual time is the tag of the last call taken. A flow of cheap gets is then not stuck
+ * behind the expensive scans of another flow, and a flow of many calls does not starve a flow of
+ * a few.
+ * <p/>
+ * Implementing {@link BlockingQueue} interface to be compatible with {@link RpcExecutor}.
+ */
+@InterfaceAudience.Private
+public class CostBasedCallQueue extends AbstractQueue<CallRunner>
+    implements BlockingQueue<CallRunner> {
+
+  private static final class Flow {
+    private final CostKey key;
+    // the tag of the last call of the flow
+    private long finishTime;
+    private int queued;
+
+    Flow(CostKey key) {
+      this.key = key;
+    }
+  }
+
+  private static final class Entry implements Comparable<Entry> {
+    private final CallRunner callRunner;
+    private final Flow flow;
+    private final long finishTime;
+    private final long sequence;
+
+    Entry(CallRunner callRunner, Flow flow, long finishTime, long sequence) {
+      this.callRunner = callRunner;
+      this.flow = flow;
+      this.finishTime = finishTime;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+      int cmp = Long.compare(finishTime, other.finishTime);
+      return cmp != 0 ? cmp : Long.compare(sequence, other.sequence);
+    }
+  }
+
+  private final int capacity;
+  private final CallCostEstimator estimator;
+
+  // Lock used for all operations
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+  // the flows with calls in the queue
+  private final Map<CostKey, Flow> flows = new HashMap<>();
+  private long virtualTime;
+  private long sequence;
+
+  public CostBasedCallQueue(int capacity, CallCostEstimator estimator) {
+    this.capacity = capacity;
+    this.estimator = estimator;
+  }
+
+  private void enqueue(CallRunner callRunner, CostKey flowKey, long cost) {
+    Flow flow = flows.computeIfAbsent(flowKey, Flow::new);
+    flow.finishTime = Math.max(flow.finishTime, virtualTime) + Math.max(cost, 1);
+    flow.queued++;
+    queue.add(new Entry(callRunner, flow, flow.finishTime, sequence++));
+    notEmpty.signal();
+  }
+
+  private CallRunner dequeue() {
+    Entry entry = queue.poll();
+    virtualTime = entry.finishTime;
+    if (--entry.flow.queued == 0) {
+      // the tag of the last call of the flow is the virtual time now, a new flow starts there too
+      flows.remove(entry.flow.key);
+    }
+    notFull.signal();
+    return entry.callRunner;
+  }
+
+  @Override
+  public boolean offer(CallRunner callRunner) {
+    CostKey key = CallCostEstimator.getKey(callRunner.getRpcCall());
+    long cost = estimator.estimate(key);
+    CostKey flowKey = new CostKey(key.getTable(), "", key.getUser());
+    lock.lock();
+    try {
+      if (queue.size() >= capacity) {
+        return false;
+      }
+      enqueue(callRunner, flowKey, cost);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(CallRunner callRunner) throws InterruptedException {
+    offer(callRunner, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public boolean offer(CallRunner callRunner, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    CostKey key = CallCostEstimator.getKey(callRunner.getRpcCall());
+    long cost = estimator.estimate(key);
+    CostKey flowKey = new CostKey(key.getTable(), "", key.getUser());
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (queue.size() >= capacity) {
+        if (nanos <= 0) {
+          return false;
+        }
+        nanos = notFull.awaitNanos(nanos);
+      }
+      enqueue(callRunner, flowKey, cost);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (queue.isEmpty()) {
+        notEmpty.await();
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner poll() {
+    lock.lock();
+    try {
+      return queue.isEmpty() ? null : dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (queue.isEmpty() && nanos > 0) {
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      return queue.isEmpty() ? null : dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner peek() {
+    lock.lock();
+    try {
+      Entry entry = queue.peek();
+      return entry != null ? entry.callRunner : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int remainingCapacity() {
+    lock.lock();
+    try {
+      return Math.max(capacity - queue.size(), 0);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return an iterator over a snapshot of the queued calls, in no particular order
+   */
+  @Override
+  public Iterator<CallRunner> iterator() {
+    List<CallRunner> callRunners;
+    lock.lock();
+    try {
+      callRunners = new ArrayList<>(queue.size());
+      for (Entry entry : queue) {
+        callRunners.add(entry.callRunner);
+      }
+    } finally {
+      lock.unlock();
+    }
+    return Collections.unmodifiableList(callRunners).iterator();
+  }
+
+  @Override
+  public int drainTo(Collection<? super CallRunner> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(Collection<? super CallRunner> c, int maxElements) {
+    if (c == null) {
+      throw new NullPointerException();
+    }
+    if (c == this) {
+      throw new IllegalArgumentException();
+    }
+    lock.lock();
+    try {
+      int n = Math.min(queue.size(), Math.max(maxElements, 0));
+      for (int i = 0; i < n; i++) {
+        c.add(dequeue());
+      }
+      return n;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,350 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.quotas.QuotaCache;
+import org.apache.hadoop.hbase.quotas.QuotaLimiter;
+import org.apache.hadoop.hbase.security.User;
+import org.apache.yetus.audience.InterfaceAudience;
+
+/**
+ * Bounded blocking call queue with a sub-queue per tenant, a user or a namespace, served by
+ * deficit round-robin.
+ * <p/>
+ * Each round, a tenant with calls queued may run as many calls as its quantum. The quantum is
+ * {@value Tenants#QUANTUM_KEY} calls scaled by the weight of the tenant relative to
+ * {@value Tenants#DEFAULT_WEIGHT_KEY}: the requests per second its request number throttle allows,
+ * but no less than the default weight. A tenant without a throttle, or with quotas disabled, thus
+ * gets the default share, and a low throttle already limits its tenant without also shrinking its
+ * share. A noisy tenant under its quota then only delays the others by its share of the handlers,
+ * rather than by all the calls it queued, and no call is rejected for it.
+ * <p/>
+ * Implementing {@link BlockingQueue} interface to be compatible with {@link RpcExecutor}.
+ */
+@InterfaceAudience.Private
+public class FairShareCallQueue extends AbstractQueue<CallRunner>
+    implements BlockingQueue<CallRunner> {
+
+  /**
+   * Tells the tenant of a call and its weight. Shared by the queues of an executor.
+   */
+  public static final class Tenants {
+    public static final String TENANT_CONF_KEY = "hbase.ipc.server.callqueue.fair.tenant";
+    public static final String TENANT_USER_CONF_VALUE = "user";
+    public static final String TENANT_NAMESPACE_CONF_VALUE = "namespace";
+
+    public static final String DEFAULT_WEIGHT_KEY =
+        "hbase.ipc.server.callqueue.fair.default.weight";
+    public static final double DEFAULT_DEFAULT_WEIGHT = 100;
+
+    public static final String QUANTUM_KEY = "hbase.ipc.server.callqueue.fair.quantum";
+    public static final int DEFAULT_QUANTUM = 10;
+
+    private final boolean byNamespace;
+    private final double defaultWeight;
+    private final int quantum;
+
+    private volatile QuotaCache quotaCache;
+
+    public Tenants(Configuration conf) {
+      this.byNamespace = TENANT_NAMESPACE_CONF_VALUE.equals(
+        conf.get(TENANT_CONF_KEY, TENANT_USER_CONF_VALUE));
+      this.defaultWeight = conf.getDouble(DEFAULT_WEIGHT_KEY, DEFAULT_DEFAULT_WEIGHT);
+      this.quantum = Math.max(1, conf.getInt(QUANTUM_KEY, DEFAULT_QUANTUM));
+    }
+
+    public void setQuotaCache(QuotaCache quotaCache) {
+      this.quotaCache = quotaCache;
+    }
+
+    String getTenant(RpcCall call) {
+      if (byNamespace) {
+        // the calls of an open scanner carry no region, they share a tenant of their own
+        TableName table = CallCostEstimator.getTable(call.getParam());
+        return table != null ? table.getNamespaceAsString() : "";
+      }
+      return call.getRequestUserName().orElse("");
+    }
+
+    /**
+     * @return the calls the tenant of the call may run each round, at least one
+     */
+    double getQuantum(RpcCall call, String tenant) {
+      double weight = defaultWeight;
+      QuotaCache quotaCache = this.quotaCache;
+      QuotaLimiter limiter = null;
+      if (quotaCache != null) {
+        if (byNamespace) {
+          if (!tenant.isEmpty()) {
+            limiter = quotaCache.getNamespaceLimiter(tenant);
+          }
+        } else {
+          Optional<User> user = call.getRequestUser();
+          if (user.isPresent()) {
+            limiter = quotaCache.getUserQuotaState(user.get().getUGI()).getGlobalLimiter();
+          }
+        }
+      }
+      if (limiter != null && limiter.getRequestLimitPerSecond() < Double.POSITIVE_INFINITY) {
+        weight = Math.max(weight, limiter.getRequestLimitPerSecond());
+      }
+      return Math.max(1, quantum * weight / defaultWeight);
+    }
+  }
+
+  private static final class Tenant {
+    private final String name;
+    private final double quantum;
+    private final ArrayDeque<CallRunner> calls = new ArrayDeque<>();
+    // the calls the tenant may still run in this round
+    private double deficit;
+
+    Tenant(String name, double quantum) {
+      this.name = name;
+      this.quantum = quantum;
+      this.deficit = quantum;
+    }
+  }
+
+  private final int capacity;
+  private final Tenants tenants;
+
+  // Lock used for all operations
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+
+  // the tenants with calls queued, in the order they are served
+  private final ArrayDeque<Tenant> round = new ArrayDeque<>();
+  private final Map<String, Tenant> activeTenants = new HashMap<>();
+  private int size;
+
+  public FairShareCallQueue(int capacity, Tenants tenants) {
+    this.capacity = capacity;
+    this.tenants = tenants;
+  }
+
+  private void enqueue(CallRunner callRunner, String name, double quantum) {
+    Tenant tenant = activeTenants.get(name);
+    if (tenant == null) {
+      tenant = new Tenant(name, quantum);
+      activeTenants.put(name, tenant);
+      round.addLast(tenant);
+    }
+    tenant.calls.addLast(callRunner);
+    size++;
+    notEmpty.signal();
+  }
+
+  private CallRunner dequeue() {
+    for (;;) {
+      Tenant tenant = round.peekFirst();
+      if (tenant.deficit >= 1) {
+        tenant.deficit--;
+        CallRunner callRunner = tenant.calls.pollFirst();
+        size--;
+        if (tenant.calls.isEmpty()) {
+          // an idle tenant does not keep what is left of its quantum
+          round.pollFirst();
+          activeTenants.remove(tenant.name);
+        }
+        notFull.signal();
+        return callRunner;
+      }
+      // the tenant ran its share of this round, it runs again after the others
+      round.pollFirst();
+      tenant.deficit += tenant.quantum;
+      round.addLast(tenant);
+    }
+  }
+
+  @Override
+  public boolean offer(CallRunner callRunner) {
+    String name = tenants.getTenant(callRunner.getRpcCall());
+    // looked up out of the lock, the quota cache may be slow
+    double quantum = tenants.getQuantum(callRunner.getRpcCall(), name);
+    lock.lock();
+    try {
+      if (size >= capacity) {
+        return false;
+      }
+      enqueue(callRunner, name, quantum);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(CallRunner callRunner) throws InterruptedException {
+    offer(callRunner, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public boolean offer(CallRunner callRunner, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    String name = tenants.getTenant(callRunner.getRpcCall());
+    double quantum = tenants.getQuantum(callRunner.getRpcCall(), name);
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (size >= capacity) {
+        if (nanos <= 0) {
+          return false;
+        }
+        nanos = notFull.awaitNanos(nanos);
+      }
+      enqueue(callRunner, name, quantum);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (size == 0) {
+        notEmpty.await();
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner poll() {
+    lock.lock();
+    try {
+      return size == 0 ? null : dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CallRunner poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (size == 0 && nanos > 0) {
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      return size == 0 ? null : dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the oldest call of the tenant at the head of the round, which is not always the next
+   *         call taken
+   */
+  @Override
+  public CallRunner peek() {
+    lock.lock();
+    try {
+      Tenant tenant = round.peekFirst();
+      return tenant != null ? tenant.calls.peekFirst() : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int remainingCapacity() {
+    lock.lock();
+    try {
+      return Math.max(capacity - size, 0);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return an iterator over a snapshot of the queued calls, grouped by tenant
+   */
+  @Override
+  public Iterator<CallRunner> iterator() {
+    List<CallRunner> callRunners;
+    lock.lock();
+    try {
+      callRunners = new ArrayList<>(size);
+      for (Tenant tenant : round) {
+        callRunners.addAll(tenant.calls);
+      }
+    } finally {
+      lock.unlock();
+    }
+    return Collections.unmodifiableList(callRunners).iterator();
+  }
+
+  @Override
+  public int drainTo(Collection<? super CallRunner> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(Collection<? super CallRunner> c, int maxElements) {
+    if (c == null) {
+      throw new NullPointerException();
+    }
+    if (c == this) {
+      throw new IllegalArgumentException();
+    }
+    lock.lock();
+    try {
+      int n = Math.min(size, Math.max(maxElements, 0));
+      for (int i = 0; i < n; i++) {
+        c.add(dequeue());
+      }
+      return n;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -74,6 +74,22 @@ public class MetricsHBaseServer {
 
   void receivedRequest(long count) { source.receivedRequest(count); }
 
+  void directGetHit() {
+    source.directGetHit();
+  }
+
+  void directGetMiss() {
+    source.directGetMiss();
+  }
+
+  void callCost(long cost) {
+    source.callCost(cost);
+  }
+
+  void estimatedCallCost(long cost) {
+    source.estimatedCallCost(cost);
+  }
+
   void dequeuedCall(int qTime) {
     source.dequeuedCall(qTime);
   }
@@ -38,6 +38,7 @@ import org.apache.yetus.audience.InterfaceAudience;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.hadoop.hbase.monitoring.MonitoredRPCHandler;
+import org.apache.hadoop.hbase.quotas.QuotaCache;
 import org.apache.hadoop.hbase.util.BoundedPriorityBlockingQueue;
 import org.apache.hadoop.hbase.util.ReflectionUtils;
 import org.apache.hadoop.util.StringUtils;
@@ -62,11 +63,15 @@ public abstract class RpcExecutor {
   /**
    * The default, 'fifo', has the least friction but is dumb. If set to 'deadline', uses a priority
    * queue and deprioritizes long-running scans. Sorting by priority comes at a cost, reduced
-   * throughput.
+   * throughput. If set to 'cost', shares the handlers fairly between users and tables by the
+   * cost of their calls, estimated from the calls before them. If set to 'fair', shares them
+   * between users or namespaces by the weights of their quotas.
    */
   public static final String CALL_QUEUE_TYPE_CODEL_CONF_VALUE = "codel";
   public static final String CALL_QUEUE_TYPE_DEADLINE_CONF_VALUE = "deadline";
   public static final String CALL_QUEUE_TYPE_FIFO_CONF_VALUE = "fifo";
+  public static final String CALL_QUEUE_TYPE_COST_CONF_VALUE = "cost";
+  public static final String CALL_QUEUE_TYPE_FAIR_CONF_VALUE = "fair";
   public static final String CALL_QUEUE_TYPE_CONF_KEY = "hbase.ipc.server.callqueue.type";
   public static final String CALL_QUEUE_TYPE_CONF_DEFAULT = CALL_QUEUE_TYPE_FIFO_CONF_VALUE;
 
@@ -86,12 +91,16 @@ public abstract class RpcExecutor {
   protected final List<BlockingQueue<CallRunner>> queues;
   private final Class<? extends BlockingQueue> queueClass;
   private final Object[] queueInitArgs;
+  // only set for cost based queues, measures the calls the handlers run
+  private final CallCostEstimator callCostEstimator;
+  // only set for fair share queues
+  private final FairShareCallQueue.Tenants tenants;
 
   private final PriorityFunction priority;
 
   protected volatile int currentQueueLimit;
 
-  private final AtomicInteger activeHandlerCount = new AtomicInteger(0);
+  protected final AtomicInteger activeHandlerCount = new AtomicInteger(0);
   private final List<Handler> handlers;
   private final int handlerCount;
   private final AtomicInteger failedHandlerCount = new AtomicInteger(0);
@@ -138,6 +147,8 @@ public abstract class RpcExecutor {
 
     this.priority = priority;
 
+    CallCostEstimator callCostEstimator = null;
+    FairShareCallQueue.Tenants tenants = null;
     if (isDeadlineQueueType(callQueueType)) {
       this.name += ".Deadline";
       this.queueInitArgs = new Object[] { maxQueueLength,
@@ -153,11 +164,23 @@ public abstract class RpcExecutor {
       queueInitArgs = new Object[] { maxQueueLength, codelTargetDelay, codelInterval,
           codelLifoThreshold, numGeneralCallsDropped, numLifoModeSwitches };
       queueClass = AdaptiveLifoCoDelCallQueue.class;
+    } else if (isCostQueueType(callQueueType)) {
+      this.name += ".Cost";
+      callCostEstimator = new CallCostEstimator(conf);
+      queueInitArgs = new Object[] { maxQueueLength, callCostEstimator };
+      queueClass = CostBasedCallQueue.class;
+    } else if (isFairQueueType(callQueueType)) {
+      this.name += ".Fair";
+      tenants = new FairShareCallQueue.Tenants(conf);
+      queueInitArgs = new Object[] { maxQueueLength, tenants };
+      queueClass = FairShareCallQueue.class;
     } else {
       this.name += ".Fifo";
       queueInitArgs = new Object[] { maxQueueLength };
       queueClass = LinkedBlockingQueue.class;
     }
+    this.callCostEstimator = callCostEstimator;
+    this.tenants = tenants;
 
     LOG.info("Instantiated {} with queueClass={}; " +
         "numCallQueues={}, maxQueueLength={}, handlerCount={}",
@@ -222,6 +245,24 @@ public abstract class RpcExecutor {
     }
   }
 
+  /**
+   * Sets the metrics the cost of the calls is reported to, if the queues are cost based.
+   */
+  public void setMetrics(MetricsHBaseServer metrics) {
+    if (callCostEstimator != null) {
+      callCostEstimator.setMetrics(metrics);
+    }
+  }
+
+  /**
+   * Sets the quotas the weights of the tenants are taken from, if the queues are fair share.
+   */
+  public void setQuotaCache(QuotaCache quotaCache) {
+    if (tenants != null) {
+      tenants.setQuotaCache(quotaCache);
+    }
+  }
+
   public void start(final int port) {
     running = true;
     startHandlers(port);
@@ -330,9 +371,25 @@ public abstract class RpcExecutor {
       }
     }
 
-    private void run(CallRunner cr) {
-      MonitoredRPCHandler status = RpcServer.getStatus();
+    /**
+     * Runs the call. Override to run it elsewhere than on this handler thread.
+     */
+    protected void run(CallRunner cr) throws InterruptedException {
+      run(cr, RpcServer.getStatus());
+    }
+
+    /**
+     * Runs the call on the calling thread, reporting to the given status.
+     */
+    protected final void run(CallRunner cr, MonitoredRPCHandler status) {
       cr.setStatus(status);
+      RpcCall call = cr.getRpcCall();
+      CallCostEstimator.CostKey costKey = null;
+      long startTime = 0;
+      if (callCostEstimator != null) {
+        costKey = CallCostEstimator.getKey(call);
+        startTime = System.nanoTime();
+      }
       try {
         this.activeHandlerCount.incrementAndGet();
         cr.run();
@@ -358,6 +415,9 @@ public abstract class RpcExecutor {
         }
       } finally {
         this.activeHandlerCount.decrementAndGet();
+        if (costKey != null) {
+          callCostEstimator.record(costKey, call, System.nanoTime() - startTime);
+        }
       }
     }
   }
@@ -445,6 +505,14 @@ public abstract class RpcExecutor {
     return callQueueType.equals(CALL_QUEUE_TYPE_FIFO_CONF_VALUE);
   }
 
+  public static boolean isCostQueueType(final String callQueueType) {
+    return callQueueType.equals(CALL_QUEUE_TYPE_COST_CONF_VALUE);
+  }
+
+  public static boolean isFairQueueType(final String callQueueType) {
+    return callQueueType.equals(CALL_QUEUE_TYPE_FAIR_CONF_VALUE);
+  }
+
   public long getNumGeneralCallsDropped() {
     return numGeneralCallsDropped.longValue();
   }
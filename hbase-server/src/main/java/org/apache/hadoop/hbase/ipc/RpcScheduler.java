@@ -20,6 +20,7 @@ package org.apache.hadoop.hbase.ipc;
 import org.apache.yetus.audience.InterfaceAudience;
 import org.apache.yetus.audience.InterfaceStability;
 import org.apache.hadoop.hbase.HBaseInterfaceAudience;
+import org.apache.hadoop.hbase.quotas.QuotaCache;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -41,6 +42,11 @@ public abstract class RpcScheduler {
   /** Exposes runtime information of a {@code RpcServer} that a {@code RpcScheduler} may need. */
   public static abstract class Context {
     public abstract InetSocketAddress getListenerAddress();
+
+    /** Returns the metrics of the {@code RpcServer}, null if it has none */
+    public MetricsHBaseServer getMetrics() {
+      return null;
+    }
   }
 
   /**
@@ -56,6 +62,13 @@ public abstract class RpcScheduler {
    */
   public abstract void start();
 
+  /**
+   * Passes the quotas of the users and namespaces, once they are loaded, to schedulers sharing
+   * the handlers between them.
+   */
+  public void setQuotaCache(QuotaCache quotaCache) {
+  }
+
   /** Stops serving new requests. */
   public abstract void stop();
 
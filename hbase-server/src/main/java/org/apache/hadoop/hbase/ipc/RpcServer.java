@@ -48,6 +48,7 @@ import org.apache.hadoop.hbase.monitoring.TaskMonitor;
 import org.apache.hadoop.hbase.nio.ByteBuff;
 import org.apache.hadoop.hbase.nio.MultiByteBuff;
 import org.apache.hadoop.hbase.nio.SingleByteBuff;
+import org.apache.hadoop.hbase.regionserver.HRegion;
 import org.apache.hadoop.hbase.regionserver.RSRpcServices;
 import org.apache.hadoop.hbase.security.SaslUtil;
 import org.apache.hadoop.hbase.security.SaslUtil.QualityOfProtection;
@@ -186,6 +187,15 @@ public abstract class RpcServer implements RpcServerInterface,
   protected static final String MIN_CLIENT_REQUEST_TIMEOUT = "hbase.ipc.min.client.request.timeout";
   protected static final int DEFAULT_MIN_CLIENT_REQUEST_TIMEOUT = 20;
 
+  /**
+   * Whether gets predicted to be served from the memstore and the block cache are run right away
+   * on the thread which read them from the connection, the Netty event loop or the reader of the
+   * SimpleRpcServer, instead of being queued for a handler. A get predicted wrongly holds up the
+   * other connections of that thread while it reads from the file system.
+   */
+  public static final String DIRECT_GET_KEY = "hbase.ipc.server.direct.get.enabled";
+  public static final boolean DEFAULT_DIRECT_GET = false;
+
   /** Default value for above params */
   public static final int DEFAULT_MAX_REQUEST_SIZE = DEFAULT_MAX_CALLQUEUE_SIZE / 4; // 256M
   protected static final int DEFAULT_WARN_RESPONSE_TIME = 10000; // milliseconds
@@ -203,6 +213,8 @@ public abstract class RpcServer implements RpcServerInterface,
 
   protected final int minClientRequestTimeout;
 
+  protected final boolean directGet;
+
   protected final Server server;
   protected final List<BlockingServiceAndInterface> services;
 
@@ -305,6 +317,7 @@ public abstract class RpcServer implements RpcServerInterface,
     this.minClientRequestTimeout = conf.getInt(MIN_CLIENT_REQUEST_TIMEOUT,
         DEFAULT_MIN_CLIENT_REQUEST_TIMEOUT);
     this.maxRequestSize = conf.getInt(MAX_REQUEST_SIZE, DEFAULT_MAX_REQUEST_SIZE);
+    this.directGet = conf.getBoolean(DIRECT_GET_KEY, DEFAULT_DIRECT_GET);
 
     this.metrics = new MetricsHBaseServer(name, new MetricsHBaseServerWrapperImpl(this));
     this.tcpNoDelay = conf.getBoolean("hbase.ipc.server.tcpnodelay", true);
@@ -819,4 +832,29 @@ public abstract class RpcServer implements RpcServerInterface,
   public void setRsRpcServices(RSRpcServices rsRpcServices) {
     this.rsRpcServices = rsRpcServices;
   }
+
+  /**
+   * Runs the call on the calling thread if it is a get predicted to be served from the cache, see
+   * {@link #DIRECT_GET_KEY}.
+   * @return true if the call was run, false if it still has to be dispatched to the scheduler
+   */
+  boolean runDirectly(CallRunner task) {
+    Message param = task.getRpcCall().getParam();
+    if (!directGet || rsRpcServices == null || !(param instanceof ClientProtos.GetRequest)) {
+      return false;
+    }
+    HRegion region = rsRpcServices.startDirectGet(param);
+    if (region == null) {
+      metrics.directGetMiss();
+      return false;
+    }
+    try {
+      metrics.directGetHit();
+      task.setStatus(getStatus());
+      task.run();
+    } finally {
+      rsRpcServices.finishDirectGet(region);
+    }
+    return true;
+  }
 }
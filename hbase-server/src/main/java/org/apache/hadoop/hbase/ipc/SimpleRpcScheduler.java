@@ -25,6 +25,7 @@ import org.apache.yetus.audience.InterfaceAudience;
 import org.apache.yetus.audience.InterfaceStability;
 import org.apache.hadoop.hbase.conf.ConfigurationObserver;
 import org.apache.hadoop.hbase.master.MasterAnnotationReadingPriorityFunction;
+import org.apache.hadoop.hbase.quotas.QuotaCache;
 
 /**
  * The default scheduler. Configurable. Maintains isolated handler pools for general ('default'),
@@ -91,7 +92,14 @@ public class SimpleRpcScheduler extends RpcScheduler implements ConfigurationObs
       callExecutor = new RWQueueRpcExecutor("default.RWQ", Math.max(2, handlerCount),
         maxQueueLength, priority, conf, server);
     } else {
-      if (RpcExecutor.isFifoQueueType(callQueueType) || RpcExecutor.isCodelQueueType(callQueueType)) {
+      if ((RpcExecutor.isFifoQueueType(callQueueType)
+          || RpcExecutor.isCodelQueueType(callQueueType))
+          && conf.getBoolean(VirtualThreadRpcExecutor.CALL_QUEUE_VIRTUAL_THREADS_CONF_KEY,
+            VirtualThreadRpcExecutor.CALL_QUEUE_VIRTUAL_THREADS_CONF_DEFAULT)) {
+        callExecutor = new VirtualThreadRpcExecutor("default.VTBQ", handlerCount, maxQueueLength,
+            priority, conf, server);
+      } else if (RpcExecutor.isFifoQueueType(callQueueType)
+          || RpcExecutor.isCodelQueueType(callQueueType)) {
         callExecutor = new FastPathBalancedQueueRpcExecutor("default.FPBQ", handlerCount,
             maxQueueLength, priority, conf, server);
       } else {
@@ -150,6 +158,12 @@ public class SimpleRpcScheduler extends RpcScheduler implements ConfigurationObs
   @Override
   public void init(Context context) {
     this.port = context.getListenerAddress().getPort();
+    callExecutor.setMetrics(context.getMetrics());
+  }
+
+  @Override
+  public void setQuotaCache(QuotaCache quotaCache) {
+    callExecutor.setQuotaCache(quotaCache);
   }
 
   @Override
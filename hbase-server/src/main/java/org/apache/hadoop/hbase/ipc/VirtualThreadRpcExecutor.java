@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Abortable;
+import org.apache.hadoop.hbase.monitoring.MonitoredRPCHandler;
+import org.apache.hadoop.hbase.monitoring.TaskMonitor;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hbase.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Balanced queue executor which runs each call on a thread of its own, a virtual thread when the
+ * JVM has them (JDK 21+), rather than on a fixed set of handler threads. A dispatcher thread per
+ * queue takes the calls off the queue and starts them, and a semaphore with a permit per handler
+ * bounds how many calls run at once. A call blocked on a file system read then parks a cheap
+ * virtual thread instead of holding one of the few handler threads, so the handler count can be
+ * raised without paying for as many platform threads.
+ * <p/>
+ * Calls wait for a permit in their queue, so the queue length and size metrics keep their meaning.
+ * On JVMs without virtual threads, the calls run on a cached pool of platform threads.
+ */
+@InterfaceAudience.Private
+public class VirtualThreadRpcExecutor extends BalancedQueueRpcExecutor {
+  private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadRpcExecutor.class);
+
+  /** Whether the default calls run on a thread each, rather than on the handler threads */
+  public static final String CALL_QUEUE_VIRTUAL_THREADS_CONF_KEY =
+      "hbase.ipc.server.callqueue.virtual.threads.enabled";
+  public static final boolean CALL_QUEUE_VIRTUAL_THREADS_CONF_DEFAULT = false;
+
+  private final Semaphore permits;
+  // the statuses of the running calls, reused so that a call does not register a new one
+  private final Queue<MonitoredRPCHandler> statuses = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger statusCount = new AtomicInteger();
+  private final ExecutorService callExecutor;
+
+  public VirtualThreadRpcExecutor(final String name, final int handlerCount,
+      final int maxQueueLength, final PriorityFunction priority, final Configuration conf,
+      final Abortable abortable) {
+    super(name, handlerCount, maxQueueLength, priority, conf, abortable);
+    this.permits = new Semaphore(Math.max(handlerCount, 1));
+    this.callExecutor = newThreadPerCallExecutor(getName());
+  }
+
+  private static ExecutorService newThreadPerCallExecutor(String name) {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      LOG.info("No virtual threads in this JVM, {} runs its calls on platform threads", name);
+      return Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+          .setNameFormat("RpcServer." + name + ".call-%d").setDaemon(true).build());
+    }
+  }
+
+  @Override
+  protected void startHandlers(final int port) {
+    List<BlockingQueue<CallRunner>> callQueues = getQueues();
+    startHandlers(".dispatcher", callQueues.size(), callQueues, 0, callQueues.size(), port,
+      activeHandlerCount);
+  }
+
+  @Override
+  protected Handler getHandler(String name, double handlerFailureThreshhold,
+      BlockingQueue<CallRunner> q, AtomicInteger activeHandlerCount) {
+    return new Dispatcher(name, handlerFailureThreshhold, q, activeHandlerCount);
+  }
+
+  @Override
+  public void stop() {
+    super.stop();
+    callExecutor.shutdown();
+  }
+
+  private MonitoredRPCHandler getStatus() {
+    MonitoredRPCHandler status = statuses.poll();
+    if (status == null) {
+      status = TaskMonitor.get()
+          .createRPCStatus("RpcServer." + getName() + ".call=" + statusCount.getAndIncrement());
+      status.pause("Waiting for a call");
+    }
+    return status;
+  }
+
+  /**
+   * Takes a call off its queue once a permit is free, and starts it on a thread of its own.
+   */
+  class Dispatcher extends Handler {
+
+    Dispatcher(String name, double handlerFailureThreshhold, BlockingQueue<CallRunner> q,
+        AtomicInteger activeHandlerCount) {
+      super(name, handlerFailureThreshhold, q, activeHandlerCount);
+    }
+
+    @Override
+    protected CallRunner getCallRunner() throws InterruptedException {
+      // take the permit first, so the calls waiting for one are still counted in the queue
+      permits.acquire();
+      try {
+        return super.getCallRunner();
+      } catch (InterruptedException e) {
+        permits.release();
+        throw e;
+      }
+    }
+
+    @Override
+    protected void run(CallRunner cr) {
+      try {
+        callExecutor.execute(() -> {
+          MonitoredRPCHandler status = getStatus();
+          try {
+            run(cr, status);
+          } finally {
+            statuses.add(status);
+            permits.release();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // the executor is stopping
+        permits.release();
+        cr.drop();
+      }
+    }
+  }
+}
@@ -20,31 +20,43 @@ package org.apache.hadoop.hbase.master;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.CompareOperator;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.MetaTableAccessor;
 import org.apache.hadoop.hbase.ScheduledChore;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.ColumnFamilyDescriptor;
 import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.RegionInfo;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
 import org.apache.hadoop.hbase.master.assignment.AssignmentManager;
 import org.apache.hadoop.hbase.master.assignment.GCMergedRegionsProcedure;
 import org.apache.hadoop.hbase.master.assignment.GCRegionProcedure;
 import org.apache.hadoop.hbase.master.procedure.MasterProcedureEnv;
+import org.apache.hadoop.hbase.procedure2.Procedure;
 import org.apache.hadoop.hbase.procedure2.ProcedureExecutor;
 import org.apache.hadoop.hbase.regionserver.HRegionFileSystem;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.hadoop.hbase.util.FSUtils;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.hadoop.hbase.util.PairOfSameType;
@@ -57,15 +69,44 @@ import org.slf4j.LoggerFactory;
 /**
  * A janitor for the catalog tables.  Scans the <code>hbase:meta</code> catalog
  * table on a period looking for unused regions to garbage collect.
+ * <p/>
+ * Only the rows of merged regions and split parents are returned by the region server hosting
+ * <code>hbase:meta</code>. Every {@value #FULL_SCAN_PERIOD_KEY} runs the whole table is scanned,
+ * in between only the rows written since the previous run are scanned, and the candidates found
+ * before are fetched again by row.
  */
 @InterfaceAudience.Private
 public class CatalogJanitor extends ScheduledChore {
   private static final Logger LOG = LoggerFactory.getLogger(CatalogJanitor.class.getName());
 
+  /**
+   * Number of chore runs between two full scans of <code>hbase:meta</code>, the runs in between
+   * only look at the rows modified since the previous run. Set to 0 to always do a full scan.
+   */
+  static final String FULL_SCAN_PERIOD_KEY = "hbase.catalogjanitor.full.scan.period";
+  static final int DEFAULT_FULL_SCAN_PERIOD = 12;
+
+  /**
+   * Maximum number of region GC procedures scheduled by the janitor which may be unfinished at
+   * the same time, the remaining candidates are left for the next runs.
+   */
+  static final String MAX_OUTSTANDING_GC_PROCEDURES_KEY =
+      "hbase.catalogjanitor.max.outstanding.gc.procedures";
+  static final int DEFAULT_MAX_OUTSTANDING_GC_PROCEDURES = 100;
+
   private final AtomicBoolean alreadyRunning = new AtomicBoolean(false);
   private final AtomicBoolean enabled = new AtomicBoolean(true);
   private final MasterServices services;
   private final Connection connection;
+  private final int fullScanPeriod;
+  private final int maxOutstandingGCProcedures;
+
+  // Row keys of the merged regions and split parents found by the last scan of all the tables, and
+  // when it started. Guarded by scanStateLock.
+  private final Object scanStateLock = new Object();
+  private Set<byte[]> candidateRows = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+  private long lastScanStartTime = -1;
+  private int scansSinceFullScan;
   // PID of the last Procedure launched herein. Keep around for Tests.
 
   CatalogJanitor(final MasterServices services) {
@@ -73,6 +114,10 @@ public class CatalogJanitor extends ScheduledChore {
       services.getConfiguration().getInt("hbase.catalogjanitor.interval", 300000));
     this.services = services;
     this.connection = services.getConnection();
+    this.fullScanPeriod =
+        services.getConfiguration().getInt(FULL_SCAN_PERIOD_KEY, DEFAULT_FULL_SCAN_PERIOD);
+    this.maxOutstandingGCProcedures = services.getConfiguration()
+        .getInt(MAX_OUTSTANDING_GC_PROCEDURES_KEY, DEFAULT_MAX_OUTSTANDING_GC_PROCEDURES);
   }
 
   @Override
@@ -143,7 +188,8 @@ public class CatalogJanitor extends ScheduledChore {
    * Scans hbase:meta and returns a number of scanned rows, and a map of merged
    * regions, and an ordered map of split parents. if the given table name is
    * null, return merged regions and split parents of all tables, else only the
-   * specified table
+   * specified table. Only the merged regions and split parents count as scanned
+   * rows, the other rows are skipped on the server side.
    * @param tableName null represents all tables
    * @return triple of scanned rows, and map of merged regions, and map of split
    *         parent regioninfos
@@ -182,13 +228,85 @@ public class CatalogJanitor extends ScheduledChore {
       }
     };
 
-    // Run full scan of hbase:meta catalog table passing in our custom visitor with
-    // the start row
-    MetaTableAccessor.scanMetaForTableRegions(this.connection, visitor, tableName);
+    if (isTableSpecified) {
+      MetaTableAccessor.scanMetaForTableRegions(this.connection, visitor, tableName,
+        getCandidateFilter(), 0);
+      return new Triple<>(count.get(), mergedRegions, splitParents);
+    }
 
+    Set<byte[]> rows = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    // the scan of the chore and the ones asked for, e.g. by tests, take turns at the scan state
+    synchronized (scanStateLock) {
+      long scanStartTime = EnvironmentEdgeManager.currentTime();
+      if (lastScanStartTime < 0 || scansSinceFullScan + 1 >= fullScanPeriod) {
+        // Run full scan of hbase:meta catalog table passing in our custom visitor
+        MetaTableAccessor.scanMetaForTableRegions(this.connection, r -> {
+          rows.add(r.getRow());
+          return visitor.visit(r);
+        }, null, getCandidateFilter(), 0);
+        scansSinceFullScan = 0;
+      } else {
+        // Find the rows which became candidates since the last scan. The meta edits are stamped by
+        // the master, go back one more period to be safe against a clock adjustment.
+        rows.addAll(candidateRows);
+        long minTimestamp = Math.max(0, lastScanStartTime - getPeriod());
+        MetaTableAccessor.scanMetaForTableRegions(this.connection, r -> {
+          rows.add(r.getRow());
+          return true;
+        }, null, getCandidateFilter(), minTimestamp);
+        // And fetch the whole rows, the scan above only returned the recent cells
+        List<Get> gets = new ArrayList<>(rows.size());
+        for (byte[] row : rows) {
+          gets.add(new Get(row).addFamily(HConstants.CATALOG_FAMILY));
+        }
+        try (Table metaTable = MetaTableAccessor.getMetaHTable(this.connection)) {
+          for (Result r : metaTable.get(gets)) {
+            visitor.visit(r);
+          }
+        }
+        scansSinceFullScan++;
+      }
+      Set<byte[]> candidates = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+      mergedRegions.keySet().forEach(r -> candidates.add(r.getRegionName()));
+      splitParents.keySet().forEach(r -> candidates.add(r.getRegionName()));
+      candidateRows = candidates;
+      lastScanStartTime = scanStartTime;
+    }
+    LOG.debug("Found {} merged regions and {} split parents in {} rows of hbase:meta",
+      mergedRegions.size(), splitParents.size(), rows.size());
     return new Triple<>(count.get(), mergedRegions, splitParents);
   }
 
+  /**
+   * @return a filter only letting through the rows of merged regions and split parents
+   */
+  private static Filter getCandidateFilter() {
+    FilterList filter = new FilterList(FilterList.Operator.MUST_PASS_ONE);
+    for (byte[] qualifier : new byte[][] { HConstants.SPLITA_QUALIFIER,
+        HConstants.MERGEA_QUALIFIER }) {
+      SingleColumnValueFilter hasQualifier = new SingleColumnValueFilter(
+          HConstants.CATALOG_FAMILY, qualifier, CompareOperator.NOT_EQUAL,
+          HConstants.EMPTY_BYTE_ARRAY);
+      hasQualifier.setFilterIfMissing(true);
+      filter.addFilter(hasQualifier);
+    }
+    return filter;
+  }
+
+  /**
+   * @return number of GC procedures which are not finished yet
+   */
+  private int getOutstandingGCProcedures() {
+    int outstanding = 0;
+    for (Procedure<?> proc : this.services.getMasterProcedureExecutor().getProcedures()) {
+      if (!proc.isFinished() &&
+          (proc instanceof GCRegionProcedure || proc instanceof GCMergedRegionsProcedure)) {
+        outstanding++;
+      }
+    }
+    return outstanding;
+  }
+
   /**
    * If merged region no longer holds reference to the merge regions, archive
    * merge region on hdfs and perform deleting references in hbase:meta
@@ -243,6 +361,7 @@ public class CatalogJanitor extends ScheduledChore {
       }
       Triple<Integer, Map<RegionInfo, Result>, Map<RegionInfo, Result>> scanTriple =
         getMergedRegionsAndSplitParents();
+      int available = maxOutstandingGCProcedures - getOutstandingGCProcedures();
       /**
        * clean merge regions first
        */
@@ -252,6 +371,11 @@ public class CatalogJanitor extends ScheduledChore {
           // Stop cleaning if the master is in maintenance mode
           break;
         }
+        if (result >= available) {
+          LOG.debug("{} GC procedures outstanding, leaving the remaining regions for next run",
+            maxOutstandingGCProcedures);
+          break;
+        }
 
         PairOfSameType<RegionInfo> p = MetaTableAccessor.getMergeRegions(e.getValue());
         RegionInfo regionA = p.getFirst();
@@ -281,6 +405,11 @@ public class CatalogJanitor extends ScheduledChore {
           // Stop cleaning if the master is in maintenance mode
           break;
         }
+        if (result >= available) {
+          LOG.debug("{} GC procedures outstanding, leaving the remaining regions for next run",
+            maxOutstandingGCProcedures);
+          break;
+        }
 
         if (!parentNotCleaned.contains(e.getKey().getEncodedName()) &&
             cleanParent(e.getKey(), e.getValue())) {
@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.master;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.RegionMetrics;
+import org.apache.hadoop.hbase.ServerMetrics;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands out to the region servers the tokens they need to run large compactions, so that the
+ * large compactions of the whole cluster do not saturate HDFS and the network at once. A token
+ * allows one large compaction at a time, and there are at most {@value #MAX_PER_SERVER_KEY}
+ * tokens per server, as it writes to its local datanode, {@value #MAX_PER_RACK_KEY} per rack and
+ * {@value #MAX_KEY} for the whole cluster. The rack budget only applies when the servers are on
+ * more than one rack, a cluster without rack topology has a single rack.
+ * <p/>
+ * Each region server report carries how many large compactions the server runs and how many are
+ * waiting, and the response carries the tokens of the server. Granted tokens are kept until the
+ * server has no more use for them, the remaining budget goes first to the servers whose reads
+ * cost the most, measured as the store files of each region times its read rate.
+ */
+@InterfaceAudience.Private
+public class CompactionCoordinator {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CompactionCoordinator.class);
+
+  public static final String ENABLED_KEY = "hbase.master.compaction.coordinator.enabled";
+  public static final boolean DEFAULT_ENABLED = false;
+
+  public static final String MAX_PER_SERVER_KEY =
+      "hbase.master.compaction.coordinator.max.per.server";
+  public static final int DEFAULT_MAX_PER_SERVER = 1;
+
+  public static final String MAX_PER_RACK_KEY = "hbase.master.compaction.coordinator.max.per.rack";
+  public static final int DEFAULT_MAX_PER_RACK = 4;
+
+  public static final String MAX_KEY = "hbase.master.compaction.coordinator.max";
+  public static final int DEFAULT_MAX = 20;
+
+  private static final class ServerState {
+    private final String rack;
+    private int running;
+    private int pending;
+    // store files read per second, summed over the regions of the server
+    private double readAmplification;
+    private Map<byte[], Long> readRequests = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    private long lastReportTime;
+    private int tokens;
+
+    ServerState(String rack) {
+      this.rack = rack;
+    }
+  }
+
+  private final RackManager rackManager;
+  private final int maxPerServer;
+  private final int maxPerRack;
+  private final int max;
+  // servers which did not report for this long are forgotten
+  private final long expireTime;
+
+  private final Map<ServerName, ServerState> servers = new HashMap<>();
+
+  public CompactionCoordinator(Configuration conf, RackManager rackManager) {
+    this.rackManager = rackManager;
+    this.maxPerServer = conf.getInt(MAX_PER_SERVER_KEY, DEFAULT_MAX_PER_SERVER);
+    this.maxPerRack = conf.getInt(MAX_PER_RACK_KEY, DEFAULT_MAX_PER_RACK);
+    this.max = conf.getInt(MAX_KEY, DEFAULT_MAX);
+    this.expireTime = 10L * conf.getInt("hbase.regionserver.msginterval", 3 * 1000);
+  }
+
+  /**
+   * Records the report of a region server and hands out the tokens again.
+   * @param running large compactions running on the server
+   * @param pending large compactions queued or waiting for a token on the server
+   * @return the number of large compactions the server may run at once
+   */
+  public synchronized int reportAndGetTokens(ServerName serverName, int running, int pending,
+      ServerMetrics load, long now) {
+    ServerState state = servers.get(serverName);
+    if (state == null) {
+      state = new ServerState(rackManager.getRack(serverName));
+      servers.put(serverName, state);
+    }
+    updateReadAmplification(state, load, now);
+    state.running = running;
+    state.pending = pending;
+    state.lastReportTime = now;
+    servers.values().removeIf(s -> now - s.lastReportTime > expireTime);
+    assignTokens();
+    return state.tokens;
+  }
+
+  private static void updateReadAmplification(ServerState state, ServerMetrics load, long now) {
+    Map<byte[], Long> readRequests = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    double storeFilesRead = 0;
+    for (RegionMetrics region : load.getRegionMetrics().values()) {
+      readRequests.put(region.getRegionName(), region.getReadRequestCount());
+      Long previous = state.readRequests.get(region.getRegionName());
+      if (previous != null && region.getReadRequestCount() > previous) {
+        storeFilesRead +=
+            (double) region.getStoreFileCount() * (region.getReadRequestCount() - previous);
+      }
+    }
+    if (state.lastReportTime > 0 && now > state.lastReportTime) {
+      state.readAmplification = storeFilesRead * 1000 / (now - state.lastReportTime);
+    }
+    state.readRequests = readRequests;
+  }
+
+  private void assignTokens() {
+    // on a single rack, the rack budget would only lower the budget of the cluster
+    int rackBudget =
+        servers.values().stream().map(s -> s.rack).distinct().count() > 1 ? maxPerRack : max;
+    Map<String, Integer> rackTokens = new HashMap<>();
+    int total = 0;
+    // running compactions, and the granted tokens still waited for, keep their tokens, as far
+    // as the budget goes
+    for (ServerState state : servers.values()) {
+      int held = Math.max(state.running, Math.min(state.tokens, state.running + state.pending));
+      int rackRemaining = rackBudget - rackTokens.getOrDefault(state.rack, 0);
+      state.tokens = Math.max(0, Math.min(Math.min(held, maxPerServer),
+        Math.min(rackRemaining, max - total)));
+      rackTokens.merge(state.rack, state.tokens, Integer::sum);
+      total += state.tokens;
+    }
+    // then the waiting compactions, where they save the most reads first
+    List<ServerState> waiting = new ArrayList<>();
+    for (ServerState state : servers.values()) {
+      if (state.pending > 0 && state.tokens < maxPerServer) {
+        waiting.add(state);
+      }
+    }
+    waiting.sort(Comparator.comparingDouble((ServerState s) -> s.readAmplification).reversed());
+    for (ServerState state : waiting) {
+      int rackRemaining = rackBudget - rackTokens.getOrDefault(state.rack, 0);
+      int extra = Math.max(0, Math.min(Math.min(state.pending, maxPerServer - state.tokens),
+        Math.min(rackRemaining, max - total)));
+      state.tokens += extra;
+      rackTokens.merge(state.rack, extra, Integer::sum);
+      total += extra;
+    }
+    LOG.trace("Assigned {} compaction tokens over {} servers", total, servers.size());
+  }
+}
@@ -357,6 +357,9 @@ public class HMaster extends HRegionServer implements MasterServices {
   // server manager to deal with region server info
   private volatile ServerManager serverManager;
 
+  // hands out the large compaction tokens of the region servers, null when not enabled
+  private volatile CompactionCoordinator compactionCoordinator;
+
   // manager of assignment nodes in zookeeper
   private AssignmentManager assignmentManager;
 
@@ -960,6 +963,9 @@ public class HMaster extends HRegionServer implements MasterServices {
     // The below two managers must be created before loading procedures, as they will be used during
     // loading.
     this.serverManager = createServerManager(this);
+    if (conf.getBoolean(CompactionCoordinator.ENABLED_KEY, CompactionCoordinator.DEFAULT_ENABLED)) {
+      this.compactionCoordinator = new CompactionCoordinator(conf, new RackManager(conf));
+    }
     this.syncReplicationReplayWALManager = new SyncReplicationReplayWALManager(this);
     if (!conf.getBoolean(HBASE_SPLIT_WAL_COORDINATED_BY_ZK,
       DEFAULT_HBASE_SPLIT_COORDINATED_BY_ZK)) {
@@ -1425,6 +1431,14 @@ public class HMaster extends HRegionServer implements MasterServices {
     return splitWALManager;
   }
 
+  /**
+   * @return the coordinator of the large compactions of the region servers, or null if the master
+   *         does not coordinate them
+   */
+  public CompactionCoordinator getCompactionCoordinator() {
+    return compactionCoordinator;
+  }
+
   @Override
   public TableStateManager getTableStateManager() {
     return tableStateManager;
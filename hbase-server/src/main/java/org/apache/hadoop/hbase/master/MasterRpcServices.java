@@ -521,8 +521,10 @@ public class MasterRpcServices extends RSRpcServices
       ClusterStatusProtos.ServerLoad sl = request.getLoad();
       ServerName serverName = ProtobufUtil.toServerName(request.getServer());
       ServerMetrics oldLoad = master.getServerManager().getLoad(serverName);
+      // Delta reports only carry the changed region loads, the rest is carried over from the
+      // previous report of the server.
       ServerMetrics newLoad =
-        ServerMetricsBuilder.toServerMetrics(serverName, versionNumber, version, sl);
+        ServerMetricsBuilder.toServerMetrics(serverName, versionNumber, version, sl, oldLoad);
       master.getServerManager().regionServerReport(serverName, newLoad);
       master.getAssignmentManager().reportOnlineRegions(serverName,
         newLoad.getRegionMetrics().keySet());
@@ -531,10 +533,22 @@ public class MasterRpcServices extends RSRpcServices
         master.metricsMaster.incrementRequests(
           sl.getTotalNumberOfRequests() - (oldLoad != null ? oldLoad.getRequestCount() : 0));
       }
+      RegionServerReportResponse.Builder response = RegionServerReportResponse.newBuilder();
+      if (sl.getRegionLoadsDelta() && oldLoad == null) {
+        LOG.debug("Got a delta report from {} without a previous report, asking for a full one",
+          serverName);
+        response.setFullReportRequired(true);
+      }
+      CompactionCoordinator compactionCoordinator = master.getCompactionCoordinator();
+      if (compactionCoordinator != null) {
+        response.setCompactionTokens(compactionCoordinator.reportAndGetTokens(serverName,
+          sl.getLargeCompactionsRunning(), sl.getLargeCompactionsPending(), newLoad,
+          EnvironmentEdgeManager.currentTime()));
+      }
+      return response.build();
     } catch (IOException ioe) {
       throw new ServiceException(ioe);
     }
-    return RegionServerReportResponse.newBuilder().build();
   }
 
   @Override
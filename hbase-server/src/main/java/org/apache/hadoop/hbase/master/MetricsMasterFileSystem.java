@@ -49,4 +49,17 @@ public class MetricsMasterFileSystem {
     source.updateMetaWALSplitTime(time);
     source.updateMetaWALSplitSize(size);
   }
+
+  /**
+   * Record a run of a cleaner chore
+   * @param cleaner name of the cleaner chore
+   * @param deletedFiles number of files deleted
+   * @param deletedBytes total length of the deleted files
+   * @param remainingFiles number of files which could not be deleted yet
+   * @param time time that the run took
+   */
+  public void addCleanerRun(String cleaner, long deletedFiles, long deletedBytes,
+      long remainingFiles, long time) {
+    source.updateCleanerRun(cleaner, deletedFiles, deletedBytes, remainingFiles, time);
+  }
 }
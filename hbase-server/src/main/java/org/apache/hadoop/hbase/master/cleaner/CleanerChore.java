@@ -30,6 +30,7 @@ import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
@@ -39,6 +40,8 @@ import org.apache.hadoop.fs.PathIsNotEmptyDirectoryException;
 import org.apache.hadoop.hbase.ScheduledChore;
 import org.apache.hadoop.hbase.Stoppable;
 import org.apache.hadoop.hbase.conf.ConfigurationObserver;
+import org.apache.hadoop.hbase.master.MetricsMasterFileSystem;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.hadoop.hbase.util.FSUtils;
 import org.apache.hadoop.ipc.RemoteException;
 import org.apache.yetus.audience.InterfaceAudience;
@@ -158,6 +161,12 @@ public abstract class CleanerChore<T extends FileCleanerDelegate> extends Schedu
   private final AtomicBoolean enabled = new AtomicBoolean(true);
   protected List<T> cleanersChain;
 
+  private final MetricsMasterFileSystem metrics = new MetricsMasterFileSystem();
+  // Progress of the current run, updated from the pool threads
+  private final LongAdder deletedFiles = new LongAdder();
+  private final LongAdder deletedBytes = new LongAdder();
+  private final LongAdder remainingFiles = new LongAdder();
+
   public static void initChorePool(Configuration conf) {
     if (POOL == null) {
       POOL = new DirScanPool(conf);
@@ -314,9 +323,19 @@ public abstract class CleanerChore<T extends FileCleanerDelegate> extends Schedu
 
   public Boolean runCleaner() {
     preRunCleaner();
+    deletedFiles.reset();
+    deletedBytes.reset();
+    remainingFiles.reset();
+    long start = EnvironmentEdgeManager.currentTime();
     CleanerTask task = new CleanerTask(this.oldFileDir, true);
     POOL.submit(task);
-    return task.join();
+    Boolean result = task.join();
+    long runTime = EnvironmentEdgeManager.currentTime() - start;
+    metrics.addCleanerRun(getName(), deletedFiles.sum(), deletedBytes.sum(),
+      remainingFiles.sum(), runTime);
+    LOG.debug("{} deleted {} files ({} bytes) and left {} files under {} in {} ms", getName(),
+      deletedFiles.sum(), deletedBytes.sum(), remainingFiles.sum(), oldFileDir, runTime);
+    return result;
   }
 
   /**
@@ -404,7 +423,18 @@ public abstract class CleanerChore<T extends FileCleanerDelegate> extends Schedu
     }
 
     Iterable<FileStatus> filesToDelete = Iterables.concat(invalidFiles, deletableValidFiles);
-    return deleteFiles(filesToDelete) == files.size();
+    int deleted = deleteFiles(filesToDelete);
+    remainingFiles.add(files.size() - deleted);
+    return deleted == files.size();
+  }
+
+  /**
+   * To be called by {@link #deleteFiles(Iterable)} for each file it actually deleted.
+   * @param length length of the deleted file
+   */
+  protected final void countDeletedFile(long length) {
+    deletedFiles.increment();
+    deletedBytes.add(length);
   }
 
   /**
@@ -421,6 +451,7 @@ public abstract class CleanerChore<T extends FileCleanerDelegate> extends Schedu
         boolean success = this.fs.delete(filePath, false);
         if (success) {
           deletedFileCount++;
+          countDeletedFile(file.getLen());
         } else {
           LOG.warn("Attempted to delete:" + filePath
               + ", but couldn't. Run cleaner chain and attempt to delete on next pass.");
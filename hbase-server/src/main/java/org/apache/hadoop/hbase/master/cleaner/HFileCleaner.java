@@ -169,6 +169,7 @@ public class HFileCleaner extends CleanerChore<BaseHFileCleanerDelegate> {
     for (HFileDeleteTask task : tasks) {
       if (task.getResult(cleanerThreadCheckIntervalMsec)) {
         deletedFiles++;
+        countDeletedFile(task.fileLength);
       }
     }
     return deletedFiles;
@@ -18,6 +18,13 @@
 package org.apache.hadoop.hbase.master.cleaner;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
@@ -46,6 +53,60 @@ public class HFileLinkCleaner extends BaseHFileCleanerDelegate {
 
   private FileSystem fs = null;
 
+  /**
+   * The files passed in by the cleaner chore share a few directories, so the back references
+   * folders of each directory are listed once instead of probing one folder per hfile.
+   */
+  @Override
+  public Iterable<FileStatus> getDeletableFiles(Iterable<FileStatus> files) {
+    List<FileStatus> deletable = new ArrayList<>();
+    // null for the directories which could not be listed
+    Map<Path, Set<String>> backRefDirsByParent = new HashMap<>();
+    for (FileStatus file : files) {
+      Path filePath = file.getPath();
+      Path parentDir = filePath.getParent();
+      if (this.fs != null && !HFileLink.isHFileLink(filePath)
+          && !HFileLink.isBackReferencesDir(parentDir)) {
+        if (!backRefDirsByParent.containsKey(parentDir)) {
+          backRefDirsByParent.put(parentDir, listBackReferencesDirs(parentDir));
+        }
+        Set<String> backRefDirs = backRefDirsByParent.get(parentDir);
+        if (backRefDirs != null && !backRefDirs.contains(
+          HFileLink.getBackReferencesDir(parentDir, filePath.getName()).getName())) {
+          // no links to this hfile
+          deletable.add(file);
+          continue;
+        }
+      }
+      if (isFileDeletable(file)) {
+        deletable.add(file);
+      }
+    }
+    return deletable;
+  }
+
+  /**
+   * @return names of the back references folders under <code>dir</code>, or null if it could not
+   *         be listed
+   */
+  private Set<String> listBackReferencesDirs(Path dir) {
+    try {
+      List<FileStatus> backRefDirs = FSUtils.listStatusWithStatusFilter(fs, dir,
+        status -> status.isDirectory() && HFileLink.isBackReferencesDir(status.getPath()));
+      if (backRefDirs == null) {
+        return Collections.emptySet();
+      }
+      Set<String> names = new HashSet<>();
+      for (FileStatus backRefDir : backRefDirs) {
+        names.add(backRefDir.getPath().getName());
+      }
+      return names;
+    } catch (IOException e) {
+      LOG.debug("Couldn't list the back references under {}, checking file by file", dir, e);
+      return null;
+    }
+  }
+
   @Override
   public synchronized boolean isFileDeletable(FileStatus fStat) {
     if (this.fs == null) return false;
@@ -117,7 +117,10 @@ public class LogCleaner extends CleanerChore<BaseLogCleanerDelegate> {
     int deletedFiles = 0;
     for (CleanerContext res : results) {
       LOG.trace("Awaiting the results for deletion of old WAL file: {}", res);
-      deletedFiles += res.getResult(this.cleanerThreadTimeoutMsec) ? 1 : 0;
+      if (res.getResult(this.cleanerThreadTimeoutMsec)) {
+        deletedFiles++;
+        countDeletedFile(res.getTargetToClean().getLen());
+      }
     }
     return deletedFiles;
   }
@@ -0,0 +1,305 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.master.normalizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseIOException;
+import org.apache.hadoop.hbase.RegionMetrics;
+import org.apache.hadoop.hbase.ServerMetrics;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.Size;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.MasterSwitchType;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.master.MasterRpcServices;
+import org.apache.hadoop.hbase.master.MasterServices;
+import org.apache.hadoop.hbase.master.assignment.MergeTableRegionsProcedure;
+import org.apache.hadoop.hbase.master.assignment.SplitTableRegionProcedure;
+import org.apache.hadoop.hbase.master.normalizer.NormalizationPlan.PlanType;
+import org.apache.hadoop.hbase.master.procedure.MasterProcedureEnv;
+import org.apache.hadoop.hbase.procedure2.Procedure;
+import org.apache.hadoop.hbase.procedure2.ProcedureExecutor;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hadoop.hbase.shaded.protobuf.RequestConverter;
+
+/**
+ * Region normalizer that plans splits and merges from region load rather than region size.
+ *
+ * Logic in use:
+ *
+ *  <ol>
+ *  <li> Get all regions of a given table together with their {@link RegionMetrics}
+ *  <li> Compute the request rate of each region from the read and write request counters seen
+ *  by the previous run, and weigh the read rate by the number of store files per store, since
+ *  every file is a potential seek for a read
+ *  <li> A region whose load is more than {@value #SPLIT_RATIO_KEY} times the table average is
+ *  requested to split
+ *  <li> Two adjacent regions whose combined load is less than {@value #MERGE_RATIO_KEY} times the
+ *  table average, and whose combined size is less than the average region size, are requested
+ *  to merge
+ *  </ol>
+ * <p>
+ * Regions without a rate yet (first run, or just moved and counters reset) are left alone. The
+ * number of split and merge procedures outstanding on the master is capped by
+ * {@value #MAX_OUTSTANDING_SPLITS_KEY} and {@value #MAX_OUTSTANDING_MERGES_KEY} so that a burst
+ * of load can not start a split/merge storm. Once split, daughters of a hot region are spread
+ * across servers by the balancer.
+ */
+@InterfaceAudience.Private
+public class LoadAwareRegionNormalizer implements RegionNormalizer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LoadAwareRegionNormalizer.class);
+
+  public static final String SPLIT_RATIO_KEY = "hbase.normalizer.load.split.ratio";
+  public static final double DEFAULT_SPLIT_RATIO = 3.0;
+  public static final String MERGE_RATIO_KEY = "hbase.normalizer.load.merge.ratio";
+  public static final double DEFAULT_MERGE_RATIO = 0.1;
+  public static final String MAX_OUTSTANDING_SPLITS_KEY =
+      "hbase.normalizer.load.max.outstanding.splits";
+  public static final int DEFAULT_MAX_OUTSTANDING_SPLITS = 4;
+  public static final String MAX_OUTSTANDING_MERGES_KEY =
+      "hbase.normalizer.load.max.outstanding.merges";
+  public static final int DEFAULT_MAX_OUTSTANDING_MERGES = 2;
+
+  private int minRegionCount;
+  private double splitRatio;
+  private double mergeRatio;
+  private int maxOutstandingSplits;
+  private int maxOutstandingMerges;
+  private MasterServices masterServices;
+  private MasterRpcServices masterRpcServices;
+  private final long[] skippedCount = new long[PlanType.values().length];
+
+  /**
+   * Request counters of each region of a table as of the previous run, keyed by encoded region
+   * name. Only the regions of the table as of that run are kept.
+   */
+  private final Map<TableName, Map<String, RequestCounts>> lastCounts = new ConcurrentHashMap<>();
+
+  private static final class RequestCounts {
+    private final long readRequests;
+    private final long writeRequests;
+    private final long timestamp;
+
+    RequestCounts(long readRequests, long writeRequests, long timestamp) {
+      this.readRequests = readRequests;
+      this.writeRequests = writeRequests;
+      this.timestamp = timestamp;
+    }
+  }
+
+  @Override
+  public void setMasterServices(MasterServices masterServices) {
+    this.masterServices = masterServices;
+    Configuration conf = masterServices.getConfiguration();
+    this.minRegionCount = conf.getInt("hbase.normalizer.min.region.count", 3);
+    this.splitRatio = conf.getDouble(SPLIT_RATIO_KEY, DEFAULT_SPLIT_RATIO);
+    this.mergeRatio = conf.getDouble(MERGE_RATIO_KEY, DEFAULT_MERGE_RATIO);
+    this.maxOutstandingSplits =
+        conf.getInt(MAX_OUTSTANDING_SPLITS_KEY, DEFAULT_MAX_OUTSTANDING_SPLITS);
+    this.maxOutstandingMerges =
+        conf.getInt(MAX_OUTSTANDING_MERGES_KEY, DEFAULT_MAX_OUTSTANDING_MERGES);
+  }
+
+  @Override
+  public void setMasterRpcServices(MasterRpcServices masterRpcServices) {
+    this.masterRpcServices = masterRpcServices;
+  }
+
+  @Override
+  public void planSkipped(RegionInfo hri, PlanType type) {
+    skippedCount[type.ordinal()]++;
+  }
+
+  @Override
+  public long getSkippedCount(PlanType type) {
+    return skippedCount[type.ordinal()];
+  }
+
+  @Override
+  public List<NormalizationPlan> computePlanForTable(TableName table) throws HBaseIOException {
+    if (table == null || table.isSystemTable()) {
+      LOG.debug("Normalization of system table {} isn't allowed", table);
+      return null;
+    }
+    List<RegionInfo> tableRegions =
+        masterServices.getAssignmentManager().getRegionStates().getRegionsOfTable(table);
+    if (tableRegions == null || tableRegions.size() < minRegionCount) {
+      lastCounts.remove(table);
+      LOG.debug("Table {} has {} regions, required min number of regions for normalizer to run"
+          + " is {}, not running normalizer", table,
+        tableRegions == null ? 0 : tableRegions.size(), minRegionCount);
+      return null;
+    }
+
+    long now = EnvironmentEdgeManager.currentTime();
+    Map<String, RequestCounts> previousCounts =
+        lastCounts.getOrDefault(table, Collections.emptyMap());
+    Map<String, RequestCounts> counts = new HashMap<>();
+    double[] loads = new double[tableRegions.size()];
+    long[] sizes = new long[tableRegions.size()];
+    double totalLoad = 0;
+    long totalSize = 0;
+    int loadedRegionCount = 0;
+    int sizedRegionCount = 0;
+    for (int i = 0; i < tableRegions.size(); i++) {
+      RegionInfo hri = tableRegions.get(i);
+      RegionMetrics metrics = getRegionMetrics(hri);
+      RequestCounts previous = previousCounts.get(hri.getEncodedName());
+      if (metrics == null) {
+        loads[i] = -1;
+        if (previous != null) {
+          counts.put(hri.getEncodedName(), previous);
+        }
+      } else {
+        RequestCounts current = new RequestCounts(metrics.getReadRequestCount(),
+            metrics.getWriteRequestCount(), now);
+        counts.put(hri.getEncodedName(), current);
+        loads[i] = computeLoad(metrics, previous, current);
+      }
+      sizes[i] = metrics == null ? -1 : (long) metrics.getStoreFileSize().get(Size.Unit.MEGABYTE);
+      if (loads[i] >= 0) {
+        totalLoad += loads[i];
+        loadedRegionCount++;
+      }
+      if (sizes[i] >= 0) {
+        totalSize += sizes[i];
+        sizedRegionCount++;
+      }
+    }
+    // the regions split or merged away since the previous run are forgotten
+    lastCounts.put(table, counts);
+    if (loadedRegionCount == 0) {
+      LOG.debug("No request rates known yet for table {}, not running normalizer", table);
+      return null;
+    }
+    double avgLoad = totalLoad / loadedRegionCount;
+    double avgSize = sizedRegionCount == 0 ? 0 : totalSize / (double) sizedRegionCount;
+    LOG.debug("Table {}, average region load: {} requests/s, average region size: {} MB", table,
+      avgLoad, avgSize);
+
+    int splitBudget = isEnabled(MasterSwitchType.SPLIT) ?
+        maxOutstandingSplits - countOutstanding(SplitTableRegionProcedure.class) : 0;
+    int mergeBudget = isEnabled(MasterSwitchType.MERGE) ?
+        maxOutstandingMerges - countOutstanding(MergeTableRegionsProcedure.class) : 0;
+
+    List<NormalizationPlan> plans = new ArrayList<>();
+    int candidateIdx = 0;
+    while (candidateIdx < tableRegions.size()) {
+      RegionInfo hri = tableRegions.get(candidateIdx);
+      double load = loads[candidateIdx];
+      if (load > splitRatio * avgLoad && avgLoad > 0) {
+        if (splitBudget > 0) {
+          LOG.info("Table {}, hot region {} has load {} requests/s, more than {} times the"
+              + " average {}, splitting", table, hri.getRegionNameAsString(), load, splitRatio,
+            avgLoad);
+          plans.add(new SplitNormalizationPlan(hri, null));
+          splitBudget--;
+        }
+      } else if (candidateIdx < tableRegions.size() - 1 && mergeBudget > 0) {
+        int nextIdx = candidateIdx + 1;
+        double nextLoad = loads[nextIdx];
+        if (load >= 0 && nextLoad >= 0 && sizes[candidateIdx] >= 0 && sizes[nextIdx] >= 0
+            && load + nextLoad < mergeRatio * avgLoad
+            && sizes[candidateIdx] + sizes[nextIdx] < avgSize) {
+          LOG.info("Table {}, cold regions {} and {} have combined load {} requests/s, less than"
+              + " {} times the average {}, merging them", table, hri.getRegionNameAsString(),
+            tableRegions.get(nextIdx).getRegionNameAsString(), load + nextLoad, mergeRatio,
+            avgLoad);
+          plans.add(new MergeNormalizationPlan(hri, tableRegions.get(nextIdx)));
+          mergeBudget--;
+          candidateIdx++;
+        }
+      }
+      candidateIdx++;
+    }
+    if (plans.isEmpty()) {
+      LOG.debug("No normalization needed, region load looks even for table: {}", table);
+      return null;
+    }
+    Collections.sort(plans, new SimpleRegionNormalizer.PlanComparator());
+    return plans;
+  }
+
+  /**
+   * @return the load of the region in requests per second since the previous run, with reads
+   *         weighted by store files per store, or -1 if no rate can be computed yet.
+   */
+  private static double computeLoad(RegionMetrics metrics, RequestCounts previous,
+      RequestCounts current) {
+    if (previous == null || current.timestamp <= previous.timestamp
+        || current.readRequests < previous.readRequests
+        || current.writeRequests < previous.writeRequests) {
+      // first sighting, or the counters were reset because the region moved
+      return -1;
+    }
+    double seconds = (current.timestamp - previous.timestamp) / 1000.0;
+    double readRate = (current.readRequests - previous.readRequests) / seconds;
+    double writeRate = (current.writeRequests - previous.writeRequests) / seconds;
+    double filesPerStore = metrics.getStoreCount() == 0 ? 1 :
+        Math.max(1.0, metrics.getStoreFileCount() / (double) metrics.getStoreCount());
+    return readRate * filesPerStore + writeRate;
+  }
+
+  private RegionMetrics getRegionMetrics(RegionInfo hri) {
+    ServerName sn =
+        masterServices.getAssignmentManager().getRegionStates().getRegionServerOfRegion(hri);
+    ServerMetrics serverMetrics = sn == null ? null : masterServices.getServerManager().getLoad(sn);
+    RegionMetrics regionMetrics =
+        serverMetrics == null ? null : serverMetrics.getRegionMetrics().get(hri.getRegionName());
+    if (regionMetrics == null) {
+      LOG.debug("{} was not found in RegionsLoad", hri.getRegionNameAsString());
+    }
+    return regionMetrics;
+  }
+
+  private boolean isEnabled(MasterSwitchType type) {
+    try {
+      return masterRpcServices.isSplitOrMergeEnabled(null,
+        RequestConverter.buildIsSplitOrMergeEnabledRequest(type)).getEnabled();
+    } catch (org.apache.hbase.thirdparty.com.google.protobuf.ServiceException e) {
+      LOG.debug("Unable to determine whether {} is enabled", type, e);
+      return true;
+    }
+  }
+
+  private int countOutstanding(Class<?> procedureClass) {
+    ProcedureExecutor<MasterProcedureEnv> executor = masterServices.getMasterProcedureExecutor();
+    if (executor == null) {
+      return 0;
+    }
+    int count = 0;
+    for (Procedure<MasterProcedureEnv> proc : executor.getProcedures()) {
+      if (!proc.isFinished() && procedureClass.isInstance(proc)) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
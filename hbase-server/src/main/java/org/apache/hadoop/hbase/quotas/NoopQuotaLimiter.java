@@ -71,6 +71,11 @@ class NoopQuotaLimiter implements QuotaLimiter {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public double getRequestLimitPerSecond() {
+    return Double.POSITIVE_INFINITY;
+  }
+
   @Override
   public String toString() {
     return "NoopQuotaLimiter";
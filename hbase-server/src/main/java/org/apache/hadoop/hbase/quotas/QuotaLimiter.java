@@ -78,4 +78,10 @@ public interface QuotaLimiter {
 
   /** @return the number of bytes available to write to avoid exceeding the quota */
   long getWriteAvailable();
+
+  /**
+   * @return the requests allowed per second by the request number throttle, or
+   *         {@link Double#POSITIVE_INFINITY} if there is no such throttle
+   */
+  double getRequestLimitPerSecond();
 }
@@ -144,6 +144,13 @@ public abstract class RateLimiter {
     return avail;
   }
 
+  /**
+   * @return the resource units refilled per second
+   */
+  public synchronized double getLimitPerSecond() {
+    return limit * 1000.0 / tunit;
+  }
+
   protected synchronized long getTimeUnitInMillis() {
     return tunit;
   }
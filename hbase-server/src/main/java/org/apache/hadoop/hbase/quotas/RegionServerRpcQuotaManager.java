@@ -73,6 +73,9 @@ public class RegionServerRpcQuotaManager {
     // Initialize quota cache
     quotaCache = new QuotaCache(rsServices);
     quotaCache.start();
+    if (rpcScheduler != null) {
+      rpcScheduler.setQuotaCache(quotaCache);
+    }
     rpcThrottleEnabled = rpcThrottleStorage.isRpcThrottleEnabled();
     LOG.info("Start rpc quota manager and rpc throttle enabled is {}", rpcThrottleEnabled);
   }
@@ -238,6 +238,11 @@ public class TimeBasedLimiter implements QuotaLimiter {
     return readSizeLimiter.getAvailable();
   }
 
+  @Override
+  public double getRequestLimitPerSecond() {
+    return reqsLimiter.isBypass() ? Double.POSITIVE_INFINITY : reqsLimiter.getLimitPerSecond();
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
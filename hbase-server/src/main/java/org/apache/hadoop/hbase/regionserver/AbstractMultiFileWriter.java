@@ -43,6 +43,14 @@ public abstract class AbstractMultiFileWriter implements CellSink, ShipperListen
 
   public interface WriterFactory {
     public StoreFileWriter createWriter() throws IOException;
+
+    /**
+     * @param fileStoragePolicy the storage policy of the file, null for the one of the store
+     */
+    default StoreFileWriter createWriterWithStoragePolicy(String fileStoragePolicy)
+        throws IOException {
+      return createWriter();
+    }
   }
 
   /**
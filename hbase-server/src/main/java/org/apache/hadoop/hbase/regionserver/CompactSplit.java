@@ -95,6 +95,12 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
   private volatile ThroughputController compactionThroughputController;
 
   private volatile boolean compactionsEnabled;
+
+  // Large compactions allowed to run at once by the compaction coordinator of the master
+  private int largeCompactionTokens = Integer.MAX_VALUE;
+  private int runningLargeCompactions = 0;
+  private int largeCompactionsWaitingForToken = 0;
+  private final Object largeCompactionTokenLock = new Object();
   /**
    * Splitting should not take place if the total number of regions exceed this.
    * This is not a hard limit to the number of regions but it is a guideline to
@@ -468,6 +474,73 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
     return shortCompactions.getQueue().size();
   }
 
+  /**
+   * @return the number of large compactions running
+   */
+  int getRunningLargeCompactions() {
+    synchronized (largeCompactionTokenLock) {
+      return runningLargeCompactions;
+    }
+  }
+
+  /**
+   * @return the number of large compactions queued or waiting for a token
+   */
+  int getPendingLargeCompactions() {
+    synchronized (largeCompactionTokenLock) {
+      return getLargeCompactionQueueSize() + largeCompactionsWaitingForToken;
+    }
+  }
+
+  /**
+   * Sets how many large compactions may run at once, as granted by the master in response to the
+   * last report of the server.
+   * @param tokens the number of large compactions, {@link Integer#MAX_VALUE} for no limit
+   */
+  void setLargeCompactionTokens(int tokens) {
+    synchronized (largeCompactionTokenLock) {
+      if (tokens != largeCompactionTokens) {
+        LOG.debug("Large compaction tokens changed from {} to {}", largeCompactionTokens, tokens);
+        largeCompactionTokens = tokens;
+        largeCompactionTokenLock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Waits for a large compaction token.
+   * @return false if the server stopped, or the thread was interrupted, while waiting
+   */
+  private boolean acquireLargeCompactionToken() {
+    synchronized (largeCompactionTokenLock) {
+      largeCompactionsWaitingForToken++;
+      try {
+        while (runningLargeCompactions >= largeCompactionTokens) {
+          if (server.isStopped()) {
+            return false;
+          }
+          try {
+            largeCompactionTokenLock.wait(1000);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+          }
+        }
+        runningLargeCompactions++;
+        return true;
+      } finally {
+        largeCompactionsWaitingForToken--;
+      }
+    }
+  }
+
+  private void releaseLargeCompactionToken() {
+    synchronized (largeCompactionTokenLock) {
+      runningLargeCompactions--;
+      largeCompactionTokenLock.notifyAll();
+    }
+  }
+
   public int getSplitQueueSize() {
     return splits.getQueue().size();
   }
@@ -625,7 +698,16 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
       assert c != null;
 
       tracker.beforeExecution(store);
+      boolean hasLargeCompactionToken = false;
       try {
+        if (store.throttleCompaction(c.getRequest().getSize())) {
+          if (!acquireLargeCompactionToken()) {
+            LOG.info("Cancelled compaction " + this + " while waiting for a token");
+            store.cancelRequestedCompaction(c);
+            return;
+          }
+          hasLargeCompactionToken = true;
+        }
         // Note: please don't put single-compaction logic here;
         //       put it into region/store/etc. This is CST logic.
         long start = EnvironmentEdgeManager.currentTime();
@@ -657,6 +739,9 @@ public class CompactSplit implements CompactionRequester, PropagatingConfigurati
         region.reportCompactionRequestFailure();
         server.checkFileSystem();
       } finally {
+        if (hasLargeCompactionToken) {
+          releaseLargeCompactionToken();
+        }
         tracker.afterExecution(store);
         completeTracker.completed(store);
         region.decrementCompactionsQueuedCount();
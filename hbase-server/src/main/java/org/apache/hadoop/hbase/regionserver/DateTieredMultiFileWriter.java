@@ -19,6 +19,7 @@ package org.apache.hadoop.hbase.regionserver;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -38,15 +39,29 @@ public class DateTieredMultiFileWriter extends AbstractMultiFileWriter {
 
   private final boolean needEmptyFile;
 
+  private final Map<Long, String> lowerBoundariesPolicies;
+
   /**
    * @param needEmptyFile whether need to create an empty store file if we haven't written out
    *          anything.
    */
   public DateTieredMultiFileWriter(List<Long> lowerBoundaries, boolean needEmptyFile) {
+    this(lowerBoundaries, Collections.emptyMap(), needEmptyFile);
+  }
+
+  /**
+   * @param lowerBoundariesPolicies the storage policy of the files of each window, by lower
+   *          boundary. The windows missing keep the storage policy of the store.
+   * @param needEmptyFile whether need to create an empty store file if we haven't written out
+   *          anything.
+   */
+  public DateTieredMultiFileWriter(List<Long> lowerBoundaries,
+      Map<Long, String> lowerBoundariesPolicies, boolean needEmptyFile) {
     for (Long lowerBoundary : lowerBoundaries) {
       lowerBoundary2Writer.put(lowerBoundary, null);
     }
     this.needEmptyFile = needEmptyFile;
+    this.lowerBoundariesPolicies = lowerBoundariesPolicies;
   }
 
   @Override
@@ -54,12 +69,18 @@ public class DateTieredMultiFileWriter extends AbstractMultiFileWriter {
     Map.Entry<Long, StoreFileWriter> entry = lowerBoundary2Writer.floorEntry(cell.getTimestamp());
     StoreFileWriter writer = entry.getValue();
     if (writer == null) {
-      writer = writerFactory.createWriter();
+      writer = createWriter(entry.getKey());
       lowerBoundary2Writer.put(entry.getKey(), writer);
     }
     writer.append(cell);
   }
 
+  private StoreFileWriter createWriter(Long lowerBoundary) throws IOException {
+    String policy = lowerBoundariesPolicies.get(lowerBoundary);
+    return policy == null ? writerFactory.createWriter()
+        : writerFactory.createWriterWithStoragePolicy(policy);
+  }
+
   @Override
   protected Collection<StoreFileWriter> writers() {
     return lowerBoundary2Writer.values();
@@ -76,6 +97,7 @@ public class DateTieredMultiFileWriter extends AbstractMultiFileWriter {
       }
     }
     // we haven't written out any data, create an empty file to retain metadata
-    lowerBoundary2Writer.put(lowerBoundary2Writer.firstKey(), writerFactory.createWriter());
+    lowerBoundary2Writer.put(lowerBoundary2Writer.firstKey(),
+      createWriter(lowerBoundary2Writer.firstKey()));
   }
 }
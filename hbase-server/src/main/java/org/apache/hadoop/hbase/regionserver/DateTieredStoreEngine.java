@@ -94,7 +94,8 @@ public class DateTieredStoreEngine extends StoreEngine<DefaultStoreFlusher,
         throws IOException {
       if (request instanceof DateTieredCompactionRequest) {
         return compactor.compact(request, ((DateTieredCompactionRequest) request).getBoundaries(),
-          throughputController, user);
+          ((DateTieredCompactionRequest) request).getBoundariesPolicies(), throughputController,
+          user);
       } else {
         throw new IllegalArgumentException("DateTieredCompactionRequest is expected. Actual: "
           + request.getClass().getCanonicalName());
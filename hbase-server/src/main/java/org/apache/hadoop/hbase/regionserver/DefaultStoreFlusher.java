@@ -51,9 +51,11 @@ public class DefaultStoreFlusher extends StoreFlusher {
     int cellsCount = snapshot.getCellsCount();
     if (cellsCount == 0) return result; // don't flush if there are no entries
 
-    // Use a store scanner to find which rows to flush.
+    // Use a store scanner to find which rows to flush, unless they all go to the file.
     long smallestReadPoint = store.getSmallestReadPoint();
-    InternalScanner scanner = createScanner(snapshot.getScanners(), smallestReadPoint, tracker);
+    ImmutableSegment segment = getStreamableSegment(snapshot);
+    InternalScanner scanner = segment != null ? null
+        : createScanner(snapshot.getScanners(), smallestReadPoint, tracker);
     StoreFileWriter writer;
     try {
       // TODO:  We can fail in the below block before we complete adding this flush to
@@ -66,7 +68,11 @@ public class DefaultStoreFlusher extends StoreFlusher {
             snapshot.isTagsPresent(), false);
         IOException e = null;
         try {
-          performFlush(scanner, writer, smallestReadPoint, throughputController);
+          if (segment != null) {
+            performFlush(segment, writer, throughputController);
+          } else {
+            performFlush(scanner, writer, smallestReadPoint, throughputController);
+          }
         } catch (IOException ioe) {
           e = ioe;
           // throw the exception out
@@ -80,7 +86,12 @@ public class DefaultStoreFlusher extends StoreFlusher {
         }
       }
     } finally {
-      scanner.close();
+      if (scanner != null) {
+        scanner.close();
+      } else {
+        // releases the segment, as closing the store scanner does
+        snapshot.close();
+      }
     }
     LOG.info("Flushed memstore data size={} at sequenceid={} (bloomFilter={}), to={}",
         StringUtils.byteDesc(snapshot.getDataSize()), cacheFlushId, writer.hasGeneralBloom(),
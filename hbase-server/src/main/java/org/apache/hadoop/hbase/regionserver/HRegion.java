@@ -19,7 +19,6 @@ package org.apache.hadoop.hbase.regionserver;
 
 import static org.apache.hadoop.hbase.HConstants.REPLICATION_SCOPE_LOCAL;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.MAJOR_COMPACTION_KEY;
-import static org.apache.hadoop.hbase.util.ConcurrentMapUtils.computeIfAbsent;
 
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.EOFException;
@@ -31,6 +30,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -47,6 +47,7 @@ import java.util.Optional;
 import java.util.RandomAccess;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
@@ -59,6 +60,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -128,6 +130,7 @@ import org.apache.hadoop.hbase.exceptions.UnknownProtocolException;
 import org.apache.hadoop.hbase.filter.ByteArrayComparable;
 import org.apache.hadoop.hbase.filter.FilterWrapper;
 import org.apache.hadoop.hbase.filter.IncompatibleFilterException;
+import org.apache.hadoop.hbase.filter.NonEssentialColumnsFilter;
 import org.apache.hadoop.hbase.io.HFileLink;
 import org.apache.hadoop.hbase.io.HeapSize;
 import org.apache.hadoop.hbase.io.TimeRange;
@@ -186,9 +189,11 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
 import org.apache.hbase.thirdparty.com.google.common.base.Preconditions;
+import org.apache.hbase.thirdparty.com.google.common.base.Throwables;
 import org.apache.hbase.thirdparty.com.google.common.collect.Lists;
 import org.apache.hbase.thirdparty.com.google.common.collect.Maps;
 import org.apache.hbase.thirdparty.com.google.common.io.Closeables;
+import org.apache.hbase.thirdparty.com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.hbase.thirdparty.com.google.protobuf.Service;
 import org.apache.hbase.thirdparty.com.google.protobuf.TextFormat;
 import org.apache.hbase.thirdparty.com.google.protobuf.UnsafeByteOperations;
@@ -248,6 +253,15 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   public static final String WAL_HSYNC_CONF_KEY = "hbase.wal.hsync";
   public static final boolean DEFAULT_WAL_HSYNC = false;
 
+  /**
+   * Whether the increments and appends of a row waiting for its lock are applied together by the
+   * first of them to take it, with one read of the row and one WAL append. A WAL entry only keeps
+   * one nonce, so only the deltas without a nonce are coalesced: the clients writing counters
+   * disable them with hbase.client.nonces.enabled.
+   */
+  public static final String COALESCE_DELTAS_KEY = "hbase.hregion.deltas.coalesce";
+  public static final boolean DEFAULT_COALESCE_DELTAS = false;
+
   final AtomicBoolean closed = new AtomicBoolean(false);
 
   /* Closing can take some time; use the closing flag if there is stuff we don't
@@ -282,13 +296,16 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   // Members
   //////////////////////////////////////////////////////////////////////////////
 
-  // map from a locked row to the context for that lock including:
-  // - CountDownLatch for threads waiting on that row
+  // Striped table from a locked row to the context for that lock including:
+  // - the read write lock of the row
   // - the thread that owns the lock (allow reentrancy)
-  // - reference count of (reentrant) locks held by the thread
+  // - reference count of the locks held on, or waited for, the row
   // - the row itself
-  private final ConcurrentHashMap<HashedBytes, RowLockContext> lockedRows =
-      new ConcurrentHashMap<>();
+  // Each stripe looks up, adds and drops the contexts of its rows under its own monitor, and keeps
+  // a few released contexts for reuse, so locking a row allocates neither a key nor a context.
+  private final RowLockStripe[] lockedRows = new RowLockStripe[ROW_LOCK_STRIPES];
+  private static final int ROW_LOCK_STRIPES = 16;
+  private static final int ROW_LOCK_STRIPE_BITS = Integer.numberOfTrailingZeros(ROW_LOCK_STRIPES);
 
   protected final Map<byte[], HStore> stores =
       new ConcurrentSkipListMap<>(Bytes.BYTES_RAWCOMPARATOR);
@@ -320,6 +337,10 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   // Number of requests blocked by memstore size.
   private final LongAdder blockedRequestsCount = new LongAdder();
 
+  // Row lock acquisitions which had to wait, and the nanoseconds they waited
+  private final LongAdder rowLockWaitCount = new LongAdder();
+  private final LongAdder rowLockWaitTime = new LongAdder();
+
   // Compaction LongAdders
   final LongAdder compactionsFinished = new LongAdder();
   final LongAdder compactionsFailed = new LongAdder();
@@ -681,6 +702,12 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
 
   private final MultiVersionConcurrencyControl mvcc = new MultiVersionConcurrencyControl();
 
+  // The cells read by gets, null if no family of the region is cached
+  private final RowResultCache rowResultCache;
+
+  // The increments and appends waiting for the lock of their row, null if they are not coalesced
+  private final ConcurrentMap<HashedBytes, ArrayDeque<PendingDelta>> pendingDeltas;
+
   // Coprocessor host
   private RegionCoprocessorHost coprocessorHost;
 
@@ -775,6 +802,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
 
     this.isLoadingCfsOnDemandDefault = conf.getBoolean(LOAD_CFS_ON_DEMAND_CONFIG_KEY, true);
     this.htableDescriptor = htd;
+    this.rowResultCache = RowResultCache.create(conf, htd, fs.getRegionInfo());
+    this.pendingDeltas = conf.getBoolean(COALESCE_DELTAS_KEY, DEFAULT_COALESCE_DELTAS)
+        ? new ConcurrentHashMap<>() : null;
     Set<byte[]> families = this.htableDescriptor.getColumnFamilyNames();
     for (byte[] family : families) {
       if (!replicationScope.containsKey(family)) {
@@ -796,6 +826,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
 
     setHTableSpecificConf();
     this.scannerReadPoints = new ConcurrentHashMap<>();
+    for (int i = 0; i < lockedRows.length; i++) {
+      lockedRows[i] = new RowLockStripe();
+    }
 
     this.busyWaitDuration = conf.getLong(
       "hbase.busy.wait.duration", DEFAULT_BUSY_WAIT_DURATION);
@@ -956,9 +989,12 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       fs.checkRegionInfoOnFilesystem();
     }
 
+    long openStart = EnvironmentEdgeManager.currentTime();
     // Initialize all the HStores
     status.setStatus("Initializing all the Stores");
     long maxSeqId = initializeStores(reporter, status);
+    long storesOpened = EnvironmentEdgeManager.currentTime();
+    long replayTime = 0;
     this.mvcc.advanceTo(maxSeqId);
     if (!isRestoredRegion && ServerRegionReplicaUtil.shouldReplayRecoveredEdits(this)) {
       Collection<HStore> stores = this.stores.values();
@@ -971,6 +1007,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
           replayRecoveredEditsIfAny(maxSeqIdInStores, reporter, status));
         // Make sure mvcc is up to max.
         this.mvcc.advanceTo(maxSeqId);
+        replayTime = EnvironmentEdgeManager.currentTime() - storesOpened;
       } finally {
         LOG.debug("stopping wal replay for " + this.getRegionInfo().getEncodedName());
         // update the stores that we are done replaying
@@ -1028,7 +1065,13 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       }
     }
 
-    LOG.info("Opened {}; next sequenceid={}", this.getRegionInfo().getShortNameToLog(), nextSeqId);
+    long storesTime = storesOpened - openStart;
+    long openTime = EnvironmentEdgeManager.currentTime() - openStart;
+    LOG.info("Opened {}; next sequenceid={}; took {} ms (stores={} ms, replay={} ms)",
+      this.getRegionInfo().getShortNameToLog(), nextSeqId, openTime, storesTime, replayTime);
+    if (rsServices != null && rsServices.getMetrics() != null) {
+      rsServices.getMetrics().updateRegionOpen(openTime, storesTime, replayTime);
+    }
 
     // A region can be reopened if failed a split; reset flags
     this.closing.set(false);
@@ -1380,6 +1423,20 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     return blockedRequestsCount.sum();
   }
 
+  /**
+   * @return the number of row lock acquisitions which could not take the lock right away
+   */
+  public long getRowLockWaitCount() {
+    return rowLockWaitCount.sum();
+  }
+
+  /**
+   * @return the total time, in milliseconds, spent waiting for row locks
+   */
+  public long getRowLockWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(rowLockWaitTime.sum());
+  }
+
   @Override
   public long getCheckAndMutateChecksPassed() {
     return checkAndMutateChecksPassed.sum();
@@ -1723,6 +1780,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       }
 
       this.closed.set(true);
+      if (rowResultCache != null) {
+        rowResultCache.invalidateAll();
+      }
       if (!canFlush) {
         decrMemStoreSize(this.memStoreSizing.getMemStoreSize());
       } else if (this.memStoreSizing.getDataSize() != 0) {
@@ -2781,6 +2841,62 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     return false;
   }
 
+  /**
+   * Flushes the snapshots of the stores on the region server wide flush pool, the calling thread
+   * flushing the first store itself. All the stores are waited for, even once one of them failed,
+   * so that no store is still writing its file when the flush is aborted.
+   */
+  private void flushStoresInParallel(ThreadPoolExecutor pool,
+      Map<byte[], StoreFlushContext> flushes, MonitoredTask status) throws IOException {
+    status.setStatus("Flushing " + flushes.size() + " stores of " + this + " in parallel");
+    List<Future<?>> futures = new ArrayList<>(flushes.size() - 1);
+    Iterator<Map.Entry<byte[], StoreFlushContext>> it = flushes.entrySet().iterator();
+    StoreFlushContext first = it.next().getValue();
+    while (it.hasNext()) {
+      Map.Entry<byte[], StoreFlushContext> entry = it.next();
+      // the status journal is not thread safe, the other stores report to their own task
+      MonitoredTask storeStatus = TaskMonitor.get()
+          .createStatus("Flushing " + this + "/" + Bytes.toString(entry.getKey()));
+      FutureTask<Void> task = new FutureTask<>(() -> {
+        try {
+          entry.getValue().flushCache(storeStatus);
+          storeStatus.markComplete("Flushed");
+        } finally {
+          storeStatus.cleanup();
+        }
+        return null;
+      });
+      futures.add(task);
+      try {
+        pool.execute(task);
+      } catch (RejectedExecutionException e) {
+        // the pool is shut down with the region server, flush the store here
+        task.run();
+      }
+    }
+    Throwable error = null;
+    try {
+      first.flushCache(status);
+    } catch (Throwable t) {
+      error = t;
+    }
+    for (Future<?> future : futures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        if (error == null) {
+          error = e.getCause();
+        } else {
+          error.addSuppressed(e.getCause());
+        }
+      }
+    }
+    if (error != null) {
+      Throwables.propagateIfPossible(error, IOException.class);
+      throw new IOException(error);
+    }
+  }
+
   @edu.umd.cs.findbugs.annotations.SuppressWarnings(value="NN_NAKED_NOTIFY",
       justification="Intentional; notify is about completed flush")
   protected FlushResultImpl internalFlushCacheAndCommit(WAL wal, MonitoredTask status,
@@ -2808,8 +2924,14 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       // just-made new flush store file. The new flushed file is still in the
       // tmp directory.
 
-      for (StoreFlushContext flush : storeFlushCtxs.values()) {
-        flush.flushCache(status);
+      Optional<ThreadPoolExecutor> flushPool =
+          rsServices == null ? Optional.empty() : rsServices.getStoreFlushPool();
+      if (flushPool.isPresent() && storeFlushCtxs.size() > 1) {
+        flushStoresInParallel(flushPool.get(), storeFlushCtxs, status);
+      } else {
+        for (StoreFlushContext flush : storeFlushCtxs.values()) {
+          flush.flushCache(status);
+        }
       }
 
       // Switch snapshot (in memstore) -> new hfile (thus causing
@@ -4155,6 +4277,11 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     } finally {
       // Call complete rather than completeAndWait because we probably had error if walKey != null
       if (writeEntry != null) mvcc.complete(writeEntry);
+      if (miniBatchOp != null) {
+        for (int i = 0; i < miniBatchOp.size(); i++) {
+          invalidateRowResultCache(miniBatchOp.getOperation(i).getRow());
+        }
+      }
 
       if (locked) {
         this.updatesLock.readLock().unlock();
@@ -5910,8 +6037,10 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
 
   protected RowLock getRowLockInternal(byte[] row, boolean readLock, final RowLock prevRowLock)
       throws IOException {
-    // create an object to use a a key in the row lock map
-    HashedBytes rowKey = new HashedBytes(row);
+    // spread the hash over the high bits, which pick the stripe, and the low ones, which pick the
+    // slot in the stripe
+    int hash = Bytes.hashCode(row) * 0x9E3779B9;
+    RowLockStripe stripe = lockedRows[hash >>> (Integer.SIZE - ROW_LOCK_STRIPE_BITS)];
 
     RowLockContext rowLockContext = null;
     RowLockImpl result = null;
@@ -5919,25 +6048,21 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     boolean success = false;
     try (TraceScope scope = TraceUtil.createTrace("HRegion.getRowLock")) {
       TraceUtil.addTimelineAnnotation("Getting a " + (readLock?"readLock":"writeLock"));
-      // Keep trying until we have a lock or error out.
-      // TODO: do we need to add a time component here?
-      while (result == null) {
-        rowLockContext = computeIfAbsent(lockedRows, rowKey, () -> new RowLockContext(rowKey));
-        // Now try an get the lock.
-        // This can fail as
-        if (readLock) {
-          // For read lock, if the caller has locked the same row previously, it will not try
-          // to acquire the same read lock. It simply returns the previous row lock.
-          RowLockImpl prevRowLockImpl = (RowLockImpl)prevRowLock;
-          if ((prevRowLockImpl != null) && (prevRowLockImpl.getLock() ==
-              rowLockContext.readWriteLock.readLock())) {
-            success = true;
-            return prevRowLock;
-          }
-          result = rowLockContext.newReadLock();
-        } else {
-          result = rowLockContext.newWriteLock();
-        }
+      rowLockContext = stripe.acquire(row, hash);
+      if (readLock) {
+        // For read lock, if the caller has locked the same row previously, it will not try
+        // to acquire the same read lock. It simply returns the previous row lock.
+        RowLockImpl prevRowLockImpl = (RowLockImpl)prevRowLock;
+        if ((prevRowLockImpl != null) && (prevRowLockImpl.getLock() ==
+            rowLockContext.readWriteLock.readLock())) {
+          // the previous lock keeps the context alive, drop the count taken above
+          rowLockContext.cleanUp();
+          success = true;
+          return prevRowLock;
+        }
+        result = rowLockContext.newReadLock();
+      } else {
+        result = rowLockContext.newWriteLock();
       }
 
       int timeout = rowLockWaitDuration;
@@ -5954,9 +6079,10 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
         }
       }
 
-      if (timeout <= 0 || !result.getLock().tryLock(timeout, TimeUnit.MILLISECONDS)) {
+      if (timeout <= 0 || !tryRowLock(result.getLock(), timeout)) {
         TraceUtil.addTimelineAnnotation("Failed to get row lock");
-        String message = "Timed out waiting for lock for row: " + rowKey + " in region "
+        String message = "Timed out waiting for lock for row: " + Bytes.toStringBinary(row)
+            + " in region "
             + getRegionInfo().getEncodedName();
         if (reachDeadlineFirst) {
           throw new TimeoutIOException(message);
@@ -5969,7 +6095,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       success = true;
       return result;
     } catch (InterruptedException ie) {
-      LOG.warn("Thread interrupted waiting for lock on row: " + rowKey);
+      LOG.warn("Thread interrupted waiting for lock on row: " + Bytes.toStringBinary(row));
       InterruptedIOException iie = new InterruptedIOException();
       iie.initCause(ie);
       TraceUtil.addTimelineAnnotation("Interrupted exception getting row lock");
@@ -5992,6 +6118,20 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     }
   }
 
+  private boolean tryRowLock(Lock lock, int timeout) throws InterruptedException {
+    // unlike tryLock(), a zero timeout does not barge ahead of the threads waiting on a fair lock
+    if (lock.tryLock(0, TimeUnit.MILLISECONDS)) {
+      return true;
+    }
+    long start = System.nanoTime();
+    try {
+      return lock.tryLock(timeout, TimeUnit.MILLISECONDS);
+    } finally {
+      rowLockWaitCount.increment();
+      rowLockWaitTime.add(System.nanoTime() - start);
+    }
+  }
+
   private void releaseRowLocks(List<RowLock> rowLocks) {
     if (rowLocks != null) {
       for (RowLock rowLock : rowLocks) {
@@ -6006,55 +6146,148 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     return lock.getReadLockCount();
   }
 
-  public ConcurrentHashMap<HashedBytes, RowLockContext> getLockedRows() {
-    return lockedRows;
+  /**
+   * @return the contexts of the rows currently locked, or waited on, in this region
+   */
+  public List<RowLockContext> getLockedRows() {
+    List<RowLockContext> rows = new ArrayList<>();
+    for (RowLockStripe stripe : lockedRows) {
+      stripe.addLockedRows(rows);
+    }
+    return rows;
   }
 
-  @VisibleForTesting
-  class RowLockContext {
-    private final HashedBytes row;
-    final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
-    final AtomicBoolean usable = new AtomicBoolean(true);
-    final AtomicInteger count = new AtomicInteger(0);
-    final Object lock = new Object();
-    private String threadName;
+  /**
+   * A stripe of the row lock table: an open addressing hash table, with linear probing, of the
+   * contexts of the locked rows hashing to the stripe, and a few released contexts kept for reuse.
+   * A context stays in the table as long as a thread holds or waits for its lock. All of it is
+   * guarded by the monitor of the stripe, which is only held to look up and count the contexts,
+   * never while waiting for a row lock.
+   */
+  private static final class RowLockStripe {
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int MAX_FREE_CONTEXTS = 4;
 
-    RowLockContext(HashedBytes row) {
-      this.row = row;
-    }
+    private RowLockContext[] table = new RowLockContext[INITIAL_CAPACITY];
+    private int size;
+    private final RowLockContext[] free = new RowLockContext[MAX_FREE_CONTEXTS];
+    private int freeCount;
 
-    RowLockImpl newWriteLock() {
-      Lock l = readWriteLock.writeLock();
-      return getRowLock(l);
+    /**
+     * Finds, or adds, the context of the row and counts the caller in.
+     */
+    synchronized RowLockContext acquire(byte[] row, int hash) {
+      int mask = table.length - 1;
+      int i = hash & mask;
+      for (RowLockContext context; (context = table[i]) != null; i = (i + 1) & mask) {
+        if (context.hash == hash && Bytes.equals(context.row, row)) {
+          context.count++;
+          return context;
+        }
+      }
+      RowLockContext context;
+      if (freeCount > 0) {
+        context = free[--freeCount];
+        free[freeCount] = null;
+      } else {
+        context = new RowLockContext(this);
+      }
+      context.row = row;
+      context.hash = hash;
+      context.count = 1;
+      table[i] = context;
+      if (++size * 2 > table.length) {
+        resize(table.length * 2);
+      }
+      return context;
     }
-    RowLockImpl newReadLock() {
-      Lock l = readWriteLock.readLock();
-      return getRowLock(l);
+
+    /**
+     * Counts the caller out, dropping the context once nobody holds or waits for its lock.
+     */
+    synchronized void release(RowLockContext context) {
+      if (--context.count > 0) {
+        return;
+      }
+      remove(context);
+      context.row = null;
+      context.threadName = null;
+      if (freeCount < MAX_FREE_CONTEXTS) {
+        free[freeCount++] = context;
+      }
+      if (table.length > INITIAL_CAPACITY && size * 8 < table.length) {
+        resize(table.length / 2);
+      }
     }
 
-    private RowLockImpl getRowLock(Lock l) {
-      count.incrementAndGet();
-      synchronized (lock) {
-        if (usable.get()) {
-          return new RowLockImpl(this, l);
-        } else {
-          return null;
+    private void remove(RowLockContext context) {
+      int mask = table.length - 1;
+      int hole = context.hash & mask;
+      while (table[hole] != context) {
+        hole = (hole + 1) & mask;
+      }
+      // move back the contexts after the hole which could not have been put in their own slot,
+      // so that the lookups of their rows do not stop at the hole
+      for (int i = (hole + 1) & mask; table[i] != null; i = (i + 1) & mask) {
+        int slot = table[i].hash & mask;
+        if (hole <= i ? (slot <= hole || slot > i) : (slot <= hole && slot > i)) {
+          table[hole] = table[i];
+          hole = i;
         }
       }
+      table[hole] = null;
+      size--;
     }
 
-    void cleanUp() {
-      long c = count.decrementAndGet();
-      if (c <= 0) {
-        synchronized (lock) {
-          if (count.get() <= 0 && usable.get()){ // Don't attempt to remove row if already removed
-            usable.set(false);
-            RowLockContext removed = lockedRows.remove(row);
-            assert removed == this: "we should never remove a different context";
+    private void resize(int capacity) {
+      RowLockContext[] old = table;
+      table = new RowLockContext[capacity];
+      int mask = capacity - 1;
+      for (RowLockContext context : old) {
+        if (context != null) {
+          int i = context.hash & mask;
+          while (table[i] != null) {
+            i = (i + 1) & mask;
           }
+          table[i] = context;
+        }
+      }
+    }
+
+    synchronized void addLockedRows(List<RowLockContext> rows) {
+      for (RowLockContext context : table) {
+        if (context != null) {
+          rows.add(context);
         }
       }
     }
+  }
+
+  @VisibleForTesting
+  static class RowLockContext {
+    private final RowLockStripe stripe;
+    final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
+    // guarded by the monitor of the stripe, the context is reused for another row once released
+    private byte[] row;
+    private int hash;
+    private int count;
+    private volatile String threadName;
+
+    RowLockContext(RowLockStripe stripe) {
+      this.stripe = stripe;
+    }
+
+    RowLockImpl newWriteLock() {
+      return new RowLockImpl(this, readWriteLock.writeLock());
+    }
+
+    RowLockImpl newReadLock() {
+      return new RowLockImpl(this, readWriteLock.readLock());
+    }
+
+    void cleanUp() {
+      stripe.release(this);
+    }
 
     public void setThreadName(String threadName) {
       this.threadName = threadName;
@@ -6062,12 +6295,14 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
 
     @Override
     public String toString() {
-      return "RowLockContext{" +
-          "row=" + row +
-          ", readWriteLock=" + readWriteLock +
-          ", count=" + count +
-          ", threadName=" + threadName +
-          '}';
+      synchronized (stripe) {
+        return "RowLockContext{" +
+            "row=" + Bytes.toStringBinary(row) +
+            ", readWriteLock=" + readWriteLock +
+            ", count=" + count +
+            ", threadName=" + threadName +
+            '}';
+      }
     }
   }
 
@@ -6379,6 +6614,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
         }
       }
 
+      if (rowResultCache != null) {
+        rowResultCache.invalidateAll();
+      }
       closeBulkRegionOperation();
     }
     return isSuccessful ? storeFiles : null;
@@ -6488,17 +6726,34 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
         instantiatedScanners.addAll(additionalScanners);
       }
 
+      boolean onDemand = this.filter != null && scan.doLoadColumnFamiliesOnDemand();
+      // The two scanners of a split family would each apply the limit and offset per family, and
+      // a get reads too few cells to be worth a second scanner.
+      boolean splitFamilies = onDemand && !scan.isGetScan()
+          && scan.getMaxResultsPerColumnFamily() < 0 && scan.getRowOffsetPerColumnFamily() <= 0;
       try {
         for (Map.Entry<byte[], NavigableSet<byte[]>> entry : scan.getFamilyMap().entrySet()) {
           HStore store = stores.get(entry.getKey());
-          KeyValueScanner scanner = store.getScanner(scan, entry.getValue(), this.readPt);
+          boolean essential = !onDemand || this.filter.isFamilyEssential(entry.getKey());
+          NavigableSet<byte[]> essentialColumns = splitFamilies && essential
+              ? getEssentialColumns(entry.getKey(), entry.getValue()) : null;
+          KeyValueScanner scanner = store.getScanner(scan,
+            essentialColumns != null ? essentialColumns : entry.getValue(), this.readPt);
           instantiatedScanners.add(scanner);
-          if (this.filter == null || !scan.doLoadColumnFamiliesOnDemand()
-              || this.filter.isFamilyEssential(entry.getKey())) {
+          if (essential) {
             scanners.add(scanner);
           } else {
             joinedScanners.add(scanner);
           }
+          if (essentialColumns != null) {
+            // the other columns of the family are only read for the rows the filter lets through
+            Scan joinedScan = new Scan(scan)
+                .setFilter(new NonEssentialColumnsFilter(scan.getFilter(), essentialColumns));
+            KeyValueScanner joinedScanner =
+                store.getScanner(joinedScan, entry.getValue(), this.readPt);
+            instantiatedScanners.add(joinedScanner);
+            joinedScanners.add(joinedScanner);
+          }
         }
         initializeKVHeap(scanners, joinedScanners, region);
       } catch (Throwable t) {
@@ -6506,6 +6761,26 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       }
     }
 
+    /**
+     * @return the columns the filter needs of an essential family, when they are fewer than the
+     *         columns the scan reads of it, or null if the filter may need them all
+     */
+    private NavigableSet<byte[]> getEssentialColumns(byte[] family, NavigableSet<byte[]> columns)
+        throws IOException {
+      NavigableSet<byte[]> essentialColumns = this.filter.getEssentialQualifiers(family);
+      if (essentialColumns == null || essentialColumns.isEmpty()) {
+        return null;
+      }
+      if (columns != null) {
+        essentialColumns = new TreeSet<>(essentialColumns);
+        essentialColumns.retainAll(columns);
+        if (essentialColumns.isEmpty() || essentialColumns.size() == columns.size()) {
+          return null;
+        }
+      }
+      return essentialColumns;
+    }
+
     protected void initializeKVHeap(List<KeyValueScanner> scanners,
         List<KeyValueScanner> joinedScanners, HRegion region)
         throws IOException {
@@ -7524,13 +7799,21 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     if (scan.getLoadColumnFamiliesOnDemandValue() == null) {
       scan.setLoadColumnFamiliesOnDemand(isLoadingCfsOnDemandDefault());
     }
-    RegionScanner scanner = null;
-    try {
-      scanner = getScanner(scan, null, nonceGroup, nonce);
-      scanner.next(results);
-    } finally {
-      if (scanner != null)
-        scanner.close();
+    RowResultCache.Key cacheKey = getRowResultCacheKey(get);
+    if (cacheKey == null || !getFromRowResultCache(cacheKey, results)) {
+      long generation = cacheKey != null ? rowResultCache.getGeneration(cacheKey) : 0;
+      int cachedFrom = results.size();
+      RegionScanner scanner = null;
+      try {
+        scanner = getScanner(scan, null, nonceGroup, nonce);
+        scanner.next(results);
+        if (cacheKey != null) {
+          rowResultCache.put(cacheKey, results.subList(cachedFrom, results.size()), generation);
+        }
+      } finally {
+        if (scanner != null)
+          scanner.close();
+      }
     }
 
     // post-get CP hook
@@ -7543,6 +7826,44 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     return results;
   }
 
+  RowResultCache getRowResultCache() {
+    return rowResultCache;
+  }
+
+  /**
+   * @return the key the cells read by the get are cached under, or null if they are not cached
+   */
+  RowResultCache.Key getRowResultCacheKey(Get get) throws IOException {
+    return rowResultCache != null ? rowResultCache.getKey(get) : null;
+  }
+
+  /**
+   * Adds the cached cells of the get to the results, if the region is still open for reads.
+   * @return true if the cells of the get were cached
+   */
+  boolean getFromRowResultCache(RowResultCache.Key cacheKey, List<Cell> results)
+      throws IOException {
+    startRegionOperation(Operation.GET);
+    try {
+      int before = results.size();
+      if (!rowResultCache.get(cacheKey, results)) {
+        return false;
+      }
+      if (results.size() > before) {
+        readRequestsCount.increment();
+      }
+      return true;
+    } finally {
+      closeRegionOperation(Operation.GET);
+    }
+  }
+
+  private void invalidateRowResultCache(byte[] row) {
+    if (rowResultCache != null) {
+      rowResultCache.invalidate(row);
+    }
+  }
+
   void metricsUpdateForGet(List<Cell> results, long before) {
     if (this.metricsRegion != null) {
       this.metricsRegion.updateGet(EnvironmentEdgeManager.currentTime() - before);
@@ -7739,6 +8060,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       } finally {
         // Call complete rather than completeAndWait because we probably had error if walKey != null
         if (writeEntry != null) mvcc.complete(writeEntry);
+        if (!mutations.isEmpty()) {
+          rowsToLock.forEach(this::invalidateRowResultCache);
+        }
         if (locked) {
           this.updatesLock.readLock().unlock();
         }
@@ -7851,6 +8175,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     checkRow(mutation.getRow(), op.toString());
     checkFamilies(mutation.getFamilyCellMap().keySet(), mutation.getDurability());
     this.writeRequestsCount.increment();
+    if (isCoalescable(op, mutation, nonce)) {
+      return doCoalescedDelta(op, mutation, returnResults);
+    }
     WriteEntry writeEntry = null;
     startRegionOperation(op);
     List<Cell> results = returnResults? new ArrayList<>(mutation.size()): null;
@@ -7869,7 +8196,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
         Map<HStore, List<Cell>> forMemStore = new HashMap<>(mutation.getFamilyCellMap().size());
         // Reckon Cells to apply to WAL --  in returned walEdit -- and what to add to memstore and
         // what to return back to the client (in 'forMemStore' and 'results' respectively).
-        WALEdit walEdit = reckonDeltas(op, mutation, effectiveDurability, forMemStore, results);
+        WALEdit walEdit =
+            reckonDeltas(op, mutation, effectiveDurability, forMemStore, results, null);
         // Actually write to WAL now if a walEdit to apply.
         if (walEdit != null && !walEdit.isEmpty()) {
           writeEntry = doWALAppend(walEdit, effectiveDurability, nonceGroup, nonce);
@@ -7901,6 +8229,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       // the client. Means only way to read-your-own-increment or append is to come in with an
       // a 0 increment.
       if (writeEntry != null) mvcc.complete(writeEntry);
+      invalidateRowResultCache(mutation.getRow());
       if (rowLock != null) {
         rowLock.release();
       }
@@ -7908,18 +8237,240 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       incMemStoreSize(memstoreAccounting.getMemStoreSize());
       requestFlushIfNeeded();
       closeRegionOperation(op);
-      if (this.metricsRegion != null) {
-        switch (op) {
-          case INCREMENT:
-            this.metricsRegion.updateIncrement();
-            break;
-          case APPEND:
-            this.metricsRegion.updateAppend();
-            break;
-          default:
-            break;
+      updateDeltaMetrics(op);
+    }
+  }
+
+  private void updateDeltaMetrics(Operation op) {
+    if (this.metricsRegion != null) {
+      switch (op) {
+        case INCREMENT:
+          this.metricsRegion.updateIncrement();
+          break;
+        case APPEND:
+          this.metricsRegion.updateAppend();
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * An increment or append waiting for the lock of its row, applied by whichever of the deltas of
+   * the row takes the lock first.
+   */
+  private static final class PendingDelta {
+    private final Operation op;
+    private final Mutation mutation;
+    private final boolean returnResults;
+    // set by the delta applying this one, under the lock of the row
+    private Result result;
+    private IOException error;
+    private boolean done;
+
+    PendingDelta(Operation op, Mutation mutation, boolean returnResults) {
+      this.op = op;
+      this.mutation = mutation;
+      this.returnResults = returnResults;
+    }
+
+    synchronized void complete() {
+      done = true;
+      notifyAll();
+    }
+
+    /**
+     * @return the result of the delta, once the delta which took it from the queue applied it
+     */
+    synchronized Result get() throws IOException {
+      boolean interrupted = false;
+      while (!done) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          // the delta is being written, its caller learns whether it was
+          interrupted = true;
         }
       }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      if (error != null) {
+        throw error;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The deltas are coalesced when the region runs no coprocessor, whose hooks expect to run in the
+   * rpc context of their mutation, when they read the latest values of their cells and when they
+   * have no nonce, which their WAL entry would lose.
+   */
+  private boolean isCoalescable(Operation op, Mutation mutation, long nonce) {
+    if (pendingDeltas == null || nonce != HConstants.NO_NONCE
+        || (coprocessorHost != null && coprocessorHost.hasCoprocessors())) {
+      return false;
+    }
+    switch (op) {
+      case INCREMENT:
+        return ((Increment) mutation).getTimeRange().isAllTime();
+      case APPEND:
+        return ((Append) mutation).getTimeRange().isAllTime();
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Queues the delta with the other deltas of its row, then takes the lock of the row. The first
+   * delta to take it applies all the queued ones, so the deltas which arrive while the lock is held
+   * are applied together once it is released: one read of their cells, one WAL append and one
+   * mvcc transaction for all of them. Each delta is reckoned from the cells the deltas queued
+   * before it left, so its result is the one it would have had applied alone.
+   */
+  private Result doCoalescedDelta(Operation op, Mutation mutation, boolean returnResults)
+      throws IOException {
+    startRegionOperation(op);
+    PendingDelta delta = new PendingDelta(op, mutation, returnResults);
+    HashedBytes row = new HashedBytes(mutation.getRow());
+    ArrayDeque<PendingDelta> queue = pendingDeltas.computeIfAbsent(row, k -> new ArrayDeque<>());
+    synchronized (queue) {
+      // the queue may be removed from the map by now, its deltas are then applied by this one
+      queue.addLast(delta);
+    }
+    RowLock rowLock = null;
+    MemStoreSizing memstoreAccounting = new NonThreadSafeMemStoreSizing();
+    try {
+      try {
+        rowLock = getRowLockInternal(mutation.getRow(), false, null);
+      } catch (IOException | RuntimeException e) {
+        if (takePendingDeltas(row, queue, delta) != null) {
+          throw e;
+        }
+        // taken by the holder of the lock, which applies it whatever the failure here
+        return delta.get();
+      }
+      // empty if the delta was applied by the one which held the lock before
+      List<PendingDelta> deltas = takePendingDeltas(row, queue, null);
+      if (!deltas.isEmpty()) {
+        applyDeltas(deltas, memstoreAccounting);
+      }
+      return delta.get();
+    } finally {
+      invalidateRowResultCache(mutation.getRow());
+      if (rowLock != null) {
+        rowLock.release();
+      }
+      // Request a cache flush if over the limit.  Do it outside update lock.
+      incMemStoreSize(memstoreAccounting.getMemStoreSize());
+      requestFlushIfNeeded();
+      closeRegionOperation(op);
+      updateDeltaMetrics(op);
+    }
+  }
+
+  /**
+   * Takes deltas out of the queue of a row, and the queue out of the map once empty.
+   * @param delta the delta to take, or null to take them all
+   * @return the deltas taken, null if the delta to take was no longer queued
+   */
+  private List<PendingDelta> takePendingDeltas(HashedBytes row, ArrayDeque<PendingDelta> queue,
+      PendingDelta delta) {
+    synchronized (queue) {
+      List<PendingDelta> deltas;
+      if (delta == null) {
+        deltas = new ArrayList<>(queue);
+        queue.clear();
+      } else {
+        deltas = queue.remove(delta) ? Collections.singletonList(delta) : null;
+      }
+      if (queue.isEmpty()) {
+        pendingDeltas.remove(row, queue);
+      }
+      return deltas;
+    }
+  }
+
+  /**
+   * Applies deltas of a row, under the lock of the row. Only the latest cell of each column is
+   * written. A delta which fails to reckon fails alone, a failure to write fails them all.
+   */
+  private void applyDeltas(List<PendingDelta> deltas, MemStoreSizing memstoreAccounting) {
+    List<PendingDelta> reckoned = new ArrayList<>(deltas.size());
+    WriteEntry writeEntry = null;
+    try {
+      lock(this.updatesLock.readLock());
+      try {
+        // the latest cell of each column, reckoned from the deltas before
+        NavigableMap<Cell, Cell> latestCells =
+            new TreeMap<>(CellComparatorImpl.COMPARATOR::compareColumns);
+        Durability durability = Durability.SKIP_WAL;
+        for (PendingDelta delta : deltas) {
+          try {
+            Mutation mutation = delta.mutation;
+            List<Cell> results = delta.returnResults ? new ArrayList<>(mutation.size()) : null;
+            Durability effectiveDurability = getEffectiveDurability(mutation.getDurability());
+            Map<HStore, List<Cell>> forMemStore =
+                new HashMap<>(mutation.getFamilyCellMap().size());
+            reckonDeltas(delta.op, mutation, effectiveDurability, forMemStore, results,
+              latestCells);
+            for (List<Cell> cells : forMemStore.values()) {
+              for (Cell cell : cells) {
+                latestCells.put(cell, cell);
+              }
+            }
+            if (effectiveDurability.ordinal() > durability.ordinal()) {
+              durability = effectiveDurability;
+            }
+            delta.result = results != null ? Result.create(results) : Result.EMPTY_RESULT;
+            reckoned.add(delta);
+          } catch (IOException e) {
+            delta.error = e;
+          }
+        }
+        if (reckoned.isEmpty()) {
+          return;
+        }
+        Map<HStore, List<Cell>> forMemStore = new HashMap<>(stores.size());
+        for (Cell cell : latestCells.values()) {
+          forMemStore.computeIfAbsent(getStore(cell), key -> new ArrayList<>()).add(cell);
+        }
+        if (durability != Durability.SKIP_WAL) {
+          WALEdit walEdit = new WALEdit();
+          walEdit.getCells().addAll(latestCells.values());
+          writeEntry = doWALAppend(walEdit, durability, HConstants.NO_NONCE, HConstants.NO_NONCE);
+        } else {
+          for (PendingDelta delta : reckoned) {
+            recordMutationWithoutWal(delta.mutation.getFamilyCellMap());
+          }
+          writeEntry = mvcc.begin();
+          updateSequenceId(forMemStore.values(), writeEntry.getWriteNumber());
+        }
+        for (Map.Entry<HStore, List<Cell>> e : forMemStore.entrySet()) {
+          applyToMemStore(e.getKey(), e.getValue(), true, memstoreAccounting);
+        }
+        mvcc.completeAndWait(writeEntry);
+        writeEntry = null;
+      } finally {
+        this.updatesLock.readLock().unlock();
+      }
+    } catch (IOException | RuntimeException e) {
+      // the deltas which failed to reckon keep their own failure
+      for (PendingDelta delta : deltas) {
+        if (delta.error == null) {
+          delta.result = null;
+          delta.error = e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+      }
+    } finally {
+      if (writeEntry != null) {
+        mvcc.complete(writeEntry);
+      }
+      for (PendingDelta delta : deltas) {
+        delta.complete();
+      }
     }
   }
 
@@ -8007,7 +8558,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
    * @return A WALEdit to apply to WAL or null if we are to skip the WAL.
    */
   private WALEdit reckonDeltas(Operation op, Mutation mutation, Durability effectiveDurability,
-      Map<HStore, List<Cell>> forMemStore, List<Cell> results) throws IOException {
+      Map<HStore, List<Cell>> forMemStore, List<Cell> results, NavigableMap<Cell, Cell> latestCells)
+      throws IOException {
     WALEdit walEdit = null;
     long now = EnvironmentEdgeManager.currentTime();
     final boolean writeToWAL = effectiveDurability != Durability.SKIP_WAL;
@@ -8017,7 +8569,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       List<Cell> deltas = entry.getValue();
       // Reckon for the Store what to apply to WAL and MemStore.
       List<Cell> toApply = reckonDeltasByStore(stores.get(columnFamilyName), op, mutation,
-        effectiveDurability, now, deltas, results);
+        effectiveDurability, now, deltas, results, latestCells);
       if (!toApply.isEmpty()) {
         for (Cell cell : toApply) {
           HStore store = getStore(cell);
@@ -8049,12 +8601,14 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
    * @param deltas Changes to apply to this Store; either increment amount or data to append
    * @param results In here we accumulate all the Cells we are to return to the client. If null,
    *                client doesn't want results returned.
+   * @param latestCells The cells reckoned by the deltas applied together with this one, by column,
+   *                    newer than the ones read by the Get. Null if the deltas are not coalesced.
    * @return Resulting Cells after <code>deltas</code> have been applied to current
    *  values. Side effect is our filling out of the <code>results</code> List.
    */
   private List<Cell> reckonDeltasByStore(HStore store, Operation op, Mutation mutation,
-      Durability effectiveDurability, long now, List<Cell> deltas, List<Cell> results)
-      throws IOException {
+      Durability effectiveDurability, long now, List<Cell> deltas, List<Cell> results,
+      NavigableMap<Cell, Cell> latestCells) throws IOException {
     byte[] columnFamily = store.getColumnFamilyDescriptor().getName();
     List<Pair<Cell, Cell>> cellPairs = new ArrayList<>(deltas.size());
     // Get previous values for all columns in this family.
@@ -8069,7 +8623,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       default:
         break;
     }
-    List<Cell> currentValues = get(mutation, store, deltas,null, tr);
+    List<Cell> currentValues = latestCells != null && latestCells.keySet().containsAll(deltas)
+        ? Collections.emptyList() : get(mutation, store, deltas, null, tr);
     // Iterate the input columns and update existing values if they were found, otherwise
     // add new column initialized to the delta amount
     int currentValuesIndex = 0;
@@ -8083,6 +8638,10 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
           currentValuesIndex++;
         }
       }
+      Cell latestCell = latestCells != null ? latestCells.get(delta) : null;
+      if (latestCell != null) {
+        currentValue = latestCell;
+      }
 
       // Switch on whether this an increment or an append building the new Cell to apply.
       Cell newCell = null;
@@ -8203,10 +8762,10 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
 
   public static final long FIXED_OVERHEAD = ClassSize.align(
       ClassSize.OBJECT +
-      ClassSize.ARRAY +
-      55 * ClassSize.REFERENCE + 3 * Bytes.SIZEOF_INT +
-      (15 * Bytes.SIZEOF_LONG) +
-      3 * Bytes.SIZEOF_BOOLEAN);
+      2 * ClassSize.ARRAY +
+      60 * ClassSize.REFERENCE + 3 * Bytes.SIZEOF_INT +
+      (14 * Bytes.SIZEOF_LONG) +
+      4 * Bytes.SIZEOF_BOOLEAN);
 
   // woefully out of date - currently missing:
   // 1 x HashMap - coprocessorServiceHandlers
@@ -8223,7 +8782,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       (2 * ClassSize.ATOMIC_BOOLEAN) + // closed, closing
       (3 * ClassSize.ATOMIC_LONG) + // numPutsWithoutWAL, dataInMemoryWithoutWAL,
                                     // compactionsFailed
-      (2 * ClassSize.CONCURRENT_HASHMAP) +  // lockedRows, scannerReadPoints
+      ClassSize.ARRAY + // lockedRows
+      ClassSize.CONCURRENT_HASHMAP +  // scannerReadPoints
       WriteState.HEAP_SIZE + // writestate
       ClassSize.CONCURRENT_SKIPLISTMAP + ClassSize.CONCURRENT_SKIPLISTMAP_ENTRY + // stores
       (2 * ClassSize.REENTRANT_LOCK) + // lock, updatesLock
@@ -8237,7 +8797,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   @Override
   public long heapSize() {
     // this does not take into account row locks, recent flushes, mvcc entries, and more
-    return DEEP_OVERHEAD + stores.values().stream().mapToLong(HStore::heapSize).sum();
+    return DEEP_OVERHEAD + stores.values().stream().mapToLong(HStore::heapSize).sum()
+        + (rowResultCache != null ? rowResultCache.heapSize() : 0);
   }
 
   /**
@@ -8463,6 +9024,40 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     }
   }
 
+  /**
+   * Starts a read of the region like {@link #startRegionOperation(Operation)}, unless it would
+   * wait for the region lock, held or awaited by a close or a bulk operation. A started read has
+   * to be closed by {@link #closeRegionOperation(Operation)}.
+   * @return whether the read was started
+   */
+  public boolean tryStartRegionOperation() {
+    if (!this.writestate.readsEnabled || this.closing.get()) {
+      return false;
+    }
+    try {
+      // unlike tryLock(), a zero timeout does not barge ahead of a waiting writer
+      if (!lock.readLock().tryLock(0, TimeUnit.MILLISECONDS)) {
+        return false;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    if (this.closed.get()) {
+      lock.readLock().unlock();
+      return false;
+    }
+    try {
+      if (coprocessorHost != null) {
+        coprocessorHost.postStartRegionOperation(Operation.GET);
+      }
+    } catch (Exception e) {
+      lock.readLock().unlock();
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public void closeRegionOperation() throws IOException {
     closeRegionOperation(Operation.ANY);
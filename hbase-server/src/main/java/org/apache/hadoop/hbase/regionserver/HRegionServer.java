@@ -51,6 +51,7 @@ import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -221,6 +222,7 @@ import org.apache.hadoop.hbase.shaded.protobuf.generated.RegionServerStatusProto
 import org.apache.hadoop.hbase.shaded.protobuf.generated.RegionServerStatusProtos.GetLastFlushedSequenceIdRequest;
 import org.apache.hadoop.hbase.shaded.protobuf.generated.RegionServerStatusProtos.GetLastFlushedSequenceIdResponse;
 import org.apache.hadoop.hbase.shaded.protobuf.generated.RegionServerStatusProtos.RegionServerReportRequest;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.RegionServerStatusProtos.RegionServerReportResponse;
 import org.apache.hadoop.hbase.shaded.protobuf.generated.RegionServerStatusProtos.RegionServerStartupRequest;
 import org.apache.hadoop.hbase.shaded.protobuf.generated.RegionServerStatusProtos.RegionServerStartupResponse;
 import org.apache.hadoop.hbase.shaded.protobuf.generated.RegionServerStatusProtos.RegionServerStatusService;
@@ -317,6 +319,27 @@ public class HRegionServer extends HasThread implements
   // Instance of the hbase executor executorService.
   protected ExecutorService executorService;
 
+  /**
+   * Number of threads in the region server wide pool used to open store files (read trailers and
+   * load root indexes) while opening regions. Zero, the default, keeps the per region pools
+   * sized by {@link HConstants#HSTORE_OPEN_AND_CLOSE_THREADS_MAX}.
+   */
+  public static final String STOREFILE_OPEN_THREADS = "hbase.regionserver.storefile.open.threads";
+  public static final int DEFAULT_STOREFILE_OPEN_THREADS = 0;
+
+  // Shared pool for store file opens; null unless STOREFILE_OPEN_THREADS is set.
+  private ThreadPoolExecutor storeFileOpenPool;
+
+  /**
+   * Number of threads in the region server wide pool used to flush the stores of a region in
+   * parallel. Zero, the default, flushes the stores of a region one after the other.
+   */
+  public static final String STORE_FLUSH_THREADS = "hbase.regionserver.flush.store.threads";
+  public static final int DEFAULT_STORE_FLUSH_THREADS = 0;
+
+  // Shared pool for store flushes; null unless STORE_FLUSH_THREADS is set.
+  private ThreadPoolExecutor storeFlushPool;
+
   // If false, the file system has become unavailable
   protected volatile boolean fsOk;
   protected HFileSystem fs;
@@ -434,6 +457,9 @@ public class HRegionServer extends HasThread implements
 
   private final RegionServerAccounting regionServerAccounting;
 
+  // Turns region server reports into deltas of the region loads, when enabled
+  private final RegionLoadReportTracker regionLoadReportTracker;
+
   // Block cache
   private BlockCache blockCache;
   // The cache for mob files
@@ -619,6 +645,7 @@ public class HRegionServer extends HasThread implements
       // or process owner as default super user.
       Superusers.initialize(conf);
       regionServerAccounting = new RegionServerAccounting(conf);
+      regionLoadReportTracker = new RegionLoadReportTracker(conf);
 
       boolean isMasterNotCarryTable =
           this instanceof HMaster && !LoadBalancer.isTablesOnMaster(conf);
@@ -1218,13 +1245,24 @@ public class HRegionServer extends HasThread implements
       // the current server could be stopping.
       return;
     }
-    ClusterStatusProtos.ServerLoad sl = buildServerLoad(reportStartTime, reportEndTime);
+    ClusterStatusProtos.ServerLoad sl = regionLoadReportTracker
+        .toReport(buildServerLoad(reportStartTime, reportEndTime), reportEndTime);
     try {
       RegionServerReportRequest.Builder request = RegionServerReportRequest.newBuilder();
       request.setServer(ProtobufUtil.toServerName(this.serverName));
       request.setLoad(sl);
-      rss.regionServerReport(null, request.build());
+      RegionServerReportResponse response = rss.regionServerReport(null, request.build());
+      regionLoadReportTracker.reportSucceeded(response.getFullReportRequired(), reportEndTime);
+      if (compactSplitThread != null) {
+        compactSplitThread.setLargeCompactionTokens(
+          response.hasCompactionTokens() ? response.getCompactionTokens() : Integer.MAX_VALUE);
+      }
     } catch (ServiceException se) {
+      regionLoadReportTracker.reportFailed();
+      if (compactSplitThread != null) {
+        // do not hold the large compactions back while the master cannot be reached
+        compactSplitThread.setLargeCompactionTokens(Integer.MAX_VALUE);
+      }
       IOException ioe = ProtobufUtil.getRemoteException(se);
       if (ioe instanceof YouAreDeadException) {
         // This will be caught and handled as a fatal error in run()
@@ -1375,6 +1413,10 @@ public class HRegionServer extends HasThread implements
     }
     serverLoad.setReportStartTime(reportStartTime);
     serverLoad.setReportEndTime(reportEndTime);
+    if (compactSplitThread != null) {
+      serverLoad.setLargeCompactionsRunning(compactSplitThread.getRunningLargeCompactions());
+      serverLoad.setLargeCompactionsPending(compactSplitThread.getPendingLargeCompactions());
+    }
     if (this.infoServer != null) {
       serverLoad.setInfoServerPort(this.infoServer.getPort());
     } else {
@@ -1969,6 +2011,20 @@ public class HRegionServer extends HasThread implements
       conf.getInt("hbase.regionserver.executor.replay.sync.replication.wal.threads", 1));
     this.executorService.startExecutorService(ExecutorType.RS_SWITCH_RPC_THROTTLE,
       conf.getInt("hbase.regionserver.executor.switch.rpc.throttle.threads", 1));
+    int storeFileOpenThreads = conf.getInt(STOREFILE_OPEN_THREADS, DEFAULT_STOREFILE_OPEN_THREADS);
+    if (storeFileOpenThreads > 0) {
+      // Bounds the number of concurrent trailer and root index loads across all the regions
+      // being opened, rather than per region.
+      this.storeFileOpenPool = Threads.getBoundedCachedThreadPool(storeFileOpenThreads, 30L,
+        TimeUnit.SECONDS, Threads.newDaemonThreadFactory(getName() + "-StoreFileOpener"));
+    }
+    int storeFlushThreads = conf.getInt(STORE_FLUSH_THREADS, DEFAULT_STORE_FLUSH_THREADS);
+    if (storeFlushThreads > 0) {
+      // Shared by all the regions, so that flushing wide regions in parallel does not run more
+      // flush writers than the flush throughput controller and HDFS can take.
+      this.storeFlushPool = Threads.getBoundedCachedThreadPool(storeFlushThreads, 30L,
+        TimeUnit.SECONDS, Threads.newDaemonThreadFactory(getName() + "-StoreFlusher"));
+    }
 
     Threads.setDaemonThreadRunning(this.walRoller.getThread(), getName() + ".logRoller",
     uncaughtExceptionHandler);
@@ -2520,6 +2576,14 @@ public class HRegionServer extends HasThread implements
       this.compactSplitThread.join();
     }
     if (this.executorService != null) this.executorService.shutdown();
+    if (this.storeFileOpenPool != null) {
+      // let the queued store file opens run, the opens of their stores wait for them
+      this.storeFileOpenPool.shutdown();
+    }
+    if (this.storeFlushPool != null) {
+      // let the queued store flushes run, the flushes of their regions wait for them
+      this.storeFlushPool.shutdown();
+    }
     if (this.replicationSourceHandler != null &&
         this.replicationSourceHandler == this.replicationSinkHandler) {
       this.replicationSourceHandler.stopReplicationService();
@@ -3652,6 +3716,16 @@ public class HRegionServer extends HasThread implements
     return Optional.ofNullable(this.mobFileCache);
   }
 
+  @Override
+  public Optional<ThreadPoolExecutor> getStoreFileOpenPool() {
+    return Optional.ofNullable(this.storeFileOpenPool);
+  }
+
+  @Override
+  public Optional<ThreadPoolExecutor> getStoreFlushPool() {
+    return Optional.ofNullable(this.storeFlushPool);
+  }
+
   @Override
   public AccessChecker getAccessChecker() {
     return rpcServices.getAccessChecker();
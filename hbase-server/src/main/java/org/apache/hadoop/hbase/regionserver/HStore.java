@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableSet;
@@ -72,6 +73,7 @@ import org.apache.hadoop.hbase.conf.PropagatingConfigurationObserver;
 import org.apache.hadoop.hbase.io.HeapSize;
 import org.apache.hadoop.hbase.io.compress.Compression;
 import org.apache.hadoop.hbase.io.crypto.Encryption;
+import org.apache.hadoop.hbase.io.hfile.BlockCache;
 import org.apache.hadoop.hbase.io.hfile.CacheConfig;
 import org.apache.hadoop.hbase.io.hfile.HFile;
 import org.apache.hadoop.hbase.io.hfile.HFileContext;
@@ -79,6 +81,7 @@ import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
 import org.apache.hadoop.hbase.io.hfile.HFileDataBlockEncoder;
 import org.apache.hadoop.hbase.io.hfile.HFileDataBlockEncoderImpl;
 import org.apache.hadoop.hbase.io.hfile.HFileScanner;
+import org.apache.hadoop.hbase.io.hfile.HotKeyRanges;
 import org.apache.hadoop.hbase.io.hfile.InvalidHFileException;
 import org.apache.hadoop.hbase.log.HBaseMarkers;
 import org.apache.hadoop.hbase.monitoring.MonitoredTask;
@@ -157,6 +160,9 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
   static int closeCheckInterval = 0;
   private AtomicLong storeSize = new AtomicLong();
   private AtomicLong totalUncompressedBytes = new AtomicLong();
+  private final StoreReadStatistics readStatistics = new StoreReadStatistics();
+  // the storage policy of the store directory
+  private final String storagePolicy;
 
   /**
    * RWLock for store operations.
@@ -264,6 +270,7 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
     if (null == policyName) {
       policyName = this.conf.get(BLOCK_STORAGE_POLICY_KEY, DEFAULT_BLOCK_STORAGE_POLICY);
     }
+    this.storagePolicy = policyName.trim().toUpperCase(Locale.ROOT);
     this.fs.setStoragePolicy(family.getNameAsString(), policyName.trim());
 
     this.dataBlockEncoder = new HFileDataBlockEncoderImpl(family.getDataBlockEncoding());
@@ -463,6 +470,44 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
   public long getBlockingFileCount() {
     return blockingFileCount;
   }
+
+  @Override
+  public StoreReadStatistics getReadStatistics() {
+    return readStatistics;
+  }
+
+  @Override
+  public int getBlockSize() {
+    return this.blocksize;
+  }
+
+  /**
+   * Predicts, without reading any block, whether a get of the row is served from the memstore and
+   * the block cache alone. Stores with MOB cells or reference files always might read from the
+   * file system.
+   * @param firstOnRow the first cell on the row
+   */
+  public boolean isRowCached(Cell firstOnRow) {
+    if (family.isMobEnabled()) {
+      return false;
+    }
+    for (HStoreFile file : getStorefiles()) {
+      StoreFileReader reader = file.getReader();
+      if (reader == null || file.isReference() || !reader.isRowCached(firstOnRow)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the storage policy of the given store file, the one it was written with or else the
+   *         one of the store
+   */
+  String getStoragePolicy(HStoreFile file) {
+    String fileStoragePolicy = file.getFileStoragePolicy();
+    return fileStoragePolicy != null ? fileStoragePolicy : storagePolicy;
+  }
   /* End implementation of StoreConfigInformation */
 
   /**
@@ -565,16 +610,25 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
     if (CollectionUtils.isEmpty(files)) {
       return Collections.emptyList();
     }
-    // initialize the thread pool for opening store files in parallel..
-    ThreadPoolExecutor storeFileOpenerThreadPool =
-      this.region.getStoreFileOpenAndCloseThreadPool("StoreFileOpenerThread-"
-        + this.region.getRegionInfo().getEncodedName() + "-" + this.getColumnFamilyName());
+    // Prefer the region server wide pool so that the number of concurrent store file opens is
+    // bounded across all regions being opened; otherwise fall back to a per region pool.
+    Optional<ThreadPoolExecutor> sharedPool = this.region.getRegionServerServices() == null ?
+        Optional.empty() : this.region.getRegionServerServices().getStoreFileOpenPool();
+    ThreadPoolExecutor storeFileOpenerThreadPool = sharedPool.orElseGet(
+      () -> this.region.getStoreFileOpenAndCloseThreadPool("StoreFileOpenerThread-"
+        + this.region.getRegionInfo().getEncodedName() + "-" + this.getColumnFamilyName()));
     CompletionService<HStoreFile> completionService = new ExecutorCompletionService<>(storeFileOpenerThreadPool);
 
     int totalValidStoreFile = 0;
+    List<Future<HStoreFile>> futures = new ArrayList<>(files.size());
+    // set by whoever comes first, the open starting or its cancellation
+    List<AtomicBoolean> claims = new ArrayList<>(files.size());
     for (StoreFileInfo storeFileInfo : files) {
+      AtomicBoolean claim = new AtomicBoolean();
       // open each store file in parallel
-      completionService.submit(() -> this.createStoreFileAndReader(storeFileInfo));
+      futures.add(completionService.submit(
+        () -> claim.compareAndSet(false, true) ? this.createStoreFileAndReader(storeFileInfo) : null));
+      claims.add(claim);
       totalValidStoreFile++;
     }
 
@@ -582,22 +636,37 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
     ArrayList<HStoreFile> results = new ArrayList<>(files.size());
     IOException ioe = null;
     try {
-      for (int i = 0; i < totalValidStoreFile; i++) {
+      int remaining = totalValidStoreFile;
+      while (remaining > 0) {
         try {
-          HStoreFile storeFile = completionService.take().get();
+          Future<HStoreFile> future = completionService.take();
+          if (future.isCancelled()) {
+            // no longer counted once cancelled
+            continue;
+          }
+          remaining--;
+          HStoreFile storeFile = future.get();
           if (storeFile != null) {
             LOG.debug("loaded {}", storeFile);
             results.add(storeFile);
             compactedStoreFiles.addAll(storeFile.getCompactedStoreFiles());
           }
         } catch (InterruptedException e) {
-          if (ioe == null) ioe = new InterruptedIOException(e.getMessage());
+          if (ioe == null) {
+            ioe = new InterruptedIOException(e.getMessage());
+            remaining -= cancelStoreFileOpens(futures, claims);
+          }
         } catch (ExecutionException e) {
-          if (ioe == null) ioe = new IOException(e.getCause());
+          if (ioe == null) {
+            ioe = new IOException(e.getCause());
+            remaining -= cancelStoreFileOpens(futures, claims);
+          }
         }
       }
     } finally {
-      storeFileOpenerThreadPool.shutdownNow();
+      if (!sharedPool.isPresent()) {
+        storeFileOpenerThreadPool.shutdownNow();
+      }
     }
     if (ioe != null) {
       // close StoreFile readers
@@ -636,6 +705,25 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
     return results;
   }
 
+  /**
+   * Cancels the opens of store files not started yet, so that the store does not wait for them nor
+   * hold up the shared pool once it has failed to open. The opens already running complete, and
+   * their files are closed with the others.
+   * @return the number of opens cancelled, which will not show up as completed
+   */
+  private static int cancelStoreFileOpens(List<Future<HStoreFile>> futures,
+      List<AtomicBoolean> claims) {
+    int cancelled = 0;
+    for (int i = 0; i < futures.size(); i++) {
+      // an open claimed here will not read the file even when the cancel comes too late, in which
+      // case it completes with no file
+      if (claims.get(i).compareAndSet(false, true) && futures.get(i).cancel(false)) {
+        cancelled++;
+      }
+    }
+    return cancelled;
+  }
+
   @Override
   public void refreshStoreFiles() throws IOException {
     Collection<StoreFileInfo> newFiles = fs.getStoreFiles(getColumnFamilyName());
@@ -1115,11 +1203,38 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
   public StoreFileWriter createWriterInTmp(long maxKeyCount, Compression.Algorithm compression,
       boolean isCompaction, boolean includeMVCCReadpoint, boolean includesTag,
       boolean shouldDropBehind) throws IOException {
+    return createWriterInTmp(maxKeyCount, compression, isCompaction, includeMVCCReadpoint,
+      includesTag, shouldDropBehind, null);
+  }
+
+  /**
+   * @param hotKeyRanges key ranges whose data blocks a compaction caches on write, null for none
+   * @return Writer for a new StoreFile in the tmp dir.
+   * @see #createWriterInTmp(long, Compression.Algorithm, boolean, boolean, boolean, boolean)
+   */
+  public StoreFileWriter createWriterInTmp(long maxKeyCount, Compression.Algorithm compression,
+      boolean isCompaction, boolean includeMVCCReadpoint, boolean includesTag,
+      boolean shouldDropBehind, HotKeyRanges hotKeyRanges) throws IOException {
+    return createWriterInTmp(maxKeyCount, compression, isCompaction, includeMVCCReadpoint,
+      includesTag, shouldDropBehind, hotKeyRanges, null);
+  }
+
+  /**
+   * @param hotKeyRanges key ranges whose data blocks a compaction caches on write, null for none
+   * @param fileStoragePolicy the storage policy of the new file, null for the one of the store
+   * @return Writer for a new StoreFile in the tmp dir.
+   * @see #createWriterInTmp(long, Compression.Algorithm, boolean, boolean, boolean, boolean)
+   */
+  public StoreFileWriter createWriterInTmp(long maxKeyCount, Compression.Algorithm compression,
+      boolean isCompaction, boolean includeMVCCReadpoint, boolean includesTag,
+      boolean shouldDropBehind, HotKeyRanges hotKeyRanges, String fileStoragePolicy)
+      throws IOException {
     final CacheConfig writerCacheConf;
     if (isCompaction) {
-      // Don't cache data on write on compactions.
+      // Don't cache data on write on compactions, but for the blocks which were hot before.
       writerCacheConf = new CacheConfig(cacheConf);
       writerCacheConf.setCacheDataOnWrite(false);
+      writerCacheConf.setCacheOnWriteKeyRanges(hotKeyRanges);
     } else {
       writerCacheConf = cacheConf;
     }
@@ -1140,7 +1255,8 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
             .withFavoredNodes(favoredNodes)
             .withFileContext(hFileContext)
             .withShouldDropCacheBehind(shouldDropBehind)
-            .withCompactedFilesSupplier(this::getCompactedFiles);
+            .withCompactedFilesSupplier(this::getCompactedFiles)
+            .withFileStoragePolicy(fileStoragePolicy);
     return builder.build();
   }
 
@@ -1280,6 +1396,67 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
     return scanners;
   }
 
+  /**
+   * Get the scanners of a get: on the memstore, and on the store files which may have cells of its
+   * row. The time range, key range and Bloom filter of the files are checked before a scanner is
+   * opened on them, so a get does not open and close a scanner on every file of the store.
+   * @param scan the get
+   * @param cacheBlocks cache the blocks or not
+   * @param usePread true to use pread, false if not
+   * @param matcher the scan query matcher
+   * @param oldestUnexpiredTS the oldest timestamp of a cell which has not expired
+   * @param readPt the read point of the current scan
+   * @return the scanners of the get, the file scanners already checked against it
+   */
+  public List<KeyValueScanner> getScannersForGet(Scan scan, boolean cacheBlocks, boolean usePread,
+      ScanQueryMatcher matcher, long oldestUnexpiredTS, long readPt) throws IOException {
+    Collection<HStoreFile> storeFilesToScan;
+    List<KeyValueScanner> memStoreScanners;
+    this.lock.readLock().lock();
+    try {
+      storeFilesToScan = this.storeEngine.getStoreFileManager().getFilesForScan(
+        scan.getStartRow(), scan.includeStartRow(), scan.getStopRow(), scan.includeStopRow());
+      memStoreScanners = this.memstore.getScanners(readPt);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+
+    List<StoreFileScanner> sfScanners;
+    // Hold a reference on the readers while they are checked and until the scanners hold their
+    // own, so that the discharger does not close the files compacted away in the meantime.
+    List<StoreFileReader> referencedReaders = new ArrayList<>(storeFilesToScan.size());
+    boolean succ = false;
+    try {
+      List<HStoreFile> filesToScan = new ArrayList<>(storeFilesToScan.size());
+      for (HStoreFile file : storeFilesToScan) {
+        file.initReader();
+        StoreFileReader reader = file.getReader();
+        reader.incrementRefCount();
+        referencedReaders.add(reader);
+        if (StoreFileScanner.shouldUseFile(reader, scan, this, oldestUnexpiredTS)) {
+          filesToScan.add(file);
+        }
+      }
+      sfScanners = StoreFileScanner.getScannersForStoreFiles(filesToScan, cacheBlocks, usePread,
+        false, false, matcher, readPt);
+      succ = true;
+    } finally {
+      for (StoreFileReader reader : referencedReaders) {
+        reader.readCompleted();
+      }
+      if (!succ) {
+        memStoreScanners.forEach(KeyValueScanner::close);
+      }
+    }
+    List<KeyValueScanner> scanners = new ArrayList<>(sfScanners.size() + memStoreScanners.size());
+    for (StoreFileScanner sfScanner : sfScanners) {
+      sfScanner.preselect(scan, this);
+      scanners.add(sfScanner);
+    }
+    scanners.addAll(memStoreScanners);
+    return scanners;
+  }
+
   /**
    * Create scanners on the given files and if needed on the memstore with no filtering based on TTL
    * (that happens further down the line).
@@ -1454,6 +1631,14 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
 
     // At this point the store will use new files for all new scanners.
     completeCompaction(filesToCompact); // update store size.
+    if (cacheConf.shouldCacheHotBlocksOnCompaction()) {
+      // The hot blocks were cached again on write, free the cache from the compacted files now
+      // rather than when the discharger closes them.
+      BlockCache blockCache = cacheConf.getBlockCache().get();
+      for (HStoreFile file : filesToCompact) {
+        blockCache.evictBlocksByHfileName(file.getPath().getName());
+      }
+    }
 
     long now = EnvironmentEdgeManager.currentTime();
     if (region.getRegionServerServices() != null
@@ -2449,7 +2634,7 @@ public class HStore implements Store, HeapSize, StoreConfigInformation, Propagat
   }
 
   public static final long FIXED_OVERHEAD =
-      ClassSize.align(ClassSize.OBJECT + (27 * ClassSize.REFERENCE) + (2 * Bytes.SIZEOF_LONG)
+      ClassSize.align(ClassSize.OBJECT + (29 * ClassSize.REFERENCE) + (2 * Bytes.SIZEOF_LONG)
               + (6 * Bytes.SIZEOF_INT) + (2 * Bytes.SIZEOF_BOOLEAN));
 
   public static final long DEEP_OVERHEAD = ClassSize.align(FIXED_OVERHEAD
@@ -118,6 +118,9 @@ public class HStoreFile implements StoreFile {
    */
   public static final byte[] SKIP_RESET_SEQ_ID = Bytes.toBytes("SKIP_RESET_SEQ_ID");
 
+  /** Key for the storage policy a compaction wrote the file with, in metadata */
+  public static final byte[] STORAGE_POLICY_KEY = Bytes.toBytes("STORAGE_POLICY");
+
   private final StoreFileInfo fileInfo;
   private final FileSystem fs;
 
@@ -315,6 +318,15 @@ public class HStoreFile implements StoreFile {
     return metadataMap.get(key);
   }
 
+  /**
+   * @return the storage policy the file was written with, or null if it was written with the
+   *         storage policy of the store
+   */
+  public String getFileStoragePolicy() {
+    byte[] b = metadataMap == null ? null : metadataMap.get(STORAGE_POLICY_KEY);
+    return b == null ? null : Bytes.toString(b);
+  }
+
   @Override
   public boolean isBulkLoadResult() {
     boolean bulkLoadedHFile = false;
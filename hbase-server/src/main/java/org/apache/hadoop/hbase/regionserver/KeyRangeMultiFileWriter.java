@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.yetus.audience.InterfaceAudience;
+
+/**
+ * Cell sink that writes each row range to its own file. Unlike the other multi file writers, the
+ * ranges may be written concurrently, by one thread per range through {@link #getRangeWriter(int)}.
+ * The files are created lazily so an empty range produces no file.
+ */
+@InterfaceAudience.Private
+public class KeyRangeMultiFileWriter extends AbstractMultiFileWriter {
+
+  private final CellComparator comparator;
+
+  // the first row of each range but the first one, sorted
+  private final List<byte[]> boundaries;
+
+  // only the thread writing a range touches its slot until the writers are committed or aborted
+  private final StoreFileWriter[] writers;
+
+  /**
+   * @param boundaries the first row of each range but the first one, sorted
+   */
+  public KeyRangeMultiFileWriter(CellComparator comparator, List<byte[]> boundaries) {
+    this.comparator = comparator;
+    this.boundaries = boundaries;
+    this.writers = new StoreFileWriter[boundaries.size() + 1];
+  }
+
+  public int getRangeCount() {
+    return writers.length;
+  }
+
+  /**
+   * @return a sink for the cells of the given range only, to be used by a single thread
+   */
+  public CellSink getRangeWriter(int range) {
+    return new RangeWriter(range);
+  }
+
+  @Override
+  public void append(Cell cell) throws IOException {
+    getWriter(rangeOf(cell)).append(cell);
+  }
+
+  private int rangeOf(Cell cell) {
+    int low = 0;
+    int high = boundaries.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      byte[] boundary = boundaries.get(mid);
+      if (comparator.compareRows(cell, boundary, 0, boundary.length) < 0) {
+        high = mid - 1;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+
+  private StoreFileWriter getWriter(int range) throws IOException {
+    if (writers[range] == null) {
+      writers[range] = writerFactory.createWriter();
+    }
+    return writers[range];
+  }
+
+  @Override
+  protected Collection<StoreFileWriter> writers() {
+    return Arrays.asList(writers);
+  }
+
+  private final class RangeWriter implements CellSink, ShipperListener {
+
+    private final int range;
+
+    RangeWriter(int range) {
+      this.range = range;
+    }
+
+    @Override
+    public void append(Cell cell) throws IOException {
+      getWriter(range).append(cell);
+    }
+
+    @Override
+    public void beforeShipped() throws IOException {
+      if (writers[range] != null) {
+        writers[range].beforeShipped();
+      }
+    }
+  }
+}
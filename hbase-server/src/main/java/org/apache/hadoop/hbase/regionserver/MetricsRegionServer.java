@@ -214,6 +214,12 @@ public class MetricsRegionServer {
 
   }
 
+  public void updateRegionOpen(long t, long storesTime, long replayTime) {
+    serverSource.updateRegionOpenTime(t);
+    serverSource.updateRegionOpenStoresTime(storesTime);
+    serverSource.updateRegionOpenReplayTime(replayTime);
+  }
+
   public void updateCompaction(String table, boolean isMajor, long t, int inputFileCount, int outputFileCount,
       long inputBytes, long outputBytes) {
     serverSource.updateCompactionTime(isMajor, t);
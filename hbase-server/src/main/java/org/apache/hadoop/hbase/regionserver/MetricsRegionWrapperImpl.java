@@ -20,6 +20,8 @@ package org.apache.hadoop.hbase.regionserver;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.OptionalDouble;
 import java.util.OptionalLong;
@@ -51,6 +53,8 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
   private long storeRefCount;
   private long memstoreSize;
   private long storeFileSize;
+  private Map<String, Long> numStoreFilesByStoragePolicy = Collections.emptyMap();
+  private Map<String, Long> storeFileSizeByStoragePolicy = Collections.emptyMap();
   private long maxStoreFileAge;
   private long minStoreFileAge;
   private long avgStoreFileAge;
@@ -120,6 +124,16 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
     return storeFileSize;
   }
 
+  @Override
+  public Map<String, Long> getNumStoreFilesByStoragePolicy() {
+    return numStoreFilesByStoragePolicy;
+  }
+
+  @Override
+  public Map<String, Long> getStoreFileSizeByStoragePolicy() {
+    return storeFileSizeByStoragePolicy;
+  }
+
   @Override
   public long getStoreRefCount() {
     return storeRefCount;
@@ -202,6 +216,16 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
     return maxFlushQueueSize;
   }
 
+  @Override
+  public long getRowLockWaitCount() {
+    return this.region.getRowLockWaitCount();
+  }
+
+  @Override
+  public long getRowLockWaitTime() {
+    return this.region.getRowLockWaitTime();
+  }
+
   @Override
   public long getMaxStoreFileAge() {
     return maxStoreFileAge;
@@ -243,8 +267,18 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
 
       long avgAgeNumerator = 0;
       long numHFiles = 0;
+      Map<String, Long> tempNumStoreFilesByStoragePolicy = new HashMap<>();
+      Map<String, Long> tempStoreFileSizeByStoragePolicy = new HashMap<>();
       if (region.stores != null) {
         for (HStore store : region.stores.values()) {
+          for (HStoreFile file : store.getStorefiles()) {
+            StoreFileReader reader = file.getReader();
+            if (reader != null) {
+              String storagePolicy = store.getStoragePolicy(file);
+              tempNumStoreFilesByStoragePolicy.merge(storagePolicy, 1L, Long::sum);
+              tempStoreFileSizeByStoragePolicy.merge(storagePolicy, reader.length(), Long::sum);
+            }
+          }
           tempNumStoreFiles += store.getStorefilesCount();
           tempStoreRefCount += store.getStoreRefCount();
           tempMemstoreSize += store.getMemStoreSize().getDataSize();
@@ -273,6 +307,8 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
       }
 
       numStoreFiles = tempNumStoreFiles;
+      numStoreFilesByStoragePolicy = tempNumStoreFilesByStoragePolicy;
+      storeFileSizeByStoragePolicy = tempStoreFileSizeByStoragePolicy;
       storeRefCount = tempStoreRefCount;
       memstoreSize = tempMemstoreSize;
       storeFileSize = tempStoreFileSize;
@@ -21,8 +21,9 @@ package org.apache.hadoop.hbase.regionserver;
 import org.apache.hbase.thirdparty.com.google.common.annotations.VisibleForTesting;
 import org.apache.hbase.thirdparty.com.google.common.base.MoreObjects;
 
-import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.yetus.audience.InterfaceAudience;
 import org.slf4j.Logger;
@@ -35,26 +36,34 @@ import org.apache.hadoop.hbase.util.ClassSize;
  * Manages the read/write consistency. This provides an interface for readers to determine what
  * entries to ignore, and a mechanism for writers to obtain new write numbers, then "commit"
  * the new writes for readers to read (thus forming atomic transactions).
+ * <p>
+ * The pending writes sit in a ring indexed by write number, which grows when more writes are
+ * pending than it holds. Completing a write takes no lock: the read point is moved forward with
+ * compare-and-set over the completed writes at its head, by whichever completing writer gets
+ * there, and only the writers waiting on the writes it moves over are woken up. Starting a write
+ * still takes a short lock, as {@link #begin(Runnable)} runs its action in write number order.
  */
 @InterfaceAudience.Private
 public class MultiVersionConcurrencyControl {
   private static final Logger LOG = LoggerFactory.getLogger(MultiVersionConcurrencyControl.class);
 
+  private static final int INITIAL_RING_SIZE = 64;
+
+  // how long a waiter sleeps before checking the read point again, should its wakeup be missed
+  private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
   final AtomicLong readPoint = new AtomicLong(0);
   final AtomicLong writePoint = new AtomicLong(0);
-  private final Object readWaiters = new Object();
+  private final Object beginLock = new Object();
   /**
    * Represents no value, or not set.
    */
   public static final long NONE = -1;
 
-  // This is the pending queue of writes.
-  //
-  // TODO(eclark): Should this be an array of fixed size to
-  // reduce the number of allocations on the write path?
-  // This could be equal to the number of handlers + a small number.
-  // TODO: St.Ack 20150903 Sounds good to me.
-  private final LinkedList<WriteEntry> writeQueue = new LinkedList<>();
+  // The pending writes, write number n at n & (ring.length - 1). A slot is only reused once the
+  // read point passed the write it held. Written under beginLock before the write point is moved,
+  // so a reader which saw the write point sees the ring holding all the writes up to it.
+  private volatile WriteEntry[] ring = new WriteEntry[INITIAL_RING_SIZE];
 
   public MultiVersionConcurrencyControl() {
     super();
@@ -92,7 +101,7 @@ public class MultiVersionConcurrencyControl {
    * <code>readPoint</code>
    */
   boolean tryAdvanceTo(long newStartPoint, long expected) {
-    synchronized (writeQueue) {
+    synchronized (beginLock) {
       long currentRead = this.readPoint.get();
       long currentWrite = this.writePoint.get();
       if (currentRead != currentWrite) {
@@ -133,15 +142,40 @@ public class MultiVersionConcurrencyControl {
    * @see #completeAndWait(WriteEntry)
    */
   public WriteEntry begin(Runnable action) {
-    synchronized (writeQueue) {
-      long nextWriteNumber = writePoint.incrementAndGet();
+    synchronized (beginLock) {
+      long nextWriteNumber = writePoint.get() + 1;
       WriteEntry e = new WriteEntry(nextWriteNumber);
-      writeQueue.add(e);
+      WriteEntry[] r = ring;
+      if (nextWriteNumber - readPoint.get() > r.length) {
+        r = growRing(r, nextWriteNumber);
+      }
+      r[(int) nextWriteNumber & (r.length - 1)] = e;
+      writePoint.set(nextWriteNumber);
       action.run();
       return e;
     }
   }
 
+  /**
+   * Doubles the ring until it holds all the pending writes and the next one. Completing writers
+   * reading the old ring still find the writes it holds there, and read the new ring for the
+   * writes after them.
+   */
+  private WriteEntry[] growRing(WriteEntry[] r, long nextWriteNumber) {
+    int length = r.length;
+    while (nextWriteNumber - readPoint.get() > length) {
+      length <<= 1;
+    }
+    WriteEntry[] grown = new WriteEntry[length];
+    for (WriteEntry e : r) {
+      if (e != null) {
+        grown[(int) e.getWriteNumber() & (length - 1)] = e;
+      }
+    }
+    ring = grown;
+    return grown;
+  }
+
   /**
    * Wait until the read point catches up to the write point; i.e. wait on all outstanding mvccs
    * to complete.
@@ -179,41 +213,33 @@ public class MultiVersionConcurrencyControl {
    * @return true if e is visible to MVCC readers (that is, readpoint >= e.writeNumber)
    */
   public boolean complete(WriteEntry writeEntry) {
-    synchronized (writeQueue) {
-      writeEntry.markCompleted();
-      long nextReadValue = NONE;
-      boolean ranOnce = false;
-      while (!writeQueue.isEmpty()) {
-        ranOnce = true;
-        WriteEntry queueFirst = writeQueue.getFirst();
-
-        if (nextReadValue > 0) {
-          if (nextReadValue + 1 != queueFirst.getWriteNumber()) {
-            throw new RuntimeException("Invariant in complete violated, nextReadValue="
-                + nextReadValue + ", writeNumber=" + queueFirst.getWriteNumber());
-          }
-        }
-
-        if (queueFirst.isCompleted()) {
-          nextReadValue = queueFirst.getWriteNumber();
-          writeQueue.removeFirst();
-        } else {
-          break;
+    writeEntry.markCompleted();
+    // Either this writer sees the writes completed before it, or the writer completing the last
+    // of them sees this one, as the completed flags are written before the ring is read.
+    while (true) {
+      long currentRead = readPoint.get();
+      long next = currentRead + 1;
+      if (next > writePoint.get()) {
+        break;
+      }
+      WriteEntry[] r = ring;
+      WriteEntry queueFirst = r[(int) next & (r.length - 1)];
+      if (queueFirst == null || queueFirst.getWriteNumber() != next) {
+        if (readPoint.get() == currentRead) {
+          throw new RuntimeException("Invariant in complete violated, readPoint="
+              + currentRead + ", writeNumber=" + (queueFirst == null ? null
+                : queueFirst.getWriteNumber()));
         }
+        continue;
       }
-
-      if (!ranOnce) {
-        throw new RuntimeException("There is no first!");
+      if (!queueFirst.isCompleted()) {
+        break;
       }
-
-      if (nextReadValue > 0) {
-        synchronized (readWaiters) {
-          readPoint.set(nextReadValue);
-          readWaiters.notifyAll();
-        }
+      if (readPoint.compareAndSet(currentRead, next)) {
+        queueFirst.wakeWaiter();
       }
-      return readPoint.get() >= writeEntry.getWriteNumber();
     }
+    return readPoint.get() >= writeEntry.getWriteNumber();
   }
 
   /**
@@ -222,21 +248,20 @@ public class MultiVersionConcurrencyControl {
   void waitForRead(WriteEntry e) {
     boolean interrupted = false;
     int count = 0;
-    synchronized (readWaiters) {
-      while (readPoint.get() < e.getWriteNumber()) {
-        if (count % 100 == 0 && count > 0) {
-          LOG.warn("STUCK: " + this);
-        }
-        count++;
-        try {
-          readWaiters.wait(10);
-        } catch (InterruptedException ie) {
-          // We were interrupted... finish the loop -- i.e. cleanup --and then
-          // on our way out, reset the interrupt flag.
-          interrupted = true;
-        }
+    e.setWaiter(Thread.currentThread());
+    while (readPoint.get() < e.getWriteNumber()) {
+      if (count % 100 == 0 && count > 0) {
+        LOG.warn("STUCK: " + this);
+      }
+      count++;
+      LockSupport.parkNanos(this, WAIT_NANOS);
+      if (Thread.interrupted()) {
+        // We were interrupted... finish the loop -- i.e. cleanup --and then
+        // on our way out, reset the interrupt flag.
+        interrupted = true;
       }
     }
+    e.setWaiter(null);
     if (interrupted) {
       Thread.currentThread().interrupt();
     }
@@ -266,7 +291,9 @@ public class MultiVersionConcurrencyControl {
   @InterfaceAudience.Private
   public static class WriteEntry {
     private final long writeNumber;
-    private boolean completed = false;
+    private volatile boolean completed = false;
+    // the thread waiting for the read point to reach this write, if any
+    private volatile Thread waiter;
 
     WriteEntry(long writeNumber) {
       this.writeNumber = writeNumber;
@@ -280,6 +307,17 @@ public class MultiVersionConcurrencyControl {
       return this.completed;
     }
 
+    void setWaiter(Thread waiter) {
+      this.waiter = waiter;
+    }
+
+    void wakeWaiter() {
+      Thread t = this.waiter;
+      if (t != null) {
+        LockSupport.unpark(t);
+      }
+    }
+
     public long getWriteNumber() {
       return this.writeNumber;
     }
@@ -2607,6 +2607,77 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     }
   }
 
+  /**
+   * Starts the request on its region if it is a get served from the memstore and the block cache
+   * alone, which the rpc server can then run right away on the thread which read it rather than
+   * queue it for a handler. Only simple gets qualify: without a filter, on at most one column
+   * family of an online region without coprocessors, whose lock is free and whose store files all
+   * have the row cached.
+   * @return the region, whose read has to be closed by {@link #finishDirectGet(HRegion)} once the
+   *         get is run, or null if the get has to be queued
+   */
+  public HRegion startDirectGet(Message param) {
+    if (!(param instanceof GetRequest)) {
+      return null;
+    }
+    GetRequest request = (GetRequest) param;
+    ClientProtos.Get get = request.getGet();
+    if (get.hasFilter() || get.getColumnCount() > 1 || get.getClosestRowBefore()) {
+      return null;
+    }
+    HRegion region = regionServer.getOnlineRegion(request.getRegion().getValue().toByteArray());
+    if (region == null
+        || (region.getCoprocessorHost() != null && region.getCoprocessorHost().hasCoprocessors())
+        || !region.tryStartRegionOperation()) {
+      return null;
+    }
+    if (isGetServedFromCache(region, get)) {
+      return region;
+    }
+    finishDirectGet(region);
+    return null;
+  }
+
+  /**
+   * Closes the read of the region started by {@link #startDirectGet(Message)}.
+   */
+  public void finishDirectGet(HRegion region) {
+    try {
+      region.closeRegionOperation(Operation.GET);
+    } catch (IOException e) {
+      LOG.warn("Failed to close the read of " + region, e);
+    }
+  }
+
+  private boolean isGetServedFromCache(HRegion region, ClientProtos.Get get) {
+    byte[] row = get.getRow().toByteArray();
+    if (get.getColumnCount() == 0) {
+      Cell firstOnRow = PrivateCellUtil.createFirstOnRow(row);
+      for (HStore store : region.getStores()) {
+        if (!store.isRowCached(firstOnRow)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    byte[] family = get.getColumn(0).getFamily().toByteArray();
+    HStore store = region.getStore(family);
+    if (store == null) {
+      return false;
+    }
+    if (get.getColumn(0).getQualifierCount() == 0) {
+      return store.isRowCached(PrivateCellUtil.createFirstOnRow(row));
+    }
+    // a row-column Bloom filter is looked up for each column
+    for (ByteString qualifier : get.getColumn(0).getQualifierList()) {
+      if (!store.isRowCached(
+        PrivateCellUtil.createFirstOnRow(row, family, qualifier.toByteArray()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private Result get(Get get, HRegion region, RegionScannersCloseCallBack closeCallBack,
       RpcCallContext context) throws IOException {
     region.prepareGet(get);
@@ -2627,24 +2698,33 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     if (scan.getLoadColumnFamiliesOnDemandValue() == null) {
       scan.setLoadColumnFamiliesOnDemand(region.isLoadingCfsOnDemandDefault());
     }
-    RegionScannerImpl scanner = null;
-    try {
-      scanner = region.getScanner(scan);
-      scanner.next(results);
-    } finally {
-      if (scanner != null) {
-        if (closeCallBack == null) {
-          // If there is a context then the scanner can be added to the current
-          // RpcCallContext. The rpc callback will take care of closing the
-          // scanner, for eg in case
-          // of get()
-          context.setCallBack(scanner);
-        } else {
-          // The call is from multi() where the results from the get() are
-          // aggregated and then send out to the
-          // rpc. The rpccall back will close all such scanners created as part
-          // of multi().
-          closeCallBack.addScanner(scanner);
+    RowResultCache.Key cacheKey = region.getRowResultCacheKey(get);
+    if (cacheKey == null || !region.getFromRowResultCache(cacheKey, results)) {
+      long generation = cacheKey != null ? region.getRowResultCache().getGeneration(cacheKey) : 0;
+      int cachedFrom = results.size();
+      RegionScannerImpl scanner = null;
+      try {
+        scanner = region.getScanner(scan);
+        scanner.next(results);
+        if (cacheKey != null) {
+          region.getRowResultCache()
+              .put(cacheKey, results.subList(cachedFrom, results.size()), generation);
+        }
+      } finally {
+        if (scanner != null) {
+          if (closeCallBack == null) {
+            // If there is a context then the scanner can be added to the current
+            // RpcCallContext. The rpc callback will take care of closing the
+            // scanner, for eg in case
+            // of get()
+            context.setCallBack(scanner);
+          } else {
+            // The call is from multi() where the results from the get() are
+            // aggregated and then send out to the
+            // rpc. The rpccall back will close all such scanners created as part
+            // of multi().
+            closeCallBack.addScanner(scanner);
+          }
         }
       }
     }
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.UnsafeByteOperations;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClusterStatusProtos.RegionLoad;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClusterStatusProtos.ServerLoad;
+
+/**
+ * Turns the full {@link ServerLoad} built for each region server report into a delta against the
+ * last report the master acknowledged: only the region loads that changed are sent, plus the
+ * names of the regions that went away. A full report is sent every
+ * {@value #FULL_REPORT_INTERVAL_KEY} milliseconds, after a failed report, and whenever the master
+ * asks for one.
+ * <p/>
+ * Not thread safe, it is only used by the region server reporting thread.
+ */
+@InterfaceAudience.Private
+class RegionLoadReportTracker {
+
+  /**
+   * Whether to send region load deltas to the master. Off by default, as masters which do not
+   * know about delta reports would take a delta for the full set of online regions.
+   */
+  static final String DELTA_REPORT_ENABLED_KEY = "hbase.regionserver.report.delta.enabled";
+  static final boolean DEFAULT_DELTA_REPORT_ENABLED = false;
+
+  static final String FULL_REPORT_INTERVAL_KEY = "hbase.regionserver.report.full.interval";
+  static final long DEFAULT_FULL_REPORT_INTERVAL = 60000;
+
+  private final boolean enabled;
+  private final long fullReportInterval;
+
+  // region loads as of the last acknowledged report, keyed by region name
+  private Map<byte[], RegionLoad> reported = Collections.emptyMap();
+  // region loads of the report in flight, becomes reported once acknowledged
+  private Map<byte[], RegionLoad> pending;
+  private long lastFullReportTime;
+  private boolean pendingIsFull;
+  private boolean fullReportRequired = true;
+
+  RegionLoadReportTracker(Configuration conf) {
+    this.enabled = conf.getBoolean(DELTA_REPORT_ENABLED_KEY, DEFAULT_DELTA_REPORT_ENABLED);
+    this.fullReportInterval = conf.getLong(FULL_REPORT_INTERVAL_KEY, DEFAULT_FULL_REPORT_INTERVAL);
+  }
+
+  /**
+   * @param load the full load of the region server
+   * @param now the current time
+   * @return the load to send to the master, either {@code load} itself or its delta against the
+   *         last acknowledged report
+   */
+  ServerLoad toReport(ServerLoad load, long now) {
+    if (!enabled) {
+      return load;
+    }
+    pending = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (RegionLoad regionLoad : load.getRegionLoadsList()) {
+      pending.put(regionLoad.getRegionSpecifier().getValue().toByteArray(), regionLoad);
+    }
+    pendingIsFull = fullReportRequired || now - lastFullReportTime >= fullReportInterval;
+    if (pendingIsFull) {
+      return load;
+    }
+    ServerLoad.Builder delta = load.toBuilder().clearRegionLoads().setRegionLoadsDelta(true);
+    for (RegionLoad regionLoad : load.getRegionLoadsList()) {
+      RegionLoad previous =
+          reported.get(regionLoad.getRegionSpecifier().getValue().toByteArray());
+      if (!regionLoad.equals(previous)) {
+        delta.addRegionLoads(regionLoad);
+      }
+    }
+    for (byte[] regionName : reported.keySet()) {
+      if (!pending.containsKey(regionName)) {
+        delta.addRemovedRegionNames(UnsafeByteOperations.unsafeWrap(regionName));
+      }
+    }
+    return delta.build();
+  }
+
+  /**
+   * Called once the master accepted the report returned by the last {@link #toReport} call.
+   * @param masterRequiresFullReport whether the master asked for a full report next time
+   */
+  void reportSucceeded(boolean masterRequiresFullReport, long now) {
+    if (pending == null) {
+      return;
+    }
+    reported = pending;
+    pending = null;
+    if (pendingIsFull) {
+      lastFullReportTime = now;
+    }
+    fullReportRequired = masterRequiresFullReport;
+  }
+
+  /**
+   * Called when the report could not be delivered, the master may or may not have applied it so
+   * the next report has to be a full one.
+   */
+  void reportFailed() {
+    pending = null;
+    fullReportRequired = true;
+  }
+}
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.apache.hadoop.hbase.Abortable;
 import org.apache.hadoop.hbase.Server;
 import org.apache.hadoop.hbase.TableDescriptors;
@@ -307,6 +308,18 @@ public interface RegionServerServices extends Server, MutableOnlineRegions, Favo
    */
   Optional<MobFileCache> getMobFileCache();
 
+  /**
+   * @return The region server wide pool used to open store files, if configured. When absent,
+   *         each region opens its store files on a private, per region pool.
+   */
+  Optional<ThreadPoolExecutor> getStoreFileOpenPool();
+
+  /**
+   * @return The region server wide pool used to flush the stores of a region in parallel, if
+   *         configured. When absent, the stores of a region are flushed one after the other.
+   */
+  Optional<ThreadPoolExecutor> getStoreFlushPool();
+
   /**
    * @return the {@link AccessChecker}
    */
@@ -0,0 +1,360 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.PrivateCellUtil;
+import org.apache.hadoop.hbase.TagType;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptor;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.IsolationLevel;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionReplicaUtil;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.RandomRowFilter;
+import org.apache.hadoop.hbase.filter.SkipFilter;
+import org.apache.hadoop.hbase.filter.WhileMatchFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.ClassSize;
+import org.apache.hadoop.hbase.util.HashedBytes;
+import org.apache.yetus.audience.InterfaceAudience;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.ByteString;
+
+import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
+
+/**
+ * Caches the cells read by the gets of a region, until a mutation of their row.
+ * <p/>
+ * The cells are cached under their row and the rest of the get serialized: families, qualifiers,
+ * time range, versions, filter and so on. Only gets reading families with
+ * {@link ColumnFamilyDescriptor#isRowCacheEnabled()} set and no TTL are cached, and only the
+ * results with no cell carrying a TTL of its own, as cells with a TTL expire without a mutation.
+ * Only gets with no filter or with the filters of HBase are cached, which decide by the cells and
+ * their own state alone.
+ * <p/>
+ * A write invalidates its rows once its mvcc transaction completed, and bumps the generation of
+ * the stripe of each row. A get takes the generation before it opens its scanner, and only caches
+ * the cells it read if no write of the stripe completed since, so a cached result is never older
+ * than a write a scanner could already see. Bulk loads invalidate all the rows.
+ * <p/>
+ * Besides the size of each region, the results cached by all the regions are bounded by
+ * {@value #GLOBAL_MAX_SIZE_KEY}, a share of the heap.
+ */
+@InterfaceAudience.Private
+public class RowResultCache {
+
+  /** The heap the row results of a region may take, in bytes */
+  public static final String MAX_SIZE_KEY = "hbase.regionserver.region.row.cache.size";
+  public static final long DEFAULT_MAX_SIZE = 1024 * 1024;
+
+  /** The heap the row results of all the regions may take, as a share of the heap */
+  public static final String GLOBAL_MAX_SIZE_KEY = "hbase.regionserver.row.cache.global.size";
+  public static final float DEFAULT_GLOBAL_MAX_SIZE = 0.01f;
+
+  // the heap taken by the results cached by all the regions
+  private static final AtomicLong GLOBAL_HEAP_SIZE = new AtomicLong();
+
+  private static final int STRIPES = 32;
+
+  private static final long RESULT_OVERHEAD = ClassSize.align(ClassSize.OBJECT
+      + ClassSize.REFERENCE + Bytes.SIZEOF_LONG) + ClassSize.ARRAYLIST + ClassSize.MAP_ENTRY;
+  // the row, its hash map with the table and its entry in the stripe
+  private static final long ROW_OVERHEAD =
+      ClassSize.align(ClassSize.OBJECT + 2 * ClassSize.REFERENCE + Bytes.SIZEOF_LONG)
+          + ClassSize.align(ClassSize.OBJECT + 3 * ClassSize.REFERENCE + 4 * Bytes.SIZEOF_INT)
+          + ClassSize.ARRAY + ClassSize.MAP_ENTRY + 2 * ClassSize.REFERENCE;
+
+  /**
+   * The row of a get and the rest of it serialized.
+   */
+  public static final class Key {
+    private final HashedBytes row;
+    private final ByteString get;
+
+    Key(HashedBytes row, ByteString get) {
+      this.row = row;
+      this.get = get;
+    }
+  }
+
+  private static final class CachedResult {
+    private final List<Cell> cells;
+    private final long heapSize;
+
+    CachedResult(List<Cell> cells, long heapSize) {
+      this.cells = cells;
+      this.heapSize = heapSize;
+    }
+  }
+
+  private static final class CachedRow {
+    private final Map<ByteString, CachedResult> results = new HashMap<>();
+    private long heapSize = ROW_OVERHEAD;
+  }
+
+  private static final class Stripe {
+    // the rows in the order they were last read
+    private final LinkedHashMap<HashedBytes, CachedRow> rows = new LinkedHashMap<>(16, 0.75f, true);
+    private long heapSize;
+    // bumped by each write of a row of the stripe
+    private long generation;
+  }
+
+  private final Set<byte[]> families;
+  private final long maxStripeSize;
+  private final long globalMaxSize;
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+
+  RowResultCache(Set<byte[]> families, long maxSize, long globalMaxSize) {
+    this.families = families;
+    this.maxStripeSize = maxSize / STRIPES;
+    this.globalMaxSize = globalMaxSize;
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * @return the cache of the region, or null if none of its families is cached or the region is
+   *         a secondary replica, whose store files change without mutations
+   */
+  static RowResultCache create(Configuration conf, TableDescriptor htd, RegionInfo regionInfo) {
+    long maxSize = conf.getLong(MAX_SIZE_KEY, DEFAULT_MAX_SIZE);
+    if (maxSize <= 0 || !RegionReplicaUtil.isDefaultReplica(regionInfo)) {
+      return null;
+    }
+    Set<byte[]> families = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    for (ColumnFamilyDescriptor family : htd.getColumnFamilies()) {
+      if (family.isRowCacheEnabled() && family.getTimeToLive() == HConstants.FOREVER) {
+        families.add(family.getName());
+      }
+    }
+    long globalMaxSize = (long) (Runtime.getRuntime().maxMemory()
+        * conf.getFloat(GLOBAL_MAX_SIZE_KEY, DEFAULT_GLOBAL_MAX_SIZE));
+    return families.isEmpty() ? null : new RowResultCache(families, maxSize, globalMaxSize);
+  }
+
+  /**
+   * @return the key the cells read by the get are cached under, or null if they are not cached
+   */
+  public Key getKey(Get get) throws IOException {
+    if (!get.hasFamilies() || get.getIsolationLevel() == IsolationLevel.READ_UNCOMMITTED
+        || !isCacheable(get.getFilter())) {
+      return null;
+    }
+    for (byte[] family : get.familySet()) {
+      if (!families.contains(family)) {
+        return null;
+      }
+    }
+    return new Key(new HashedBytes(get.getRow()), ProtobufUtil.toGet(get).toByteString());
+  }
+
+  private static boolean isCacheable(Filter filter) {
+    if (filter == null) {
+      return true;
+    }
+    if (filter instanceof FilterList) {
+      for (Filter child : ((FilterList) filter).getFilters()) {
+        if (!isCacheable(child)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (filter instanceof SkipFilter) {
+      return isCacheable(((SkipFilter) filter).getFilter());
+    }
+    if (filter instanceof WhileMatchFilter) {
+      return isCacheable(((WhileMatchFilter) filter).getFilter());
+    }
+    // filters of coprocessors, like the ones of access control and visibility labels, may decide
+    // by more than what they serialize
+    return filter.getClass().getPackage() == Filter.class.getPackage()
+        && !(filter instanceof RandomRowFilter);
+  }
+
+  private Stripe getStripe(HashedBytes row) {
+    int hash = row.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+  }
+
+  /**
+   * Adds the cached cells of the get to the results.
+   * @return true if the cells of the get were cached
+   */
+  public boolean get(Key key, List<Cell> results) {
+    Stripe stripe = getStripe(key.row);
+    CachedResult result = null;
+    synchronized (stripe) {
+      CachedRow row = stripe.rows.get(key.row);
+      if (row != null) {
+        result = row.results.get(key.get);
+      }
+    }
+    if (result == null) {
+      missCount.increment();
+      return false;
+    }
+    hitCount.increment();
+    results.addAll(result.cells);
+    return true;
+  }
+
+  /**
+   * @return the generation to pass to {@link #put(Key, List, long)}, taken before the cells are
+   *         read
+   */
+  public long getGeneration(Key key) {
+    Stripe stripe = getStripe(key.row);
+    synchronized (stripe) {
+      return stripe.generation;
+    }
+  }
+
+  /**
+   * Caches a copy of the cells read by a get, unless a write of their stripe completed since the
+   * generation was taken.
+   */
+  public void put(Key key, List<Cell> cells, long generation) {
+    List<Cell> copies = new ArrayList<>(cells.size());
+    long heapSize = RESULT_OVERHEAD + key.get.size();
+    for (Cell cell : cells) {
+      if (cell.getTagsLength() > 0
+          && PrivateCellUtil.getTag(cell, TagType.TTL_TAG_TYPE).isPresent()) {
+        return;
+      }
+      // the cells read may point into blocks which are freed once the scanner is closed
+      KeyValue copy = KeyValueUtil.copyToNewKeyValue(cell);
+      copies.add(copy);
+      heapSize += copy.heapSize() + ClassSize.REFERENCE;
+    }
+    if (heapSize + ROW_OVERHEAD > maxStripeSize) {
+      return;
+    }
+    Stripe stripe = getStripe(key.row);
+    synchronized (stripe) {
+      if (stripe.generation != generation) {
+        return;
+      }
+      CachedRow row = stripe.rows.get(key.row);
+      if (GLOBAL_HEAP_SIZE.get() + heapSize + (row == null ? ROW_OVERHEAD : 0) > globalMaxSize) {
+        return;
+      }
+      if (row == null) {
+        row = new CachedRow();
+        stripe.rows.put(key.row, row);
+        account(stripe, row.heapSize);
+      }
+      CachedResult previous = row.results.put(key.get, new CachedResult(copies, heapSize));
+      long delta = previous != null ? heapSize - previous.heapSize : heapSize;
+      row.heapSize += delta;
+      account(stripe, delta);
+      // evict the rows read least recently, the row just cached being the most recent
+      Iterator<CachedRow> it = stripe.rows.values().iterator();
+      while (stripe.heapSize > maxStripeSize && it.hasNext()) {
+        account(stripe, -it.next().heapSize);
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Drops the cached results of the row. Called once a write of the row is visible.
+   */
+  public void invalidate(byte[] row) {
+    HashedBytes key = new HashedBytes(row);
+    Stripe stripe = getStripe(key);
+    synchronized (stripe) {
+      stripe.generation++;
+      CachedRow removed = stripe.rows.remove(key);
+      if (removed != null) {
+        account(stripe, -removed.heapSize);
+      }
+    }
+  }
+
+  /**
+   * Drops all the cached results, for changes of the region which are not mutations of rows and
+   * once the region is closed.
+   */
+  public void invalidateAll() {
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        stripe.generation++;
+        stripe.rows.clear();
+        account(stripe, -stripe.heapSize);
+      }
+    }
+  }
+
+  private static void account(Stripe stripe, long delta) {
+    stripe.heapSize += delta;
+    GLOBAL_HEAP_SIZE.addAndGet(delta);
+  }
+
+  /**
+   * @return the heap taken by the results cached by all the regions, in bytes
+   */
+  public static long getGlobalHeapSize() {
+    return GLOBAL_HEAP_SIZE.get();
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * @return the heap taken by the cached results, in bytes
+   */
+  public long heapSize() {
+    long heapSize = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        heapSize += stripe.heapSize;
+      }
+    }
+    return heapSize;
+  }
+}
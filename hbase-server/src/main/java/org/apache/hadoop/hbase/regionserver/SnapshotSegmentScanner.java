@@ -46,6 +46,10 @@ public class SnapshotSegmentScanner extends NonReversedNonLazyKeyValueScanner {
     }
   }
 
+  ImmutableSegment getSegment() {
+    return segment;
+  }
+
   private static Iterator<Cell> createIterator(Segment segment) {
     return segment.getCellSet().iterator();
   }
@@ -18,6 +18,7 @@
  */
 package org.apache.hadoop.hbase.regionserver;
 
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.yetus.audience.InterfaceAudience;
 import org.apache.yetus.audience.InterfaceStability;
 
@@ -53,4 +54,18 @@ public interface StoreConfigInformation {
    * The number of files required before flushes for this store will be blocked.
    */
   long getBlockingFileCount();
+
+  /**
+   * @return how the reads of the store hit its store files, or null if this is not tracked
+   */
+  default StoreReadStatistics getReadStatistics() {
+    return null;
+  }
+
+  /**
+   * @return the size of the data blocks of the cf
+   */
+  default int getBlockSize() {
+    return HConstants.DEFAULT_BLOCKSIZE;
+  }
 }
@@ -34,6 +34,7 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HBaseInterfaceAudience;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.PrivateCellUtil;
@@ -43,6 +44,7 @@ import org.apache.hadoop.hbase.io.FSDataInputStreamWrapper;
 import org.apache.hadoop.hbase.io.TimeRange;
 import org.apache.hadoop.hbase.io.hfile.BlockType;
 import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.CompoundBloomFilter;
 import org.apache.hadoop.hbase.io.hfile.HFile;
 import org.apache.hadoop.hbase.io.hfile.HFileBlock;
 import org.apache.hadoop.hbase.io.hfile.HFileScanner;
@@ -489,6 +491,54 @@ public class StoreFileReader {
     return !nonOverLapping;
   }
 
+  /**
+   * Predicts, without reading the file, whether a get of the row is served from the block cache:
+   * either the row is out of the key range of the file, which is then not read, or the Bloom
+   * chunks the get looks up and the index and data blocks which would hold the row are cached.
+   * @param firstOnRow the first cell on the row, or on the column for a get of a single column
+   */
+  public boolean isRowCached(Cell firstOnRow) {
+    Optional<Cell> firstKey = this.getFirstKey();
+    Optional<Cell> lastKey = this.getLastKey();
+    if (!firstKey.isPresent() || !lastKey.isPresent()) {
+      // the file is empty
+      return true;
+    }
+    if (getComparator().compareRows(firstOnRow, firstKey.get()) < 0
+        || getComparator().compareRows(firstOnRow, lastKey.get()) > 0) {
+      return true;
+    }
+    return isBloomChunkCached(firstOnRow) && reader.isDataBlockCached(firstOnRow);
+  }
+
+  private boolean isBloomChunkCached(Cell firstOnRow) {
+    byte[] row = CellUtil.cloneRow(firstOnRow);
+    BloomFilter deleteFamilyBloom = this.deleteFamilyBloomFilter;
+    if (deleteFamilyCnt > 0 && deleteFamilyBloom instanceof CompoundBloomFilter
+        && !((CompoundBloomFilter) deleteFamilyBloom).isChunkCached(row, 0, row.length)) {
+      return false;
+    }
+    BloomFilter generalBloom = this.generalBloomFilter;
+    if (!(generalBloom instanceof CompoundBloomFilter)) {
+      // no Bloom filter, or one loaded with the file
+      return true;
+    }
+    CompoundBloomFilter bloom = (CompoundBloomFilter) generalBloom;
+    switch (bloomFilterType) {
+      case ROW:
+        return bloom.isChunkCached(row, 0, row.length);
+      case ROWCOL:
+        // only looked up by gets of given columns, for the column and for the row
+        return firstOnRow.getFamilyLength() == 0
+            || (bloom.isChunkCached(PrivateCellUtil.createFirstOnRowCol(firstOnRow))
+                && bloom.isChunkCached(PrivateCellUtil.createFirstOnRow(firstOnRow)));
+      case ROWPREFIX_FIXED_LENGTH:
+        return bloom.isChunkCached(row, 0, Math.min(prefixLength, row.length));
+      default:
+        return true;
+    }
+  }
+
   public Map<byte[], byte[]> loadFileInfo() throws IOException {
     Map<byte [], byte []> fi = reader.loadFileInfo();
 
@@ -32,6 +32,7 @@ import java.util.concurrent.atomic.LongAdder;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HBaseInterfaceAudience;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.PrivateCellUtil;
@@ -75,6 +76,14 @@ public class StoreFileScanner implements KeyValueScanner {
   // Higher values means scanner has newer data.
   private final long scannerOrder;
 
+  // the row of a get let through by the row Bloom filter, to find out on the first seek whether
+  // the filter was right
+  private byte[] bloomFilterPassedRow;
+  private StoreReadStatistics readStatistics;
+
+  // true if the file was checked against the scan before this scanner was opened on it
+  private boolean preselected;
+
   /**
    * Implements a {@link KeyValueScanner} on top of the specified {@link HFileScanner}
    * @param useMVCC If true, scanner will filter out updates with MVCC larger than {@code readPt}.
@@ -239,6 +248,12 @@ public class StoreFileScanner implements KeyValueScanner {
         }
       } finally {
         realSeekDone = true;
+        if (bloomFilterPassedRow != null) {
+          if (cur == null || !CellUtil.matchingRows(cur, bloomFilterPassedRow)) {
+            readStatistics.recordBloomFilterFalsePositive();
+          }
+          bloomFilterPassedRow = null;
+        }
       }
     } catch (FileNotFoundException e) {
       throw e;
@@ -493,14 +508,59 @@ public class StoreFileScanner implements KeyValueScanner {
 
   @Override
   public boolean shouldUseScanner(Scan scan, HStore store, long oldestUnexpiredTS) {
+    if (preselected) {
+      preselected = false;
+      return true;
+    }
+    if (!shouldUseFile(reader, scan, store, oldestUnexpiredTS)) {
+      return false;
+    }
+    recordBloomFilterPassed(scan, store);
+    return true;
+  }
+
+  /**
+   * Checks the time range, key range and Bloom filter of a file against a scan, without a scanner
+   * on the file.
+   * @return true if the file may have cells the scan reads
+   */
+  static boolean shouldUseFile(StoreFileReader reader, Scan scan, HStore store,
+      long oldestUnexpiredTS) {
     // if the file has no entries, no need to validate or create a scanner.
     byte[] cf = store.getColumnFamilyDescriptor().getName();
     TimeRange timeRange = scan.getColumnFamilyTimeRange().get(cf);
     if (timeRange == null) {
       timeRange = scan.getTimeRange();
     }
-    return reader.passesTimerangeFilter(timeRange, oldestUnexpiredTS) && reader
-        .passesKeyRangeFilter(scan) && reader.passesBloomFilter(scan, scan.getFamilyMap().get(cf));
+    if (!reader.passesTimerangeFilter(timeRange, oldestUnexpiredTS)
+        || !reader.passesKeyRangeFilter(scan)) {
+      return false;
+    }
+    if (!reader.passesBloomFilter(scan, scan.getFamilyMap().get(cf))) {
+      StoreReadStatistics stats = store.getReadStatistics();
+      if (stats != null && scan.isGetScan() && reader.getBloomFilterType() == BloomType.ROW) {
+        stats.recordBloomFilterNegative();
+      }
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Marks the scanner as opened on a file which passed {@link #shouldUseFile} for the scan, so
+   * that {@link #shouldUseScanner} does not check the file again.
+   */
+  void preselect(Scan scan, HStore store) {
+    preselected = true;
+    recordBloomFilterPassed(scan, store);
+  }
+
+  private void recordBloomFilterPassed(Scan scan, HStore store) {
+    StoreReadStatistics stats = store.getReadStatistics();
+    if (stats != null && scan.isGetScan() && reader.getBloomFilterType() == BloomType.ROW) {
+      bloomFilterPassedRow = scan.getStartRow();
+      readStatistics = stats;
+    }
   }
 
   @Override
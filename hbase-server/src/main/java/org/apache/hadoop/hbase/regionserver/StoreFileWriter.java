@@ -25,6 +25,7 @@ import static org.apache.hadoop.hbase.regionserver.HStoreFile.EARLIEST_PUT_TS;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.MAJOR_COMPACTION_KEY;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.MAX_SEQ_ID_KEY;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.MOB_CELLS_COUNT;
+import static org.apache.hadoop.hbase.regionserver.HStoreFile.STORAGE_POLICY_KEY;
 import static org.apache.hadoop.hbase.regionserver.HStoreFile.TIMERANGE_KEY;
 
 import java.io.IOException;
@@ -75,6 +76,7 @@ import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
 public class StoreFileWriter implements CellSink, ShipperListener {
   private static final Logger LOG = LoggerFactory.getLogger(StoreFileWriter.class.getName());
   private static final Pattern dash = Pattern.compile("-");
+  private static final String STORAGE_POLICY_DIR_PREFIX = "storage_policy_";
   private final BloomFilterWriter generalBloomFilterWriter;
   private final BloomFilterWriter deleteFamilyBloomFilterWriter;
   private final BloomType bloomType;
@@ -423,6 +425,7 @@ public class StoreFileWriter implements CellSink, ShipperListener {
     private HFileContext fileContext;
     private boolean shouldDropCacheBehind;
     private Supplier<Collection<HStoreFile>> compactedFilesSupplier = () -> Collections.emptySet();
+    private String fileStoragePolicy;
 
     public Builder(Configuration conf, CacheConfig cacheConf,
         FileSystem fs) {
@@ -510,6 +513,15 @@ public class StoreFileWriter implements CellSink, ShipperListener {
       return this;
     }
 
+    /**
+     * @param fileStoragePolicy the storage policy of the file, or null for the one of the store
+     * @return this (for chained invocation)
+     */
+    public Builder withFileStoragePolicy(String fileStoragePolicy) {
+      this.fileStoragePolicy = fileStoragePolicy;
+      return this;
+    }
+
     /**
      * Create a store file writer. Client is responsible for closing file when
      * done. If metadata, add BEFORE closing using
@@ -539,6 +551,15 @@ public class StoreFileWriter implements CellSink, ShipperListener {
       FSUtils.setStoragePolicy(this.fs, dir, policyName);
 
       if (filePath == null) {
+        if (fileStoragePolicy != null) {
+          // HDFS places the blocks by the storage policy in effect when they are written, so the
+          // file is created in a child directory carrying its own storage policy
+          dir = new Path(dir, STORAGE_POLICY_DIR_PREFIX + fileStoragePolicy);
+          if (!fs.exists(dir)) {
+            HRegionFileSystem.mkdirs(fs, conf, dir);
+          }
+          FSUtils.setStoragePolicy(this.fs, dir, fileStoragePolicy);
+        }
         filePath = getUniqueFile(fs, dir);
         if (!BloomFilterFactory.isGeneralBloomEnabled(conf)) {
           bloomType = BloomType.NONE;
@@ -549,8 +570,15 @@ public class StoreFileWriter implements CellSink, ShipperListener {
         comparator = CellComparator.getInstance();
       }
 
-      return new StoreFileWriter(fs, filePath, conf, cacheConf, comparator, bloomType, maxKeyCount,
-          favoredNodes, fileContext, shouldDropCacheBehind, compactedFilesSupplier);
+      StoreFileWriter writer = new StoreFileWriter(fs, filePath, conf, cacheConf, comparator,
+          bloomType, maxKeyCount, favoredNodes, fileContext, shouldDropCacheBehind,
+          compactedFilesSupplier);
+      if (fileStoragePolicy != null) {
+        // the policy of the file itself stays with it once it is moved into the store directory
+        FSUtils.setStoragePolicy(this.fs, filePath, fileStoragePolicy);
+        writer.appendFileInfo(STORAGE_POLICY_KEY, Bytes.toBytes(fileStoragePolicy));
+      }
+      return writer;
     }
   }
 }
@@ -21,15 +21,19 @@ package org.apache.hadoop.hbase.regionserver;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.monitoring.MonitoredTask;
 import org.apache.hadoop.hbase.regionserver.throttle.ThroughputControlUtil;
 import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.yetus.audience.InterfaceAudience;
 
 /**
@@ -38,12 +42,23 @@ import org.apache.yetus.audience.InterfaceAudience;
  */
 @InterfaceAudience.Private
 abstract class StoreFlusher {
+
+  /**
+   * Whether a snapshot made of a single segment whose cells all go to the flushed file is written
+   * straight from the segment, without a store scanner.
+   */
+  public static final String STREAMING_FLUSH_ENABLED_KEY = "hbase.hstore.flush.streaming.enabled";
+  public static final boolean DEFAULT_STREAMING_FLUSH_ENABLED = true;
+
   protected Configuration conf;
   protected HStore store;
+  private final boolean streamingFlushEnabled;
 
   public StoreFlusher(Configuration conf, HStore store) {
     this.conf = conf;
     this.store = store;
+    this.streamingFlushEnabled =
+        conf.getBoolean(STREAMING_FLUSH_ENABLED_KEY, DEFAULT_STREAMING_FLUSH_ENABLED);
   }
 
   /**
@@ -98,6 +113,86 @@ abstract class StoreFlusher {
     return scanner;
   }
 
+  /**
+   * The cells of a segment are sorted already, so a snapshot made of a single segment only needs a
+   * store scanner to drop the cells the flush does not keep, deleted cells, expired cells and
+   * versions over the maximum of the family, and to let the coprocessors see the flush. When there
+   * is none of those, the segment can be streamed into the flushed file as it is, without the
+   * scanner heap, the query matcher and their comparisons.
+   * @return the segment of the snapshot to stream, or null to flush through a store scanner
+   */
+  protected final ImmutableSegment getStreamableSegment(MemStoreSnapshot snapshot) {
+    // cell level TTLs and visibility labels are carried by tags
+    if (!streamingFlushEnabled || snapshot.isTagsPresent()) {
+      return null;
+    }
+    if (store.getCoprocessorHost() != null
+        && !store.getCoprocessorHost().getCoprocessors().isEmpty()) {
+      return null;
+    }
+    List<KeyValueScanner> scanners = snapshot.getScanners();
+    if (scanners.size() != 1 || !(scanners.get(0) instanceof SnapshotSegmentScanner)) {
+      return null;
+    }
+    ScanInfo scanInfo = store.getScanInfo();
+    if (scanInfo.getTtl() != Long.MAX_VALUE && snapshot.getTimeRangeTracker().getMin()
+        < EnvironmentEdgeManager.currentTime() - scanInfo.getTtl()) {
+      return null;
+    }
+    ImmutableSegment segment = ((SnapshotSegmentScanner) scanners.get(0)).getSegment();
+    int maxVersions = scanInfo.getMaxVersions();
+    Cell previous = null;
+    int versions = 0;
+    for (Iterator<Cell> it = segment.iterator(); it.hasNext();) {
+      Cell cell = it.next();
+      if (cell.getTypeByte() != KeyValue.Type.Put.getCode()) {
+        return null;
+      }
+      if (previous != null && CellUtil.matchingRowColumn(previous, cell)) {
+        if (++versions > maxVersions) {
+          return null;
+        }
+      } else {
+        versions = 1;
+      }
+      previous = cell;
+    }
+    return segment;
+  }
+
+  /**
+   * Performs memstore flush, writing the cells of a segment as they are into sink.
+   * @param segment Segment returned by {@link #getStreamableSegment(MemStoreSnapshot)}.
+   * @param sink Sink to write data to. Could be StoreFile.Writer.
+   * @param throughputController A controller to avoid flush too fast
+   */
+  protected void performFlush(ImmutableSegment segment, CellSink sink,
+      ThroughputController throughputController) throws IOException {
+    String flushName = ThroughputControlUtil.getNameForThrottling(store, "flush");
+    // no control on system table (such as meta, namespace, etc) flush
+    boolean control =
+        throughputController != null && !store.getRegionInfo().getTable().isSystemTable();
+    if (control) {
+      throughputController.start(flushName);
+    }
+    try {
+      for (Iterator<Cell> it = segment.iterator(); it.hasNext();) {
+        Cell c = it.next();
+        sink.append(c);
+        if (control) {
+          throughputController.control(flushName, c.getSerializedSize());
+        }
+      }
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException(
+          "Interrupted while control throughput of flushing " + flushName);
+    } finally {
+      if (control) {
+        throughputController.finish(flushName);
+      }
+    }
+  }
+
   /**
    * Performs memstore flush, writing data from scanner into sink.
    * @param scanner Scanner to get data from.
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.yetus.audience.InterfaceAudience;
+
+/**
+ * Counts how the reads of a store hit its store files: how many store files each read opens, and
+ * how often the general Bloom filters of the store files let a read through to a file which does
+ * not hold the row it looks for. The counters only ever grow, callers interested in rates take
+ * the difference of two samples.
+ */
+@InterfaceAudience.Private
+public class StoreReadStatistics {
+
+  private final LongAdder reads = new LongAdder();
+  private final LongAdder storeFilesRead = new LongAdder();
+  private final LongAdder bloomFilterNegatives = new LongAdder();
+  private final LongAdder bloomFilterFalsePositives = new LongAdder();
+
+  /**
+   * Records a user read of the store.
+   * @param storeFiles the store files the read opens a scanner on
+   */
+  public void recordRead(int storeFiles) {
+    reads.increment();
+    storeFilesRead.add(storeFiles);
+  }
+
+  /**
+   * Records that a Bloom filter kept a point read off a store file.
+   */
+  public void recordBloomFilterNegative() {
+    bloomFilterNegatives.increment();
+  }
+
+  /**
+   * Records that a Bloom filter let a point read through to a store file without the row.
+   */
+  public void recordBloomFilterFalsePositive() {
+    bloomFilterFalsePositives.increment();
+  }
+
+  public long getReadCount() {
+    return reads.sum();
+  }
+
+  public long getStoreFilesReadCount() {
+    return storeFilesRead.sum();
+  }
+
+  public long getBloomFilterNegativeCount() {
+    return bloomFilterNegatives.sum();
+  }
+
+  public long getBloomFilterFalsePositiveCount() {
+    return bloomFilterFalsePositives.sum();
+  }
+}
@@ -238,10 +238,18 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
     store.addChangedReaderObserver(this);
 
     try {
-      // Pass columns to try to filter out unnecessary StoreFiles.
-      List<KeyValueScanner> scanners = selectScannersFrom(store,
-        store.getScanners(cacheBlocks, scanUsePread, false, matcher, scan.getStartRow(),
-          scan.includeStartRow(), scan.getStopRow(), scan.includeStopRow(), this.readPt));
+      // Pass columns to try to filter out unnecessary StoreFiles. A get checks the files before
+      // it opens scanners on them, as most of them usually do not have its row.
+      List<KeyValueScanner> scanners = selectScannersFrom(store, get
+          ? store.getScannersForGet(scan, cacheBlocks, scanUsePread, matcher,
+            minVersions == 0 ? oldestUnexpiredTS : Long.MIN_VALUE, this.readPt)
+          : store.getScanners(cacheBlocks, scanUsePread, false, matcher, scan.getStartRow(),
+            scan.includeStartRow(), scan.getStopRow(), scan.includeStopRow(), this.readPt));
+      StoreReadStatistics readStatistics = store.getReadStatistics();
+      if (readStatistics != null) {
+        readStatistics
+            .recordRead((int) scanners.stream().filter(KeyValueScanner::isFileScanner).count());
+      }
 
       // Seek all scanners to the start of the Row (or if the exact matching row
       // key does not exist, then to the start of the next matching Row).
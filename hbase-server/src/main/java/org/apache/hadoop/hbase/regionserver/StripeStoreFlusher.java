@@ -62,7 +62,9 @@ public class StripeStoreFlusher extends StoreFlusher {
     if (cellsCount == 0) return result; // don't flush if there are no entries
 
     long smallestReadPoint = store.getSmallestReadPoint();
-    InternalScanner scanner = createScanner(snapshot.getScanners(), smallestReadPoint, tracker);
+    ImmutableSegment segment = getStreamableSegment(snapshot);
+    InternalScanner scanner = segment != null ? null
+        : createScanner(snapshot.getScanners(), smallestReadPoint, tracker);
 
     // Let policy select flush method.
     StripeFlushRequest req = this.policy.selectFlush(store.getComparator(), this.stripes,
@@ -77,7 +79,11 @@ public class StripeStoreFlusher extends StoreFlusher {
       mw.init(storeScanner, factory);
 
       synchronized (flushLock) {
-        performFlush(scanner, mw, smallestReadPoint, throughputController);
+        if (segment != null) {
+          performFlush(segment, mw, throughputController);
+        } else {
+          performFlush(scanner, mw, smallestReadPoint, throughputController);
+        }
         result = mw.commitWriters(cacheFlushSeqNum, false);
         success = true;
       }
@@ -91,10 +97,15 @@ public class StripeStoreFlusher extends StoreFlusher {
           }
         }
       }
-      try {
-        scanner.close();
-      } catch (IOException ex) {
-        LOG.warn("Failed to close flush scanner, ignoring", ex);
+      if (scanner != null) {
+        try {
+          scanner.close();
+        } catch (IOException ex) {
+          LOG.warn("Failed to close flush scanner, ignoring", ex);
+        }
+      } else {
+        // releases the segment, as closing the store scanner does
+        snapshot.close();
       }
     }
     return result;
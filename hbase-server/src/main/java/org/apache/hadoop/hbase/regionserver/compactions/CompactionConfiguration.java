@@ -19,6 +19,7 @@
 
 package org.apache.hadoop.hbase.regionserver.compactions;
 
+import java.util.Locale;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.util.StringUtils;
@@ -89,6 +90,24 @@ public class CompactionConfiguration {
   private static final Class<? extends CompactionWindowFactory>
     DEFAULT_DATE_TIERED_COMPACTION_WINDOW_FACTORY_CLASS = ExponentialCompactionWindowFactory.class;
 
+  /*
+   * Whether the date tiered compaction writes the windows with the storage policy of their age:
+   * hot windows start less than the hot age ago, warm windows less than the warm age ago, and
+   * the older windows are cold.
+   */
+  public static final String DATE_TIERED_STORAGE_POLICY_ENABLE_KEY =
+    "hbase.hstore.compaction.date.tiered.storage.policy.enable";
+  public static final String DATE_TIERED_HOT_WINDOW_AGE_MILLIS_KEY =
+    "hbase.hstore.compaction.date.tiered.hot.window.age.millis";
+  public static final String DATE_TIERED_HOT_WINDOW_STORAGE_POLICY_KEY =
+    "hbase.hstore.compaction.date.tiered.hot.window.storage.policy";
+  public static final String DATE_TIERED_WARM_WINDOW_AGE_MILLIS_KEY =
+    "hbase.hstore.compaction.date.tiered.warm.window.age.millis";
+  public static final String DATE_TIERED_WARM_WINDOW_STORAGE_POLICY_KEY =
+    "hbase.hstore.compaction.date.tiered.warm.window.storage.policy";
+  public static final String DATE_TIERED_COLD_WINDOW_STORAGE_POLICY_KEY =
+    "hbase.hstore.compaction.date.tiered.cold.window.storage.policy";
+
   Configuration conf;
   StoreConfigInformation storeConfigInfo;
 
@@ -110,6 +129,12 @@ public class CompactionConfiguration {
   private final String compactionPolicyForDateTieredWindow;
   private final boolean dateTieredSingleOutputForMinorCompaction;
   private final String dateTieredCompactionWindowFactory;
+  private final boolean dateTieredStoragePolicyEnable;
+  private final long dateTieredHotWindowAgeMillis;
+  private final String dateTieredHotWindowStoragePolicy;
+  private final long dateTieredWarmWindowAgeMillis;
+  private final String dateTieredWarmWindowStoragePolicy;
+  private final String dateTieredColdWindowStoragePolicy;
 
   CompactionConfiguration(Configuration conf, StoreConfigInformation storeConfigInfo) {
     this.conf = conf;
@@ -144,6 +169,19 @@ public class CompactionConfiguration {
     this.dateTieredCompactionWindowFactory = conf.get(
       DATE_TIERED_COMPACTION_WINDOW_FACTORY_CLASS_KEY,
       DEFAULT_DATE_TIERED_COMPACTION_WINDOW_FACTORY_CLASS.getName());
+    dateTieredStoragePolicyEnable = conf.getBoolean(DATE_TIERED_STORAGE_POLICY_ENABLE_KEY, false);
+    dateTieredHotWindowAgeMillis =
+        conf.getLong(DATE_TIERED_HOT_WINDOW_AGE_MILLIS_KEY, 24L * 60 * 60 * 1000);
+    dateTieredHotWindowStoragePolicy =
+        conf.get(DATE_TIERED_HOT_WINDOW_STORAGE_POLICY_KEY, "ALL_SSD").trim()
+            .toUpperCase(Locale.ROOT);
+    dateTieredWarmWindowAgeMillis =
+        conf.getLong(DATE_TIERED_WARM_WINDOW_AGE_MILLIS_KEY, 7L * 24 * 60 * 60 * 1000);
+    dateTieredWarmWindowStoragePolicy =
+        conf.get(DATE_TIERED_WARM_WINDOW_STORAGE_POLICY_KEY, "ONE_SSD").trim()
+            .toUpperCase(Locale.ROOT);
+    dateTieredColdWindowStoragePolicy =
+        conf.get(DATE_TIERED_COLD_WINDOW_STORAGE_POLICY_KEY, "HOT").trim().toUpperCase(Locale.ROOT);
     LOG.info(toString());
   }
 
@@ -154,7 +192,7 @@ public class CompactionConfiguration {
       + " major period %d, major jitter %f, min locality to compact %f;"
       + " tiered compaction: max_age %d, incoming window min %d,"
       + " compaction policy for tiered window %s, single output for minor %b,"
-      + " compaction window factory %s",
+      + " compaction window factory %s, storage policy %b",
       StringUtils.byteDesc(minCompactSize),
       StringUtils.byteDesc(maxCompactSize),
       StringUtils.byteDesc(offPeakMaxCompactSize),
@@ -170,7 +208,8 @@ public class CompactionConfiguration {
       dateTieredIncomingWindowMin,
       compactionPolicyForDateTieredWindow,
       dateTieredSingleOutputForMinorCompaction,
-      dateTieredCompactionWindowFactory
+      dateTieredCompactionWindowFactory,
+      dateTieredStoragePolicyEnable
       );
   }
 
@@ -287,4 +326,28 @@ public class CompactionConfiguration {
   public String getDateTieredCompactionWindowFactory() {
     return dateTieredCompactionWindowFactory;
   }
+
+  public boolean isDateTieredStoragePolicyEnable() {
+    return dateTieredStoragePolicyEnable;
+  }
+
+  public long getDateTieredHotWindowAgeMillis() {
+    return dateTieredHotWindowAgeMillis;
+  }
+
+  public String getDateTieredHotWindowStoragePolicy() {
+    return dateTieredHotWindowStoragePolicy;
+  }
+
+  public long getDateTieredWarmWindowAgeMillis() {
+    return dateTieredWarmWindowAgeMillis;
+  }
+
+  public String getDateTieredWarmWindowStoragePolicy() {
+    return dateTieredWarmWindowStoragePolicy;
+  }
+
+  public String getDateTieredColdWindowStoragePolicy() {
+    return dateTieredColdWindowStoragePolicy;
+  }
 }
@@ -37,6 +37,7 @@ import org.apache.hadoop.hbase.PrivateCellUtil;
 import org.apache.hadoop.hbase.io.compress.Compression;
 import org.apache.hadoop.hbase.io.hfile.HFile;
 import org.apache.hadoop.hbase.io.hfile.HFile.FileInfo;
+import org.apache.hadoop.hbase.io.hfile.HotKeyRanges;
 import org.apache.hadoop.hbase.regionserver.CellSink;
 import org.apache.hadoop.hbase.regionserver.HStore;
 import org.apache.hadoop.hbase.regionserver.HStoreFile;
@@ -89,6 +90,9 @@ public abstract class Compactor<T extends CellSink> {
   private final boolean dropCacheMajor;
   private final boolean dropCacheMinor;
 
+  // whether to cache on write the output blocks covering the key ranges hot in the input files
+  private final boolean cacheHotBlocks;
+
   //TODO: depending on Store is not good but, realistically, all compactors currently do.
   Compactor(Configuration conf, HStore store) {
     this.conf = conf;
@@ -101,6 +105,8 @@ public abstract class Compactor<T extends CellSink> {
       HConstants.MIN_KEEP_SEQID_PERIOD), HConstants.MIN_KEEP_SEQID_PERIOD);
     this.dropCacheMajor = conf.getBoolean(MAJOR_COMPACTION_DROP_CACHE, true);
     this.dropCacheMinor = conf.getBoolean(MINOR_COMPACTION_DROP_CACHE, true);
+    this.cacheHotBlocks = this.store.getCacheConfig() != null
+        && this.store.getCacheConfig().shouldCacheHotBlocksOnCompaction();
   }
 
 
@@ -130,6 +136,8 @@ public abstract class Compactor<T extends CellSink> {
     public int maxTagsLength = 0;
     /** Min SeqId to keep during a major compaction **/
     public long minSeqIdToKeep = 0;
+    /** Key ranges hot in the block cache, whose output blocks are cached on write */
+    public HotKeyRanges hotKeyRanges = null;
   }
 
   /**
@@ -138,7 +146,7 @@ public abstract class Compactor<T extends CellSink> {
    * @param allFiles Whether all files are included for compaction
    * @return The result.
    */
-  private FileDetails getFileDetails(
+  protected final FileDetails getFileDetails(
       Collection<HStoreFile> filesToCompact, boolean allFiles) throws IOException {
     FileDetails fd = new FileDetails();
     long oldestHFileTimestampToKeepMVCC = System.currentTimeMillis() -
@@ -209,6 +217,17 @@ public abstract class Compactor<T extends CellSink> {
           seqNum,
           (allFiles? ", earliestPutTs=" + earliestPutTs: ""));
     }
+    if (cacheHotBlocks) {
+      List<HFile.Reader> readers = new ArrayList<>(filesToCompact.size());
+      for (HStoreFile file : filesToCompact) {
+        if (file.getReader() != null) {
+          readers.add(file.getReader().getHFileReader());
+        }
+      }
+      fd.hotKeyRanges =
+          HotKeyRanges.fromBlockCache(store.getCacheConfig().getBlockCache().get(), readers);
+      LOG.debug("Caching output blocks of {} hot key ranges", fd.hotKeyRanges.size());
+    }
     return fd;
   }
 
@@ -217,13 +236,13 @@ public abstract class Compactor<T extends CellSink> {
    * @param filesToCompact Files.
    * @return Scanners.
    */
-  private List<StoreFileScanner> createFileScanners(Collection<HStoreFile> filesToCompact,
+  protected final List<StoreFileScanner> createFileScanners(Collection<HStoreFile> filesToCompact,
       long smallestReadPoint, boolean useDropBehind) throws IOException {
     return StoreFileScanner.getScannersForCompaction(filesToCompact, useDropBehind,
       smallestReadPoint);
   }
 
-  private long getSmallestReadPoint() {
+  protected final long getSmallestReadPoint() {
     return store.getSmallestReadPoint();
   }
 
@@ -258,8 +277,25 @@ public abstract class Compactor<T extends CellSink> {
    */
   protected final StoreFileWriter createTmpWriter(FileDetails fd, boolean shouldDropBehind)
       throws IOException {
+    return createTmpWriter(fd, shouldDropBehind, null);
+  }
+
+  /**
+   * Creates a writer for a new file in a temporary directory.
+   * @param fd The file details.
+   * @param fileStoragePolicy the storage policy of the file, null for the one of the store
+   * @return Writer for a new StoreFile in the tmp dir.
+   * @throws IOException if creation failed
+   */
+  protected final StoreFileWriter createTmpWriter(FileDetails fd, boolean shouldDropBehind,
+      String fileStoragePolicy) throws IOException {
     // When all MVCC readpoints are 0, don't write them.
     // See HBASE-8166, HBASE-12600, and HBASE-13389.
+    if (fd.hotKeyRanges != null || fileStoragePolicy != null) {
+      return store.createWriterInTmp(fd.maxKeyCount, this.compactionCompression, true,
+        fd.maxMVCCReadpoint > 0, fd.maxTagsLength > 0, shouldDropBehind, fd.hotKeyRanges,
+        fileStoragePolicy);
+    }
     return store.createWriterInTmp(fd.maxKeyCount, this.compactionCompression, true,
     fd.maxMVCCReadpoint > 0, fd.maxTagsLength > 0, shouldDropBehind);
   }
@@ -299,12 +335,7 @@ public abstract class Compactor<T extends CellSink> {
     long smallestReadPoint = getSmallestReadPoint();
 
     T writer = null;
-    boolean dropCache;
-    if (request.isMajor() || request.isAllFiles()) {
-      dropCache = this.dropCacheMajor;
-    } else {
-      dropCache = this.dropCacheMinor;
-    }
+    boolean dropCache = shouldDropCacheBehind(request);
 
     List<StoreFileScanner> scanners =
         createFileScanners(request.getFiles(), smallestReadPoint, dropCache);
@@ -340,6 +371,16 @@ public abstract class Compactor<T extends CellSink> {
     return commitWriter(writer, fd, request);
   }
 
+  /**
+   * @return whether to drop the page cache behind the reads and writes of the compaction
+   */
+  protected final boolean shouldDropCacheBehind(CompactionRequestImpl request) {
+    if (request.isMajor() || request.isAllFiles()) {
+      return this.dropCacheMajor;
+    }
+    return this.dropCacheMinor;
+  }
+
   protected abstract List<Path> commitWriter(T writer, FileDetails fd,
       CompactionRequestImpl request) throws IOException;
 
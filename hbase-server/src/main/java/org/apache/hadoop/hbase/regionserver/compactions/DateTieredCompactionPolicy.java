@@ -22,7 +22,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.OptionalLong;
 
 import org.apache.hadoop.conf.Configuration;
@@ -60,6 +62,11 @@ import org.apache.hbase.thirdparty.com.google.common.math.LongMath;
  * and the performance impact is minimized. Configuration can be set at hbase-site or overridden at
  * per-table or per-column-family level by hbase shell. Design spec is at
  * https://docs.google.com/document/d/1_AmlNb2N8Us1xICsTeGDLKIqL6T-oHoRLZ323MG_uy8/
+ * <p/>
+ * With {@link CompactionConfiguration#DATE_TIERED_STORAGE_POLICY_ENABLE_KEY} on, each window is
+ * written with the HDFS storage policy of its age, so recent data can sit on SSD and history on
+ * disks or archive storage. A window whose file was written with the policy of a younger age is
+ * compacted again, on its own if need be, to move it to its new tier.
  */
 @InterfaceAudience.LimitedPrivate(HBaseInterfaceAudience.CONFIG)
 public class DateTieredCompactionPolicy extends SortedCompactionPolicy {
@@ -198,8 +205,9 @@ public class DateTieredCompactionPolicy extends SortedCompactionPolicy {
 
   public CompactionRequestImpl selectMajorCompaction(ArrayList<HStoreFile> candidateSelection) {
     long now = EnvironmentEdgeManager.currentTime();
-    return new DateTieredCompactionRequest(candidateSelection,
-      this.getCompactBoundariesForMajor(candidateSelection, now));
+    List<Long> boundaries = getCompactBoundariesForMajor(candidateSelection, now);
+    return new DateTieredCompactionRequest(candidateSelection, boundaries,
+      getBoundariesStoragePolicyForMajor(boundaries, now));
   }
 
   /**
@@ -229,6 +237,7 @@ public class DateTieredCompactionPolicy extends SortedCompactionPolicy {
 
     CompactionWindow window = getIncomingWindow(now);
     int minThreshold = comConf.getDateTieredIncomingWindowMin();
+    DateTieredCompactionRequest tierMoveRequest = null;
     PeekingIterator<Pair<HStoreFile, Long>> it =
         Iterators.peekingIterator(storefileMaxTimestampPairs.iterator());
     while (it.hasNext()) {
@@ -253,20 +262,47 @@ public class DateTieredCompactionPolicy extends SortedCompactionPolicy {
             LOG.debug("Processing files: " + fileList + " for window: " + window);
           }
           DateTieredCompactionRequest request = generateCompactionRequest(fileList, window,
-            mayUseOffPeak, mayBeStuck, minThreshold);
+            mayUseOffPeak, mayBeStuck, minThreshold, now);
           if (request != null) {
             return request;
           }
+        } else if (tierMoveRequest == null && isInWrongTier(fileList, window, now)) {
+          Collections.reverse(fileList);
+          tierMoveRequest = new DateTieredCompactionRequest(fileList,
+            getCompactionBoundariesForMinor(window, true),
+            getBoundariesStoragePolicyForMinor(true, window, now));
         }
       }
     }
+    if (tierMoveRequest != null) {
+      LOG.debug("Moving files to the storage policy of their window: {}", tierMoveRequest);
+      return tierMoveRequest;
+    }
     // A non-null file list is expected by HStore
     return new CompactionRequestImpl(Collections.emptyList());
   }
 
+  /**
+   * @return whether a file of the window was written with the storage policy of another age
+   */
+  private boolean isInWrongTier(List<HStoreFile> files, CompactionWindow window, long now) {
+    if (!comConf.isDateTieredStoragePolicyEnable()) {
+      return false;
+    }
+    String windowPolicy = getWindowStoragePolicy(now, window.startMillis());
+    for (HStoreFile file : files) {
+      // flushed and bulk loaded files have no storage policy of their own
+      String filePolicy = file.getFileStoragePolicy();
+      if (filePolicy != null && !filePolicy.equals(windowPolicy)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private DateTieredCompactionRequest generateCompactionRequest(ArrayList<HStoreFile> storeFiles,
-      CompactionWindow window, boolean mayUseOffPeak, boolean mayBeStuck, int minThreshold)
-      throws IOException {
+      CompactionWindow window, boolean mayUseOffPeak, boolean mayBeStuck, int minThreshold,
+      long now) throws IOException {
     // The files has to be in ascending order for ratio-based compaction to work right
     // and removeExcessFile to exclude youngest files.
     Collections.reverse(storeFiles);
@@ -282,7 +318,7 @@ public class DateTieredCompactionPolicy extends SortedCompactionPolicy {
         comConf.useDateTieredSingleOutputForMinorCompaction();
       List<Long> boundaries = getCompactionBoundariesForMinor(window, singleOutput);
       DateTieredCompactionRequest result = new DateTieredCompactionRequest(storeFileSelection,
-        boundaries);
+        boundaries, getBoundariesStoragePolicyForMinor(singleOutput, window, now));
       return result;
     }
     return null;
@@ -321,6 +357,38 @@ public class DateTieredCompactionPolicy extends SortedCompactionPolicy {
     return boundaries;
   }
 
+  private Map<Long, String> getBoundariesStoragePolicyForMinor(boolean singleOutput,
+      CompactionWindow window, long now) {
+    if (!comConf.isDateTieredStoragePolicyEnable()) {
+      return Collections.emptyMap();
+    }
+    Map<Long, String> boundariesPolicies = new HashMap<>();
+    // the older data of a window compacted to two files keeps the store's storage policy
+    boundariesPolicies.put(singleOutput ? Long.MIN_VALUE : window.startMillis(),
+      getWindowStoragePolicy(now, window.startMillis()));
+    return boundariesPolicies;
+  }
+
+  private Map<Long, String> getBoundariesStoragePolicyForMajor(List<Long> boundaries, long now) {
+    if (!comConf.isDateTieredStoragePolicyEnable()) {
+      return Collections.emptyMap();
+    }
+    Map<Long, String> boundariesPolicies = new HashMap<>();
+    for (Long boundary : boundaries) {
+      boundariesPolicies.put(boundary, getWindowStoragePolicy(now, boundary));
+    }
+    return boundariesPolicies;
+  }
+
+  private String getWindowStoragePolicy(long now, long windowStartMillis) {
+    if (windowStartMillis >= now - comConf.getDateTieredHotWindowAgeMillis()) {
+      return comConf.getDateTieredHotWindowStoragePolicy();
+    } else if (windowStartMillis >= now - comConf.getDateTieredWarmWindowAgeMillis()) {
+      return comConf.getDateTieredWarmWindowStoragePolicy();
+    }
+    return comConf.getDateTieredColdWindowStoragePolicy();
+  }
+
   private CompactionWindow getIncomingWindow(long now) {
     return windowFactory.newIncomingWindow(now);
   }
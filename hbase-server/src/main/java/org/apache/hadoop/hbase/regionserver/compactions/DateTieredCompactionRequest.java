@@ -19,7 +19,9 @@ package org.apache.hadoop.hbase.regionserver.compactions;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.apache.hadoop.hbase.regionserver.HStoreFile;
 import org.apache.yetus.audience.InterfaceAudience;
 
@@ -28,18 +30,31 @@ import org.apache.yetus.audience.InterfaceAudience;
 @InterfaceAudience.Private
 public class DateTieredCompactionRequest extends CompactionRequestImpl {
   private List<Long> boundaries;
+  /** window lower boundary to the storage policy of the window, empty to use the store's */
+  private Map<Long, String> boundariesPolicies;
 
   public DateTieredCompactionRequest(Collection<HStoreFile> files, List<Long> boundaryList) {
+    this(files, boundaryList, Collections.emptyMap());
+  }
+
+  public DateTieredCompactionRequest(Collection<HStoreFile> files, List<Long> boundaryList,
+      Map<Long, String> boundaryPolicyMap) {
     super(files);
     boundaries = boundaryList;
+    boundariesPolicies = boundaryPolicyMap;
   }
 
   public List<Long> getBoundaries() {
     return boundaries;
   }
 
+  public Map<Long, String> getBoundariesPolicies() {
+    return boundariesPolicies;
+  }
+
   @Override
   public String toString() {
-    return super.toString() + " boundaries=" + Arrays.toString(boundaries.toArray());
+    return super.toString() + " boundaries=" + Arrays.toString(boundaries.toArray())
+        + " boundariesPolicies=" + boundariesPolicies;
   }
 }
@@ -18,7 +18,9 @@
 package org.apache.hadoop.hbase.regionserver.compactions;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.OptionalLong;
 
 import org.apache.hadoop.conf.Configuration;
@@ -56,9 +58,20 @@ public class DateTieredCompactor extends AbstractMultiOutputCompactor<DateTiered
 
   public List<Path> compact(final CompactionRequestImpl request, final List<Long> lowerBoundaries,
       ThroughputController throughputController, User user) throws IOException {
+    return compact(request, lowerBoundaries, Collections.emptyMap(), throughputController, user);
+  }
+
+  /**
+   * @param lowerBoundariesPolicies the storage policy of the files of each window, by lower
+   *          boundary
+   */
+  public List<Path> compact(final CompactionRequestImpl request, final List<Long> lowerBoundaries,
+      final Map<Long, String> lowerBoundariesPolicies, ThroughputController throughputController,
+      User user) throws IOException {
     if (LOG.isDebugEnabled()) {
       LOG.debug("Executing compaction with " + lowerBoundaries.size()
-          + "windows, lower boundaries: " + lowerBoundaries);
+          + "windows, lower boundaries: " + lowerBoundaries + ", storage policies: "
+          + lowerBoundariesPolicies);
     }
 
     return compact(request, defaultScannerFactory,
@@ -68,7 +81,7 @@ public class DateTieredCompactor extends AbstractMultiOutputCompactor<DateTiered
         public DateTieredMultiFileWriter createWriter(InternalScanner scanner, FileDetails fd,
             boolean shouldDropBehind) throws IOException {
           DateTieredMultiFileWriter writer = new DateTieredMultiFileWriter(lowerBoundaries,
-              needEmptyFile(request));
+              lowerBoundariesPolicies, needEmptyFile(request));
           initMultiWriter(writer, scanner, fd, shouldDropBehind);
           return writer;
         }
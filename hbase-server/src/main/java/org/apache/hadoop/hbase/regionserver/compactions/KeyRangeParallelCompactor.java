@@ -0,0 +1,358 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.PrivateCellUtil;
+import org.apache.hadoop.hbase.io.hfile.HFileBlockIndex;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.KeyRangeMultiFileWriter;
+import org.apache.hadoop.hbase.regionserver.ScanInfo;
+import org.apache.hadoop.hbase.regionserver.ScanType;
+import org.apache.hadoop.hbase.regionserver.ScannerContext;
+import org.apache.hadoop.hbase.regionserver.StoreFileReader;
+import org.apache.hadoop.hbase.regionserver.StoreFileScanner;
+import org.apache.hadoop.hbase.regionserver.StoreScanner;
+import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
+import org.apache.hadoop.hbase.security.User;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hbase.thirdparty.com.google.common.io.Closeables;
+import org.apache.hbase.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.hbase.thirdparty.com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * A {@link DefaultCompactor} which merges large compactions with several threads. The rows of the
+ * files to compact are split into ranges holding about the same amount of data, using the root
+ * level of their block indexes, and each range is merged by its own thread into its own output
+ * file through a {@link KeyRangeMultiFileWriter}. The output files are committed together, so the
+ * store switches to all of them at once.
+ * <p/>
+ * Set {@value org.apache.hadoop.hbase.regionserver.DefaultStoreEngine#DEFAULT_COMPACTOR_CLASS_KEY}
+ * to this class to use it. Compactions smaller than {@value #PARALLEL_MIN_SIZE_KEY} bytes, and
+ * those of regions with coprocessors, whose compaction hooks expect a single scanner, are still
+ * merged by a single thread into a single file.
+ */
+@InterfaceAudience.Private
+public class KeyRangeParallelCompactor extends DefaultCompactor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(KeyRangeParallelCompactor.class);
+
+  /** Maximum number of threads, and so of output files, of a compaction */
+  public static final String PARALLELISM_KEY = "hbase.hstore.compaction.parallelism";
+  public static final int DEFAULT_PARALLELISM = 4;
+
+  /** Minimum total size of the files to compact for the compaction to be parallel */
+  public static final String PARALLEL_MIN_SIZE_KEY = "hbase.hstore.compaction.parallel.min.size";
+  public static final long DEFAULT_PARALLEL_MIN_SIZE = 1024L * 1024 * 1024;
+
+  private final int parallelism;
+  private final long parallelMinSize;
+
+  // compactors merging the ranges of the running compaction, each one tracking its own progress
+  private volatile List<DefaultCompactor> rangeCompactors = Collections.emptyList();
+
+  // whether it was logged that the compactions of the store are serial because of coprocessors
+  private volatile boolean loggedCoprocessorFallback = false;
+
+  public KeyRangeParallelCompactor(Configuration conf, HStore store) {
+    super(conf, store);
+    this.parallelism = conf.getInt(PARALLELISM_KEY, DEFAULT_PARALLELISM);
+    this.parallelMinSize = conf.getLong(PARALLEL_MIN_SIZE_KEY, DEFAULT_PARALLEL_MIN_SIZE);
+  }
+
+  @Override
+  public List<Path> compact(CompactionRequestImpl request,
+      ThroughputController throughputController, User user) throws IOException {
+    if (parallelism <= 1 || request.getSize() < parallelMinSize) {
+      return super.compact(request, throughputController, user);
+    }
+    if (store.getCoprocessorHost() != null && store.getCoprocessorHost().hasCoprocessors()) {
+      // the compaction hooks of the coprocessors expect a single scanner over all the files
+      if (!loggedCoprocessorFallback) {
+        loggedCoprocessorFallback = true;
+        LOG.info("Not compacting {} in key ranges as its region has coprocessors", store);
+      }
+      return super.compact(request, throughputController, user);
+    }
+    List<byte[]> boundaries =
+        getRangeBoundaries(request.getFiles(), parallelism, store.getComparator());
+    if (boundaries.isEmpty()) {
+      return super.compact(request, throughputController, user);
+    }
+    FileDetails fd = getFileDetails(request.getFiles(), request.isAllFiles());
+    this.progress = new CompactionProgress(fd.maxKeyCount);
+    long smallestReadPoint = getSmallestReadPoint();
+    boolean dropCache = shouldDropCacheBehind(request);
+    ScanType scanType = defaultScannerFactory.getScanType(request);
+    ScanInfo scanInfo = store.getScanInfo();
+    boolean cleanSeqId = false;
+    long readPointToClean = smallestReadPoint;
+    if (fd.minSeqIdToKeep > 0 && !store.getColumnFamilyDescriptor().isNewVersionBehavior()) {
+      // For mvcc-sensitive family, we never set mvcc to 0.
+      readPointToClean = Math.min(fd.minSeqIdToKeep, smallestReadPoint);
+      cleanSeqId = true;
+    }
+
+    KeyRangeMultiFileWriter writer =
+        new KeyRangeMultiFileWriter(store.getComparator(), boundaries);
+    writer.init(null, () -> createTmpWriter(fd, dropCache));
+    List<DefaultCompactor> compactors = new ArrayList<>(writer.getRangeCount());
+    for (int i = 0; i < writer.getRangeCount(); i++) {
+      DefaultCompactor compactor = new DefaultCompactor(conf, store);
+      compactor.progress = new CompactionProgress(fd.maxKeyCount / writer.getRangeCount());
+      compactors.add(compactor);
+    }
+    LOG.info("Compacting {} files of {} in {} key ranges", request.getFiles().size(), store,
+      compactors.size());
+    rangeCompactors = compactors;
+    ExecutorService pool = Executors.newFixedThreadPool(compactors.size(),
+      new ThreadFactoryBuilder().setDaemon(true)
+          .setNameFormat(store.getRegionInfo().getEncodedName() + "-"
+              + store.getColumnFamilyName() + "-compaction-range-%d")
+          .build());
+    boolean finished = false;
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>(compactors.size());
+      for (int i = 0; i < compactors.size(); i++) {
+        DefaultCompactor compactor = compactors.get(i);
+        byte[] startRow = i == 0 ? null : boundaries.get(i - 1);
+        byte[] stopRow = i == boundaries.size() ? null : boundaries.get(i);
+        CellSinkRange range = new CellSinkRange(writer, i, startRow, stopRow);
+        boolean clean = cleanSeqId;
+        long readPoint = readPointToClean;
+        futures.add(pool.submit(() -> compactRange(compactor, request, range, fd, scanInfo,
+          scanType, smallestReadPoint, readPoint, clean, dropCache, throughputController)));
+      }
+      finished = waitForRanges(futures, pool);
+      if (!finished) {
+        throw new InterruptedIOException("Aborting compaction of store " + store + " in region "
+            + store.getRegionInfo().getRegionNameAsString() + " because it was interrupted.");
+      }
+    } finally {
+      pool.shutdownNow();
+      completeProgress(compactors);
+      if (!finished) {
+        abortWriters(writer);
+      }
+    }
+    return writer.commitWriters(fd.maxSeqId, request.isAllFiles(), request.getFiles());
+  }
+
+  private boolean compactRange(DefaultCompactor compactor, CompactionRequestImpl request,
+      CellSinkRange range, FileDetails fd, ScanInfo scanInfo, ScanType scanType,
+      long smallestReadPoint, long readPointToClean, boolean cleanSeqId, boolean dropCache,
+      ThroughputController throughputController) throws IOException {
+    List<StoreFileScanner> scanners =
+        createFileScanners(request.getFiles(), smallestReadPoint, dropCache);
+    InternalScanner scanner = null;
+    try {
+      scanner = new RangeStoreScanner(store, scanInfo, scanners, scanType, smallestReadPoint,
+        fd.earliestPutTs, range.startRow, range.stopRow);
+      return compactor.performCompaction(fd, scanner,
+        range.writer.getRangeWriter(range.index), readPointToClean, cleanSeqId,
+        throughputController, request.isAllFiles(), request.getFiles().size());
+    } finally {
+      Closeables.close(scanner, true);
+    }
+  }
+
+  /**
+   * Waits for all the ranges, even once one failed, so that no thread is still writing when the
+   * output files are aborted.
+   * @return whether all the ranges completed
+   */
+  private static boolean waitForRanges(List<Future<Boolean>> futures, ExecutorService pool)
+      throws IOException {
+    boolean finished = true;
+    IOException error = null;
+    for (Future<Boolean> future : futures) {
+      try {
+        finished &= Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        // interrupt the other ranges so they stop early
+        pool.shutdownNow();
+        if (error == null) {
+          error = e.getCause() instanceof IOException ? (IOException) e.getCause()
+              : new IOException(e.getCause());
+        }
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+    return finished;
+  }
+
+  private void completeProgress(List<DefaultCompactor> compactors) {
+    CompactionProgress total = sumProgress(compactors);
+    total.complete();
+    this.progress = total;
+    rangeCompactors = Collections.emptyList();
+  }
+
+  private static CompactionProgress sumProgress(List<DefaultCompactor> compactors) {
+    long totalCompactingKVs = 0;
+    long currentCompactedKVs = 0;
+    long totalCompactedSize = 0;
+    for (DefaultCompactor compactor : compactors) {
+      CompactionProgress progress = compactor.getProgress();
+      totalCompactingKVs += progress.getTotalCompactingKVs();
+      currentCompactedKVs += progress.currentCompactedKVs;
+      totalCompactedSize += progress.totalCompactedSize;
+    }
+    CompactionProgress sum = new CompactionProgress(totalCompactingKVs);
+    sum.currentCompactedKVs = currentCompactedKVs;
+    sum.totalCompactedSize = totalCompactedSize;
+    return sum;
+  }
+
+  @Override
+  public CompactionProgress getProgress() {
+    List<DefaultCompactor> compactors = rangeCompactors;
+    return compactors.isEmpty() ? super.getProgress() : sumProgress(compactors);
+  }
+
+  private void abortWriters(KeyRangeMultiFileWriter writer) {
+    for (Path leftoverFile : writer.abortWriters()) {
+      try {
+        store.getFileSystem().delete(leftoverFile, false);
+      } catch (IOException e) {
+        LOG.warn("Failed to delete the leftover file " + leftoverFile
+            + " after an unfinished compaction.", e);
+      }
+    }
+  }
+
+  /**
+   * Splits the rows of the given files into ranges holding about the same amount of data. Each
+   * root level entry of the block index of a file is taken to start the same share of the file.
+   * @return the first row of each range but the first one, at most {@code ranges - 1} of them,
+   *         empty if the files cannot be split
+   */
+  static List<byte[]> getRangeBoundaries(Collection<HStoreFile> files, int ranges,
+      CellComparator comparator) {
+    List<Pair<Cell, Long>> keys = new ArrayList<>();
+    long totalSize = 0;
+    for (HStoreFile file : files) {
+      StoreFileReader reader = file.getReader();
+      if (reader == null) {
+        continue;
+      }
+      List<Cell> rootKeys = HFileBlockIndex.getRootBlockKeys(reader.getHFileReader());
+      for (Cell key : rootKeys) {
+        keys.add(new Pair<>(key, reader.length() / rootKeys.size()));
+      }
+      totalSize += reader.length();
+    }
+    keys.sort((a, b) -> comparator.compareRows(a.getFirst(), b.getFirst()));
+    List<byte[]> boundaries = new ArrayList<>();
+    Cell lastBoundary = null;
+    long size = 0;
+    for (Pair<Cell, Long> key : keys) {
+      if (boundaries.size() == ranges - 1) {
+        break;
+      }
+      // a row is never split, so a boundary must be past the previous one
+      if (size >= totalSize * (boundaries.size() + 1) / ranges && (lastBoundary == null
+          || comparator.compareRows(key.getFirst(), lastBoundary) > 0)) {
+        boundaries.add(CellUtil.cloneRow(key.getFirst()));
+        lastBoundary = key.getFirst();
+      }
+      size += key.getSecond();
+    }
+    return boundaries;
+  }
+
+  /**
+   * The output and the rows of one range.
+   */
+  private static final class CellSinkRange {
+
+    private final KeyRangeMultiFileWriter writer;
+    private final int index;
+    private final byte[] startRow;
+    private final byte[] stopRow;
+
+    CellSinkRange(KeyRangeMultiFileWriter writer, int index, byte[] startRow, byte[] stopRow) {
+      this.writer = writer;
+      this.index = index;
+      this.startRow = startRow;
+      this.stopRow = stopRow;
+    }
+  }
+
+  /**
+   * A compaction scanner over the rows from {@code startRow}, inclusive, to {@code stopRow},
+   * exclusive. It relies on {@link StoreScanner#next(List, ScannerContext)} never returning cells
+   * of two rows at once.
+   */
+  private static final class RangeStoreScanner extends StoreScanner {
+
+    private final CellComparator comparator;
+    private final byte[] stopRow;
+    private boolean done = false;
+
+    RangeStoreScanner(HStore store, ScanInfo scanInfo, List<StoreFileScanner> scanners,
+        ScanType scanType, long smallestReadPoint, long earliestPutTs, byte[] startRow,
+        byte[] stopRow) throws IOException {
+      super(store, scanInfo, scanners, scanType, smallestReadPoint, earliestPutTs);
+      this.comparator = store.getComparator();
+      this.stopRow = stopRow;
+      if (startRow != null) {
+        reseek(PrivateCellUtil.createFirstOnRow(startRow));
+      }
+    }
+
+    @Override
+    public boolean next(List<Cell> outResult, ScannerContext scannerContext)
+        throws IOException {
+      if (done) {
+        return false;
+      }
+      int size = outResult.size();
+      boolean moreRows = super.next(outResult, scannerContext);
+      if (stopRow != null && outResult.size() > size
+          && comparator.compareRows(outResult.get(size), stopRow, 0, stopRow.length) >= 0) {
+        outResult.subList(size, outResult.size()).clear();
+        done = true;
+        return false;
+      }
+      return moreRows;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreConfigInformation;
+import org.apache.hadoop.hbase.regionserver.StoreReadStatistics;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.yetus.audience.InterfaceAudience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compaction policy which picks the files to compact by the reads the compaction saves rather than
+ * by the file sizes alone.
+ * <p/>
+ * The reads of the store are sampled from its {@link StoreReadStatistics}: the read rate, the
+ * store files each read opens and the false positive rate of the row Bloom filters. From those,
+ * each run of candidate files is given the store file reads per second that merging it into one
+ * file saves, and the selection saving the most reads per byte rewritten wins. A selection out of
+ * the compaction ratio is only taken if the reads it saves pay back the bytes it rewrites within
+ * {@value #MAX_PAYBACK_TIME_KEY}.
+ * <p/>
+ * Stores read less than {@value #MIN_READ_RATE_KEY} times per second, and stores which might be
+ * stuck, keep the selection of the {@link ExploringCompactionPolicy}, so write-mostly stores do
+ * not rewrite more than they do today.
+ */
+@InterfaceAudience.Private
+public class ReadAmplificationCompactionPolicy extends ExploringCompactionPolicy {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(ReadAmplificationCompactionPolicy.class);
+
+  public static final String MIN_READ_RATE_KEY = "hbase.hstore.compaction.read.min.rate";
+  public static final double DEFAULT_MIN_READ_RATE = 1.0;
+
+  public static final String SAMPLE_PERIOD_KEY = "hbase.hstore.compaction.read.sample.period";
+  public static final long DEFAULT_SAMPLE_PERIOD = 60 * 1000L;
+
+  public static final String MAX_PAYBACK_TIME_KEY =
+      "hbase.hstore.compaction.read.max.payback.time";
+  public static final long DEFAULT_MAX_PAYBACK_TIME = 60 * 60 * 1000L;
+
+  private final double minReadRate;
+  private final long samplePeriod;
+  private final long maxPaybackTime;
+
+  // the statistics at the start of the current sample
+  private long sampleStartTime;
+  private long sampleReads;
+  private long sampleStoreFilesRead;
+  private long sampleBloomFilterNegatives;
+  private long sampleBloomFilterFalsePositives;
+
+  // measured over the last complete sample
+  private double readRate;
+  private double storeFilesPerRead;
+  private double bloomFilterFalsePositiveRate;
+
+  public ReadAmplificationCompactionPolicy(Configuration conf,
+      StoreConfigInformation storeConfigInfo) {
+    super(conf, storeConfigInfo);
+    this.minReadRate = conf.getDouble(MIN_READ_RATE_KEY, DEFAULT_MIN_READ_RATE);
+    this.samplePeriod = conf.getLong(SAMPLE_PERIOD_KEY, DEFAULT_SAMPLE_PERIOD);
+    this.maxPaybackTime = conf.getLong(MAX_PAYBACK_TIME_KEY, DEFAULT_MAX_PAYBACK_TIME);
+    this.sampleStartTime = EnvironmentEdgeManager.currentTime();
+  }
+
+  @Override
+  public List<HStoreFile> applyCompactionPolicy(List<HStoreFile> candidates, boolean mightBeStuck,
+      boolean mayUseOffPeak, int minFiles, int maxFiles) {
+    sampleReadStatistics();
+    if (mightBeStuck || readRate < minReadRate) {
+      return super.applyCompactionPolicy(candidates, mightBeStuck, mayUseOffPeak, minFiles,
+        maxFiles);
+    }
+    double currentRatio =
+        mayUseOffPeak ? comConf.getCompactionRatioOffPeak() : comConf.getCompactionRatio();
+    long maxSize = comConf.getMaxCompactSize(mayUseOffPeak);
+    List<HStoreFile> bestSelection = null;
+    double bestScore = 0;
+    for (int start = 0; start < candidates.size(); start++) {
+      long size = 0;
+      for (int end = start; end < candidates.size() && end - start < maxFiles; end++) {
+        size += candidates.get(end).getReader().length();
+        int files = end - start + 1;
+        if (files < minFiles || size > maxSize) {
+          continue;
+        }
+        List<HStoreFile> selection = candidates.subList(start, end + 1);
+        double readsSaved = readRate * getStoreFileReadsSaved(files, candidates.size());
+        if (readsSaved <= 0) {
+          continue;
+        }
+        if (size >= comConf.getMinCompactSize() && !filesInRatio(selection, size, currentRatio)
+            && size > readsSaved * storeConfigInfo.getBlockSize() * maxPaybackTime / 1000) {
+          continue;
+        }
+        double score = readsSaved / Math.max(size, 1);
+        if (score > bestScore) {
+          bestSelection = selection;
+          bestScore = score;
+        }
+      }
+    }
+    if (bestSelection == null) {
+      return super.applyCompactionPolicy(candidates, mightBeStuck, mayUseOffPeak, minFiles,
+        maxFiles);
+    }
+    LOG.debug("Selected {} files saving {} store file reads per second, at {} reads per second " +
+      "opening {} store files each with a Bloom filter false positive rate of {}",
+      bestSelection.size(), readRate * getStoreFileReadsSaved(bestSelection.size(),
+        candidates.size()), readRate, storeFilesPerRead, bloomFilterFalsePositiveRate);
+    return new ArrayList<>(bestSelection);
+  }
+
+  /**
+   * Estimates, for one read, how many fewer store files it opens once the given number of files
+   * is merged into one. Each file is taken to be opened with the same probability, either because
+   * it holds data of the read or through a false positive of its Bloom filter. The merged file is
+   * opened if the files hold data of the read, or through a false positive of its own Bloom
+   * filter otherwise.
+   */
+  double getStoreFileReadsSaved(int files, int storeFiles) {
+    double opened = Math.min(1, storeFilesPerRead / Math.max(storeFiles, 1));
+    double fp = bloomFilterFalsePositiveRate;
+    double holdsData = fp < 1 ? Math.max(0, (opened - fp) / (1 - fp)) : 0;
+    double holdingData = Math.min(1, files * holdsData);
+    return files * opened - (holdingData + (1 - holdingData) * fp);
+  }
+
+  private void sampleReadStatistics() {
+    StoreReadStatistics stats = storeConfigInfo.getReadStatistics();
+    long now = EnvironmentEdgeManager.currentTime();
+    long elapsed = now - sampleStartTime;
+    if (stats == null || elapsed < samplePeriod) {
+      return;
+    }
+    long reads = stats.getReadCount() - sampleReads;
+    long storeFilesRead = stats.getStoreFilesReadCount() - sampleStoreFilesRead;
+    long bloomFilterNegatives = stats.getBloomFilterNegativeCount() - sampleBloomFilterNegatives;
+    long bloomFilterFalsePositives =
+        stats.getBloomFilterFalsePositiveCount() - sampleBloomFilterFalsePositives;
+    readRate = reads * 1000.0 / elapsed;
+    storeFilesPerRead = reads > 0 ? (double) storeFilesRead / reads : 0;
+    bloomFilterFalsePositiveRate = bloomFilterFalsePositives > 0
+        ? (double) bloomFilterFalsePositives / (bloomFilterNegatives + bloomFilterFalsePositives)
+        : 0;
+    sampleStartTime = now;
+    sampleReads += reads;
+    sampleStoreFilesRead += storeFilesRead;
+    sampleBloomFilterNegatives += bloomFilterNegatives;
+    sampleBloomFilterFalsePositives += bloomFilterFalsePositives;
+  }
+
+  private static boolean filesInRatio(List<HStoreFile> files, long totalSize, double ratio) {
+    if (files.size() < 2) {
+      return true;
+    }
+    for (HStoreFile file : files) {
+      long size = file.getReader().length();
+      if (size > (totalSize - size) * ratio) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -364,6 +365,16 @@ public class MockRegionServerServices implements RegionServerServices {
     return Optional.empty();
   }
 
+  @Override
+  public Optional<ThreadPoolExecutor> getStoreFileOpenPool() {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<ThreadPoolExecutor> getStoreFlushPool() {
+    return Optional.empty();
+  }
+
   @Override
   public AccessChecker getAccessChecker() {
     return null;
@@ -29,10 +29,13 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -45,11 +48,13 @@ import org.apache.hadoop.hbase.io.hfile.BlockType;
 import org.apache.hadoop.hbase.io.hfile.CacheTestUtils;
 import org.apache.hadoop.hbase.io.hfile.CacheTestUtils.HFileBlockPair;
 import org.apache.hadoop.hbase.io.hfile.Cacheable;
+import org.apache.hadoop.hbase.io.hfile.CachedBlock;
 import org.apache.hadoop.hbase.io.hfile.HFileBlock;
 import org.apache.hadoop.hbase.io.hfile.HFileContext;
 import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
 import org.apache.hadoop.hbase.io.hfile.bucket.BucketAllocator.BucketSizeInfo;
 import org.apache.hadoop.hbase.io.hfile.bucket.BucketAllocator.IndexStatistics;
+import org.apache.hadoop.hbase.io.hfile.bucket.BucketCache.BucketEntry;
 import org.apache.hadoop.hbase.io.hfile.bucket.BucketCache.RAMQueueEntry;
 import org.apache.hadoop.hbase.nio.ByteBuff;
 import org.apache.hadoop.hbase.testclassification.IOTests;
@@ -246,6 +251,38 @@ public class TestBucketCache {
     assertTrue("We should have a block!", cache.iterator().hasNext());
   }
 
+  @Test
+  public void testEvictBlockRelocatedMeanwhile() throws Exception {
+    cache.stopWriterThreads();
+    BucketAllocator allocator = cache.getAllocator();
+    LongAdder realCacheSize = new LongAdder();
+    // fill a bucket and start another one, which the first block can be moved to
+    long itemsPerBucket = Long.MAX_VALUE;
+    for (int i = 0; i <= itemsPerBucket; i++) {
+      BlockCacheKey key = new BlockCacheKey("relocated", i);
+      RAMQueueEntry re = new RAMQueueEntry(key, new CacheTestUtils.ByteArrayCacheable(
+          new byte[1000]), i, false);
+      cache.backingMap.put(key, re.writeToCache(cache.ioEngine, allocator, realCacheSize));
+      if (i == 0) {
+        itemsPerBucket = allocator.roundUpToBucketSizeInfo(1004).statistics().totalCount();
+      }
+    }
+    final BlockCacheKey cacheKey = new BlockCacheKey("relocated", 0);
+    BucketEntry bucketEntry = cache.backingMap.get(cacheKey);
+    ReentrantReadWriteLock lock = cache.offsetLock.getLock(bucketEntry.offset());
+    lock.writeLock().lock();
+    AtomicBoolean evicted = new AtomicBoolean();
+    Thread evictThread = new Thread(() -> evicted.set(cache.evictBlock(cacheKey)), "evict-block");
+    evictThread.start();
+    cache.offsetLock.waitForWaiters(bucketEntry.offset(), 1);
+    // the eviction already got the entry, and waits for its offset
+    assertTrue(cache.relocateBlock(cacheKey, bucketEntry, Collections.emptySet()));
+    lock.writeLock().unlock();
+    evictThread.join();
+    assertTrue(evicted.get());
+    assertNull(cache.backingMap.get(cacheKey));
+  }
+
   @Test
   public void testRetrieveFromFile() throws Exception {
     HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
@@ -322,6 +359,31 @@ public class TestBucketCache {
     validateGetPartitionSize(cache, 0.2f, 0.5f);
   }
 
+  @Test
+  public void testAdmissionFilterRejectsColdBlocks() throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(BucketCache.ADMISSION_FILTER_ENABLED_CONFIG_NAME, true);
+    // filter from the very first block on
+    conf.setFloat(BucketCache.MIN_FACTOR_CONFIG_NAME, 0.0f);
+    BucketCache bucketCache = new BucketCache(ioEngineName, capacitySize, constructedBlockSize,
+        constructedBlockSizes, writeThreads, writerQLen, persistencePath, 100, conf);
+    try {
+      // never asked for, e.g. written by a compaction
+      BlockCacheKey cold = new BlockCacheKey("cold", 0);
+      bucketCache.cacheBlock(cold, new CacheTestUtils.ByteArrayCacheable(new byte[10]));
+      assertEquals(0, bucketCache.getBlockCount());
+
+      // read from the file after a cache miss
+      BlockCacheKey hot = new BlockCacheKey("hot", 0);
+      assertNull(bucketCache.getBlock(hot, true, false, true));
+      cacheAndWaitUntilFlushedToBucket(bucketCache, hot,
+        new CacheTestUtils.ByteArrayCacheable(new byte[10]));
+      assertEquals(1, bucketCache.getBlockCount());
+    } finally {
+      bucketCache.shutdown();
+    }
+  }
+
   @Test
   public void testValidBucketCacheConfigs() throws IOException {
     Configuration conf = HBaseConfiguration.create();
@@ -465,6 +527,77 @@ public class TestBucketCache {
       block1Buffer);
   }
 
+  @Test
+  public void testGetDataBlocksByHfileName() throws Exception {
+    BlockCacheKey data = new BlockCacheKey("file", 0, true, BlockType.DATA);
+    BlockCacheKey untyped = new BlockCacheKey("file", 100);
+    BlockCacheKey index = new BlockCacheKey("file", 200, true, BlockType.LEAF_INDEX);
+    BlockCacheKey otherFile = new BlockCacheKey("other", 0, true, BlockType.DATA);
+    for (BlockCacheKey key : new BlockCacheKey[] { data, untyped, index, otherFile }) {
+      cacheAndWaitUntilFlushedToBucket(cache, key,
+        new CacheTestUtils.ByteArrayCacheable(new byte[10]));
+    }
+    List<Long> offsets = new ArrayList<>();
+    for (CachedBlock block : cache.getDataBlocksByHfileName("file")) {
+      assertEquals("file", block.getFilename());
+      offsets.add(block.getOffset());
+    }
+    assertEquals(Arrays.asList(0L, 100L), offsets);
+    assertTrue(cache.getDataBlocksByHfileName("missing").isEmpty());
+  }
+
+  @Test
+  public void testDefragmentRelocatesBlocksOutOfSparseBuckets() throws Exception {
+    cache.stopWriterThreads();
+    BucketAllocator allocator = cache.getAllocator();
+    LongAdder realCacheSize = new LongAdder();
+    List<BlockCacheKey> keys = new ArrayList<>();
+    BucketSizeInfo bsi = allocator.roundUpToBucketSizeInfo(1004);
+    // write the blocks the way the writer threads do, filling one and a half buckets
+    long itemsPerBucket = Long.MAX_VALUE;
+    for (int i = 0; i < itemsPerBucket * 3 / 2; i++) {
+      byte[] data = new byte[1000];
+      Arrays.fill(data, (byte) i);
+      BlockCacheKey key = new BlockCacheKey("defragment", i);
+      RAMQueueEntry re = new RAMQueueEntry(key, new CacheTestUtils.ByteArrayCacheable(data), i,
+          false);
+      BucketEntry entry = re.writeToCache(cache.ioEngine, allocator, realCacheSize);
+      cache.backingMap.put(key, entry);
+      keys.add(key);
+      if (i == 0) {
+        itemsPerBucket = bsi.statistics().totalCount();
+      }
+    }
+    int firstBucket = allocator.getBucketIndex(cache.backingMap.get(keys.get(0)).offset());
+    // leave a few blocks in the first, full, bucket and half of them in the second one
+    List<BlockCacheKey> remaining = new ArrayList<>();
+    int keptInFirst = 0;
+    for (int i = 0; i < keys.size(); i++) {
+      BlockCacheKey key = keys.get(i);
+      boolean inFirst = allocator.getBucketIndex(cache.backingMap.get(key).offset()) == firstBucket;
+      if (inFirst ? keptInFirst++ < 10 : i % 2 == 0) {
+        remaining.add(key);
+      } else {
+        assertTrue(cache.evictBlock(key));
+      }
+    }
+    float fragmentation = bsi.statistics().fragmentation();
+    assertTrue(fragmentation > 0);
+
+    assertEquals(10, cache.defragment());
+    assertTrue(bsi.statistics().fragmentation() < fragmentation);
+    for (BlockCacheKey key : remaining) {
+      assertNotEquals(firstBucket, allocator.getBucketIndex(cache.backingMap.get(key).offset()));
+      Cacheable block = cache.getBlock(key, false, false, false);
+      ByteBuffer buf = ByteBuffer.allocate(block.getSerializedLength());
+      block.serialize(buf, true);
+      assertEquals((byte) key.getOffset(), buf.get(buf.limit() - 1));
+      cache.returnBlock(key, block);
+    }
+    // nothing left to compact
+    assertEquals(0, cache.defragment());
+  }
+
   @Test
   public void testFreeBlockWhenIOEngineWriteFailure() throws IOException {
     // initialize an block.
@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile.bucket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.io.hfile.BlockCacheKey;
+import org.apache.hadoop.hbase.testclassification.IOTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ IOTests.class, SmallTests.class })
+public class TestFrequencySketch {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestFrequencySketch.class);
+
+  @Test
+  public void testFrequency() {
+    FrequencySketch sketch = new FrequencySketch(1024);
+    BlockCacheKey key = new BlockCacheKey("file", 0);
+    assertEquals(0, sketch.frequency(key));
+    for (int i = 1; i <= 20; i++) {
+      sketch.increment(key);
+      // counters saturate at 15
+      assertEquals(Math.min(i, 15), sketch.frequency(key));
+    }
+    assertEquals(0, sketch.frequency(new BlockCacheKey("file", 1)));
+  }
+
+  @Test
+  public void testAging() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    BlockCacheKey hot = new BlockCacheKey("file", 0);
+    for (int i = 0; i < 8; i++) {
+      sketch.increment(hot);
+    }
+    // the counters are halved after ten times the expected number of blocks were recorded
+    for (int i = 1; i < 160; i++) {
+      sketch.increment(new BlockCacheKey("scan", i));
+    }
+    assertTrue(sketch.frequency(hot) < 8);
+    assertEquals(1, sketch.getResetCount());
+  }
+}
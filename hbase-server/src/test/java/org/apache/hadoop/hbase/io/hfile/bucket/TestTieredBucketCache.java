@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile.bucket;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.Waiter;
+import org.apache.hadoop.hbase.io.hfile.BlockCacheKey;
+import org.apache.hadoop.hbase.io.hfile.CacheTestUtils;
+import org.apache.hadoop.hbase.io.hfile.Cacheable;
+import org.apache.hadoop.hbase.testclassification.IOTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests a {@link BucketCache} demoting the blocks it evicts to another one.
+ */
+@Category({ IOTests.class, SmallTests.class })
+public class TestTieredBucketCache {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestTieredBucketCache.class);
+
+  private static final int[] BUCKET_SIZES = { 2048 };
+
+  private final Configuration conf = HBaseConfiguration.create();
+
+  private BucketCache tier1;
+  private BucketCache tier2;
+
+  @Before
+  public void setUp() throws Exception {
+    // 8 buckets of 4 blocks, written a few at a time so that there is always something to evict
+    tier1 = new BucketCache("offheap", 64 * 1024, 2048, BUCKET_SIZES, 1, 4, null);
+    tier2 = new BucketCache("offheap", 1024 * 1024, 2048, BUCKET_SIZES, 1, 64, null);
+    tier1.wait_when_cache = true;
+    tier2.wait_when_cache = true;
+    tier1.setVictimCache(tier2);
+  }
+
+  @After
+  public void tearDown() {
+    tier1.shutdown();
+  }
+
+  private static Cacheable block(int i) {
+    byte[] data = new byte[1000];
+    Arrays.fill(data, (byte) i);
+    return new CacheTestUtils.ByteArrayCacheable(data);
+  }
+
+  private static byte[] serialize(Cacheable block) {
+    ByteBuffer buf = ByteBuffer.allocate(block.getSerializedLength());
+    block.serialize(buf, true);
+    return buf.array();
+  }
+
+  @Test
+  public void testDemoteAndPromote() throws Exception {
+    int blocks = 100;
+    for (int i = 0; i < blocks; i++) {
+      tier1.cacheBlock(new BlockCacheKey("tiered", i), block(i));
+    }
+    Waiter.waitFor(conf, 10000,
+      () -> tier1.ramCache.isEmpty() && tier2.ramCache.isEmpty());
+    assertTrue(tier1.backingMap.size() < blocks);
+    assertFalse(tier2.backingMap.isEmpty());
+
+    BlockCacheKey demoted = tier2.backingMap.keySet().stream()
+        .filter(key -> !tier1.backingMap.containsKey(key)).findFirst().get();
+    Cacheable block = tier1.getBlock(demoted, true, false, true);
+    assertNotNull(block);
+    assertArrayEquals(serialize(block((int) demoted.getOffset())), serialize(block));
+    // read back into the first tier
+    Waiter.waitFor(conf, 10000,
+      () -> tier1.backingMap.containsKey(demoted));
+    assertEquals(2, tier1.getBlockCaches().length);
+
+    assertEquals(tier1.getBlockCount() + tier2.getBlockCount(),
+      tier1.evictBlocksByHfileName("tiered"));
+  }
+
+  @Test
+  public void testEvictBlockFromBothTiers() throws Exception {
+    int blocks = 100;
+    for (int i = 0; i < blocks; i++) {
+      tier1.cacheBlock(new BlockCacheKey("tiered", i), block(i));
+    }
+    Waiter.waitFor(conf, 10000,
+      () -> tier1.ramCache.isEmpty() && tier2.ramCache.isEmpty());
+    BlockCacheKey demoted = tier2.backingMap.keySet().stream()
+        .filter(key -> !tier1.backingMap.containsKey(key)).findFirst().get();
+
+    assertTrue(tier1.evictBlock(demoted));
+    assertFalse(tier2.backingMap.containsKey(demoted));
+    assertNull(tier1.getBlock(demoted, true, false, true));
+  }
+}
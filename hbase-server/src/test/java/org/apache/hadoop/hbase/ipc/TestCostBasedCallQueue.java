@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.ipc.CallCostEstimator.CostKey;
+import org.apache.hadoop.hbase.testclassification.RPCTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RPCTests.class, SmallTests.class })
+public class TestCostBasedCallQueue {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestCostBasedCallQueue.class);
+
+  private CallCostEstimator estimator;
+
+  @Before
+  public void setUp() {
+    estimator = new CallCostEstimator(HBaseConfiguration.create());
+  }
+
+  private static CallRunner createTask(String user) {
+    ServerCall<?> call = mock(ServerCall.class);
+    when(call.getRequestUserName()).thenReturn(Optional.of(user));
+    CallRunner task = mock(CallRunner.class);
+    when(task.getRpcCall()).thenReturn(call);
+    return task;
+  }
+
+  private void train(String user, long handlerTime) {
+    CallRunner task = createTask(user);
+    RpcCall call = task.getRpcCall();
+    estimator.record(CallCostEstimator.getKey(call), call, handlerTime);
+  }
+
+  @Test
+  public void testEstimate() {
+    CostKey a = CallCostEstimator.getKey(createTask("a").getRpcCall());
+    CostKey b = CallCostEstimator.getKey(createTask("b").getRpcCall());
+    assertEquals(0, estimator.estimate(a));
+    train("a", 8000000);
+    assertEquals(8000, estimator.estimate(a));
+    // no history for the user, estimated from the other calls of the method
+    assertEquals(8000, estimator.estimate(b));
+    train("b", 0);
+    assertEquals(0, estimator.estimate(b));
+    // the estimate moves an eighth of the way to each new cost
+    train("a", 0);
+    assertEquals(7000, estimator.estimate(a));
+  }
+
+  @Test
+  public void testCheapCallsNotStuckBehindExpensiveOnes() throws Exception {
+    train("scanner", 1000000);
+    train("getter", 10000);
+    CostBasedCallQueue queue = new CostBasedCallQueue(100, estimator);
+    List<CallRunner> scans = new ArrayList<>();
+    List<CallRunner> gets = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      scans.add(createTask("scanner"));
+      queue.offer(scans.get(i));
+    }
+    for (int i = 0; i < 3; i++) {
+      gets.add(createTask("getter"));
+      queue.offer(gets.get(i));
+    }
+    assertEquals(6, queue.size());
+    for (CallRunner get : gets) {
+      assertSame(get, queue.take());
+    }
+    for (CallRunner scan : scans) {
+      assertSame(scan, queue.take());
+    }
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void testFairShareBetweenUsers() throws Exception {
+    train("busy", 1000000);
+    train("quiet", 1000000);
+    CostBasedCallQueue queue = new CostBasedCallQueue(100, estimator);
+    for (int i = 0; i < 10; i++) {
+      queue.offer(createTask("busy"));
+    }
+    CallRunner quiet = createTask("quiet");
+    queue.offer(quiet);
+    // taken right after the first call of the busy user, not behind all of them
+    queue.take();
+    assertSame(quiet, queue.take());
+    // once the queue drained, a new call does not pay for the past calls of its user
+    while (queue.poll() != null) {
+    }
+    CallRunner busy = createTask("busy");
+    queue.offer(busy);
+    queue.offer(createTask("quiet"));
+    assertSame(busy, queue.take());
+  }
+
+  @Test
+  public void testCapacity() {
+    CostBasedCallQueue queue = new CostBasedCallQueue(2, estimator);
+    assertTrue(queue.offer(createTask("a")));
+    assertTrue(queue.offer(createTask("b")));
+    assertFalse(queue.offer(createTask("c")));
+    assertEquals(0, queue.remainingCapacity());
+    int count = 0;
+    for (CallRunner task : queue) {
+      count++;
+    }
+    assertEquals(2, count);
+  }
+}
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.hbase.CompatibilityFactory;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.io.hfile.HFileBlockIndex;
+import org.apache.hadoop.hbase.test.MetricsAssertHelper;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RPCTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RPCTests.class, MediumTests.class })
+public class TestDirectGet {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestDirectGet.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final MetricsAssertHelper HELPER =
+      CompatibilityFactory.getInstance(MetricsAssertHelper.class);
+
+  private static final TableName TABLE = TableName.valueOf("TestDirectGet");
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    TEST_UTIL.getConfiguration().set(RpcServerFactory.CUSTOM_RPC_SERVER_IMPL_CONF_KEY,
+      NettyRpcServer.class.getName());
+    TEST_UTIL.getConfiguration().setBoolean(RpcServer.DIRECT_GET_KEY, true);
+    TEST_UTIL.startMiniCluster();
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  private long counter(TableName tableName, String name) throws Exception {
+    MetricsHBaseServerSource source = TEST_UTIL.getRSForFirstRegionInTable(tableName)
+        .getRpcServer().getMetrics().getMetricsSource();
+    return HELPER.getCounter(name, source);
+  }
+
+  private void assertGet(Table table, int row, boolean direct) throws Exception {
+    TableName tableName = table.getName();
+    long hits = counter(tableName, MetricsHBaseServerSource.DIRECT_GET_HITS_NAME);
+    long misses = counter(tableName, MetricsHBaseServerSource.DIRECT_GET_MISSES_NAME);
+    assertEquals(row,
+      Bytes.toInt(table.get(new Get(Bytes.toBytes(row))).getValue(FAMILY, QUALIFIER)));
+    assertEquals(direct ? hits + 1 : hits,
+      counter(tableName, MetricsHBaseServerSource.DIRECT_GET_HITS_NAME));
+    assertEquals(direct ? misses : misses + 1,
+      counter(tableName, MetricsHBaseServerSource.DIRECT_GET_MISSES_NAME));
+  }
+
+  @Test
+  public void testDirectGet() throws Exception {
+    try (Table table = TEST_UTIL.createTable(TABLE, FAMILY)) {
+      for (int i = 0; i < 10; i++) {
+        table.put(new Put(Bytes.toBytes(i)).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(i)));
+      }
+      // served from the memstore
+      assertGet(table, 1, true);
+      TEST_UTIL.flush(TABLE);
+      // the data block is only cached by the first read of the flushed file
+      assertGet(table, 1, false);
+      assertGet(table, 1, true);
+      assertGet(table, 2, true);
+    }
+  }
+
+  @Test
+  public void testDirectGetMultiLevelIndex() throws Exception {
+    TableName tableName = TableName.valueOf("TestDirectGetMultiLevelIndex");
+    // small data and index blocks, for the index of the flushed file to have a leaf level
+    TEST_UTIL.getAdmin().createTable(TableDescriptorBuilder.newBuilder(tableName)
+        .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(FAMILY).setBlocksize(64)
+            .setConfiguration(HFileBlockIndex.MAX_CHUNK_SIZE_KEY, "128").build())
+        .build());
+    try (Table table = TEST_UTIL.getConnection().getTable(tableName)) {
+      for (int i = 0; i < 200; i++) {
+        table.put(new Put(Bytes.toBytes(i)).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(i)));
+      }
+      TEST_UTIL.flush(tableName);
+      // the leaf index, Bloom chunk and data blocks are only cached by the first read
+      assertGet(table, 100, false);
+      assertGet(table, 100, true);
+    }
+  }
+}
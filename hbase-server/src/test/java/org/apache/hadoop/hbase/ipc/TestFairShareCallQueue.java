@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.quotas.QuotaCache;
+import org.apache.hadoop.hbase.quotas.QuotaLimiter;
+import org.apache.hadoop.hbase.quotas.UserQuotaState;
+import org.apache.hadoop.hbase.security.User;
+import org.apache.hadoop.hbase.testclassification.RPCTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RPCTests.class, SmallTests.class })
+public class TestFairShareCallQueue {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestFairShareCallQueue.class);
+
+  private Configuration conf;
+
+  @Before
+  public void setUp() {
+    conf = HBaseConfiguration.create();
+    conf.setInt(FairShareCallQueue.Tenants.QUANTUM_KEY, 1);
+  }
+
+  private CallRunner createTask(String user) {
+    ServerCall<?> call = mock(ServerCall.class);
+    when(call.getRequestUserName()).thenReturn(Optional.of(user));
+    when(call.getRequestUser())
+        .thenReturn(Optional.of(User.createUserForTesting(conf, user, new String[0])));
+    CallRunner task = mock(CallRunner.class);
+    when(task.getRpcCall()).thenReturn(call);
+    return task;
+  }
+
+  private static String takeUsers(FairShareCallQueue queue) throws InterruptedException {
+    StringBuilder users = new StringBuilder();
+    while (queue.size() > 0) {
+      users.append(queue.take().getRpcCall().getRequestUserName().get());
+    }
+    return users.toString();
+  }
+
+  @Test
+  public void testRoundRobinBetweenUsers() throws Exception {
+    FairShareCallQueue queue =
+        new FairShareCallQueue(100, new FairShareCallQueue.Tenants(conf));
+    for (int i = 0; i < 4; i++) {
+      queue.offer(createTask("a"));
+    }
+    queue.offer(createTask("b"));
+    queue.offer(createTask("b"));
+    assertEquals(6, queue.size());
+    assertEquals("ababaa", takeUsers(queue));
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void testWeightsFromQuotas() throws Exception {
+    FairShareCallQueue.Tenants tenants = new FairShareCallQueue.Tenants(conf);
+    QuotaCache quotaCache = mock(QuotaCache.class);
+    UserQuotaState heavy = mock(UserQuotaState.class);
+    QuotaLimiter heavyLimiter = mock(QuotaLimiter.class);
+    when(heavyLimiter.getRequestLimitPerSecond())
+        .thenReturn(2 * FairShareCallQueue.Tenants.DEFAULT_DEFAULT_WEIGHT);
+    when(heavy.getGlobalLimiter()).thenReturn(heavyLimiter);
+    UserQuotaState unlimited = mock(UserQuotaState.class);
+    QuotaLimiter unlimitedLimiter = mock(QuotaLimiter.class);
+    when(unlimitedLimiter.getRequestLimitPerSecond()).thenReturn(Double.POSITIVE_INFINITY);
+    when(unlimited.getGlobalLimiter()).thenReturn(unlimitedLimiter);
+    when(quotaCache.getUserQuotaState(any())).thenAnswer(invocation ->
+        "h".equals(((UserGroupInformation) invocation.getArgument(0)).getShortUserName())
+            ? heavy : unlimited);
+    tenants.setQuotaCache(quotaCache);
+
+    FairShareCallQueue queue = new FairShareCallQueue(100, tenants);
+    for (int i = 0; i < 6; i++) {
+      queue.offer(createTask("u"));
+    }
+    for (int i = 0; i < 6; i++) {
+      queue.offer(createTask("h"));
+    }
+    // the user allowed twice the default rate runs twice the calls per round
+    assertEquals("uhhuhhuhhuuu", takeUsers(queue));
+  }
+
+  @Test
+  public void testLowQuotaKeepsDefaultShare() throws Exception {
+    conf.setInt(FairShareCallQueue.Tenants.QUANTUM_KEY, 2);
+    FairShareCallQueue.Tenants tenants = new FairShareCallQueue.Tenants(conf);
+    QuotaCache quotaCache = mock(QuotaCache.class);
+    UserQuotaState light = mock(UserQuotaState.class);
+    QuotaLimiter lightLimiter = mock(QuotaLimiter.class);
+    when(lightLimiter.getRequestLimitPerSecond())
+        .thenReturn(FairShareCallQueue.Tenants.DEFAULT_DEFAULT_WEIGHT / 10);
+    when(light.getGlobalLimiter()).thenReturn(lightLimiter);
+    UserQuotaState unlimited = mock(UserQuotaState.class);
+    QuotaLimiter unlimitedLimiter = mock(QuotaLimiter.class);
+    when(unlimitedLimiter.getRequestLimitPerSecond()).thenReturn(Double.POSITIVE_INFINITY);
+    when(unlimited.getGlobalLimiter()).thenReturn(unlimitedLimiter);
+    when(quotaCache.getUserQuotaState(any())).thenAnswer(invocation ->
+        "l".equals(((UserGroupInformation) invocation.getArgument(0)).getShortUserName())
+            ? light : unlimited);
+    tenants.setQuotaCache(quotaCache);
+
+    FairShareCallQueue queue = new FairShareCallQueue(100, tenants);
+    for (int i = 0; i < 4; i++) {
+      queue.offer(createTask("u"));
+    }
+    for (int i = 0; i < 4; i++) {
+      queue.offer(createTask("l"));
+    }
+    // the throttled user runs as many calls per round as the one without quota
+    assertEquals("uulluull", takeUsers(queue));
+  }
+
+  @Test
+  public void testCapacity() {
+    FairShareCallQueue queue = new FairShareCallQueue(2, new FairShareCallQueue.Tenants(conf));
+    assertTrue(queue.offer(createTask("a")));
+    assertTrue(queue.offer(createTask("b")));
+    assertFalse(queue.offer(createTask("c")));
+    assertEquals(0, queue.remainingCapacity());
+    int count = 0;
+    for (CallRunner task : queue) {
+      count++;
+    }
+    assertEquals(2, count);
+  }
+}
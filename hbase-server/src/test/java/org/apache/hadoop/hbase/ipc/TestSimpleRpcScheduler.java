@@ -40,6 +40,7 @@ import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseClassTestRule;
 import org.apache.hadoop.hbase.HBaseConfiguration;
@@ -238,6 +239,8 @@ public class TestSimpleRpcScheduler {
   public void testRpcScheduler() throws Exception {
     testRpcScheduler(RpcExecutor.CALL_QUEUE_TYPE_DEADLINE_CONF_VALUE);
     testRpcScheduler(RpcExecutor.CALL_QUEUE_TYPE_FIFO_CONF_VALUE);
+    testRpcScheduler(RpcExecutor.CALL_QUEUE_TYPE_COST_CONF_VALUE);
+    testRpcScheduler(RpcExecutor.CALL_QUEUE_TYPE_FAIR_CONF_VALUE);
   }
 
   private void testRpcScheduler(final String queueType) throws Exception {
@@ -399,6 +402,53 @@ public class TestSimpleRpcScheduler {
     }
   }
 
+  @Test
+  public void testVirtualThreadExecutor() throws Exception {
+    Configuration schedConf = HBaseConfiguration.create();
+    schedConf.setBoolean(VirtualThreadRpcExecutor.CALL_QUEUE_VIRTUAL_THREADS_CONF_KEY, true);
+    PriorityFunction priority = mock(PriorityFunction.class);
+    when(priority.getPriority(any(), any(), any())).thenReturn(HConstants.NORMAL_QOS);
+    // four handlers on a single queue, so a single dispatcher thread
+    SimpleRpcScheduler scheduler =
+        new SimpleRpcScheduler(schedConf, 4, 0, 0, priority, HConstants.QOS_THRESHOLD);
+    scheduler.init(CONTEXT);
+    scheduler.start();
+    try {
+      CountDownLatch done = new CountDownLatch(1);
+      AtomicInteger running = new AtomicInteger();
+      AtomicInteger maxRunning = new AtomicInteger();
+      List<CallRunner> tasks = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        CallRunner task = createMockTask();
+        task.setStatus(new MonitoredRPCHandlerImpl());
+        doAnswer(invocation -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          done.await();
+          running.decrementAndGet();
+          return null;
+        }).when(task).run();
+        tasks.add(task);
+        scheduler.dispatch(task);
+      }
+      // the calls run side by side, but no more of them than there are handlers
+      while (running.get() < 4) {
+        Thread.sleep(10);
+      }
+      Thread.sleep(100);
+      assertEquals(4, maxRunning.get());
+      assertEquals(4, scheduler.getActiveRpcHandlerCount());
+      assertEquals(2, scheduler.getGeneralQueueLength());
+      done.countDown();
+      for (CallRunner task : tasks) {
+        verify(task, timeout(10000)).run();
+      }
+      waitUntilQueueEmpty(scheduler);
+      assertEquals(4, maxRunning.get());
+    } finally {
+      scheduler.stop();
+    }
+  }
+
   private void doAnswerTaskExecution(final CallRunner callTask,
       final ArrayList<Integer> results, final int value, final int sleepInterval) {
     callTask.setStatus(new MonitoredRPCHandlerImpl());
@@ -30,6 +30,7 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.hbase.Abortable;
@@ -719,6 +720,16 @@ class MockRegionServer implements AdminProtos.AdminService.BlockingInterface,
     return Optional.empty();
   }
 
+  @Override
+  public Optional<ThreadPoolExecutor> getStoreFileOpenPool() {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<ThreadPoolExecutor> getStoreFlushPool() {
+    return Optional.empty();
+  }
+
   @Override
   public AccessChecker getAccessChecker() {
     return null;
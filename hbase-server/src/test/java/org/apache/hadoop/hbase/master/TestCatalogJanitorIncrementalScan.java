@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.master;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.testclassification.MasterTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Triple;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Make sure the incremental scans of {@link CatalogJanitor} still find the split parents once
+ * their meta edits are older than the scanned time range.
+ */
+@Category({ MasterTests.class, MediumTests.class })
+public class TestCatalogJanitorIncrementalScan {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestCatalogJanitorIncrementalScan.class);
+
+  private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+
+  private static final TableName TABLE_NAME = TableName.valueOf("CatalogJanitorIncrementalScan");
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    UTIL.getConfiguration().setInt("hbase.catalogjanitor.interval", 1000);
+    UTIL.getConfiguration().setInt(CatalogJanitor.FULL_SCAN_PERIOD_KEY, 100);
+    UTIL.startMiniCluster(1);
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    UTIL.shutdownMiniCluster();
+  }
+
+  @Test
+  public void testSplitParentFoundByIncrementalScans() throws Exception {
+    UTIL.getAdmin().catalogJanitorSwitch(false);
+    CatalogJanitor janitor = UTIL.getHBaseCluster().getMaster().getCatalogJanitor();
+    try (Table table = UTIL.createTable(TABLE_NAME, FAMILY)) {
+      UTIL.loadTable(table, FAMILY);
+    }
+    UTIL.flush(TABLE_NAME);
+    // the first scan is a full one
+    assertEquals(0, janitor.getMergedRegionsAndSplitParents().getThird().size());
+
+    RegionInfo parent = UTIL.getAdmin().getRegions(TABLE_NAME).get(0);
+    UTIL.getAdmin().splitRegionAsync(parent.getRegionName(), Bytes.toBytes("m")).get();
+    UTIL.waitFor(30000, () -> UTIL.getAdmin().getRegions(TABLE_NAME).size() == 2);
+
+    // found by the time range scan
+    Map<RegionInfo, Result> splitParents = janitor.getMergedRegionsAndSplitParents().getThird();
+    assertEquals(1, splitParents.size());
+    assertTrue(splitParents.containsKey(parent));
+
+    // the split is now out of the scanned time range, the parent is fetched from the candidates
+    Thread.sleep(2500);
+    Triple<Integer, Map<RegionInfo, Result>, Map<RegionInfo, Result>> scan =
+        janitor.getMergedRegionsAndSplitParents();
+    assertEquals(1, scan.getThird().size());
+    assertTrue(scan.getThird().containsKey(parent));
+    // only the candidate rows make it to the master
+    assertEquals(1, scan.getFirst().intValue());
+    assertEquals(1, janitor.getMergedRegionsAndSplitParents(TABLE_NAME).getThird().size());
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.master;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.RegionMetricsBuilder;
+import org.apache.hadoop.hbase.ServerMetrics;
+import org.apache.hadoop.hbase.ServerMetricsBuilder;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.testclassification.MasterTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ MasterTests.class, SmallTests.class })
+public class TestCompactionCoordinator {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestCompactionCoordinator.class);
+
+  private static final ServerName RACK1_SERVER1 = ServerName.valueOf("rack1-host1", 16020, 1);
+  private static final ServerName RACK1_SERVER2 = ServerName.valueOf("rack1-host2", 16020, 1);
+  private static final ServerName RACK1_SERVER3 = ServerName.valueOf("rack1-host3", 16020, 1);
+  private static final ServerName RACK2_SERVER1 = ServerName.valueOf("rack2-host1", 16020, 1);
+
+  private CompactionCoordinator coordinator;
+
+  @Before
+  public void setUp() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setInt(CompactionCoordinator.MAX_PER_SERVER_KEY, 2);
+    conf.setInt(CompactionCoordinator.MAX_PER_RACK_KEY, 3);
+    conf.setInt(CompactionCoordinator.MAX_KEY, 4);
+    coordinator = new CompactionCoordinator(conf, new RackManager() {
+      @Override
+      public String getRack(ServerName server) {
+        return server.getHostname().substring(0, 5);
+      }
+    });
+    // a server on a second rack, for the rack budget to apply
+    report(RACK2_SERVER1, 0, 0, 1, 0, 1000);
+  }
+
+  private static ServerMetrics load(ServerName sn, int storeFiles, long readRequests) {
+    return ServerMetricsBuilder.newBuilder(sn)
+        .setRegionMetrics(Collections.singletonList(RegionMetricsBuilder
+            .newBuilder(Bytes.toBytes(sn.getHostname())).setStoreFileCount(storeFiles)
+            .setReadRequestCount(readRequests).build()))
+        .build();
+  }
+
+  private int report(ServerName sn, int running, int pending, int storeFiles, long readRequests,
+      long now) {
+    return coordinator.reportAndGetTokens(sn, running, pending,
+      load(sn, storeFiles, readRequests), now);
+  }
+
+  @Test
+  public void testBudgets() {
+    // per server
+    assertEquals(2, report(RACK1_SERVER1, 0, 5, 1, 0, 1000));
+    // per rack
+    assertEquals(1, report(RACK1_SERVER2, 0, 5, 1, 0, 1000));
+    assertEquals(0, report(RACK1_SERVER3, 0, 5, 1, 0, 1000));
+    // whole cluster, the other rack only gets what is left
+    assertEquals(1, report(RACK2_SERVER1, 0, 5, 1, 0, 1000));
+    // nothing waiting, nothing granted
+    assertEquals(0, report(RACK1_SERVER3, 0, 0, 1, 0, 1000));
+  }
+
+  @Test
+  public void testNoRackBudgetOnSingleRack() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setInt(CompactionCoordinator.MAX_PER_SERVER_KEY, 2);
+    conf.setInt(CompactionCoordinator.MAX_PER_RACK_KEY, 3);
+    conf.setInt(CompactionCoordinator.MAX_KEY, 4);
+    coordinator = new CompactionCoordinator(conf, new RackManager() {
+      @Override
+      public String getRack(ServerName server) {
+        return RackManager.UNKNOWN_RACK;
+      }
+    });
+    assertEquals(2, report(RACK1_SERVER1, 0, 5, 1, 0, 1000));
+    // only the budget of the whole cluster applies
+    assertEquals(2, report(RACK1_SERVER2, 0, 5, 1, 0, 1000));
+    assertEquals(0, report(RACK1_SERVER3, 0, 5, 1, 0, 1000));
+  }
+
+  @Test
+  public void testRunningCompactionsKeepTokens() {
+    assertEquals(2, report(RACK1_SERVER1, 2, 0, 1, 0, 1000));
+    // a server reading far more store files waits until the running compactions are done
+    report(RACK1_SERVER2, 0, 1, 100, 0, 1000);
+    assertEquals(1, report(RACK1_SERVER2, 0, 1, 100, 1000000, 2000));
+    assertEquals(2, report(RACK1_SERVER1, 2, 1, 1, 0, 2000));
+    assertEquals(0, report(RACK1_SERVER3, 0, 1, 1, 0, 2000));
+  }
+
+  @Test
+  public void testReadHeavyServersFirst() {
+    report(RACK1_SERVER1, 0, 0, 1, 0, 1000);
+    report(RACK1_SERVER2, 0, 0, 1, 0, 1000);
+    report(RACK1_SERVER3, 0, 0, 1, 0, 1000);
+    // the third server reads ten store files per request, the second one a single one
+    assertEquals(2, report(RACK1_SERVER1, 2, 0, 1, 0, 2000));
+    assertEquals(1, report(RACK1_SERVER2, 0, 2, 1, 1000, 2000));
+    assertEquals(0, report(RACK1_SERVER3, 0, 2, 10, 1000, 2000));
+    // the tokens of the first server go to the third one, the second one keeps its own
+    assertEquals(0, report(RACK1_SERVER1, 0, 0, 1, 0, 2000));
+    assertEquals(2, report(RACK1_SERVER3, 0, 2, 10, 1000, 2000));
+    assertEquals(1, report(RACK1_SERVER2, 1, 1, 1, 1000, 2000));
+  }
+
+  @Test
+  public void testStaleServersAreForgotten() {
+    assertEquals(2, report(RACK1_SERVER1, 2, 0, 1, 0, 1000));
+    assertEquals(1, report(RACK1_SERVER2, 0, 2, 1, 0, 1000));
+    // the first server stopped reporting, its tokens go back to the budget
+    assertEquals(2, report(RACK1_SERVER2, 0, 2, 1, 0, 1000 + 31000));
+  }
+}
@@ -30,9 +30,13 @@ import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.FilterFileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.CompatibilityFactory;
+import org.apache.hadoop.hbase.CompatibilitySingletonFactory;
 import org.apache.hadoop.hbase.HBaseClassTestRule;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
 import org.apache.hadoop.hbase.Stoppable;
+import org.apache.hadoop.hbase.master.MetricsMasterFileSystemSource;
+import org.apache.hadoop.hbase.test.MetricsAssertHelper;
 import org.apache.hadoop.hbase.testclassification.MasterTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
 import org.apache.hadoop.hbase.util.FSUtils;
@@ -57,6 +61,8 @@ public class TestCleanerChore {
 
   private static final Logger LOG = LoggerFactory.getLogger(TestCleanerChore.class);
   private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+  private static final MetricsAssertHelper METRICS_HELPER =
+      CompatibilityFactory.getInstance(MetricsAssertHelper.class);
 
   @BeforeClass
   public static void setup() {
@@ -477,6 +483,36 @@ public class TestCleanerChore {
     assertEquals(1, chore.calculatePoolSize("0.0"));
   }
 
+  @Test
+  public void testRunMetrics() throws Exception {
+    Stoppable stop = new StoppableImplementation();
+    Configuration conf = UTIL.getConfiguration();
+    Path testDir = new Path(UTIL.getDataTestDir(), "metrics");
+    FileSystem fs = UTIL.getTestFileSystem();
+    String confKey = "hbase.test.cleaner.delegates";
+    conf.set(confKey, KeepMarkedFiles.class.getName());
+    AllValidPaths chore =
+        new AllValidPaths("test-metrics-cleaner", stop, conf, fs, testDir, confKey);
+
+    Path parent = new Path(testDir, "parent");
+    fs.mkdirs(parent);
+    for (int i = 0; i < 3; i++) {
+      try (FSDataOutputStream out = fs.create(new Path(parent, "file-" + i))) {
+        out.write(new byte[10]);
+      }
+    }
+    for (int i = 0; i < 2; i++) {
+      fs.create(new Path(parent, "keep-" + i)).close();
+    }
+    assertFalse(chore.runCleaner());
+
+    MetricsMasterFileSystemSource source =
+        CompatibilitySingletonFactory.getInstance(MetricsMasterFileSystemSource.class);
+    METRICS_HELPER.assertCounter("test-metrics-cleaner_deletedFiles", 3, source);
+    METRICS_HELPER.assertCounter("test-metrics-cleaner_deletedBytes", 30, source);
+    METRICS_HELPER.assertGauge("test-metrics-cleaner_remainingFiles", 2, source);
+  }
+
   private void createFiles(FileSystem fs, Path parentDir, int numOfFiles) throws IOException {
     Random random = new Random();
     for (int i = 0; i < numOfFiles; i++) {
@@ -512,6 +548,13 @@ public class TestCleanerChore {
     }
   }
 
+  public static class KeepMarkedFiles extends BaseHFileCleanerDelegate {
+    @Override
+    public boolean isFileDeletable(FileStatus fStat) {
+      return !fStat.getPath().getName().startsWith("keep-");
+    }
+  }
+
   public static class NeverDelete extends BaseHFileCleanerDelegate {
     @Override
     public boolean isFileDeletable(FileStatus fStat) {
@@ -0,0 +1,226 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.master.normalizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.RegionMetrics;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.Size;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.master.MasterRpcServices;
+import org.apache.hadoop.hbase.master.MasterServices;
+import org.apache.hadoop.hbase.master.normalizer.NormalizationPlan.PlanType;
+import org.apache.hadoop.hbase.testclassification.MasterTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.ManualEnvironmentEdge;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+import org.mockito.Mockito;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.MasterProtos.IsSplitOrMergeEnabledResponse;
+
+/**
+ * Tests logic of {@link LoadAwareRegionNormalizer}.
+ */
+@Category({ MasterTests.class, SmallTests.class })
+public class TestLoadAwareRegionNormalizer {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestLoadAwareRegionNormalizer.class);
+
+  @Rule
+  public TestName name = new TestName();
+
+  private final ManualEnvironmentEdge edge = new ManualEnvironmentEdge();
+
+  private final ServerName sn = ServerName.valueOf("localhost", 0, 1L);
+
+  private LoadAwareRegionNormalizer normalizer;
+
+  private MasterServices masterServices;
+
+  private List<RegionInfo> regions;
+
+  private List<RegionMetrics> metrics;
+
+  @Before
+  public void setUp() throws Exception {
+    edge.setValue(1000);
+    EnvironmentEdgeManager.injectEdge(edge);
+    normalizer = new LoadAwareRegionNormalizer();
+    masterServices = Mockito.mock(MasterServices.class, RETURNS_DEEP_STUBS);
+    MasterRpcServices masterRpcServices =
+        Mockito.mock(MasterRpcServices.class, RETURNS_DEEP_STUBS);
+    Configuration conf = HBaseConfiguration.create();
+    conf.setDouble(LoadAwareRegionNormalizer.SPLIT_RATIO_KEY, 2.0);
+    conf.setInt(LoadAwareRegionNormalizer.MAX_OUTSTANDING_SPLITS_KEY, 1);
+    when(masterServices.getConfiguration()).thenReturn(conf);
+    when(masterServices.getMasterProcedureExecutor().getProcedures())
+        .thenReturn(Collections.emptyList());
+    when(masterRpcServices.isSplitOrMergeEnabled(any(), any()))
+        .thenReturn(IsSplitOrMergeEnabledResponse.newBuilder().setEnabled(true).build());
+    when(masterServices.getAssignmentManager().getRegionStates().getRegionServerOfRegion(any()))
+        .thenReturn(sn);
+    normalizer.setMasterServices(masterServices);
+    normalizer.setMasterRpcServices(masterRpcServices);
+
+    TableName tableName = TableName.valueOf(name.getMethodName());
+    regions = new ArrayList<>();
+    metrics = new ArrayList<>();
+    String[] keys = { "", "bbb", "ccc", "ddd", "eee", "" };
+    for (int i = 0; i < keys.length - 1; i++) {
+      RegionInfo hri = RegionInfoBuilder.newBuilder(tableName)
+          .setStartKey(Bytes.toBytes(keys[i])).setEndKey(Bytes.toBytes(keys[i + 1])).build();
+      RegionMetrics rm = Mockito.mock(RegionMetrics.class);
+      when(rm.getStoreFileSize()).thenReturn(new Size(10, Size.Unit.MEGABYTE));
+      when(rm.getStoreCount()).thenReturn(1);
+      when(rm.getStoreFileCount()).thenReturn(1);
+      when((Object) masterServices.getServerManager().getLoad(sn).getRegionMetrics()
+          .get(hri.getRegionName())).thenReturn(rm);
+      regions.add(hri);
+      metrics.add(rm);
+    }
+    when(masterServices.getAssignmentManager().getRegionStates().getRegionsOfTable(any()))
+        .thenReturn(regions);
+  }
+
+  @After
+  public void tearDown() {
+    EnvironmentEdgeManager.reset();
+  }
+
+  private void setRequests(int idx, long reads, long writes) {
+    when(metrics.get(idx).getReadRequestCount()).thenReturn(reads);
+    when(metrics.get(idx).getWriteRequestCount()).thenReturn(writes);
+  }
+
+  @Test
+  public void testNoPlanWithoutRate() throws Exception {
+    for (int i = 0; i < regions.size(); i++) {
+      setRequests(i, 0, 0);
+    }
+    assertNull(normalizer.computePlanForTable(regions.get(0).getTable()));
+  }
+
+  @Test
+  public void testSplitHotRegion() throws Exception {
+    for (int i = 0; i < regions.size(); i++) {
+      setRequests(i, 0, 0);
+    }
+    normalizer.computePlanForTable(regions.get(0).getTable());
+    edge.incValue(10000);
+    for (int i = 0; i < regions.size(); i++) {
+      setRequests(i, 1000, 1000);
+    }
+    setRequests(2, 1000, 100000);
+    List<NormalizationPlan> plans = normalizer.computePlanForTable(regions.get(0).getTable());
+    assertEquals(1, plans.size());
+    assertEquals(PlanType.SPLIT, plans.get(0).getType());
+    assertEquals(regions.get(2), ((SplitNormalizationPlan) plans.get(0)).getRegionInfo());
+  }
+
+  @Test
+  public void testForgetRegionsLeavingTheTable() throws Exception {
+    for (int i = 0; i < regions.size(); i++) {
+      setRequests(i, 0, 0);
+    }
+    TableName table = regions.get(0).getTable();
+    normalizer.computePlanForTable(table);
+    edge.incValue(10000);
+    for (int i = 0; i < regions.size(); i++) {
+      setRequests(i, 1000, 1000);
+    }
+    List<RegionInfo> withoutRegion2 = new ArrayList<>(regions);
+    withoutRegion2.remove(2);
+    when(masterServices.getAssignmentManager().getRegionStates().getRegionsOfTable(any()))
+        .thenReturn(withoutRegion2);
+    assertNull(normalizer.computePlanForTable(table));
+    edge.incValue(10000);
+    for (int i = 0; i < regions.size(); i++) {
+      setRequests(i, 2000, 2000);
+    }
+    setRequests(2, 1000, 100000);
+    when(masterServices.getAssignmentManager().getRegionStates().getRegionsOfTable(any()))
+        .thenReturn(regions);
+    // the counters of region 2 from the first run were dropped, it has no rate yet
+    assertNull(normalizer.computePlanForTable(table));
+  }
+
+  @Test
+  public void testStoreFilesAmplifyReadLoad() throws Exception {
+    for (int i = 0; i < regions.size(); i++) {
+      setRequests(i, 0, 0);
+    }
+    normalizer.computePlanForTable(regions.get(0).getTable());
+    edge.incValue(10000);
+    for (int i = 0; i < regions.size(); i++) {
+      setRequests(i, 1000, 0);
+    }
+    // same read rate everywhere, but every read of region 3 has to look at 10 files
+    when(metrics.get(3).getStoreFileCount()).thenReturn(10);
+    List<NormalizationPlan> plans = normalizer.computePlanForTable(regions.get(0).getTable());
+    assertEquals(1, plans.size());
+    assertEquals(regions.get(3), ((SplitNormalizationPlan) plans.get(0)).getRegionInfo());
+  }
+
+  @Test
+  public void testMergeColdRegionsAndLimitSplits() throws Exception {
+    for (int i = 0; i < regions.size(); i++) {
+      setRequests(i, 0, 0);
+    }
+    normalizer.computePlanForTable(regions.get(0).getTable());
+    edge.incValue(10000);
+    setRequests(0, 0, 0);
+    setRequests(1, 0, 0);
+    setRequests(2, 100000, 0);
+    setRequests(3, 100000, 0);
+    setRequests(4, 1000, 0);
+    when(metrics.get(0).getStoreFileSize()).thenReturn(new Size(1, Size.Unit.MEGABYTE));
+    when(metrics.get(1).getStoreFileSize()).thenReturn(new Size(1, Size.Unit.MEGABYTE));
+    List<NormalizationPlan> plans = normalizer.computePlanForTable(regions.get(0).getTable());
+    // both 2 and 3 are hot, but only one split may be outstanding
+    assertEquals(2, plans.size());
+    assertEquals(PlanType.SPLIT, plans.get(0).getType());
+    assertEquals(regions.get(2), ((SplitNormalizationPlan) plans.get(0)).getRegionInfo());
+    assertEquals(PlanType.MERGE, plans.get(1).getType());
+    assertEquals(regions.get(0), ((MergeNormalizationPlan) plans.get(1)).getFirstRegion());
+    assertEquals(regions.get(1), ((MergeNormalizationPlan) plans.get(1)).getSecondRegion());
+  }
+}
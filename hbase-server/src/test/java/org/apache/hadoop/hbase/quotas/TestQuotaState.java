@@ -81,6 +81,15 @@ public class TestQuotaState {
     assertThrottleException(quotaInfo.getTableLimiter(tableName), NUM_TABLE_THROTTLE);
   }
 
+  @Test
+  public void testRequestLimitPerSecond() {
+    QuotaState quotaInfo = new QuotaState();
+    assertEquals(Double.POSITIVE_INFINITY,
+      quotaInfo.getGlobalLimiter().getRequestLimitPerSecond(), 0);
+    quotaInfo.setQuotas(buildReqNumThrottle(120));
+    assertEquals(2, quotaInfo.getGlobalLimiter().getRequestLimitPerSecond(), 0.001);
+  }
+
   @Test
   public void testQuotaStateUpdateBypassThrottle() {
     final long LAST_UPDATE = 10;
@@ -18,6 +18,9 @@
 
 package org.apache.hadoop.hbase.regionserver;
 
+import java.util.Collections;
+import java.util.Map;
+
 public class MetricsRegionWrapperStub implements MetricsRegionWrapper {
   int replicaid = 0;
 
@@ -60,6 +63,16 @@ public class MetricsRegionWrapperStub implements MetricsRegionWrapper {
     return 102;
   }
 
+  @Override
+  public Map<String, Long> getNumStoreFilesByStoragePolicy() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public Map<String, Long> getStoreFileSizeByStoragePolicy() {
+    return Collections.emptyMap();
+  }
+
   @Override
   public long getStoreRefCount() {
     return 0;
@@ -173,6 +186,16 @@ public class MetricsRegionWrapperStub implements MetricsRegionWrapper {
     return 6;
   }
 
+  @Override
+  public long getRowLockWaitCount() {
+    return 0;
+  }
+
+  @Override
+  public long getRowLockWaitTime() {
+    return 0;
+  }
+
   @Override
   public long getTotalRequestCount() {
     return 0;
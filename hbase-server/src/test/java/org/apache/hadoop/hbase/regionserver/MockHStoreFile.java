@@ -103,6 +103,12 @@ public class MockHStoreFile extends HStoreFile {
     this.metadata.put(key, value);
   }
 
+  @Override
+  public String getFileStoragePolicy() {
+    byte[] b = getMetadataValue(STORAGE_POLICY_KEY);
+    return b == null ? null : Bytes.toString(b);
+  }
+
   void setTimeRangeTracker(TimeRangeTracker timeRangeTracker) {
     this.timeRangeTracker = timeRangeTracker;
   }
@@ -19,6 +19,7 @@ package org.apache.hadoop.hbase.regionserver;
 
 import static org.apache.hadoop.hbase.HBaseTestingUtility.fam1;
 import static org.apache.hadoop.hbase.HBaseTestingUtility.fam2;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -27,6 +28,7 @@ import static org.junit.Assert.fail;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Random;
@@ -39,6 +41,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.CompareOperator;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
 import org.apache.hadoop.hbase.HBaseClassTestRule;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
 import org.apache.hadoop.hbase.HColumnDescriptor;
@@ -272,6 +275,66 @@ public class TestAtomicOperation {
   }
 
 
+  /**
+   * Test multi-threaded increments and appends of a row applied together.
+   */
+  @Test
+  public void testCoalescedDeltasMultiThreads() throws Exception {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    conf.setBoolean(HRegion.COALESCE_DELTAS_KEY, true);
+    try {
+      initHRegion(tableName, name.getMethodName(), fam1);
+    } finally {
+      conf.unset(HRegion.COALESCE_DELTAS_KEY);
+    }
+    int numThreads = 20;
+    int deltasPerThread = 100;
+    List<Long> counts = Collections.synchronizedList(new ArrayList<>());
+    List<Integer> lengths = Collections.synchronizedList(new ArrayList<>());
+    TestContext ctx = new TestContext(conf);
+    for (int i = 0; i < numThreads; i++) {
+      ctx.addThread(new TestThread(ctx) {
+        @Override
+        public void doWork() throws Exception {
+          for (int j = 0; j < deltasPerThread; j++) {
+            Result result = region.increment(new Increment(row).addColumn(fam1, qual1, 1));
+            counts.add(Bytes.toLong(result.getValue(fam1, qual1)));
+            result = region.append(new Append(row).addColumn(fam1, qual2, Bytes.toBytes("a")));
+            lengths.add(result.getValue(fam1, qual2).length);
+          }
+        }
+      });
+    }
+    ctx.startThreads();
+    ctx.stop();
+
+    // each caller got the value it made, as if the deltas had been applied one by one
+    int total = numThreads * deltasPerThread;
+    Collections.sort(counts);
+    Collections.sort(lengths);
+    for (int i = 0; i < total; i++) {
+      assertEquals(i + 1, counts.get(i).longValue());
+      assertEquals(i + 1, lengths.get(i).intValue());
+    }
+    assertICV(row, fam1, qual1, total, false);
+    byte[] appended = new byte[total];
+    Arrays.fill(appended, (byte) 'a');
+    assertArrayEquals(appended, region.get(new Get(row).addColumn(fam1, qual2)).getValue(fam1,
+      qual2));
+
+    // a delta failing to reckon fails alone
+    region.put(new Put(row).addColumn(fam1, qual3, Bytes.toBytes("not a long")));
+    try {
+      region.increment(new Increment(row).addColumn(fam1, qual3, 1));
+      fail("Increment of a cell which is not a long should fail");
+    } catch (DoNotRetryIOException e) {
+      // expected
+    }
+    assertEquals(total + 1,
+      Bytes.toLong(region.increment(new Increment(row).addColumn(fam1, qual1, 1))
+          .getValue(fam1, qual1)));
+  }
+
   private void assertICV(byte [] row,
                          byte [] familiy,
                          byte[] qualifier,
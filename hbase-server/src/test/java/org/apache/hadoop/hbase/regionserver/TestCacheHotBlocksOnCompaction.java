@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.io.hfile.BlockCache;
+import org.apache.hadoop.hbase.io.hfile.BlockCacheFactory;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.CachedBlock;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Make sure a compaction caches on write only the output blocks which were hot in its input files,
+ * and evicts the blocks of the compacted files.
+ */
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestCacheHotBlocksOnCompaction {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestCacheHotBlocksOnCompaction.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final int ROWS = 500;
+
+  private BlockCache blockCache;
+  private HRegion region;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    conf.setBoolean(CacheConfig.CACHE_HOT_BLOCKS_ON_COMPACTION_KEY, true);
+    blockCache = BlockCacheFactory.createBlockCache(conf);
+    TableDescriptor td = TableDescriptorBuilder.newBuilder(TableName.valueOf("HotBlocks"))
+        .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(FAMILY).setBlocksize(1024)
+            .setBloomFilterType(BloomType.NONE).build())
+        .build();
+    RegionInfo info = RegionInfoBuilder.newBuilder(td.getTableName()).build();
+    region = HBaseTestingUtility.createRegionAndWAL(info,
+      TEST_UTIL.getDataTestDir("TestCacheHotBlocksOnCompaction"), conf, td, blockCache);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+    blockCache.shutdown();
+  }
+
+  private static byte[] row(int i) {
+    return Bytes.toBytes(String.format("row-%05d", i));
+  }
+
+  private void get(int i) throws Exception {
+    assertFalse(region.get(new Get(row(i))).isEmpty());
+  }
+
+  private Set<String> cachedFiles() {
+    Set<String> files = new HashSet<>();
+    for (CachedBlock block : blockCache) {
+      if (block.getBlockType().isData()) {
+        files.add(block.getFilename());
+      }
+    }
+    return files;
+  }
+
+  @Test
+  public void testHotBlocksCachedOnCompaction() throws Exception {
+    for (int file = 0; file < 2; file++) {
+      for (int i = file; i < ROWS; i += 2) {
+        region.put(new Put(row(i)).addColumn(FAMILY, QUALIFIER, new byte[64]));
+      }
+      region.flush(true);
+    }
+    HStore store = region.getStore(FAMILY);
+    Set<String> inputFiles = new HashSet<>();
+    for (HStoreFile file : store.getStorefiles()) {
+      inputFiles.add(file.getPath().getName());
+    }
+    // read the hot rows twice, so their blocks are promoted to multi access, and a cold row once
+    for (int round = 0; round < 2; round++) {
+      for (int i = 100; i < 110; i++) {
+        get(i);
+      }
+    }
+    get(400);
+    assertEquals(inputFiles, cachedFiles());
+
+    region.compact(true);
+    assertEquals(1, store.getStorefilesCount());
+    String outputFile = store.getStorefiles().iterator().next().getPath().getName();
+    // only the output blocks of the hot rows are cached, the input blocks are all gone
+    assertEquals(1, cachedFiles().size());
+    assertTrue(cachedFiles().contains(outputFile));
+    long cachedBlocks = blockCache.getBlockCount();
+    assertTrue(cachedBlocks > 0);
+    long dataBlocks = store.getStorefiles().iterator().next().getReader().getHFileReader()
+        .getTrailer().getDataIndexCount();
+    assertTrue(cachedBlocks < dataBlocks);
+
+    long misses = blockCache.getStats().getMissCount();
+    for (int i = 100; i < 110; i++) {
+      get(i);
+    }
+    assertEquals(misses, blockCache.getStats().getMissCount());
+    get(400);
+    assertTrue(blockCache.getStats().getMissCount() > misses);
+  }
+}
@@ -0,0 +1,178 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionConfiguration;
+import org.apache.hadoop.hbase.regionserver.compactions.DateTieredCompactionPolicy;
+import org.apache.hadoop.hbase.regionserver.compactions.DateTieredCompactionRequest;
+import org.apache.hadoop.hbase.regionserver.compactions.ExponentialCompactionWindowFactory;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.ManualEnvironmentEdge;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hbase.thirdparty.com.google.common.collect.ImmutableList;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestDateTieredCompactionPolicyStoragePolicy
+    extends AbstractTestDateTieredCompactionPolicy {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestDateTieredCompactionPolicyStoragePolicy.class);
+
+  @Override
+  protected void config() {
+    super.config();
+
+    // Set up policy
+    conf.set(StoreEngine.STORE_ENGINE_CLASS_KEY,
+      "org.apache.hadoop.hbase.regionserver.DateTieredStoreEngine");
+    conf.setLong(CompactionConfiguration.DATE_TIERED_MAX_AGE_MILLIS_KEY, 100);
+    conf.setLong(CompactionConfiguration.DATE_TIERED_INCOMING_WINDOW_MIN_KEY, 3);
+    conf.setLong(ExponentialCompactionWindowFactory.BASE_WINDOW_MILLIS_KEY, 6);
+    conf.setInt(ExponentialCompactionWindowFactory.WINDOWS_PER_TIER_KEY, 4);
+    conf.setBoolean(CompactionConfiguration.DATE_TIERED_SINGLE_OUTPUT_FOR_MINOR_COMPACTION_KEY,
+      false);
+
+    // Windows younger than 12 on SSD, younger than 48 on one SSD, the older ones on disks
+    conf.setBoolean(CompactionConfiguration.DATE_TIERED_STORAGE_POLICY_ENABLE_KEY, true);
+    conf.setLong(CompactionConfiguration.DATE_TIERED_HOT_WINDOW_AGE_MILLIS_KEY, 12);
+    conf.setLong(CompactionConfiguration.DATE_TIERED_WARM_WINDOW_AGE_MILLIS_KEY, 48);
+
+    // Special settings for compaction policy per window
+    this.conf.setInt(CompactionConfiguration.HBASE_HSTORE_COMPACTION_MIN_KEY, 2);
+    this.conf.setInt(CompactionConfiguration.HBASE_HSTORE_COMPACTION_MAX_KEY, 12);
+    this.conf.setFloat(CompactionConfiguration.HBASE_HSTORE_COMPACTION_RATIO_KEY, 1.2F);
+
+    conf.setInt(HStore.BLOCKING_STOREFILES_KEY, 20);
+    conf.setLong(HConstants.MAJOR_COMPACTION_PERIOD, 5);
+  }
+
+  private DateTieredCompactionRequest select(long now, ArrayList<HStoreFile> candidates,
+      boolean isMajor) throws IOException {
+    ManualEnvironmentEdge timeMachine = new ManualEnvironmentEdge();
+    EnvironmentEdgeManager.injectEdge(timeMachine);
+    timeMachine.setValue(now);
+    DateTieredCompactionPolicy policy =
+        (DateTieredCompactionPolicy) store.storeEngine.getCompactionPolicy();
+    if (isMajor) {
+      return (DateTieredCompactionRequest) policy.selectMajorCompaction(candidates);
+    }
+    return (DateTieredCompactionRequest) policy.selectMinorCompaction(candidates, false, false);
+  }
+
+  private static void setFileStoragePolicy(HStoreFile file, String policy) {
+    ((MockHStoreFile) file).setMetadataValue(HStoreFile.STORAGE_POLICY_KEY,
+      Bytes.toBytes(policy));
+  }
+
+  /**
+   * Major compaction writes each window with the storage policy of its age
+   * @throws IOException with error
+   */
+  @Test
+  public void majorCompaction() throws IOException {
+    long[] minTimestamps = new long[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
+    long[] maxTimestamps = new long[] { 44, 60, 61, 96, 100, 104, 105, 106, 113, 145, 157 };
+    long[] sizes = new long[] { 0, 50, 51, 40, 41, 42, 33, 30, 31, 2, 1 };
+
+    DateTieredCompactionRequest request =
+        select(161, sfCreate(minTimestamps, maxTimestamps, sizes), true);
+    Map<Long, String> expected = new HashMap<>();
+    for (long boundary : new long[] { Long.MIN_VALUE, 24, 48, 72, 96 }) {
+      expected.put(boundary, "HOT");
+    }
+    expected.put(120L, "ONE_SSD");
+    expected.put(144L, "ONE_SSD");
+    expected.put(150L, "ALL_SSD");
+    expected.put(156L, "ALL_SSD");
+    assertEquals(expected, request.getBoundariesPolicies());
+  }
+
+  /**
+   * A window compacted to two files keeps the older data out of its storage policy
+   * @throws IOException with error
+   */
+  @Test
+  public void minorCompaction() throws IOException {
+    long[] minTimestamps = new long[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
+    long[] maxTimestamps = new long[] { 44, 60, 61, 96, 100, 104, 120, 124, 143, 145, 157 };
+    long[] sizes = new long[] { 0, 50, 51, 40, 41, 42, 30, 31, 32, 2, 1 };
+
+    compactEquals(161, sfCreate(minTimestamps, maxTimestamps, sizes), new long[] { 30, 31, 32 },
+      new long[] { Long.MIN_VALUE, 120 }, false, true);
+    DateTieredCompactionRequest request =
+        select(161, sfCreate(minTimestamps, maxTimestamps, sizes), false);
+    Map<Long, String> expected = new HashMap<>();
+    expected.put(120L, "ONE_SSD");
+    assertEquals(expected, request.getBoundariesPolicies());
+  }
+
+  /**
+   * A window below the compaction threshold, written while younger, moves to its new tier
+   * @throws IOException with error
+   */
+  @Test
+  public void agedWindow() throws IOException {
+    long[] minTimestamps = new long[] { 0, 0, 0 };
+    long[] maxTimestamps = new long[] { 100, 130, 157 };
+    long[] sizes = new long[] { 40, 30, 1 };
+
+    ArrayList<HStoreFile> candidates = sfCreate(minTimestamps, maxTimestamps, sizes);
+    setFileStoragePolicy(candidates.get(0), "HOT");
+    setFileStoragePolicy(candidates.get(1), "ALL_SSD");
+    compactEquals(161, candidates, new long[] { 30 }, new long[] { Long.MIN_VALUE }, false, true);
+    Map<Long, String> expected = new HashMap<>();
+    expected.put(Long.MIN_VALUE, "ONE_SSD");
+    assertEquals(expected, select(161, candidates, false).getBoundariesPolicies());
+  }
+
+  /**
+   * Windows in the tier of their age, and files without a storage policy, stay where they are
+   * @throws IOException with error
+   */
+  @Test
+  public void windowInItsTier() throws IOException {
+    long[] minTimestamps = new long[] { 0, 0, 0 };
+    long[] maxTimestamps = new long[] { 100, 130, 157 };
+    long[] sizes = new long[] { 40, 30, 1 };
+
+    ArrayList<HStoreFile> candidates = sfCreate(minTimestamps, maxTimestamps, sizes);
+    setFileStoragePolicy(candidates.get(1), "ONE_SSD");
+    ManualEnvironmentEdge timeMachine = new ManualEnvironmentEdge();
+    EnvironmentEdgeManager.injectEdge(timeMachine);
+    timeMachine.setValue(161);
+    DateTieredCompactionPolicy policy =
+        (DateTieredCompactionPolicy) store.storeEngine.getCompactionPolicy();
+    assertFalse(policy.needsCompaction(candidates, ImmutableList.of()));
+  }
+}
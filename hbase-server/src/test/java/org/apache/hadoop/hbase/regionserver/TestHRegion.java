@@ -26,6 +26,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -1688,6 +1689,54 @@ public class TestHRegion {
     metricsAssertHelper.assertCounter("syncTimeNumOps", syncs, source);
   }
 
+  @Test
+  public void testRowLockTable() throws Exception {
+    this.region = initHRegion(tableName, method, CONF, COLUMN_FAMILY_BYTES);
+    List<RowLock> locks = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      locks.add(region.getRowLock(Bytes.toBytes("row_" + i)));
+    }
+    // reentrant locks share the context of the row
+    RowLock lock = region.getRowLock(Bytes.toBytes("row_" + 3));
+    assertSame(((HRegion.RowLockImpl) locks.get(3)).getContext(),
+      ((HRegion.RowLockImpl) lock).getContext());
+    assertEquals(1000, region.getLockedRows().size());
+    lock.release();
+    for (RowLock l : locks) {
+      l.release();
+    }
+    assertEquals(0, region.getLockedRows().size());
+
+    // a read lock on a row already locked by the caller is the previous lock
+    RowLock readLock = region.getRowLockInternal(Bytes.toBytes("row_" + 3), true, null);
+    assertSame(readLock,
+      region.getRowLockInternal(Bytes.toBytes("row_" + 3), true, readLock));
+    readLock.release();
+    assertEquals(0, region.getLockedRows().size());
+    assertEquals(0, region.getRowLockWaitCount());
+
+    // a writer waiting for the row is counted once it gets the lock
+    RowLock writeLock = region.getRowLock(Bytes.toBytes("row_" + 3));
+    CountDownLatch locked = new CountDownLatch(1);
+    Thread waiter = new Thread(() -> {
+      try {
+        region.getRowLock(Bytes.toBytes("row_" + 3)).release();
+        locked.countDown();
+      } catch (IOException e) {
+        LOG.error("Failed to get the row lock", e);
+      }
+    });
+    waiter.start();
+    Thread.sleep(100);
+    assertEquals(1, locked.getCount());
+    writeLock.release();
+    assertTrue(locked.await(10, TimeUnit.SECONDS));
+    waiter.join();
+    assertEquals(1, region.getRowLockWaitCount());
+    assertTrue(region.getRowLockWaitTime() >= 50);
+    assertEquals(0, region.getLockedRows().size());
+  }
+
   /**
    * @return syncs initial syncTimeNumOps
    */
@@ -3302,6 +3351,85 @@ public class TestHRegion {
     assertEquals(0, results.size());
   }
 
+  /**
+   * Test scan optimization when the filter only needs a few qualifiers of a family.
+   */
+  @Test
+  public void testScanner_JoinedScannersOfQualifiers() throws IOException {
+    this.region = initHRegion(tableName, method, CONF, fam1);
+    byte[] flag = Bytes.toBytes("flag");
+    byte[][] blobs = { Bytes.toBytes("a"), Bytes.toBytes("g"), Bytes.toBytes("z") };
+    for (int i = 0; i < 10; i++) {
+      Put put = new Put(Bytes.toBytes("row" + i));
+      put.addColumn(fam1, flag, Bytes.toBytes(i % 3 == 0));
+      for (byte[] blob : blobs) {
+        put.addColumn(fam1, blob, Bytes.toBytes(i));
+      }
+      region.put(put);
+    }
+    // a row missing the column the filter checks
+    region.put(new Put(Bytes.toBytes("row99")).addColumn(fam1, blobs[0], Bytes.toBytes(99)));
+    region.flush(true);
+
+    Scan scan = new Scan().setLoadColumnFamiliesOnDemand(true);
+    SingleColumnValueFilter filter =
+        new SingleColumnValueFilter(fam1, flag, CompareOperator.EQUAL, Bytes.toBytes(true));
+    filter.setFilterIfMissing(true);
+    scan.setFilter(filter);
+    try (RegionScannerImpl s = region.getScanner(scan)) {
+      assertNotNull(s.joinedHeap);
+      List<Cell> results = new ArrayList<>();
+      for (int i = 0; i < 10; i += 3) {
+        s.next(results);
+        assertEquals(4, results.size());
+        assertTrue(CellUtil.matchingRows(results.get(0), Bytes.toBytes("row" + i)));
+        assertTrue(CellUtil.matchingQualifier(results.get(0), blobs[0]));
+        assertTrue(CellUtil.matchingQualifier(results.get(1), flag));
+        assertTrue(CellUtil.matchingQualifier(results.get(2), blobs[1]));
+        assertTrue(CellUtil.matchingQualifier(results.get(3), blobs[2]));
+        results.clear();
+      }
+      assertFalse(s.next(results));
+      assertTrue(results.isEmpty());
+    }
+
+    // the column the filter checks is still excluded from the joined columns
+    filter = new SingleColumnValueExcludeFilter(fam1, flag, CompareOperator.EQUAL,
+        Bytes.toBytes(true));
+    filter.setFilterIfMissing(true);
+    scan.setFilter(filter);
+    try (RegionScannerImpl s = region.getScanner(scan)) {
+      List<Cell> results = new ArrayList<>();
+      s.next(results);
+      assertEquals(3, results.size());
+      for (int i = 0; i < blobs.length; i++) {
+        assertTrue(CellUtil.matchingQualifier(results.get(i), blobs[i]));
+      }
+    }
+
+    // no split when the scan limits the cells of a family, nor for gets
+    scan.setMaxResultsPerColumnFamily(2);
+    try (RegionScannerImpl s = region.getScanner(scan)) {
+      assertNull(s.joinedHeap);
+      List<Cell> results = new ArrayList<>();
+      s.next(results);
+      // the first two cells of the row, less the column the filter excludes
+      assertEquals(1, results.size());
+      assertTrue(CellUtil.matchingQualifier(results.get(0), blobs[0]));
+    }
+    scan.setMaxResultsPerColumnFamily(-1);
+    try (RegionScannerImpl s = region.getScanner(new Scan(new Get(Bytes.toBytes("row0")))
+        .setFilter(filter).setLoadColumnFamiliesOnDemand(true))) {
+      assertNull(s.joinedHeap);
+    }
+
+    // no split when the filter needs all the columns the scan reads
+    scan.addColumn(fam1, flag);
+    try (RegionScannerImpl s = region.getScanner(scan)) {
+      assertNull(s.joinedHeap);
+    }
+  }
+
   /**
    * HBASE-5416
    *
@@ -5783,6 +5911,34 @@ public class TestHRegion {
     assertEquals(0, store.getStoreFileCount()); // no store files
   }
 
+  @Test
+  public void testTryStartRegionOperation() throws Exception {
+    byte[] family = Bytes.toBytes("family");
+    region = initHRegion(tableName, method, CONF, family);
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread t = new Thread(() -> {
+      region.lock.writeLock().lock();
+      try {
+        locked.countDown();
+        release.await();
+      } catch (InterruptedException ie) {
+      } finally {
+        region.lock.writeLock().unlock();
+      }
+    });
+    t.start();
+    locked.await();
+    // does not wait for the write lock
+    assertFalse(region.tryStartRegionOperation());
+    release.countDown();
+    t.join();
+    assertTrue(region.tryStartRegionOperation());
+    region.closeRegionOperation(Region.Operation.GET);
+    region.setReadsEnabled(false);
+    assertFalse(region.tryStartRegionOperation());
+  }
+
   /**
    * Test RegionTooBusyException thrown when region is busy
    */
@@ -634,6 +634,48 @@ public class TestHStore {
     assertCheck();
   }
 
+  /**
+   * A get only opens scanners on the files which may have its row
+   */
+  @Test
+  public void testGetScannersForGet() throws IOException {
+    init(this.name.getMethodName());
+
+    this.store.add(new KeyValue(row, family, qf1, 1, (byte[])null), null);
+    this.store.add(new KeyValue(row2, family, qf1, 1, (byte[])null), null);
+    flush(1);
+    this.store.add(new KeyValue(row, family, qf2, 1, (byte[])null), null);
+    flush(2);
+    this.store.add(new KeyValue(row2, family, qf2, 1, (byte[])null), null);
+    flush(3);
+
+    // the second file is out of the key range of the get
+    assertEquals(2, countFileScannersForGet(row2));
+    // the key range of the first file has the row, its Bloom filter does not
+    assertEquals(0, countFileScannersForGet(Bytes.toBytes("row1")));
+
+    result = HBaseTestingUtility.getFromStoreFile(store, new Get(row2).addFamily(family));
+    assertEquals(2, result.size());
+  }
+
+  private int countFileScannersForGet(byte[] getRow) throws IOException {
+    Scan scan = new Scan(new Get(getRow).addFamily(family));
+    List<KeyValueScanner> scanners =
+        store.getScannersForGet(scan, true, true, null, Long.MIN_VALUE, Long.MAX_VALUE);
+    int count = 0;
+    for (KeyValueScanner scanner : scanners) {
+      if (scanner.isFileScanner()) {
+        count++;
+      }
+      scanner.close();
+    }
+    // the references taken to check the files are all released
+    for (HStoreFile sf : store.getStorefiles()) {
+      assertEquals(0, sf.getRefCount());
+    }
+    return count;
+  }
+
   private void flush(int storeFilessize) throws IOException{
     this.store.snapshot();
     flushStore(store, id++);
@@ -18,7 +18,11 @@
 package org.apache.hadoop.hbase.regionserver;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.hadoop.hbase.HBaseClassTestRule;
 import org.apache.hadoop.hbase.testclassification.RegionServerTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
@@ -49,4 +53,41 @@ public class TestMultiVersionConcurrencyControlBasic {
     mvcc.complete(writeEntry);
     assertEquals(readPoint + 2, mvcc.getWritePoint());
   }
+
+  @Test
+  public void testOutOfOrderCompletion() {
+    MultiVersionConcurrencyControl mvcc = new MultiVersionConcurrencyControl();
+    // more pending writes than the initial ring holds
+    List<MultiVersionConcurrencyControl.WriteEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      entries.add(mvcc.begin());
+    }
+    for (int i = entries.size() - 1; i > 0; i--) {
+      assertFalse(mvcc.complete(entries.get(i)));
+    }
+    assertEquals(0, mvcc.getReadPoint());
+    assertTrue(mvcc.complete(entries.get(0)));
+    assertEquals(200, mvcc.getReadPoint());
+    // the ring is reused once the read point passed its writes
+    for (int i = 0; i < 500; i++) {
+      mvcc.completeAndWait(mvcc.begin());
+    }
+    assertEquals(700, mvcc.getReadPoint());
+  }
+
+  @Test
+  public void testWaiterIsWokenByEarlierWrite() throws InterruptedException {
+    MultiVersionConcurrencyControl mvcc = new MultiVersionConcurrencyControl();
+    MultiVersionConcurrencyControl.WriteEntry first = mvcc.begin();
+    MultiVersionConcurrencyControl.WriteEntry second = mvcc.begin();
+    Thread waiter = new Thread(() -> mvcc.completeAndWait(second));
+    waiter.start();
+    waiter.join(100);
+    assertTrue(waiter.isAlive());
+    assertEquals(0, mvcc.getReadPoint());
+    mvcc.complete(first);
+    waiter.join(10000);
+    assertFalse(waiter.isAlive());
+    assertEquals(2, mvcc.getReadPoint());
+  }
 }
@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Make sure the stores of a region are flushed on the region server wide pool when
+ * {@link HRegionServer#STORE_FLUSH_THREADS} is set.
+ */
+@Category({ MediumTests.class, RegionServerTests.class })
+public class TestParallelStoreFlush {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestParallelStoreFlush.class);
+
+  private static final HBaseTestingUtility UTIL = new HBaseTestingUtility();
+
+  private static final TableName TABLE_NAME = TableName.valueOf("ParallelStoreFlush");
+
+  private static final byte[][] FAMILIES =
+      { Bytes.toBytes("f1"), Bytes.toBytes("f2"), Bytes.toBytes("f3"), Bytes.toBytes("f4") };
+
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    UTIL.getConfiguration().setInt(HRegionServer.STORE_FLUSH_THREADS, 2);
+    UTIL.startMiniCluster(1);
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    UTIL.shutdownMiniCluster();
+  }
+
+  @Test
+  public void testFlushUsesSharedPool() throws Exception {
+    try (Table table = UTIL.createTable(TABLE_NAME, FAMILIES)) {
+      for (int i = 0; i < 3; i++) {
+        Put put = new Put(Bytes.toBytes(i));
+        for (byte[] family : FAMILIES) {
+          put.addColumn(family, QUALIFIER, Bytes.toBytes(i));
+        }
+        table.put(put);
+      }
+      HRegionServer rs = UTIL.getRSForFirstRegionInTable(TABLE_NAME);
+      ThreadPoolExecutor pool = rs.getStoreFlushPool().get();
+      long completed = pool.getCompletedTaskCount();
+
+      UTIL.flush(TABLE_NAME);
+
+      // the flushing thread flushes the first store, the pool the three others
+      UTIL.waitFor(10000, () -> pool.getCompletedTaskCount() >= completed + 3);
+      HRegion region = UTIL.getHBaseCluster().getRegions(TABLE_NAME).get(0);
+      for (byte[] family : FAMILIES) {
+        assertEquals(1, region.getStore(family).getStorefilesCount());
+      }
+      assertEquals(0, region.getMemStoreDataSize());
+      for (int i = 0; i < 3; i++) {
+        Result result = table.get(new Get(Bytes.toBytes(i)));
+        for (byte[] family : FAMILIES) {
+          assertEquals(i, Bytes.toInt(result.getValue(family, QUALIFIER)));
+        }
+      }
+    }
+  }
+}
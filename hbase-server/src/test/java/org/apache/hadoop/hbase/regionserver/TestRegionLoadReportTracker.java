@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.ServerMetrics;
+import org.apache.hadoop.hbase.ServerMetricsBuilder;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.hbase.thirdparty.com.google.protobuf.ByteString;
+
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClusterStatusProtos.RegionLoad;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.ClusterStatusProtos.ServerLoad;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.RegionSpecifier;
+import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.RegionSpecifier.RegionSpecifierType;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestRegionLoadReportTracker {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestRegionLoadReportTracker.class);
+
+  private static final ServerName SN = ServerName.valueOf("localhost,1,1");
+
+  private RegionLoadReportTracker tracker;
+
+  @Before
+  public void setUp() {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setBoolean(RegionLoadReportTracker.DELTA_REPORT_ENABLED_KEY, true);
+    conf.setLong(RegionLoadReportTracker.FULL_REPORT_INTERVAL_KEY, 1000);
+    tracker = new RegionLoadReportTracker(conf);
+  }
+
+  private static RegionLoad regionLoad(String name, long reads) {
+    return RegionLoad.newBuilder()
+        .setRegionSpecifier(RegionSpecifier.newBuilder()
+            .setType(RegionSpecifierType.REGION_NAME).setValue(ByteString.copyFromUtf8(name)))
+        .setStores(1).setStorefiles(1).setReadRequestsCount(reads).build();
+  }
+
+  private static ServerLoad serverLoad(RegionLoad... regionLoads) {
+    ServerLoad.Builder builder = ServerLoad.newBuilder();
+    for (RegionLoad regionLoad : regionLoads) {
+      builder.addRegionLoads(regionLoad);
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    RegionLoadReportTracker disabled = new RegionLoadReportTracker(HBaseConfiguration.create());
+    ServerLoad load = serverLoad(regionLoad("a", 1));
+    disabled.reportSucceeded(false, 0);
+    assertSame(load, disabled.toReport(load, 0));
+    disabled.reportSucceeded(false, 0);
+    assertSame(load, disabled.toReport(load, 1));
+  }
+
+  @Test
+  public void testDeltaAppliedOnMaster() {
+    ServerLoad full = serverLoad(regionLoad("a", 1), regionLoad("b", 1), regionLoad("c", 1));
+    ServerLoad report = tracker.toReport(full, 0);
+    assertFalse(report.getRegionLoadsDelta());
+    tracker.reportSucceeded(false, 0);
+    ServerMetrics onMaster = ServerMetricsBuilder.toServerMetrics(SN, 0, "0.0.0", report, null);
+
+    // b changed, c went away, d is new
+    report = tracker.toReport(
+      serverLoad(regionLoad("a", 1), regionLoad("b", 5), regionLoad("d", 1)), 100);
+    assertTrue(report.getRegionLoadsDelta());
+    assertEquals(2, report.getRegionLoadsCount());
+    assertEquals(1, report.getRemovedRegionNamesCount());
+    tracker.reportSucceeded(false, 100);
+    onMaster = ServerMetricsBuilder.toServerMetrics(SN, 0, "0.0.0", report, onMaster);
+
+    assertEquals(3, onMaster.getRegionMetrics().size());
+    assertEquals(1, onMaster.getRegionMetrics().get(Bytes.toBytes("a")).getReadRequestCount());
+    assertEquals(5, onMaster.getRegionMetrics().get(Bytes.toBytes("b")).getReadRequestCount());
+    assertNull(onMaster.getRegionMetrics().get(Bytes.toBytes("c")));
+    assertEquals(1, onMaster.getRegionMetrics().get(Bytes.toBytes("d")).getReadRequestCount());
+  }
+
+  @Test
+  public void testFullReportAfterFailureIntervalOrRequest() {
+    ServerLoad full = serverLoad(regionLoad("a", 1), regionLoad("b", 1));
+    tracker.toReport(full, 0);
+    tracker.reportSucceeded(false, 0);
+    assertTrue(tracker.toReport(full, 100).getRegionLoadsDelta());
+    tracker.reportFailed();
+    assertFalse(tracker.toReport(full, 200).getRegionLoadsDelta());
+    tracker.reportSucceeded(false, 200);
+    assertTrue(tracker.toReport(full, 300).getRegionLoadsDelta());
+    tracker.reportSucceeded(true, 300);
+    assertFalse(tracker.toReport(full, 400).getRegionLoadsDelta());
+    tracker.reportSucceeded(false, 400);
+    assertTrue(tracker.toReport(full, 500).getRegionLoadsDelta());
+    tracker.reportSucceeded(false, 500);
+    // the full report interval elapsed
+    assertFalse(tracker.toReport(full, 1400).getRegionLoadsDelta());
+  }
+}
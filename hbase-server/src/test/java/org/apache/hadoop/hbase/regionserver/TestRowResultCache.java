@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.filter.ColumnPrefixFilter;
+import org.apache.hadoop.hbase.filter.RandomRowFilter;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+@Category({ RegionServerTests.class, MediumTests.class })
+public class TestRowResultCache {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestRowResultCache.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = HBaseTestingUtility.createLocalHTU();
+
+  private static final byte[] CACHED = Bytes.toBytes("cached");
+  private static final byte[] UNCACHED = Bytes.toBytes("uncached");
+  private static final byte[] EXPIRING = Bytes.toBytes("expiring");
+  private static final byte[] ROW = Bytes.toBytes("row");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  @Rule
+  public TestName name = new TestName();
+
+  private HRegion region;
+
+  @Before
+  public void setUp() throws IOException {
+    TableDescriptor htd = TableDescriptorBuilder.newBuilder(TableName.valueOf(name.getMethodName()))
+        .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(CACHED)
+            .setRowCacheEnabled(true).setMaxVersions(3).build())
+        .setColumnFamily(ColumnFamilyDescriptorBuilder.of(UNCACHED))
+        .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(EXPIRING)
+            .setRowCacheEnabled(true).setTimeToLive(3600).build())
+        .build();
+    region = TEST_UTIL.createLocalHRegion(htd, null, null);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+  }
+
+  private void put(byte[] family, long value) throws IOException {
+    region.put(new Put(ROW).addColumn(family, QUALIFIER, Bytes.toBytes(value)));
+  }
+
+  private long get(byte[] family) throws IOException {
+    return Bytes.toLong(region.get(new Get(ROW).addFamily(family)).getValue(family, QUALIFIER));
+  }
+
+  @Test
+  public void testInvalidatedByWrites() throws IOException {
+    RowResultCache cache = region.getRowResultCache();
+    put(CACHED, 1);
+    assertEquals(1, get(CACHED));
+    assertEquals(0, cache.getHitCount());
+    assertEquals(1, get(CACHED));
+    assertEquals(1, cache.getHitCount());
+
+    put(CACHED, 2);
+    assertEquals(2, get(CACHED));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, get(CACHED));
+    assertEquals(2, cache.getHitCount());
+
+    region.increment(new Increment(ROW).addColumn(CACHED, QUALIFIER, 1));
+    assertEquals(3, get(CACHED));
+    assertEquals(3, get(CACHED));
+    assertEquals(3, cache.getHitCount());
+
+    region.delete(new Delete(ROW));
+    assertEquals(0, region.get(new Get(ROW).addFamily(CACHED)).size());
+    assertEquals(0, region.get(new Get(ROW).addFamily(CACHED)).size());
+    assertEquals(4, cache.getHitCount());
+
+    cache.invalidateAll();
+    assertEquals(0, cache.heapSize());
+  }
+
+  @Test
+  public void testUncachedGets() throws IOException {
+    RowResultCache cache = region.getRowResultCache();
+    assertNotNull(cache.getKey(new Get(ROW).addFamily(CACHED)));
+    assertNotNull(cache.getKey(
+      new Get(ROW).addFamily(CACHED).setFilter(new ColumnPrefixFilter(QUALIFIER))));
+    assertNull(cache.getKey(new Get(ROW).addFamily(UNCACHED)));
+    assertNull(cache.getKey(new Get(ROW).addFamily(EXPIRING)));
+    assertNull(cache.getKey(new Get(ROW).addFamily(CACHED).addFamily(UNCACHED)));
+    assertNull(cache.getKey(new Get(ROW).addFamily(CACHED).setFilter(new RandomRowFilter(1))));
+
+    put(UNCACHED, 1);
+    assertEquals(1, get(UNCACHED));
+    assertEquals(1, get(UNCACHED));
+    assertEquals(0, cache.getHitCount());
+    assertEquals(0, cache.heapSize());
+  }
+
+  @Test
+  public void testCellsWithTTLNotCached() throws IOException {
+    RowResultCache cache = region.getRowResultCache();
+    region.put(new Put(ROW).addColumn(CACHED, QUALIFIER, Bytes.toBytes(1L)).setTTL(3600000));
+    assertEquals(1, get(CACHED));
+    assertEquals(1, get(CACHED));
+    assertEquals(0, cache.getHitCount());
+    assertEquals(0, cache.heapSize());
+
+    put(CACHED, 2);
+    assertEquals(2, get(CACHED));
+    assertEquals(2, get(CACHED));
+    assertEquals(1, cache.getHitCount());
+    assertTrue(cache.heapSize() > 0);
+    assertTrue(region.heapSize() >= HRegion.DEEP_OVERHEAD + cache.heapSize());
+  }
+
+  @Test
+  public void testKeyedByTheWholeGet() throws IOException {
+    RowResultCache cache = region.getRowResultCache();
+    put(CACHED, 1);
+    put(CACHED, 2);
+    Get latest = new Get(ROW).addFamily(CACHED);
+    Get all = new Get(ROW).addFamily(CACHED).readAllVersions();
+    assertEquals(1, region.get(latest).size());
+    assertEquals(1, region.get(latest).size());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, region.get(all).size());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, region.get(all).size());
+    assertEquals(2, cache.getHitCount());
+  }
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+/**
+ * Make sure a snapshot is only streamed into the flushed file when the store scanner would keep
+ * all of its cells.
+ */
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestStreamingStoreFlush {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestStreamingStoreFlush.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+
+  @Rule
+  public TestName name = new TestName();
+
+  private HRegion region;
+
+  @After
+  public void tearDown() throws IOException {
+    if (region != null) {
+      HBaseTestingUtility.closeRegionAndWAL(region);
+    }
+  }
+
+  private HStore createStore(Configuration conf) throws IOException {
+    TableDescriptor td = TableDescriptorBuilder.newBuilder(TableName.valueOf(name.getMethodName()))
+        .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(FAMILY).setMaxVersions(2).build())
+        .build();
+    RegionInfo info = RegionInfoBuilder.newBuilder(td.getTableName()).build();
+    region = HBaseTestingUtility.createRegionAndWAL(info,
+      TEST_UTIL.getDataTestDir(name.getMethodName()), conf, td);
+    return region.getStore(FAMILY);
+  }
+
+  private static ImmutableSegment getStreamableSegment(HStore store) {
+    return store.storeEngine.getStoreFlusher().getStreamableSegment(store.memstore.snapshot());
+  }
+
+  private static void put(HRegion region, int row, int qualifier, long ts) throws IOException {
+    region.put(new Put(Bytes.toBytes(row)).addColumn(FAMILY, Bytes.toBytes(qualifier), ts,
+      Bytes.toBytes(row)));
+  }
+
+  private static long flushedEntries(HRegion region, HStore store) throws IOException {
+    region.flush(true);
+    assertEquals(1, store.getStorefilesCount());
+    return store.getStorefiles().iterator().next().getReader().getEntries();
+  }
+
+  @Test
+  public void testPutsAreStreamed() throws IOException {
+    HStore store = createStore(TEST_UTIL.getConfiguration());
+    for (int row = 0; row < 3; row++) {
+      for (int qualifier = 0; qualifier < 2; qualifier++) {
+        put(region, row, qualifier, 1);
+        put(region, row, qualifier, 2);
+      }
+    }
+    assertNotNull(getStreamableSegment(store));
+    assertEquals(12, flushedEntries(region, store));
+    for (int row = 0; row < 3; row++) {
+      assertEquals(2, region.get(new Get(Bytes.toBytes(row))).size());
+    }
+  }
+
+  @Test
+  public void testVersionsOverMaxAreScanned() throws IOException {
+    HStore store = createStore(TEST_UTIL.getConfiguration());
+    for (long ts = 1; ts <= 3; ts++) {
+      put(region, 0, 0, ts);
+    }
+    assertNull(getStreamableSegment(store));
+    assertEquals(2, flushedEntries(region, store));
+  }
+
+  @Test
+  public void testDeletesAreScanned() throws IOException {
+    HStore store = createStore(TEST_UTIL.getConfiguration());
+    put(region, 0, 0, 1);
+    put(region, 1, 0, 1);
+    region.delete(new Delete(Bytes.toBytes(0)).addColumns(FAMILY, Bytes.toBytes(0), 1));
+    assertNull(getStreamableSegment(store));
+    // the delete marker stays, the put it covers is dropped
+    assertEquals(2, flushedEntries(region, store));
+    assertEquals(0, region.get(new Get(Bytes.toBytes(0))).size());
+    assertEquals(1, region.get(new Get(Bytes.toBytes(1))).size());
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    Configuration conf = HBaseConfiguration.create(TEST_UTIL.getConfiguration());
+    conf.setBoolean(StoreFlusher.STREAMING_FLUSH_ENABLED_KEY, false);
+    HStore store = createStore(conf);
+    put(region, 0, 0, 1);
+    assertNull(getStreamableSegment(store));
+    assertEquals(1, flushedEntries(region, store));
+  }
+}
@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.Coprocessor;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.coprocessor.ObserverContext;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessor;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.coprocessor.RegionObserver;
+import org.apache.hadoop.hbase.regionserver.DefaultStoreEngine;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.RegionCoprocessorHost;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.regionserver.ScanType;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestKeyRangeParallelCompactor {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestKeyRangeParallelCompactor.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final int ROWS = 1000;
+
+  private HRegion region;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    conf.set(DefaultStoreEngine.DEFAULT_COMPACTOR_CLASS_KEY,
+      KeyRangeParallelCompactor.class.getName());
+    conf.setInt(KeyRangeParallelCompactor.PARALLELISM_KEY, 4);
+    conf.setLong(KeyRangeParallelCompactor.PARALLEL_MIN_SIZE_KEY, 0);
+    TableDescriptor td = TableDescriptorBuilder.newBuilder(TableName.valueOf("ParallelCompaction"))
+        .setColumnFamily(ColumnFamilyDescriptorBuilder.newBuilder(FAMILY).setBlocksize(1024)
+            .setMaxVersions(2).build())
+        .build();
+    RegionInfo info = RegionInfoBuilder.newBuilder(td.getTableName()).build();
+    region = HBaseTestingUtility.createRegionAndWAL(info,
+      TEST_UTIL.getDataTestDir("TestKeyRangeParallelCompactor"), conf, td);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+  }
+
+  private static byte[] row(int i) {
+    return Bytes.toBytes(String.format("row-%05d", i));
+  }
+
+  /**
+   * Counts the compaction scanners it is asked to wrap.
+   */
+  public static class CompactionScannerCounter implements RegionCoprocessor, RegionObserver {
+
+    static final AtomicInteger SCANNERS = new AtomicInteger();
+
+    @Override
+    public Optional<RegionObserver> getRegionObserver() {
+      return Optional.of(this);
+    }
+
+    @Override
+    public InternalScanner preCompact(ObserverContext<RegionCoprocessorEnvironment> c,
+        Store store, InternalScanner scanner, ScanType scanType,
+        CompactionLifeCycleTracker tracker, CompactionRequest request) {
+      SCANNERS.incrementAndGet();
+      return scanner;
+    }
+  }
+
+  private void loadRows() throws Exception {
+    // three versions of each row, the last one deleted for every tenth row
+    for (int version = 0; version < 3; version++) {
+      for (int i = 0; i < ROWS; i++) {
+        region.put(new Put(row(i)).addColumn(FAMILY, QUALIFIER, version + 1,
+          Bytes.toBytes(version)));
+      }
+      region.flush(true);
+    }
+    for (int i = 0; i < ROWS; i += 10) {
+      region.delete(new Delete(row(i)).addColumn(FAMILY, QUALIFIER, 3));
+    }
+    region.flush(true);
+  }
+
+  @Test
+  public void testCoprocessorHooksOncePerCompaction() throws Exception {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    RegionCoprocessorHost host = new RegionCoprocessorHost(region, null, conf);
+    host.load(CompactionScannerCounter.class, Coprocessor.PRIORITY_USER, conf);
+    region.setCoprocessorHost(host);
+    loadRows();
+    CompactionScannerCounter.SCANNERS.set(0);
+
+    region.compact(true);
+    // compacted by a single thread, through a single scanner
+    assertEquals(1, CompactionScannerCounter.SCANNERS.get());
+    assertEquals(1, region.getStore(FAMILY).getStorefilesCount());
+  }
+
+  @Test
+  public void testCompactInKeyRanges() throws Exception {
+    loadRows();
+
+    region.compact(true);
+    HStore store = region.getStore(FAMILY);
+    int files = store.getStorefilesCount();
+    assertTrue("Expected several files but got " + files, files > 1 && files <= 4);
+    // the files hold disjoint row ranges
+    List<HStoreFile> sorted = new ArrayList<>(store.getStorefiles());
+    sorted.sort(Comparator.comparing(f -> CellUtil.cloneRow(f.getFirstKey().get()),
+      Bytes.BYTES_COMPARATOR));
+    for (int i = 1; i < sorted.size(); i++) {
+      assertTrue(Bytes.compareTo(CellUtil.cloneRow(sorted.get(i - 1).getLastKey().get()),
+        CellUtil.cloneRow(sorted.get(i).getFirstKey().get())) < 0);
+    }
+    assertEquals(ROWS * 2, store.getCompactionProgress().getTotalCompactingKVs());
+
+    try (RegionScanner scanner = region.getScanner(new Scan().readAllVersions())) {
+      List<Cell> cells = new ArrayList<>();
+      for (int i = 0; i < ROWS; i++) {
+        cells.clear();
+        scanner.next(cells);
+        assertEquals(2, cells.size());
+        assertArrayEquals(row(i), CellUtil.cloneRow(cells.get(0)));
+        int newest = i % 10 == 0 ? 1 : 2;
+        assertEquals(newest, Bytes.toInt(CellUtil.cloneValue(cells.get(0))));
+        assertEquals(newest - 1, Bytes.toInt(CellUtil.cloneValue(cells.get(1))));
+      }
+      cells.clear();
+      scanner.next(cells);
+      assertTrue(cells.isEmpty());
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.compactions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseClassTestRule;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreConfigInformation;
+import org.apache.hadoop.hbase.regionserver.StoreFileReader;
+import org.apache.hadoop.hbase.regionserver.StoreReadStatistics;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.ManualEnvironmentEdge;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestReadAmplificationCompactionPolicy {
+
+  @ClassRule
+  public static final HBaseClassTestRule CLASS_RULE =
+      HBaseClassTestRule.forClass(TestReadAmplificationCompactionPolicy.class);
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final long MB = 1024 * 1024;
+
+  private ManualEnvironmentEdge edge;
+  private StoreReadStatistics stats;
+  private Configuration conf;
+  private ReadAmplificationCompactionPolicy policy;
+
+  @Before
+  public void setUp() {
+    edge = new ManualEnvironmentEdge();
+    edge.setValue(1000);
+    EnvironmentEdgeManager.injectEdge(edge);
+    conf = HBaseConfiguration.create();
+    conf.setLong(CompactionConfiguration.HBASE_HSTORE_COMPACTION_MIN_SIZE_KEY, 1);
+    stats = new StoreReadStatistics();
+    policy = createPolicy(HConstants.DEFAULT_BLOCKSIZE);
+  }
+
+  private ReadAmplificationCompactionPolicy createPolicy(int blockSize) {
+    StoreConfigInformation storeConfigInfo = mock(StoreConfigInformation.class);
+    when(storeConfigInfo.getReadStatistics()).thenReturn(stats);
+    when(storeConfigInfo.getBlockSize()).thenReturn(blockSize);
+    return new ReadAmplificationCompactionPolicy(conf, storeConfigInfo);
+  }
+
+  @After
+  public void tearDown() {
+    EnvironmentEdgeManager.reset();
+  }
+
+  private static List<HStoreFile> files(long... sizes) {
+    List<HStoreFile> files = new ArrayList<>();
+    for (long size : sizes) {
+      StoreFileReader reader = mock(StoreFileReader.class);
+      when(reader.length()).thenReturn(size);
+      HStoreFile file = mock(HStoreFile.class);
+      when(file.getReader()).thenReturn(reader);
+      files.add(file);
+    }
+    return files;
+  }
+
+  private List<HStoreFile> select(List<HStoreFile> candidates) {
+    return policy.applyCompactionPolicy(candidates, false, false, 3, 10);
+  }
+
+  @Test
+  public void testWriteOnlyStoreKeepsRatio() {
+    List<HStoreFile> candidates = files(100 * MB, 10 * MB, 10 * MB);
+    edge.incValue(ReadAmplificationCompactionPolicy.DEFAULT_SAMPLE_PERIOD);
+    assertTrue(select(candidates).isEmpty());
+  }
+
+  @Test
+  public void testScannedStoreCompactsOutOfRatio() {
+    List<HStoreFile> candidates = files(100 * MB, 10 * MB, 10 * MB);
+    // 1000 scans per second opening all three files
+    for (int i = 0; i < 60000; i++) {
+      stats.recordRead(3);
+    }
+    edge.incValue(ReadAmplificationCompactionPolicy.DEFAULT_SAMPLE_PERIOD);
+    assertEquals(candidates, select(candidates));
+    assertEquals(2, policy.getStoreFileReadsSaved(3, 3), 0.001);
+    // the smaller files save most reads per byte
+    candidates = files(100 * MB, 10 * MB, 10 * MB, 10 * MB);
+    assertEquals(candidates.subList(1, 4), select(candidates));
+  }
+
+  @Test
+  public void testSmallBlocksDoNotPayBack() {
+    // each read saved only saves reading a 1KB block
+    policy = createPolicy(1024);
+    List<HStoreFile> candidates = files(100 * MB, 10 * MB, 10 * MB);
+    // 10 scans per second opening all three files
+    for (int i = 0; i < 600; i++) {
+      stats.recordRead(3);
+    }
+    edge.incValue(ReadAmplificationCompactionPolicy.DEFAULT_SAMPLE_PERIOD);
+    assertTrue(select(candidates).isEmpty());
+    // the same reads of 64KB blocks pay the compaction back
+    policy = createPolicy(HConstants.DEFAULT_BLOCKSIZE);
+    for (int i = 0; i < 600; i++) {
+      stats.recordRead(3);
+    }
+    edge.incValue(ReadAmplificationCompactionPolicy.DEFAULT_SAMPLE_PERIOD);
+    assertEquals(candidates, select(candidates));
+  }
+
+  @Test
+  public void testBloomFilteredGetsDoNotPayBack() {
+    List<HStoreFile> candidates = files(100 * MB, 10 * MB, 10 * MB);
+    // 10 gets per second, each finding its row in one file, the Bloom filters of the two others
+    // letting one get in a hundred through
+    for (int i = 0; i < 600; i++) {
+      stats.recordBloomFilterNegative();
+      if (i % 100 == 0) {
+        stats.recordRead(2);
+        stats.recordBloomFilterFalsePositive();
+      } else {
+        stats.recordRead(1);
+        stats.recordBloomFilterNegative();
+      }
+    }
+    edge.incValue(ReadAmplificationCompactionPolicy.DEFAULT_SAMPLE_PERIOD);
+    assertTrue(select(candidates).isEmpty());
+    assertEquals(0.01, policy.getStoreFileReadsSaved(3, 3), 0.001);
+  }
+
+  @Test
+  public void testReadPathRecordsStatistics() throws Exception {
+    byte[] family = Bytes.toBytes("f");
+    TableDescriptor td = TableDescriptorBuilder.newBuilder(TableName.valueOf("ReadStatistics"))
+        .setColumnFamily(
+          ColumnFamilyDescriptorBuilder.newBuilder(family).setBloomFilterType(BloomType.ROW).build())
+        .build();
+    RegionInfo info = RegionInfoBuilder.newBuilder(td.getTableName()).build();
+    EnvironmentEdgeManager.reset();
+    HRegion region = HBaseTestingUtility.createRegionAndWAL(info,
+      TEST_UTIL.getDataTestDir("TestReadAmplificationCompactionPolicy"),
+      TEST_UTIL.getConfiguration(), td);
+    try {
+      // two files with overlapping key ranges, the get only finds its row in the first one
+      for (int i = 0; i < 2; i++) {
+        region.put(new Put(Bytes.toBytes(i)).addColumn(family, family, Bytes.toBytes(i)));
+        region.put(new Put(Bytes.toBytes(i + 2)).addColumn(family, family, Bytes.toBytes(i)));
+        region.flush(true);
+      }
+      region.get(new Get(Bytes.toBytes(2)));
+      StoreReadStatistics readStatistics = region.getStore(family).getReadStatistics();
+      assertEquals(1, readStatistics.getReadCount());
+      assertEquals(1, readStatistics.getBloomFilterNegativeCount()
+          + readStatistics.getBloomFilterFalsePositiveCount());
+      assertEquals(1 + readStatistics.getBloomFilterFalsePositiveCount(),
+        readStatistics.getStoreFilesReadCount());
+    } finally {
+      HBaseTestingUtility.closeRegionAndWAL(region);
+    }
+  }
+}